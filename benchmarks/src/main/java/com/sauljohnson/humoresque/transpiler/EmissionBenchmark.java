@@ -0,0 +1,68 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.HahaTokenizer;
+import com.sauljohnson.humoresque.parser.Token;
+import com.sauljohnson.humoresque.parser.TokenizationException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the token and annotation appenders used throughout emission. This lives in the transpiler package so that
+ * it can reach them. With the GC profiler attached, allocation per operation should be close to zero.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmissionBenchmark {
+
+    @Param({"4", "64", "1024"})
+    public int annotationLength;
+
+    private Token[] tokens;
+
+    private Token[] annotationTokens;
+
+    private StringBuilder sb;
+
+    @Setup
+    public void setup() throws TokenizationException {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < annotationLength; i++) {
+            if (i > 0) {
+                source.append(" /\\ ");
+            }
+            source.append(i % 2 == 0 ? "ans" : "n").append(" >= ").append(i);
+        }
+        tokens = new HahaTokenizer().tokenize(source.toString());
+        annotationTokens = new HahaTokenizer().tokenize("{ " + source + " }");
+        sb = new StringBuilder();
+    }
+
+    @Benchmark
+    public StringBuilder appendTokens() {
+        sb.setLength(0); // Reuse the builder, as emission does, so only emission itself allocates.
+        JavaTranspiler.appendTokens(sb, tokens, false);
+        return sb;
+    }
+
+    @Benchmark
+    public StringBuilder appendTokensTransformed() {
+        sb.setLength(0);
+        JavaTranspiler.appendTokens(sb, tokens, true);
+        return sb;
+    }
+
+    @Benchmark
+    public StringBuilder appendAnnotation() {
+        sb.setLength(0);
+        JavaTranspiler.appendAnnotation(sb, annotationTokens);
+        return sb;
+    }
+}
@@ -0,0 +1,179 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.parser.*;
+import com.sauljohnson.humoresque.parser.model.Function;
+import com.sauljohnson.humoresque.parser.model.Program;
+import com.sauljohnson.humoresque.transpiler.BytecodeTranspiler;
+import com.sauljohnson.humoresque.transpiler.JavaTranspiler;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Checks that programs compiled straight to bytecode behave exactly as their Java output does once compiled by the
+ * Java compiler, exiting with a non-zero status if they do not.
+ *
+ * Generated programs of several shapes are compiled both ways with and without optimization and contract checks, and
+ * every function is called over a grid of arguments. Each call must return the same value, leave its array argument
+ * holding the same elements and throw the same kind of exception, if any.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+public final class BytecodeCheck {
+
+    /**
+     * The smallest and largest value passed for each integer argument.
+     */
+    private static final int ARGUMENT_RANGE = 6;
+
+    private static final Tokenizer tokenizer = new HahaTokenizer();
+
+    private static final TokenStreamTransformer transformer = new ConsecutiveTokenFilter(TokenType.PUNCTUATOR);
+
+    private static int classes;
+
+    private BytecodeCheck() { }
+
+    /**
+     * Compiles the Java output for a program with the Java compiler and loads the resulting class.
+     *
+     * @param program       the program
+     * @param optimize      whether or not to optimize function bodies
+     * @param contracts     whether or not to emit contract checks
+     * @return              the loaded class
+     * @throws Exception    if the output could not be compiled or loaded
+     */
+    private static Class<?> compileJava(Program program, boolean optimize, boolean contracts) throws Exception {
+        JavaTranspiler transpiler = new JavaTranspiler();
+        transpiler.setOptimize(optimize);
+        transpiler.setContracts(contracts);
+        String name = "Java" + classes++;
+        String body = transpiler.transpile(program)
+                .replaceAll("(?m)^(int|boolean|int\\[]|boolean\\[]) (\\w+)\\(", "public static $1 $2(");
+
+        // Compile to a temporary directory.
+        Path directory = Files.createTempDirectory("bytecode");
+        Path sourceFile = directory.resolve(name + ".java");
+        Files.write(sourceFile, ("public class " + name + " {\n" + body + "}\n").getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler.run(null, null, null, "-nowarn", "-d", directory.toString(), sourceFile.toString()) != 0) {
+            throw new IOException("Could not compile transpiled program.");
+        }
+        URLClassLoader loader = new URLClassLoader(new URL[] { directory.toUri().toURL() },
+                BytecodeCheck.class.getClassLoader());
+        return loader.loadClass(name);
+    }
+
+    /**
+     * Compiles a program straight to bytecode and loads the resulting class.
+     *
+     * @param program   the program
+     * @param optimize  whether or not to optimize function bodies
+     * @param contracts whether or not to emit contract checks
+     * @return          the loaded class
+     */
+    private static Class<?> compileBytecode(Program program, boolean optimize, boolean contracts) {
+        BytecodeTranspiler transpiler = new BytecodeTranspiler();
+        transpiler.setClassName("Bytecode" + classes++);
+        transpiler.setOptimize(optimize);
+        transpiler.setContracts(contracts);
+        return transpiler.load(program, BytecodeCheck.class.getClassLoader());
+    }
+
+    /**
+     * Calls a function, describing everything it did.
+     *
+     * @param method    the method compiled from the function
+     * @param x         the first argument
+     * @param y         the second argument
+     * @param size      the length of the array argument
+     * @return          the value returned and the array afterwards, or the kind of exception thrown
+     */
+    private static String call(Method method, int x, int y, int size) {
+        int[] array = new int[size];
+        try {
+            return method.invoke(null, x, y, array) + " " + Arrays.toString(array);
+        } catch (InvocationTargetException e) {
+            return e.getCause().getClass().getName();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Compiles a program both ways and checks that every function behaves the same.
+     *
+     * @param name          the name of the shape of the program
+     * @param generator     the generator to produce the program
+     * @param optimize      whether or not to optimize function bodies
+     * @param contracts     whether or not to emit contract checks
+     * @return              true if every function behaves the same, otherwise false
+     * @throws Exception    if either compiler fails
+     */
+    private static boolean check(String name, CorpusGenerator generator, boolean optimize, boolean contracts)
+            throws Exception {
+        Program program = Program.parse(transformer.transform(new TokenStream(tokenizer.tokenize(
+                generator.generate()))));
+        Class<?> java = compileJava(program, optimize, contracts);
+        Class<?> bytecode = compileBytecode(program, optimize, contracts);
+
+        // Call every function over the whole grid, stopping at the first difference.
+        int size = Math.max(1, generator.getArrayAssignments());
+        String mismatch = null;
+        for (Function function : program.getFunctions()) {
+            Method javaMethod = java.getMethod(function.getIdentifier(), int.class, int.class, int[].class);
+            Method bytecodeMethod = bytecode.getMethod(function.getIdentifier(), int.class, int.class, int[].class);
+            for (int x = -ARGUMENT_RANGE; x <= ARGUMENT_RANGE && mismatch == null; x++) {
+                for (int y = -ARGUMENT_RANGE; y <= ARGUMENT_RANGE && mismatch == null; y++) {
+                    String expected = call(javaMethod, x, y, size);
+                    String actual = call(bytecodeMethod, x, y, size);
+                    if (!expected.equals(actual)) {
+                        mismatch = function.getIdentifier() + "(" + x + ", " + y + "): expected " + expected
+                                + " but was " + actual;
+                    }
+                }
+            }
+        }
+        System.out.printf("%-4s %-18s %-10s %-10s%s%n", mismatch == null ? "ok" : "FAIL", name,
+                optimize ? "optimized" : "plain", contracts ? "contracts" : "comments",
+                mismatch == null ? "" : "  " + mismatch);
+        return mismatch == null;
+    }
+
+    public static void main(String[] args) throws Exception {
+        CorpusGenerator small = new CorpusGenerator();
+        CorpusGenerator deep = new CorpusGenerator();
+        deep.setDepth(6);
+        CorpusGenerator wide = new CorpusGenerator();
+        wide.setFunctionCount(32);
+        wide.setVariableCount(8);
+        CorpusGenerator arrays = new CorpusGenerator();
+        arrays.setArrayAssignments(8);
+        arrays.setAnnotationLength(8);
+
+        // Check every shape in every mode, reporting every failure before exiting.
+        boolean passed = true;
+        for (int mode = 0; mode < 4; mode++) {
+            boolean optimize = (mode & 1) != 0;
+            boolean contracts = (mode & 2) != 0;
+            passed &= check("small", small, optimize, contracts);
+            passed &= check("deep", deep, optimize, contracts);
+            passed &= check("wide", wide, optimize, contracts);
+            passed &= check("arrays", arrays, optimize, contracts);
+        }
+        if (!passed) {
+            System.out.println("Bytecode behaves differently to compiled Java output for at least one program.");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.parser.*;
+import com.sauljohnson.humoresque.parser.model.Program;
+import com.sauljohnson.humoresque.transpiler.JavaPrettyPrinter;
+import com.sauljohnson.humoresque.transpiler.JavaTranspiler;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Checks that the full pipeline scales linearly with its input, exiting with a non-zero status if it does not.
+ *
+ * Each dimension of the generated corpus (functions, variables, nesting depth, array assignments and annotation length)
+ * is doubled in turn while the others are held fixed, and the time taken and bytes allocated by the pipeline are
+ * measured at each size. A power law is then fitted to each series and the check fails if its exponent is clearly
+ * above one. Costs are measured against the combined length of input and output rather than the input alone, as deep
+ * nesting legitimately grows indentation faster than it grows the source.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+public final class ComplexityCheck {
+
+    /**
+     * The largest acceptable exponent for growth in time taken. Timings are noisy, so this is generous.
+     */
+    private static final double MAX_TIME_EXPONENT = 1.5;
+
+    /**
+     * The largest acceptable exponent for growth in bytes allocated.
+     */
+    private static final double MAX_ALLOCATION_EXPONENT = 1.25;
+
+    /**
+     * The number of sizes to measure each dimension at, each double the last.
+     */
+    private static final int STEPS = 5;
+
+    /**
+     * The number of times to run the pipeline at each size, keeping the best measurement.
+     */
+    private static final int REPETITIONS = 7;
+
+    /**
+     * The number of functions to generate while another dimension is being grown.
+     */
+    private static final int BASE_FUNCTION_COUNT = 16;
+
+    private static final Tokenizer tokenizer = new HahaTokenizer();
+
+    private static final TokenStreamTransformer transformer = new ConsecutiveTokenFilter(TokenType.PUNCTUATOR);
+
+    private static final JavaTranspiler transpiler = new JavaTranspiler();
+
+    private static final JavaPrettyPrinter prettyPrinter = new JavaPrettyPrinter();
+
+    private ComplexityCheck() { }
+
+    /**
+     * Represents a dimension of the generated corpus that can be grown.
+     */
+    private static final class Dimension {
+
+        private final String name;
+
+        private final int base;
+
+        private final ObjIntConsumer<CorpusGenerator> setter;
+
+        private Dimension(String name, int base, ObjIntConsumer<CorpusGenerator> setter) {
+            this.name = name;
+            this.base = base;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * Represents the best measurement of the pipeline at a single size.
+     */
+    private static final class Measurement {
+
+        private long units;
+
+        private long nanos = Long.MAX_VALUE;
+
+        private long bytes = Long.MAX_VALUE;
+    }
+
+    /**
+     * Runs the full pipeline over some source code, in the same way the command-line tool does.
+     *
+     * @param source                    the source code
+     * @param streaming                 whether to pretty print while transpiling, rather than afterwards
+     * @return                          the output
+     * @throws TokenizationException    if the source code could not be tokenized
+     * @throws ParseException           if the source code could not be parsed
+     * @throws IOException              if output could not be written
+     */
+    private static String pipeline(String source, boolean streaming)
+            throws TokenizationException, ParseException, IOException {
+        Program program = Program.parse(transformer.transform(new TokenStream(tokenizer.tokenize(source))));
+        if (!streaming) {
+            return prettyPrinter.prettyPrint(transpiler.transpile(program));
+        }
+        StringWriter output = new StringWriter();
+        try (Writer prettyWriter = prettyPrinter.createWriter(output)) {
+            transpiler.transpile(program, prettyWriter);
+        }
+        return output.toString();
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     *
+     * @return  the number of bytes, or -1 if this is not supported
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Measures the pipeline over some source code, keeping the best of several runs.
+     *
+     * @param source        the source code
+     * @param streaming     whether to pretty print while transpiling, rather than afterwards
+     * @return              the measurement
+     * @throws Exception    if the pipeline fails
+     */
+    private static Measurement measure(String source, boolean streaming) throws Exception {
+        Measurement measurement = new Measurement();
+        for (int i = 0; i < REPETITIONS; i++) {
+            long bytesBefore = allocatedBytes();
+            long nanosBefore = System.nanoTime();
+            String output = pipeline(source, streaming);
+            long nanos = System.nanoTime() - nanosBefore;
+            long bytes = bytesBefore < 0 ? -1 : allocatedBytes() - bytesBefore;
+            measurement.units = source.length() + output.length();
+            measurement.nanos = Math.min(measurement.nanos, nanos);
+            measurement.bytes = Math.min(measurement.bytes, bytes);
+        }
+        return measurement;
+    }
+
+    /**
+     * Fits a power law to a series of costs by least squares over their logarithms.
+     *
+     * @param units the size of the input and output at each point
+     * @param costs the cost at each point
+     * @return      the exponent of the fitted power law
+     */
+    private static double exponent(long[] units, long[] costs) {
+        double n = units.length;
+        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
+        for (int i = 0; i < units.length; i++) {
+            double x = Math.log(units[i]);
+            double y = Math.log(Math.max(1, costs[i]));
+            sumX += x;
+            sumY += y;
+            sumXY += x * y;
+            sumXX += x * x;
+        }
+        return (n * sumXY - sumX * sumY) / (n * sumXX - sumX * sumX);
+    }
+
+    /**
+     * Grows a dimension of the corpus and checks that the pipeline scales linearly along it.
+     *
+     * @param dimension     the dimension to grow
+     * @param streaming     whether to pretty print while transpiling, rather than afterwards
+     * @return              true if the pipeline scales linearly, otherwise false
+     * @throws Exception    if the pipeline fails
+     */
+    private static boolean check(Dimension dimension, boolean streaming) throws Exception {
+
+        // Generate a program at each size.
+        String[] sources = new String[STEPS];
+        for (int i = 0; i < STEPS; i++) {
+            CorpusGenerator generator = new CorpusGenerator();
+            generator.setFunctionCount(BASE_FUNCTION_COUNT);
+            dimension.setter.accept(generator, dimension.base << i);
+            sources[i] = generator.generate();
+        }
+
+        // Warm up on the largest program, then measure each in turn.
+        measure(sources[STEPS - 1], streaming);
+        long[] units = new long[STEPS];
+        long[] nanos = new long[STEPS];
+        long[] bytes = new long[STEPS];
+        for (int i = 0; i < STEPS; i++) {
+            Measurement measurement = measure(sources[i], streaming);
+            units[i] = measurement.units;
+            nanos[i] = measurement.nanos;
+            bytes[i] = measurement.bytes;
+        }
+
+        // Fit and report.
+        double timeExponent = exponent(units, nanos);
+        boolean allocationMeasured = bytes[0] >= 0;
+        double allocationExponent = allocationMeasured ? exponent(units, bytes) : Double.NaN;
+        boolean passed = timeExponent <= MAX_TIME_EXPONENT
+                && (!allocationMeasured || allocationExponent <= MAX_ALLOCATION_EXPONENT);
+        System.out.printf("%-4s %-18s %-10s time n^%.2f  alloc n^%.2f%n", passed ? "ok" : "FAIL", dimension.name,
+                streaming ? "streaming" : "multi-pass", timeExponent, allocationExponent);
+        for (int i = 0; i < STEPS; i++) {
+            System.out.printf("       %-8d %12d chars %12d ns %14d bytes%n", dimension.base << i, units[i], nanos[i],
+                    bytes[i]);
+        }
+        return passed;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<Dimension> dimensions = new ArrayList<>();
+        dimensions.add(new Dimension("functions", 64, CorpusGenerator::setFunctionCount));
+        dimensions.add(new Dimension("variables", 16, CorpusGenerator::setVariableCount));
+        dimensions.add(new Dimension("depth", 4, CorpusGenerator::setDepth));
+        dimensions.add(new Dimension("array assignments", 32, CorpusGenerator::setArrayAssignments));
+        dimensions.add(new Dimension("annotation length", 32, CorpusGenerator::setAnnotationLength));
+
+        // Check every dimension through both pretty printers, reporting every failure before exiting.
+        boolean passed = true;
+        for (Dimension dimension : dimensions) {
+            passed &= check(dimension, true);
+            passed &= check(dimension, false);
+        }
+        if (!passed) {
+            System.out.println("Pipeline grows faster than linearly in at least one dimension.");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.parser.*;
+import com.sauljohnson.humoresque.parser.model.Function;
+import com.sauljohnson.humoresque.parser.model.Program;
+import com.sauljohnson.humoresque.transpiler.JavaTranspiler;
+import org.openjdk.jmh.annotations.*;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares running transpiled code emitted with annotations as comments only against the same code emitted with
+ * contract checks, both with assertions disabled (which should cost nothing) and enabled.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContractBenchmark {
+
+    @Param({"1000", "100000"})
+    public int iterations;
+
+    private MethodHandle commentsOnly;
+
+    private MethodHandle contractsDisabled;
+
+    private MethodHandle contractsEnabled;
+
+    /**
+     * Transpiles a summation function with and without contract checks.
+     *
+     * @param contracts                 whether or not to emit contract checks
+     * @return                          the transpiled function
+     * @throws TokenizationException    if the source code could not be tokenized
+     * @throws ParseException           if the source code could not be parsed
+     */
+    private static String transpile(boolean contracts) throws TokenizationException, ParseException {
+        Program program = Program.parse(new ConsecutiveTokenFilter(TokenType.PUNCTUATOR)
+                .transform(new TokenStream(new HahaTokenizer().tokenize(HahaSources.functions(1)))));
+        JavaTranspiler transpiler = new JavaTranspiler();
+        transpiler.setContracts(contracts);
+        for (Function function : program.getFunctions()) {
+            return transpiler.transpileFunction(function);
+        }
+        throw new IllegalStateException("No function to transpile.");
+    }
+
+    /**
+     * Compiles a transpiled function into its own class and loads it.
+     *
+     * @param function      the transpiled function
+     * @param assertions    whether or not to enable assertions in the loaded class
+     * @return              a handle to the function
+     * @throws Exception    if the function could not be compiled or loaded
+     */
+    private static MethodHandle load(String function, boolean assertions) throws Exception {
+
+        // Compile to a temporary directory.
+        Path directory = Files.createTempDirectory("contracts");
+        Path sourceFile = directory.resolve("Sum.java");
+        Files.write(sourceFile, ("public class Sum {\npublic static " + function + "}\n")
+                .getBytes(StandardCharsets.UTF_8));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler.run(null, null, null, "-d", directory.toString(), sourceFile.toString()) != 0) {
+            throw new IOException("Could not compile transpiled function.");
+        }
+
+        // Load into a loader of its own, so each class can have its own assertion status.
+        URLClassLoader loader = new URLClassLoader(new URL[] { directory.toUri().toURL() },
+                ContractBenchmark.class.getClassLoader());
+        loader.setDefaultAssertionStatus(assertions);
+        return MethodHandles.publicLookup().findStatic(loader.loadClass("Sum"), "sum0",
+                MethodType.methodType(int.class, int.class, int.class));
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        commentsOnly = load(transpile(false), false);
+        contractsDisabled = load(transpile(true), false);
+        contractsEnabled = load(transpile(true), true);
+    }
+
+    @Benchmark
+    public int commentsOnly() throws Throwable {
+        return (int) commentsOnly.invokeExact(1, iterations);
+    }
+
+    @Benchmark
+    public int contractsDisabled() throws Throwable {
+        return (int) contractsDisabled.invokeExact(1, iterations);
+    }
+
+    @Benchmark
+    public int contractsEnabled() throws Throwable {
+        return (int) contractsEnabled.invokeExact(1, iterations);
+    }
+}
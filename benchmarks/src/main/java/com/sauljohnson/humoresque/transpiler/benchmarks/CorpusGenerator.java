@@ -0,0 +1,231 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+/**
+ * Generates valid HAHA programs of a chosen shape, for measuring how the transpiler scales with its input.
+ *
+ * Each function declares its arguments and variables, assigns each variable, fills any arrays it has been given, then
+ * nests alternating loops and conditionals to the chosen depth. Every block carries an annotation of the chosen
+ * length. Output is deterministic, so the same settings always give the same program.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class CorpusGenerator {
+
+    private int functionCount;
+
+    private int variableCount;
+
+    private int depth;
+
+    private int arrayAssignments;
+
+    private int annotationLength;
+
+    /**
+     * Initialises a new instance of a generator of HAHA programs, producing a single small function by default.
+     */
+    public CorpusGenerator() {
+        functionCount = 1;
+        variableCount = 2;
+        depth = 1;
+        arrayAssignments = 0;
+        annotationLength = 4;
+    }
+
+    /**
+     * Gets the number of functions to generate.
+     *
+     * @return  the number of functions
+     */
+    public int getFunctionCount() {
+        return functionCount;
+    }
+
+    /**
+     * Sets the number of functions to generate.
+     *
+     * @param functionCount the number of functions
+     */
+    public void setFunctionCount(int functionCount) {
+        this.functionCount = functionCount;
+    }
+
+    /**
+     * Gets the number of local variables to declare in each function, at least one.
+     *
+     * @return  the number of local variables
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Sets the number of local variables to declare in each function, at least one.
+     *
+     * @param variableCount the number of local variables
+     */
+    public void setVariableCount(int variableCount) {
+        this.variableCount = variableCount;
+    }
+
+    /**
+     * Gets the depth loops and conditionals are nested to in each function.
+     *
+     * @return  the nesting depth
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Sets the depth loops and conditionals are nested to in each function.
+     *
+     * @param depth the nesting depth
+     */
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Gets the number of array element assignments to make in each function.
+     *
+     * @return  the number of array assignments
+     */
+    public int getArrayAssignments() {
+        return arrayAssignments;
+    }
+
+    /**
+     * Sets the number of array element assignments to make in each function.
+     *
+     * @param arrayAssignments  the number of array assignments
+     */
+    public void setArrayAssignments(int arrayAssignments) {
+        this.arrayAssignments = arrayAssignments;
+    }
+
+    /**
+     * Gets the number of conjuncts in each annotation.
+     *
+     * @return  the number of conjuncts
+     */
+    public int getAnnotationLength() {
+        return annotationLength;
+    }
+
+    /**
+     * Sets the number of conjuncts in each annotation.
+     *
+     * @param annotationLength  the number of conjuncts
+     */
+    public void setAnnotationLength(int annotationLength) {
+        this.annotationLength = annotationLength;
+    }
+
+    /**
+     * Appends a line of source code at an indentation depth.
+     *
+     * @param sb        the {@link StringBuilder} the program is being built in
+     * @param indent    the indentation depth
+     * @param line      the line to append
+     */
+    private static void line(StringBuilder sb, int indent, String line) {
+        for (int i = 0; i < indent; i++) {
+            sb.append('\t');
+        }
+        sb.append(line).append('\n');
+    }
+
+    /**
+     * Gets the name of a local variable.
+     *
+     * @param index the index of the variable
+     * @return      the name of the variable
+     */
+    private static String variable(int index) {
+        return index == 0 ? "n" : "v" + index;
+    }
+
+    /**
+     * Builds an annotation over the local variables.
+     *
+     * @return  the annotation, including braces
+     */
+    private String annotation() {
+        int variables = Math.max(1, variableCount);
+        StringBuilder sb = new StringBuilder("{ ");
+        for (int i = 0; i < annotationLength; i++) {
+            if (i > 0) {
+                sb.append(" /\\ ");
+            }
+            sb.append(variable(i % variables)).append(" >= ").append(i);
+        }
+        return sb.append(" }").toString();
+    }
+
+    /**
+     * Appends a loop containing a conditional, nested to a depth.
+     *
+     * @param sb            the {@link StringBuilder} the program is being built in
+     * @param remaining     the nesting depth remaining
+     * @param indent        the indentation depth
+     * @param annotation    the annotation to place in each block
+     */
+    private void nest(StringBuilder sb, int remaining, int indent, String annotation) {
+        if (remaining == 0) {
+            line(sb, indent, "ans := ans + 1");
+            return;
+        }
+        line(sb, indent, "while n > " + remaining + " do");
+        line(sb, indent, "invariant n >= 0");
+        line(sb, indent, "begin");
+        line(sb, indent + 1, annotation);
+        line(sb, indent + 1, "if ans > n then");
+        line(sb, indent + 1, "begin");
+        nest(sb, remaining - 1, indent + 2, annotation);
+        line(sb, indent + 1, "end");
+        line(sb, indent + 1, "else");
+        line(sb, indent + 1, "begin");
+        line(sb, indent + 2, "ans := ans - 1");
+        line(sb, indent + 1, "end");
+        line(sb, indent + 1, "n := n - 1");
+        line(sb, indent, "end");
+    }
+
+    /**
+     * Generates a program with the current settings.
+     *
+     * @return  the source code of the program
+     */
+    public String generate() {
+        int variables = Math.max(1, variableCount);
+        String annotation = annotation();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < functionCount; i++) {
+            String name = "f" + i;
+            line(sb, 0, "function " + name + " (x : Z, y : Z, A : array of Z) : Z");
+            line(sb, 0, "precondition y >= 0");
+            line(sb, 0, "postcondition " + name + " >= x");
+            line(sb, 0, "var ans : Z");
+            for (int j = 0; j < variables; j++) {
+                line(sb, 1, variable(j) + " : Z");
+            }
+            line(sb, 0, "begin");
+            line(sb, 1, "ans := x");
+            line(sb, 1, annotation);
+            for (int j = variables - 1; j >= 0; j--) {
+                line(sb, 1, variable(j) + " := y + " + j); // Assign n last, so it's ready for the loops.
+            }
+            for (int j = 0; j < arrayAssignments; j++) {
+                line(sb, 1, "A[" + j + "] := " + variable(j % variables) + " + " + j);
+            }
+            nest(sb, depth, 1, annotation);
+            line(sb, 1, name + " := ans");
+            line(sb, 0, "end");
+            line(sb, 0, "");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+/**
+ * Builds HAHA source code for benchmarks to run against.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class HahaSources {
+
+    private HahaSources() { }
+
+    /**
+     * Builds a HAHA program consisting of copies of a summation function, each with a distinct name.
+     *
+     * @param functionCount the number of functions
+     * @return              the source code
+     */
+    static String functions(int functionCount) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < functionCount; i++) {
+            String name = "sum" + i;
+            sb.append("function ").append(name).append(" (x : Z, y : Z) : Z\n")
+                    .append("precondition y >= 0\n")
+                    .append("postcondition ").append(name).append(" = x + y\n")
+                    .append("var ans : Z\n")
+                    .append("    n : Z\n")
+                    .append("begin\n")
+                    .append("\tans := x\n")
+                    .append("\t{ y >= 0 /\\ ans = x }\n")
+                    .append("\tn := y\n")
+                    .append("\t{ y >= 0 /\\ n >= 0 /\\ ans = x /\\ n = y }\n")
+                    .append("\twhile n != 0 do\n")
+                    .append("\tinvariant y >= 0 /\\ n >= 0 /\\ ans + n = x + y\n")
+                    .append("\tbegin\n")
+                    .append("\t\tans := ans + 1\n")
+                    .append("\t\t{ y >= 0 /\\ n > 0 /\\ ans + n - 1 = x + y }\n")
+                    .append("\t\tn := n - 1\n")
+                    .append("\t\t{ y >= 0 /\\ n >= 0 /\\ ans + n = x + y }\n")
+                    .append("\t\tskip\n")
+                    .append("\tend\n")
+                    .append("\t{ n = 0 /\\ ans + n = x + y }\n")
+                    .append("\t").append(name).append(" := ans\n")
+                    .append("end\n\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds a HAHA program whose functions contain loops and conditionals nested to a depth, annotated throughout.
+     *
+     * @param functionCount     the number of functions
+     * @param depth             the depth loops and conditionals are nested to in each function
+     * @param annotationLength  the number of conjuncts in each annotation
+     * @return                  the source code
+     */
+    static String program(int functionCount, int depth, int annotationLength) {
+        CorpusGenerator generator = new CorpusGenerator();
+        generator.setFunctionCount(functionCount);
+        generator.setDepth(depth);
+        generator.setAnnotationLength(annotationLength);
+        return generator.generate();
+    }
+}
@@ -0,0 +1,62 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.parser.ParseException;
+import com.sauljohnson.humoresque.parser.TokenizationException;
+import com.sauljohnson.humoresque.parser.model.Program;
+import com.sauljohnson.humoresque.transpiler.Arguments;
+import com.sauljohnson.humoresque.transpiler.JavaTranspiler;
+import com.sauljohnson.humoresque.transpiler.TranspilationJob;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how whole-program emission scales with the number of threads functions are emitted on. A thread count of
+ * zero measures the sequential path.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelTranspilerBenchmark {
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"1000", "5000"})
+    public int functionCount;
+
+    private Program program;
+
+    private JavaTranspiler transpiler;
+
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws TokenizationException, ParseException {
+        program = new TranspilationJob(new Arguments()).parse(HahaSources.functions(functionCount));
+        transpiler = new JavaTranspiler();
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            transpiler.setPool(pool);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public String transpile() {
+        return transpiler.transpile(program);
+    }
+}
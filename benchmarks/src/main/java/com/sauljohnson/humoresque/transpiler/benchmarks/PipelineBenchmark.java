@@ -0,0 +1,129 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.parser.*;
+import com.sauljohnson.humoresque.parser.model.Function;
+import com.sauljohnson.humoresque.parser.model.Program;
+import com.sauljohnson.humoresque.transpiler.JavaPrettyPrinter;
+import com.sauljohnson.humoresque.transpiler.JavaTranspiler;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each stage of the pipeline separately, then the whole pipeline, over generated programs.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int functionCount;
+
+    @Param({"1", "4"})
+    public int depth;
+
+    @Param({"4", "64"})
+    public int annotationLength;
+
+    private String source;
+
+    private Token[] tokens;
+
+    private Program program;
+
+    private String transpiled;
+
+    private Tokenizer tokenizer;
+
+    private TokenStreamTransformer transformer;
+
+    private JavaTranspiler transpiler;
+
+    private JavaPrettyPrinter prettyPrinter;
+
+    /**
+     * Holds a freshly filtered token stream for each parse, since parsing may consume the stream.
+     */
+    @State(Scope.Thread)
+    public static class ParseInput {
+
+        private TokenStream tokenStream;
+
+        @Setup(Level.Invocation)
+        public void setup(PipelineBenchmark benchmark) {
+            tokenStream = benchmark.transformer.transform(new TokenStream(benchmark.tokens));
+        }
+    }
+
+    @Setup
+    public void setup() throws TokenizationException, ParseException {
+        source = HahaSources.program(functionCount, depth, annotationLength);
+        tokenizer = new HahaTokenizer();
+        transformer = new ConsecutiveTokenFilter(TokenType.PUNCTUATOR);
+        transpiler = new JavaTranspiler();
+        prettyPrinter = new JavaPrettyPrinter();
+        tokens = tokenizer.tokenize(source);
+        program = Program.parse(transformer.transform(new TokenStream(tokens)));
+        transpiled = transpiler.transpile(program);
+    }
+
+    @Benchmark
+    public Token[] tokenize() throws TokenizationException {
+        return tokenizer.tokenize(source);
+    }
+
+    @Benchmark
+    public TokenStream filter() {
+        return transformer.transform(new TokenStream(tokens));
+    }
+
+    @Benchmark
+    public Program parse(ParseInput input) throws ParseException {
+        return Program.parse(input.tokenStream);
+    }
+
+    @Benchmark
+    public String transpile() {
+        return transpiler.transpile(program);
+    }
+
+    @Benchmark
+    public void transpileFunction(Blackhole blackhole) {
+        for (Function function : program.getFunctions()) {
+            blackhole.consume(transpiler.transpileFunction(function));
+        }
+    }
+
+    @Benchmark
+    public String prettyPrint() {
+        return prettyPrinter.prettyPrint(transpiled);
+    }
+
+    @Benchmark
+    public StringWriter prettyPrintStreaming() throws IOException {
+        StringWriter output = new StringWriter(transpiled.length() * 2);
+        prettyPrinter.prettyPrint(transpiled, output);
+        return output;
+    }
+
+    @Benchmark
+    public StringWriter wholePipeline() throws TokenizationException, ParseException, IOException {
+        Program parsed = Program.parse(transformer.transform(new TokenStream(tokenizer.tokenize(source))));
+        StringWriter output = new StringWriter(transpiled.length() * 2);
+        try (Writer prettyWriter = prettyPrinter.createWriter(output)) {
+            transpiler.transpile(parsed, prettyWriter);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,59 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.transpiler.JavaPrettyPrinter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the multi-pass and single-pass paths through the Java pretty printer.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrettyPrinterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int functionCount;
+
+    private JavaPrettyPrinter prettyPrinter;
+
+    private String code;
+
+    /**
+     * Builds unformatted Java source code shaped like transpiler output.
+     */
+    @Setup
+    public void setup() {
+        prettyPrinter = new JavaPrettyPrinter();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < functionCount; i++) {
+            sb.append("int f").append(i).append("(int x, int y)\n{\nint ans;\nint n;\nint f").append(i).append(";\n")
+                    .append("ans = x;\n/* y >= 0 /\\ ans = x */\nn = y;\n")
+                    .append("while(n != 0){\nans = ans + 1;\n/* y >= 0 /\\ n > 0 */\nn = n - 1;\n")
+                    .append("if(ans > n){ans = ans - 1;\n} else {n = n + 1;\n}}\n")
+                    .append("f").append(i).append(" = ans;\nreturn f").append(i).append(";\n}\n\n");
+        }
+        code = sb.toString();
+    }
+
+    @Benchmark
+    public String multiPass() {
+        return prettyPrinter.prettyPrint(code);
+    }
+
+    @Benchmark
+    public StringWriter singlePass() throws IOException {
+        StringWriter output = new StringWriter(code.length() * 2);
+        prettyPrinter.prettyPrint(code, output);
+        return output;
+    }
+}
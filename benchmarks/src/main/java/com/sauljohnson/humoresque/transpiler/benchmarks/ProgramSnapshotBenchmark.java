@@ -0,0 +1,83 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.parser.ParseException;
+import com.sauljohnson.humoresque.parser.TokenizationException;
+import com.sauljohnson.humoresque.parser.model.Program;
+import com.sauljohnson.humoresque.transpiler.Arguments;
+import com.sauljohnson.humoresque.transpiler.ProgramSnapshot;
+import com.sauljohnson.humoresque.transpiler.SourceReader;
+import com.sauljohnson.humoresque.transpiler.TranspilationJob;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading a snapshot of a parsed source file against reading and parsing the source file again, as a run in
+ * enumeration or arity mode would. Fingerprinting every function from the snapshot is measured as well, being what a
+ * run in emission mode does to find output in the cache.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProgramSnapshotBenchmark {
+
+    @Param({"2000", "10000"})
+    public int functionCount;
+
+    private Path sourceFile;
+
+    private SourceReader sourceReader;
+
+    private TranspilationJob job;
+
+    @Setup
+    public void setup() throws IOException, TokenizationException, ParseException {
+        sourceFile = Files.createTempFile("benchmark", ".haha");
+        String source = HahaSources.functions(functionCount);
+        Files.write(sourceFile, source.getBytes(StandardCharsets.UTF_8));
+        sourceReader = new SourceReader();
+        job = new TranspilationJob(new Arguments());
+        ProgramSnapshot.write(sourceFile, Files.getLastModifiedTime(sourceFile).toMillis(), source,
+                job.parse(source));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(ProgramSnapshot.getSnapshotPath(sourceFile));
+        Files.deleteIfExists(sourceFile);
+    }
+
+    @Benchmark
+    public int loadSnapshot() throws IOException {
+        int arity = 0;
+        for (ProgramSnapshot.Entry entry : ProgramSnapshot.load(sourceFile).getFunctions()) {
+            arity += entry.getArity();
+        }
+        return arity;
+    }
+
+    @Benchmark
+    public int fingerprintSnapshot() throws IOException {
+        ProgramSnapshot snapshot = ProgramSnapshot.load(sourceFile);
+        int length = 0;
+        for (ProgramSnapshot.Entry entry : snapshot.getFunctions()) {
+            length += snapshot.getFingerprint(entry, "benchmark").length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public Program reparse() throws IOException, TokenizationException, ParseException {
+        return job.parse(sourceReader.read(sourceFile));
+    }
+}
@@ -0,0 +1,51 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.parser.ParseException;
+import com.sauljohnson.humoresque.parser.TokenizationException;
+import com.sauljohnson.humoresque.parser.model.Program;
+import com.sauljohnson.humoresque.transpiler.Arguments;
+import com.sauljohnson.humoresque.transpiler.FunctionSignature;
+import com.sauljohnson.humoresque.transpiler.SignatureScanner;
+import com.sauljohnson.humoresque.transpiler.TranspilationJob;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares finding function headers by signature scan against a full tokenize and parse, on multi-megabyte sources.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SignatureScanBenchmark {
+
+    @Param({"2000", "10000"})
+    public int functionCount;
+
+    private String source;
+
+    private TranspilationJob job;
+
+    @Setup
+    public void setup() {
+        source = HahaSources.functions(functionCount);
+        job = new TranspilationJob(new Arguments());
+    }
+
+    @Benchmark
+    public List<FunctionSignature> scan() {
+        return SignatureScanner.scan(source);
+    }
+
+    @Benchmark
+    public Program fullParse() throws TokenizationException, ParseException {
+        return job.parse(source);
+    }
+}
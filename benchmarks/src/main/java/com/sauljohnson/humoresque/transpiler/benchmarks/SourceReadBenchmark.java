@@ -0,0 +1,55 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.transpiler.SourceReader;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading source files through the NIO source reader against reading them through commons-io.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SourceReadBenchmark {
+
+    @Param({"100", "2000", "50000"})
+    public int functionCount;
+
+    private Path sourceFile;
+
+    private SourceReader sourceReader;
+
+    @Setup
+    public void setup() throws IOException {
+        sourceFile = Files.createTempFile("benchmark", ".haha");
+        Files.write(sourceFile, HahaSources.functions(functionCount).getBytes(StandardCharsets.UTF_8));
+        sourceReader = new SourceReader();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(sourceFile);
+    }
+
+    @Benchmark
+    public String commonsIo() throws IOException {
+        return FileUtils.readFileToString(sourceFile.toFile(), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String sourceReader() throws IOException {
+        return sourceReader.read(sourceFile);
+    }
+}
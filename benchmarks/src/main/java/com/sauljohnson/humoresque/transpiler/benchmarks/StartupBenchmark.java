@@ -0,0 +1,171 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long the executable jar takes to start, with and without the class data sharing archive built by the
+ * appcds profile.
+ *
+ * Each short mode is run in a fresh JVM many times over, alternating between runs with the archive and runs without
+ * it, and the time from launching the JVM to the first byte of output is taken along with the time to exit. These
+ * are measured from outside the JVM, so they include everything a user waits for, and are reported as medians. Both
+ * sets of runs use the JVM the archive was built with, recorded next to it, so the only difference is the archive.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+public final class StartupBenchmark {
+
+    /**
+     * The path of the executable jar if none is given, relative to the benchmarks project.
+     */
+    private static final String DEFAULT_JAR = "../target/transpiler-1.0-SNAPSHOT.jar";
+
+    /**
+     * The number of times to run each mode with and without the archive.
+     */
+    private static final int REPETITIONS = 20;
+
+    /**
+     * The number of runs to make and discard before measuring, to warm the file system cache.
+     */
+    private static final int WARMUP = 3;
+
+    /**
+     * The number of functions in the program each mode is run over.
+     */
+    private static final int FUNCTION_COUNT = 16;
+
+    private StartupBenchmark() { }
+
+    /**
+     * Represents the timings of a single run.
+     */
+    private static final class Run {
+
+        private final long firstOutputNanos;
+
+        private final long exitNanos;
+
+        private Run(long firstOutputNanos, long exitNanos) {
+            this.firstOutputNanos = firstOutputNanos;
+            this.exitNanos = exitNanos;
+        }
+    }
+
+    /**
+     * Runs a command to completion, timing its first output and its exit. All output is read and discarded.
+     *
+     * @param command               the command
+     * @return                      the timings
+     * @throws IOException          if the command cannot be run or exits with a non-zero status
+     * @throws InterruptedException if interrupted while waiting for the command to exit
+     */
+    private static Run run(List<String> command) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD);
+        long start = System.nanoTime();
+        Process process = builder.start();
+        long firstOutput = -1;
+        byte[] buffer = new byte[8192];
+        try (InputStream output = process.getInputStream()) {
+            while (output.read(buffer) >= 0) {
+                if (firstOutput < 0) {
+                    firstOutput = System.nanoTime() - start;
+                }
+            }
+        }
+        int status = process.waitFor();
+        long exit = System.nanoTime() - start;
+        if (status != 0) {
+            throw new IOException("Command exited with status " + status + ": " + String.join(" ", command));
+        }
+        return new Run(firstOutput < 0 ? exit : firstOutput, exit);
+    }
+
+    /**
+     * Gets the median of a set of timings, in milliseconds.
+     *
+     * @param nanos the timings, in nanoseconds, which are sorted in place
+     * @return      the median
+     */
+    private static double median(long[] nanos) {
+        Arrays.sort(nanos);
+        int middle = nanos.length / 2;
+        long median = nanos.length % 2 == 0 ? (nanos[middle - 1] + nanos[middle]) / 2 : nanos[middle];
+        return median / 1e6;
+    }
+
+    /**
+     * Runs a mode over and over with and without the archive, then reports median timings for each.
+     *
+     * @param name                  the name of the mode
+     * @param java                  the JVM to run
+     * @param jar                   the executable jar
+     * @param archive               the class data sharing archive
+     * @param arguments             the arguments to pass to the transpiler
+     * @throws IOException          if the transpiler cannot be run or fails
+     * @throws InterruptedException if interrupted while waiting for the transpiler to exit
+     */
+    private static void measure(String name, String java, Path jar, Path archive, String... arguments)
+            throws IOException, InterruptedException {
+        List<String> without = new ArrayList<>(Arrays.asList(java, "-jar", jar.toString()));
+        without.addAll(Arrays.asList(arguments));
+        List<String> with = new ArrayList<>(Arrays.asList(java, "-XX:SharedArchiveFile=" + archive, "-Xshare:on"));
+        with.addAll(without.subList(1, without.size()));
+
+        // Warm up, then alternate so that both sets of runs see the same machine.
+        for (int i = 0; i < WARMUP; i++) {
+            run(without);
+            run(with);
+        }
+        long[] withoutFirst = new long[REPETITIONS];
+        long[] withoutExit = new long[REPETITIONS];
+        long[] withFirst = new long[REPETITIONS];
+        long[] withExit = new long[REPETITIONS];
+        for (int i = 0; i < REPETITIONS; i++) {
+            Run plain = run(without);
+            withoutFirst[i] = plain.firstOutputNanos;
+            withoutExit[i] = plain.exitNanos;
+            Run shared = run(with);
+            withFirst[i] = shared.firstOutputNanos;
+            withExit[i] = shared.exitNanos;
+        }
+        double before = median(withoutFirst);
+        double after = median(withFirst);
+        System.out.printf("%-10s first output %8.1f ms -> %8.1f ms (%5.1f%%)   exit %8.1f ms -> %8.1f ms%n", name,
+                before, after, 100 * (before - after) / before, median(withoutExit), median(withExit));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path jar = Paths.get(args.length > 0 ? args[0] : DEFAULT_JAR).toAbsolutePath().normalize();
+        String base = jar.toString().substring(0, jar.toString().length() - ".jar".length());
+        Path archive = Paths.get(base + ".jsa");
+        Path jvm = Paths.get(base + ".jvm");
+        if (!Files.isRegularFile(jar) || !Files.isRegularFile(archive) || !Files.isRegularFile(jvm)) {
+            System.out.println("No archive found for '" + jar + "'. Build one with 'mvn -P appcds package' first.");
+            System.exit(1);
+        }
+        String java = new String(Files.readAllBytes(jvm), StandardCharsets.UTF_8).trim();
+
+        // Run every short mode over a small program.
+        Path sourceFile = Files.createTempFile("startup", ".haha");
+        try {
+            Files.write(sourceFile, HahaSources.functions(FUNCTION_COUNT).getBytes(StandardCharsets.UTF_8));
+            String source = sourceFile.toString();
+            measure("enumerate", java, jar, archive, "-e", source);
+            measure("arity", java, jar, archive, "-a", "sum0", source);
+            measure("function", java, jar, archive, "--no-cache", "-f", "sum0", source);
+            measure("program", java, jar, archive, "--no-cache", source);
+        } finally {
+            Files.deleteIfExists(sourceFile);
+        }
+    }
+}
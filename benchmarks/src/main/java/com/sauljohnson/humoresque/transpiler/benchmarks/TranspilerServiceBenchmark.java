@@ -0,0 +1,79 @@
+package com.sauljohnson.humoresque.transpiler.benchmarks;
+
+import com.sauljohnson.humoresque.parser.ParseException;
+import com.sauljohnson.humoresque.parser.TokenizationException;
+import com.sauljohnson.humoresque.parser.model.Program;
+import com.sauljohnson.humoresque.transpiler.JavaPrettyPrinter;
+import com.sauljohnson.humoresque.transpiler.JavaTranspiler;
+import com.sauljohnson.humoresque.transpiler.TranspilerService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a single transpiler service shared between as many threads as there are cores, against creating a
+ * transpiler and pretty printer for every call as the command line does. With the GC profiler attached, the service
+ * should allocate little beyond its output. Batch calls are measured from a single thread, as they fan out over the
+ * common fork/join pool themselves.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranspilerServiceBenchmark {
+
+    /**
+     * The number of programs in each batch call.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"10", "100"})
+    public int functionCount;
+
+    private Program program;
+
+    private List<String> sources;
+
+    private TranspilerService service;
+
+    @Setup
+    public void setup() throws TokenizationException, ParseException {
+        service = TranspilerService.builder().build();
+        String source = HahaSources.program(functionCount, 2, 4);
+        program = service.parse(source);
+        sources = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            sources.add(source);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String shared() {
+        return service.transpile(program);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String unshared() {
+        return new JavaPrettyPrinter().prettyPrint(new JavaTranspiler().transpile(program));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<String> batch() {
+        return service.transpileAllAsync(sources).join();
+    }
+}
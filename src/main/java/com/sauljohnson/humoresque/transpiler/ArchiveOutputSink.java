@@ -0,0 +1,197 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Represents a sink that writes every file into a single zip archive, or a jar if its name ends in ".jar".
+ *
+ * The archive is written in one pass, through a buffered channel, to a staging file beside it. Once every entry has
+ * been written, the sink is committed, and on closing the staging file then replaces the archive unless the archive
+ * already holds exactly the same bytes, in which case it is left alone. A sink closed without being committed, such as
+ * one abandoned partway through by an error, discards the staging file and leaves the archive as it was. Entries are
+ * given a fixed time, so that the same files always make the same archive.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class ArchiveOutputSink implements OutputSink {
+
+    /**
+     * The time given to every entry, a day into 1980, which is the earliest year a zip archive can hold in any time
+     * zone.
+     */
+    private static final long ENTRY_TIME = 315619200000L;
+
+    /**
+     * The path of the manifest written to the start of a jar.
+     */
+    private static final String MANIFEST_PATH = "META-INF/MANIFEST.MF";
+
+    /**
+     * The size of the buffers used to write and compare archives, in bytes.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+
+    private final Path staging;
+
+    private final ZipOutputStream zipStream;
+
+    private boolean committed;
+
+    private boolean closed;
+
+    private boolean unchanged;
+
+    /**
+     * Initialises a new instance of a sink that writes every file into a single archive.
+     *
+     * @param file          the path of the archive to write
+     * @throws IOException  if the staging file cannot be created
+     */
+    public ArchiveOutputSink(Path file) throws IOException {
+        this.file = file.toAbsolutePath();
+        Path directory = this.file.getParent();
+        Files.createDirectories(directory);
+        staging = Files.createTempFile(directory, "." + this.file.getFileName(), ".tmp");
+        OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(FileChannel.open(staging,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)), BUFFER_SIZE);
+        zipStream = new ZipOutputStream(stream, StandardCharsets.UTF_8);
+
+        // Jars start with a manifest, written by hand so that it gets a fixed time like every other entry.
+        if (this.file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".jar")) {
+            write(MANIFEST_PATH, "Manifest-Version: 1.0\r\nCreated-By: humoresque-transpiler\r\n\r\n");
+        }
+    }
+
+    /**
+     * Gets the path of the archive being written.
+     *
+     * @return  the path of the archive
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets whether or not the archive was left alone on closing because it already held exactly the same bytes.
+     *
+     * @return  true if the archive was left alone, otherwise false
+     */
+    public boolean isUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(String path, CharSequence content) throws IOException {
+        ZipEntry entry = new ZipEntry(path);
+        entry.setTime(ENTRY_TIME);
+        zipStream.putNextEntry(entry);
+        zipStream.write(content.toString().getBytes(StandardCharsets.UTF_8));
+        zipStream.closeEntry();
+    }
+
+    /**
+     * Marks every entry as written, so that closing the sink moves the archive into place rather than discarding it.
+     */
+    public void commit() {
+        committed = true;
+    }
+
+    /**
+     * Gets whether or not two files hold exactly the same bytes.
+     *
+     * @param first         the first file
+     * @param second        the second file
+     * @return              true if both files exist and hold the same bytes, otherwise false
+     * @throws IOException  if a file exists but cannot be read
+     */
+    private static boolean sameContent(Path first, Path second) throws IOException {
+        if (!Files.isRegularFile(first) || !Files.isRegularFile(second)) {
+            return false;
+        }
+        try (FileChannel a = FileChannel.open(first, StandardOpenOption.READ);
+             FileChannel b = FileChannel.open(second, StandardOpenOption.READ)) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            ByteBuffer bufferA = ByteBuffer.allocate(BUFFER_SIZE);
+            ByteBuffer bufferB = ByteBuffer.allocate(BUFFER_SIZE);
+            while (true) {
+                bufferA.clear();
+                int read = a.read(bufferA);
+                if (read < 0) {
+                    return true;
+                }
+
+                // Read as much from the second file as was read from the first.
+                bufferB.clear().limit(read);
+                while (bufferB.hasRemaining() && b.read(bufferB) >= 0) {
+                    // Keep reading until the buffer is full or the file ends.
+                }
+                bufferA.flip();
+                bufferB.flip();
+                if (!bufferA.equals(bufferB)) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finishes the archive, then moves it into place unless the archive already holds exactly the same bytes. If the
+     * sink was never committed, the staging file is discarded instead and the archive is left alone.
+     *
+     * @throws IOException  if the archive cannot be finished or moved into place
+     */
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (!committed) {
+            try {
+                zipStream.close();
+            } catch (IOException ignored) {
+                // The staging file is being thrown away regardless.
+            } finally {
+                Files.deleteIfExists(staging);
+            }
+            return;
+        }
+        try {
+            zipStream.close();
+            if (sameContent(staging, file)) {
+                unchanged = true;
+                return;
+            }
+
+            // Replace the archive in one step where the file system allows it.
+            try {
+                Files.move(staging, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(staging, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+}
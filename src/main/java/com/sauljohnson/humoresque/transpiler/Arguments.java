@@ -15,6 +15,54 @@ public class Arguments {
 
     private String sourceFile;
 
+    private String[] sourceFiles;
+
+    private boolean batch;
+
+    private int parallelism;
+
+    private boolean parallelEmission;
+
+    private boolean cacheEnabled;
+
+    private String cacheDirectory;
+
+    private boolean cacheStats;
+
+    private boolean stats;
+
+    private int servePort;
+
+    private int idleTimeout;
+
+    private boolean fullParse;
+
+    private boolean index;
+
+    private boolean closure;
+
+    private boolean stream;
+
+    private boolean snapshot;
+
+    private boolean optimize;
+
+    private boolean contracts;
+
+    private IntegerMode integerMode;
+
+    private boolean watch;
+
+    private boolean perFunction;
+
+    private String outputDirectory;
+
+    private String outputArchive;
+
+    private String outputFile;
+
+    private String call;
+
     private TargetLanguage targetLanguage;
 
     /**
@@ -23,6 +71,11 @@ public class Arguments {
     public Arguments() {
         mode = Mode.DEFAULT;
         targetLanguage = TargetLanguage.DEFAULT;
+        integerMode = IntegerMode.FIXED;
+        parallelism = Runtime.getRuntime().availableProcessors();
+        cacheEnabled = true;
+        servePort = -1;
+        idleTimeout = 600;
     }
 
     /**
@@ -96,4 +149,438 @@ public class Arguments {
     public void setTargetLanguage(TargetLanguage targetLanguage) {
         this.targetLanguage = targetLanguage;
     }
+
+    /**
+     * Gets the source files, directories and glob patterns to transpile in batch mode.
+     *
+     * @return  the source files, directories and glob patterns to transpile
+     */
+    public String[] getSourceFiles() {
+        return sourceFiles;
+    }
+
+    /**
+     * Sets the source files, directories and glob patterns to transpile in batch mode.
+     *
+     * @param sourceFiles   the source files, directories and glob patterns to transpile
+     */
+    public void setSourceFiles(String[] sourceFiles) {
+        this.sourceFiles = sourceFiles;
+    }
+
+    /**
+     * Gets whether or not to transpile many source files in one run.
+     *
+     * @return  true if transpiling many source files in one run, otherwise false
+     */
+    public boolean isBatch() {
+        return batch;
+    }
+
+    /**
+     * Sets whether or not to transpile many source files in one run.
+     *
+     * @param batch true to transpile many source files in one run, otherwise false
+     */
+    public void setBatch(boolean batch) {
+        this.batch = batch;
+    }
+
+    /**
+     * Gets the number of source files to transpile at once in batch mode.
+     *
+     * @return  the number of source files to transpile at once
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of source files to transpile at once in batch mode.
+     *
+     * @param parallelism   the number of source files to transpile at once
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gets whether or not to emit the functions within each source file in parallel.
+     *
+     * @return  true if emitting functions in parallel, otherwise false
+     */
+    public boolean isParallelEmission() {
+        return parallelEmission;
+    }
+
+    /**
+     * Sets whether or not to emit the functions within each source file in parallel.
+     *
+     * @param parallelEmission  true to emit functions in parallel, otherwise false
+     */
+    public void setParallelEmission(boolean parallelEmission) {
+        this.parallelEmission = parallelEmission;
+    }
+
+    /**
+     * Gets whether or not to reuse cached output for functions that have not changed.
+     *
+     * @return  true if caching is enabled, otherwise false
+     */
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * Sets whether or not to reuse cached output for functions that have not changed.
+     *
+     * @param cacheEnabled  true to enable caching, otherwise false
+     */
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    /**
+     * Gets the directory to keep cached output in.
+     *
+     * @return  the directory to keep cached output in, or null to use the default
+     */
+    public String getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    /**
+     * Sets the directory to keep cached output in.
+     *
+     * @param cacheDirectory    the directory to keep cached output in, or null to use the default
+     */
+    public void setCacheDirectory(String cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Gets whether or not to report cache hits and misses on standard error.
+     *
+     * @return  true if reporting cache hits and misses, otherwise false
+     */
+    public boolean isCacheStats() {
+        return cacheStats;
+    }
+
+    /**
+     * Sets whether or not to report cache hits and misses on standard error.
+     *
+     * @param cacheStats    true to report cache hits and misses, otherwise false
+     */
+    public void setCacheStats(boolean cacheStats) {
+        this.cacheStats = cacheStats;
+    }
+
+    /**
+     * Gets whether or not to report per-phase statistics as JSON on standard error.
+     *
+     * @return  true if reporting per-phase statistics, otherwise false
+     */
+    public boolean isStats() {
+        return stats;
+    }
+
+    /**
+     * Sets whether or not to report per-phase statistics as JSON on standard error.
+     *
+     * @param stats true to report per-phase statistics, otherwise false
+     */
+    public void setStats(boolean stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Gets the local port to serve requests on as a daemon.
+     *
+     * @return  the port, 0 for any free port, or -1 if not running as a daemon
+     */
+    public int getServePort() {
+        return servePort;
+    }
+
+    /**
+     * Sets the local port to serve requests on as a daemon.
+     *
+     * @param servePort the port, 0 for any free port, or -1 to not run as a daemon
+     */
+    public void setServePort(int servePort) {
+        this.servePort = servePort;
+    }
+
+    /**
+     * Gets the time a daemon waits without requests before shutting down.
+     *
+     * @return  the time in seconds
+     */
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Sets the time a daemon waits without requests before shutting down.
+     *
+     * @param idleTimeout   the time in seconds
+     */
+    public void setIdleTimeout(int idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Gets whether or not to parse sources in full even in modes that only need function headers.
+     *
+     * @return  true if always parsing in full, otherwise false
+     */
+    public boolean isFullParse() {
+        return fullParse;
+    }
+
+    /**
+     * Sets whether or not to parse sources in full even in modes that only need function headers.
+     *
+     * @param fullParse true to always parse in full, otherwise false
+     */
+    public void setFullParse(boolean fullParse) {
+        this.fullParse = fullParse;
+    }
+
+    /**
+     * Gets whether or not to extract functions through an index file kept next to the source file.
+     *
+     * @return  true if extracting functions through an index file, otherwise false
+     */
+    public boolean isIndex() {
+        return index;
+    }
+
+    /**
+     * Sets whether or not to extract functions through an index file kept next to the source file.
+     *
+     * @param index true to extract functions through an index file, otherwise false
+     */
+    public void setIndex(boolean index) {
+        this.index = index;
+    }
+
+    /**
+     * Gets whether or not to emit every function the target functions need, directly or not, along with them.
+     *
+     * @return  true if emitting the functions target functions need, otherwise false
+     */
+    public boolean isClosure() {
+        return closure;
+    }
+
+    /**
+     * Sets whether or not to emit every function the target functions need, directly or not, along with them.
+     *
+     * @param closure   true to emit the functions target functions need, otherwise false
+     */
+    public void setClosure(boolean closure) {
+        this.closure = closure;
+    }
+
+    /**
+     * Gets whether or not to stream whole programs through the pipeline a chunk at a time, in bounded memory.
+     *
+     * @return  true if streaming whole programs, otherwise false
+     */
+    public boolean isStream() {
+        return stream;
+    }
+
+    /**
+     * Sets whether or not to stream whole programs through the pipeline a chunk at a time, in bounded memory.
+     *
+     * @param stream    true to stream whole programs, otherwise false
+     */
+    public void setStream(boolean stream) {
+        this.stream = stream;
+    }
+
+    /**
+     * Gets whether or not to answer from a snapshot of an earlier parse kept next to the source file, taking one if
+     * there is none.
+     *
+     * @return  true if using snapshots, otherwise false
+     */
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Sets whether or not to answer from a snapshot of an earlier parse kept next to the source file, taking one if
+     * there is none.
+     *
+     * @param snapshot  true to use snapshots, otherwise false
+     */
+    public void setSnapshot(boolean snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Gets whether or not to optimize function bodies before emitting them.
+     *
+     * @return  true if optimizing function bodies, otherwise false
+     */
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    /**
+     * Sets whether or not to optimize function bodies before emitting them.
+     *
+     * @param optimize  true to optimize function bodies, otherwise false
+     */
+    public void setOptimize(boolean optimize) {
+        this.optimize = optimize;
+    }
+
+    /**
+     * Gets whether or not to emit annotations as contract checks.
+     *
+     * @return  true if emitting annotations as contract checks, otherwise false
+     */
+    public boolean isContracts() {
+        return contracts;
+    }
+
+    /**
+     * Sets whether or not to emit annotations as contract checks.
+     *
+     * @param contracts true to emit annotations as contract checks, otherwise false
+     */
+    public void setContracts(boolean contracts) {
+        this.contracts = contracts;
+    }
+
+    /**
+     * Gets the way the Java types that integers are transpiled to are chosen.
+     *
+     * @return  the way integer types are chosen
+     */
+    public IntegerMode getIntegerMode() {
+        return integerMode;
+    }
+
+    /**
+     * Sets the way the Java types that integers are transpiled to are chosen.
+     *
+     * @param integerMode   the way integer types are chosen
+     */
+    public void setIntegerMode(IntegerMode integerMode) {
+        this.integerMode = integerMode;
+    }
+
+    /**
+     * Gets whether or not to keep running, transpiling source files again as they change.
+     *
+     * @return  true if watching source files for changes, otherwise false
+     */
+    public boolean isWatch() {
+        return watch;
+    }
+
+    /**
+     * Sets whether or not to keep running, transpiling source files again as they change.
+     *
+     * @param watch true to watch source files for changes, otherwise false
+     */
+    public void setWatch(boolean watch) {
+        this.watch = watch;
+    }
+
+    /**
+     * Gets whether or not to write each function to a compilation unit of its own.
+     *
+     * @return  true if writing each function to a compilation unit of its own, otherwise false
+     */
+    public boolean isPerFunction() {
+        return perFunction;
+    }
+
+    /**
+     * Sets whether or not to write each function to a compilation unit of its own.
+     *
+     * @param perFunction   true to write each function to a compilation unit of its own, otherwise false
+     */
+    public void setPerFunction(boolean perFunction) {
+        this.perFunction = perFunction;
+    }
+
+    /**
+     * Gets the path of the directory to write output files beneath, mirroring the layout of the source files.
+     *
+     * @return  the path of the output directory, or null if not writing to one
+     */
+    public String getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * Sets the path of the directory to write output files beneath, mirroring the layout of the source files.
+     *
+     * @param outputDirectory   the path of the output directory, or null if not writing to one
+     */
+    public void setOutputDirectory(String outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Gets the path of the zip or jar archive to write output files into.
+     *
+     * @return  the path of the archive, or null if not writing to one
+     */
+    public String getOutputArchive() {
+        return outputArchive;
+    }
+
+    /**
+     * Sets the path of the zip or jar archive to write output files into.
+     *
+     * @param outputArchive the path of the archive, or null if not writing to one
+     */
+    public void setOutputArchive(String outputArchive) {
+        this.outputArchive = outputArchive;
+    }
+
+    /**
+     * Gets the path of the file to write output to.
+     *
+     * @return  the path of the output file, or null to write to standard output
+     */
+    public String getOutputFile() {
+        return outputFile;
+    }
+
+    /**
+     * Sets the path of the file to write output to.
+     *
+     * @param outputFile    the path of the output file, or null to write to standard output
+     */
+    public void setOutputFile(String outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    /**
+     * Gets the call to make in execution mode, such as "f(1, {2, 3}, true)".
+     *
+     * @return  the call
+     */
+    public String getCall() {
+        return call;
+    }
+
+    /**
+     * Sets the call to make in execution mode, such as "f(1, {2, 3}, true)".
+     *
+     * @param call  the call
+     */
+    public void setCall(String call) {
+        this.call = call;
+    }
 }
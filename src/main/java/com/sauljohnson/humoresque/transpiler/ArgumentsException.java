@@ -0,0 +1,19 @@
+package com.sauljohnson.humoresque.transpiler;
+
+/**
+ * Represents an exception thrown when arguments passed to the application are invalid.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+public class ArgumentsException extends Exception {
+
+    /**
+     * Initialises a new instance of an exception thrown when arguments passed to the application are invalid.
+     *
+     * @param message   a message describing what is wrong with the arguments
+     */
+    public ArgumentsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,232 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.ParseException;
+import com.sauljohnson.humoresque.parser.TokenizationException;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Represents a runner that puts many source files through the transpiler pipeline in parallel.
+ *
+ * Files are processed on a work-stealing pool, but results are written out in the order the files were given so that
+ * output is deterministic. A file that fails is reported on its own and does not stop the others.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class BatchTranspiler {
+
+    private final TranspilationJob job;
+
+    private final int parallelism;
+
+    /**
+     * Represents the result of putting one source file through the pipeline.
+     */
+    private static final class FileResult {
+
+        private final CharSequence output;
+
+        private final String error;
+
+        private FileResult(CharSequence output, String error) {
+            this.output = output;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Represents a sink that holds files in memory until they can be written to another sink in order.
+     */
+    private static final class MemorySink implements OutputSink {
+
+        private final Map<String, CharSequence> files = new LinkedHashMap<>();
+
+        @Override
+        public void write(String path, CharSequence content) {
+            files.put(path, content);
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release.
+        }
+    }
+
+    /**
+     * Represents the result of putting one source file through the pipeline to be written to a sink.
+     */
+    private static final class SinkResult {
+
+        private final MemorySink files;
+
+        private final String error;
+
+        private SinkResult(MemorySink files, String error) {
+            this.files = files;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Initialises a new instance of a runner that puts many source files through the transpiler pipeline in parallel.
+     *
+     * @param job           the job to run over each source file
+     * @param parallelism   the number of files to process at once
+     */
+    public BatchTranspiler(TranspilationJob job, int parallelism) {
+        this.job = job;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Describes an I/O error met while putting a source file through the pipeline, naming the file that failed, which
+     * may be an index or snapshot kept alongside the source file rather than the source file itself.
+     *
+     * @param e     the error
+     * @param path  the path of the source file
+     * @return      the description
+     */
+    private static String describe(IOException e, Path path) {
+        if (e instanceof FileSystemException) {
+            FileSystemException fileSystemException = (FileSystemException) e;
+            return "Could not open file at '" + (fileSystemException.getFile() == null ? path :
+                    fileSystemException.getFile()) + "'" + (fileSystemException.getReason() == null ? "" :
+                    ": " + fileSystemException.getReason());
+        }
+        return "Could not transpile file: " + e.getMessage();
+    }
+
+    /**
+     * Puts a single source file through the pipeline, capturing its output or error.
+     *
+     * @param path  the path of the source file
+     * @return      the result
+     */
+    private FileResult transpile(Path path) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            job.run(path, sb);
+            return new FileResult(sb, null);
+        } catch (IOException e) {
+            return new FileResult(sb, describe(e, path));
+        } catch (TokenizationException | ParseException | FunctionNotFoundException | BytecodeException e) {
+            return new FileResult(sb, e.getMessage());
+        } catch (RuntimeException e) {
+            return new FileResult(sb, "Could not transpile file: " + e); // Keep going with the other files.
+        }
+    }
+
+    /**
+     * Puts a single source file through the pipeline, capturing the files it produces or its error.
+     *
+     * @param path  the path of the source file
+     * @param name  the name of the source file relative to the sink
+     * @return      the result
+     */
+    private SinkResult transpile(Path path, String name) {
+        MemorySink files = new MemorySink();
+        try {
+            job.run(path, name, files);
+            return new SinkResult(files, null);
+        } catch (IOException e) {
+            return new SinkResult(files, describe(e, path));
+        } catch (TokenizationException | ParseException | FunctionNotFoundException | BytecodeException e) {
+            return new SinkResult(files, e.getMessage());
+        } catch (RuntimeException e) {
+            return new SinkResult(files, "Could not transpile file: " + e); // Keep going with the other files.
+        }
+    }
+
+    /**
+     * Puts source files through the pipeline, writing the files each produces to a sink. Files are written in the
+     * order the source files were given, and nothing is written for a source file that fails.
+     *
+     * @param sources       the paths of the source files, mapped to their names relative to the sink
+     * @param sink          the sink to write files to
+     * @param errors        the output to report failures to
+     * @return              the number of source files that failed
+     * @throws IOException  if the sink or the output cannot be written to
+     */
+    public int run(Map<Path, String> sources, OutputSink sink, Appendable errors) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Start every file, the pool decides how many run at once.
+            List<Path> paths = new ArrayList<>(sources.keySet());
+            List<ForkJoinTask<SinkResult>> tasks = new ArrayList<>(paths.size());
+            for (Path source : paths) {
+                String name = sources.get(source);
+                tasks.add(pool.submit(() -> transpile(source, name)));
+            }
+
+            // Write results out in order as they become available.
+            int failures = 0;
+            for (int i = 0; i < tasks.size(); i++) {
+                SinkResult result = tasks.get(i).join();
+                tasks.set(i, null); // Release the result once it has been written.
+                if (result.error != null) {
+                    errors.append(paths.get(i).toString()).append(": ").append(result.error)
+                            .append(System.lineSeparator());
+                    failures++;
+                    continue;
+                }
+                for (Map.Entry<String, CharSequence> file : result.files.files.entrySet()) {
+                    sink.write(file.getKey(), file.getValue());
+                }
+            }
+            return failures;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Puts source files through the pipeline, writing each file's output under a header naming it.
+     *
+     * @param sources       the paths of the source files
+     * @param output        the output to write results to
+     * @param errors        the output to report failures to
+     * @return              the number of files that failed
+     * @throws IOException  if the output cannot be written to
+     */
+    public int run(List<Path> sources, Appendable output, Appendable errors) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Start every file, the pool decides how many run at once.
+            List<ForkJoinTask<FileResult>> tasks = new ArrayList<>(sources.size());
+            for (Path source : sources) {
+                tasks.add(pool.submit(() -> transpile(source)));
+            }
+
+            // Write results out in order as they become available.
+            int failures = 0;
+            for (int i = 0; i < tasks.size(); i++) {
+                FileResult result = tasks.get(i).join();
+                tasks.set(i, null); // Release the result once it has been written.
+                output.append("// ").append(sources.get(i).toString()).append(System.lineSeparator())
+                        .append(result.output);
+                if (result.error != null) {
+                    if (output instanceof Flushable) {
+                        ((Flushable) output).flush(); // Keep partial output ahead of the error.
+                    }
+                    errors.append(sources.get(i).toString()).append(": ").append(result.error)
+                            .append(System.lineSeparator());
+                    failures++;
+                }
+            }
+            return failures;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.sauljohnson.humoresque.transpiler;
+
+/**
+ * Represents an exception thrown when a program cannot be compiled to bytecode, in the same cases the Java compiler
+ * would reject its Java output.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class BytecodeException extends RuntimeException {
+
+    /**
+     * Initialises a new instance of an exception thrown when a program cannot be compiled to bytecode.
+     *
+     * @param message   the reason the program cannot be compiled
+     */
+    public BytecodeException(String message) {
+        super(message);
+    }
+}
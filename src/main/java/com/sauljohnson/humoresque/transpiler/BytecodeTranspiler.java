@@ -0,0 +1,853 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Represents a HAHA to JVM bytecode transpiler, which compiles a program straight to a class file without going
+ * through Java source code or the Java compiler.
+ *
+ * Each function becomes a public static method of a single class, with int, boolean and array locals. Function bodies
+ * are read through the same expression trees as the Java back end uses (see {@link FunctionOptimizer}), so they mean
+ * exactly what the Java output means. Unknown or redefined variables, mismatched types, indexing anything but an array
+ * and calls to missing functions are rejected with a {@link BytecodeException}, much as the Java compiler would reject
+ * them, but not every check the Java compiler makes is made here: definite assignment is not checked and code left
+ * unreachable, such as after {@code while (false)}, is not reported, so some programs that the Java compiler would
+ * reject still compile. The text returned by the {@link Transpiler} methods is a listing of the instructions of each
+ * method, for a reader; the class file itself is produced by {@link #compile(Program)}.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class BytecodeTranspiler implements Transpiler {
+
+    /**
+     * The version of the output this transpiler produces. Must be incremented whenever output changes, as it forms
+     * part of the key output is cached under.
+     */
+    public static final int OUTPUT_VERSION = 1;
+
+    /**
+     * The name given to the class functions are compiled into, unless another is set.
+     */
+    public static final String DEFAULT_CLASS_NAME = "Program";
+
+    /**
+     * The class file format version written, that of Java 11.
+     */
+    private static final int CLASS_FILE_VERSION = 55;
+
+    /**
+     * The name of the field that records whether assertions are disabled, as the Java compiler names it.
+     */
+    private static final String ASSERTIONS_DISABLED = "$assertionsDisabled";
+
+    private static final int ACC_PUBLIC = 0x0001;
+
+    private static final int ACC_STATIC = 0x0008;
+
+    private static final int ACC_FINAL = 0x0010;
+
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ACC_SYNTHETIC = 0x1000;
+
+    private String className;
+
+    private boolean optimize;
+
+    private boolean contracts;
+
+    /**
+     * Initialises a new instance of a HAHA to JVM bytecode transpiler.
+     */
+    public BytecodeTranspiler() {
+        className = DEFAULT_CLASS_NAME;
+    }
+
+    /**
+     * Gets the binary name of the class functions are compiled into.
+     *
+     * @return  the name of the class
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Sets the binary name of the class functions are compiled into, such as {@code Program} or {@code com.foo.Bar}.
+     *
+     * @param className the name of the class
+     */
+    public void setClassName(String className) {
+        this.className = className;
+    }
+
+    /**
+     * Gets whether or not function bodies are optimized before being compiled.
+     *
+     * @return  true if function bodies are optimized, otherwise false
+     */
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    /**
+     * Sets whether or not function bodies are optimized before being compiled, as they are for Java output.
+     *
+     * @param optimize  true to optimize function bodies, otherwise false
+     */
+    public void setOptimize(boolean optimize) {
+        this.optimize = optimize;
+    }
+
+    /**
+     * Gets whether or not annotations are compiled as contract checks.
+     *
+     * @return  true if annotations are compiled as contract checks, otherwise false
+     */
+    public boolean isContracts() {
+        return contracts;
+    }
+
+    /**
+     * Sets whether or not annotations are compiled as contract checks, which run only when assertions are enabled for
+     * the class, as they do for Java output.
+     *
+     * @param contracts true to compile annotations as contract checks, otherwise false
+     */
+    public void setContracts(boolean contracts) {
+        this.contracts = contracts;
+    }
+
+    /**
+     * Gets the field descriptor corresponding to a {@link HahaType}.
+     *
+     * @param type  the type
+     * @return      the descriptor
+     */
+    private static String descriptor(HahaType type) {
+        String descriptor;
+        switch (type.getBaseType()) {
+            case Z:
+            case INT:
+                descriptor = "I"; // Both of these map to the integer data type.
+                break;
+            case BOOLEAN:
+                descriptor = "Z";
+                break;
+            default:
+                throw new BytecodeException("Unsupported type '" + type.getBaseType() + "'.");
+        }
+        return type.isArrayType() ? "[" + descriptor : descriptor;
+    }
+
+    /**
+     * Gets the method descriptor of a function.
+     *
+     * @param function  the function
+     * @return          the descriptor
+     */
+    private static String descriptor(Function function) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Argument argument : function.getArguments()) {
+            sb.append(descriptor(argument.getType()));
+        }
+        return sb.append(')').append(descriptor(function.getReturnType())).toString();
+    }
+
+    /**
+     * Represents a class file being compiled from functions.
+     */
+    private final class ClassCompiler {
+
+        private final ConstantPool pool;
+
+        private final String internalName;
+
+        private final Map<String, List<Function>> callable;
+
+        private final Set<String> signatures;
+
+        private final ByteArrayOutputStream methodBytes;
+
+        private final DataOutputStream methods;
+
+        private int methodCount;
+
+        private boolean assertions;
+
+        /**
+         * Initialises a new instance of a class file being compiled from functions.
+         *
+         * @param callable  the functions that may be called, all of which must be added to the class for it to be
+         *                  complete
+         */
+        private ClassCompiler(Iterable<Function> callable) {
+            pool = new ConstantPool();
+            internalName = className.replace('.', '/');
+            this.callable = new HashMap<>();
+            for (Function function : callable) {
+                this.callable.computeIfAbsent(function.getIdentifier(), k -> new ArrayList<>()).add(function);
+            }
+            signatures = new HashSet<>();
+            methodBytes = new ByteArrayOutputStream();
+            methods = new DataOutputStream(methodBytes);
+        }
+
+        /**
+         * Compiles a function into a method of the class.
+         *
+         * @param function  the function
+         * @param listing   the {@link StringBuilder} to append a listing of the method to, or null for none
+         */
+        private void add(Function function, StringBuilder listing) {
+            String descriptor = descriptor(function);
+            if (!signatures.add(function.getIdentifier() + descriptor.substring(0, descriptor.indexOf(')')))) {
+                throw new BytecodeException("Function '" + function.getIdentifier() + "' is defined more than once " +
+                        "with the same arguments.");
+            }
+            FunctionCompiler compiler = new FunctionCompiler(this, function, listing != null);
+            compiler.compile();
+            try {
+                methods.writeShort(ACC_PUBLIC | ACC_STATIC);
+                methods.writeShort(pool.utf8(function.getIdentifier()));
+                methods.writeShort(pool.utf8(descriptor));
+                methods.writeShort(1);
+                compiler.code.writeTo(methods);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Never thrown writing to memory.
+            }
+            methodCount++;
+            if (listing != null) {
+                listing.append("public static ").append(function.getIdentifier()).append(descriptor).append('\n');
+                compiler.code.appendListing(listing);
+                listing.append('\n');
+            }
+        }
+
+        /**
+         * Compiles the static initialiser that records whether assertions are enabled for the class, as the Java
+         * compiler does for classes that contain assertions.
+         *
+         * @throws IOException  if the method cannot be written
+         */
+        private void addStaticInitialiser() throws IOException {
+            CodeBuilder code = new CodeBuilder(pool, new String[0], false);
+            CodeBuilder.Label enabled = new CodeBuilder.Label();
+            CodeBuilder.Label end = new CodeBuilder.Label();
+            code.pushClass(internalName);
+            code.invokeVirtual("java/lang/Class", "desiredAssertionStatus", "()Z", 0);
+            code.branch(CodeBuilder.IFNE, "ifne", enabled);
+            code.pushInt(1);
+            code.branch(CodeBuilder.GOTO, "goto", end);
+            code.setStack(Collections.emptyList());
+            code.place(enabled);
+            code.pushInt(0);
+            code.place(end);
+            code.putStatic(internalName, ASSERTIONS_DISABLED, "Z");
+            code.instruction(0xb1, "return", 0, null);
+            methods.writeShort(ACC_STATIC);
+            methods.writeShort(pool.utf8("<clinit>"));
+            methods.writeShort(pool.utf8("()V"));
+            methods.writeShort(1);
+            code.writeTo(methods);
+            methodCount++;
+        }
+
+        /**
+         * Writes out the class file.
+         *
+         * @return  the class file
+         */
+        private byte[] toByteArray() {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                int thisClass = pool.type(internalName);
+                int superClass = pool.type("java/lang/Object");
+                if (assertions) {
+                    addStaticInitialiser();
+                    pool.utf8(ASSERTIONS_DISABLED);
+                }
+
+                // Header and constant pool, complete now every method has been compiled.
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(CLASS_FILE_VERSION);
+                pool.writeTo(out);
+                out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(0); // No interfaces.
+
+                // Fields, then methods.
+                if (assertions) {
+                    out.writeShort(1);
+                    out.writeShort(ACC_STATIC | ACC_FINAL | ACC_SYNTHETIC);
+                    out.writeShort(pool.utf8(ASSERTIONS_DISABLED));
+                    out.writeShort(pool.utf8("Z"));
+                    out.writeShort(0);
+                } else {
+                    out.writeShort(0);
+                }
+                out.writeShort(methodCount);
+                methodBytes.writeTo(out);
+                out.writeShort(0); // No class attributes.
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Never thrown writing to memory.
+            }
+        }
+    }
+
+    /**
+     * Represents a single function being compiled into a method.
+     */
+    private final class FunctionCompiler {
+
+        private final ClassCompiler owner;
+
+        private final Function function;
+
+        private final Map<String, Integer> slots;
+
+        private final List<String> types;
+
+        private final CodeBuilder code;
+
+        /**
+         * Initialises a new instance of a function being compiled into a method, giving each argument, variable and
+         * the function value a local variable slot.
+         *
+         * @param owner     the class the method belongs to
+         * @param function  the function
+         * @param listing   whether or not to keep a listing of the instructions
+         */
+        private FunctionCompiler(ClassCompiler owner, Function function, boolean listing) {
+            this.owner = owner;
+            this.function = function;
+            slots = new HashMap<>();
+            types = new ArrayList<>();
+            for (Argument argument : function.getArguments()) {
+                declare(argument.getIdentifier(), argument.getType());
+            }
+            for (Variable variable : function.getVariables()) {
+                declare(variable.getIdentifier(), variable.getType());
+            }
+            declare(function.getIdentifier(), function.getReturnType()); // Extra variable to carry function value.
+            String[] locals = new String[types.size()];
+            for (int i = 0; i < locals.length; i++) {
+                locals[i] = types.get(i).equals("Z") ? CodeBuilder.INT : types.get(i);
+            }
+            code = new CodeBuilder(owner.pool, locals, listing);
+        }
+
+        /**
+         * Gives a local variable a slot.
+         *
+         * @param identifier    the name of the variable
+         * @param type          the type of the variable
+         */
+        private void declare(String identifier, HahaType type) {
+            if (slots.putIfAbsent(identifier, types.size()) != null) {
+                throw error("variable '" + identifier + "' is already defined");
+            }
+            types.add(descriptor(type));
+        }
+
+        /**
+         * Creates an exception for a function that cannot be compiled.
+         *
+         * @param reason    the reason the function cannot be compiled
+         * @return          the exception
+         */
+        private BytecodeException error(String reason) {
+            return new BytecodeException("Cannot compile function '" + function.getIdentifier() + "': " + reason +
+                    ".");
+        }
+
+        /**
+         * Checks that an expression has the type required of it.
+         *
+         * @param actual    the type of the expression
+         * @param expected  the type required
+         */
+        private void expect(String actual, String expected) {
+            if (!actual.equals(expected)) {
+                throw error("expected " + expected + " but found " + actual);
+            }
+        }
+
+        /**
+         * Gets the slot of a variable.
+         *
+         * @param identifier    the name of the variable
+         * @return              the slot
+         */
+        private int slot(String identifier) {
+            Integer slot = slots.get(identifier);
+            if (slot == null) {
+                throw error("unknown variable '" + identifier + "'");
+            }
+            return slot;
+        }
+
+        /**
+         * Compiles the function body, initialising every local first so that types are fixed throughout.
+         */
+        private void compile() {
+            for (int i = function.getArguments().length; i < types.size(); i++) {
+                if (types.get(i).startsWith("[")) {
+                    code.pushNull();
+                } else {
+                    code.pushInt(0);
+                }
+                code.store(i);
+            }
+            FunctionOptimizer lifted = optimize ? FunctionOptimizer.optimize(function, contracts) :
+                    FunctionOptimizer.lift(function, contracts);
+            statements(lifted.getStatements());
+            code.load(slot(function.getIdentifier()));
+            code.returnValue();
+        }
+
+        /**
+         * Compiles statements.
+         *
+         * @param nodes the statements
+         */
+        private void statements(List<FunctionOptimizer.Node> nodes) {
+            for (FunctionOptimizer.Node node : nodes) {
+                if (node instanceof FunctionOptimizer.Store) {
+                    FunctionOptimizer.Store store = (FunctionOptimizer.Store) node;
+                    int slot = slot(store.identifier);
+                    expect(value(store.value), types.get(slot));
+                    code.store(slot);
+                } else if (node instanceof FunctionOptimizer.IndexStore) {
+                    FunctionOptimizer.IndexStore store = (FunctionOptimizer.IndexStore) node;
+                    int slot = slot(store.identifier);
+                    String type = types.get(slot);
+                    if (!type.startsWith("[")) {
+                        throw error("'" + store.identifier + "' is not an array");
+                    }
+                    code.load(slot);
+                    expect(value(store.index), "I");
+                    expect(value(store.value), type.substring(1));
+                    code.storeElement();
+                } else if (node instanceof FunctionOptimizer.While) {
+                    FunctionOptimizer.While loop = (FunctionOptimizer.While) node;
+                    CodeBuilder.Label head = new CodeBuilder.Label();
+                    CodeBuilder.Label end = new CodeBuilder.Label();
+                    code.place(head);
+                    jump(loop.predicate, false, end);
+                    statements(loop.body);
+                    code.branch(CodeBuilder.GOTO, "goto", head);
+                    code.place(end);
+                } else if (node instanceof FunctionOptimizer.If) {
+                    FunctionOptimizer.If conditional = (FunctionOptimizer.If) node;
+                    CodeBuilder.Label otherwise = new CodeBuilder.Label();
+                    jump(conditional.predicate, false, otherwise);
+                    statements(conditional.trueArm);
+                    if (conditional.falseArm != null && !conditional.falseArm.isEmpty()) {
+                        CodeBuilder.Label end = new CodeBuilder.Label();
+                        code.branch(CodeBuilder.GOTO, "goto", end);
+                        code.place(otherwise);
+                        statements(conditional.falseArm);
+                        code.place(end);
+                    } else {
+                        code.place(otherwise);
+                    }
+                } else if (node instanceof FunctionOptimizer.Comment) {
+                    FunctionOptimizer.Expression check = ((FunctionOptimizer.Comment) node).check;
+                    if (check != null) {
+                        check(check);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Compiles a contract check, which throws an {@link AssertionError} if assertions are enabled for the class
+         * and the check does not hold.
+         *
+         * @param check the check
+         */
+        private void check(FunctionOptimizer.Expression check) {
+            owner.assertions = true;
+            CodeBuilder.Label skip = new CodeBuilder.Label();
+            code.getStatic(owner.internalName, ASSERTIONS_DISABLED, "Z");
+            code.branch(CodeBuilder.IFNE, "ifne", skip);
+            jump(check, true, skip);
+            code.newObject("java/lang/AssertionError");
+            code.dup();
+            code.invokeConstructor("java/lang/AssertionError", "()V", 0);
+            code.instruction(0xbf, "athrow", 1, null);
+            code.place(skip);
+        }
+
+        /**
+         * Compiles an expression that leaves its value on the stack.
+         *
+         * @param expression    the expression
+         * @return              the type of the value
+         */
+        private String value(FunctionOptimizer.Expression expression) {
+            if (expression instanceof FunctionOptimizer.IntLiteral) {
+                code.pushInt(((FunctionOptimizer.IntLiteral) expression).value);
+                return "I";
+            }
+            if (expression instanceof FunctionOptimizer.BoolLiteral) {
+                code.pushInt(((FunctionOptimizer.BoolLiteral) expression).value ? 1 : 0);
+                return "Z";
+            }
+            if (expression instanceof FunctionOptimizer.VariableRead) {
+                int slot = slot(((FunctionOptimizer.VariableRead) expression).identifier);
+                code.load(slot);
+                return types.get(slot);
+            }
+            if (expression instanceof FunctionOptimizer.Unary) {
+                FunctionOptimizer.Unary unary = (FunctionOptimizer.Unary) expression;
+                if (unary.operator.equals("-")) {
+                    expect(value(unary.operand), "I");
+                    code.instruction(0x74, "ineg", 1, CodeBuilder.INT);
+                    return "I";
+                }
+                expect(value(unary.operand), "Z");
+                code.pushInt(1);
+                code.instruction(CodeBuilder.IXOR, "ixor", 2, CodeBuilder.INT);
+                return "Z";
+            }
+            if (expression instanceof FunctionOptimizer.Binary) {
+                FunctionOptimizer.Binary binary = (FunctionOptimizer.Binary) expression;
+                int opcode;
+                switch (binary.operator) {
+                    case "+": opcode = CodeBuilder.IADD; break;
+                    case "-": opcode = CodeBuilder.ISUB; break;
+                    case "*": opcode = CodeBuilder.IMUL; break;
+                    case "/": opcode = CodeBuilder.IDIV; break;
+                    case "%": opcode = CodeBuilder.IREM; break;
+                    default: return materialize(expression); // Comparisons and logical operators.
+                }
+                expect(value(binary.left), "I");
+                expect(value(binary.right), "I");
+                code.instruction(opcode, arithmeticMnemonic(opcode), 2, CodeBuilder.INT);
+                return "I";
+            }
+            if (expression instanceof FunctionOptimizer.IndexRead) {
+                FunctionOptimizer.IndexRead indexRead = (FunctionOptimizer.IndexRead) expression;
+                String type = value(indexRead.array);
+                if (!type.startsWith("[")) {
+                    throw error("only arrays can be indexed");
+                }
+                expect(value(indexRead.index), "I");
+                code.loadElement();
+                return type.substring(1);
+            }
+            if (expression instanceof FunctionOptimizer.Call) {
+                return call((FunctionOptimizer.Call) expression);
+            }
+            throw error("cannot read expression '" + ((FunctionOptimizer.Opaque) expression).text + "'");
+        }
+
+        /**
+         * Gets the mnemonic of an arithmetic instruction.
+         *
+         * @param opcode    the opcode
+         * @return          the mnemonic
+         */
+        private String arithmeticMnemonic(int opcode) {
+            switch (opcode) {
+                case CodeBuilder.IADD: return "iadd";
+                case CodeBuilder.ISUB: return "isub";
+                case CodeBuilder.IMUL: return "imul";
+                case CodeBuilder.IDIV: return "idiv";
+                default: return "irem";
+            }
+        }
+
+        /**
+         * Compiles a call to a function in the same class, choosing the function whose arguments match exactly.
+         *
+         * @param call  the call
+         * @return      the type of the value returned
+         */
+        private String call(FunctionOptimizer.Call call) {
+            List<String> argumentTypes = new ArrayList<>();
+            for (FunctionOptimizer.Expression argument : call.arguments) {
+                argumentTypes.add(value(argument));
+            }
+            StringBuilder sb = new StringBuilder("(");
+            for (String argumentType : argumentTypes) {
+                sb.append(argumentType);
+            }
+            String arguments = sb.append(')').toString();
+            for (Function candidate : owner.callable.getOrDefault(call.identifier, Collections.emptyList())) {
+                String descriptor = descriptor(candidate);
+                if (descriptor.startsWith(arguments)) {
+                    code.invokeStatic(owner.internalName, call.identifier, descriptor, argumentTypes.size());
+                    return descriptor.substring(arguments.length());
+                }
+            }
+            throw error("no function '" + call.identifier + "' taking " + arguments);
+        }
+
+        /**
+         * Compiles a boolean expression that leaves its value on the stack by branching.
+         *
+         * @param expression    the expression
+         * @return              the type of the value, always boolean
+         */
+        private String materialize(FunctionOptimizer.Expression expression) {
+            List<String> before = code.getStack();
+            CodeBuilder.Label no = new CodeBuilder.Label();
+            CodeBuilder.Label end = new CodeBuilder.Label();
+            jump(expression, false, no);
+            code.pushInt(1);
+            code.branch(CodeBuilder.GOTO, "goto", end);
+            code.setStack(before);
+            code.place(no);
+            code.pushInt(0);
+            code.place(end);
+            return "Z";
+        }
+
+        /**
+         * Compiles a boolean expression that branches to a label when it has a given value and falls through
+         * otherwise, short-circuiting as Java does.
+         *
+         * @param expression    the expression
+         * @param when          the value to branch on
+         * @param target        the label to branch to
+         */
+        private void jump(FunctionOptimizer.Expression expression, boolean when, CodeBuilder.Label target) {
+            if (expression instanceof FunctionOptimizer.Unary &&
+                    ((FunctionOptimizer.Unary) expression).operator.equals("!")) {
+                jump(((FunctionOptimizer.Unary) expression).operand, !when, target);
+                return;
+            }
+            if (expression instanceof FunctionOptimizer.Binary) {
+                FunctionOptimizer.Binary binary = (FunctionOptimizer.Binary) expression;
+                switch (binary.operator) {
+                    case "&&":
+                    case "||":
+                        // Branching on the operator's own short-circuit value takes both operands, otherwise one.
+                        boolean shortCircuit = binary.operator.equals("||");
+                        if (when == shortCircuit) {
+                            jump(binary.left, when, target);
+                            jump(binary.right, when, target);
+                        } else {
+                            CodeBuilder.Label skip = new CodeBuilder.Label();
+                            jump(binary.left, shortCircuit, skip);
+                            jump(binary.right, when, target);
+                            code.place(skip);
+                        }
+                        return;
+                    case "<":
+                    case ">":
+                    case "<=":
+                    case ">=":
+                        expect(value(binary.left), "I");
+                        expect(value(binary.right), "I");
+                        compare(when ? binary.operator : negate(binary.operator), target, false);
+                        return;
+                    case "==":
+                    case "!=":
+                        String type = value(binary.left);
+                        expect(value(binary.right), type);
+                        compare(when ? binary.operator : negate(binary.operator), target, type.startsWith("["));
+                        return;
+                    default:
+                        break; // Arithmetic, rejected below.
+                }
+            }
+            expect(value(expression), "Z");
+            code.branch(when ? CodeBuilder.IFNE : CodeBuilder.IFEQ, when ? "ifne" : "ifeq", target);
+        }
+
+        /**
+         * Gets the comparison that holds exactly when another does not.
+         *
+         * @param operator  the comparison
+         * @return          the negated comparison
+         */
+        private String negate(String operator) {
+            switch (operator) {
+                case "<": return ">=";
+                case ">": return "<=";
+                case "<=": return ">";
+                case ">=": return "<";
+                case "==": return "!=";
+                default: return "==";
+            }
+        }
+
+        /**
+         * Compiles a branch on a comparison of the two values on top of the stack.
+         *
+         * @param operator      the comparison
+         * @param target        the label to branch to if the comparison holds
+         * @param references    whether the values are references rather than ints
+         */
+        private void compare(String operator, CodeBuilder.Label target, boolean references) {
+            switch (operator) {
+                case "<": code.branch(CodeBuilder.IF_ICMPLT, "if_icmplt", target); break;
+                case ">": code.branch(CodeBuilder.IF_ICMPGT, "if_icmpgt", target); break;
+                case "<=": code.branch(CodeBuilder.IF_ICMPLE, "if_icmple", target); break;
+                case ">=": code.branch(CodeBuilder.IF_ICMPGE, "if_icmpge", target); break;
+                case "==":
+                    code.branch(references ? CodeBuilder.IF_ACMPEQ : CodeBuilder.IF_ICMPEQ,
+                            references ? "if_acmpeq" : "if_icmpeq", target);
+                    break;
+                default:
+                    code.branch(references ? CodeBuilder.IF_ACMPNE : CodeBuilder.IF_ICMPNE,
+                            references ? "if_acmpne" : "if_icmpne", target);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Gets the functions of a program.
+     *
+     * @param program   the program
+     * @return          the functions, in source order
+     */
+    private static List<Function> getFunctions(Program program) {
+        List<Function> functions = new ArrayList<>();
+        for (Function function : program.getFunctions()) {
+            functions.add(function);
+        }
+        return functions;
+    }
+
+    /**
+     * Compiles a program to a class file, with one public static method per function.
+     *
+     * @param program   the program to compile
+     * @return          the class file
+     */
+    public byte[] compile(Program program) {
+        ClassCompiler compiler = new ClassCompiler(getFunctions(program));
+        for (Function function : program.getFunctions()) {
+            compiler.add(function, null);
+        }
+        return compiler.toByteArray();
+    }
+
+    /**
+     * Compiles a program to a class and loads it in a class loader of its own, without writing anything out.
+     *
+     * @param program   the program to compile
+     * @param parent    the class loader to delegate to
+     * @return          the loaded class
+     */
+    public Class<?> load(Program program, ClassLoader parent) {
+        return new ProgramClassLoader(parent).define(className, compile(program));
+    }
+
+    /**
+     * Compiles a program, appending a listing of each method in turn to an output.
+     *
+     * @param program       the program to compile
+     * @param output        the output to append to
+     * @throws IOException  if the output cannot be written to
+     */
+    private void list(Program program, Appendable output) throws IOException {
+        ClassCompiler compiler = new ClassCompiler(getFunctions(program));
+        for (Function function : program.getFunctions()) {
+            StringBuilder sb = new StringBuilder();
+            compiler.add(function, sb);
+            output.append(sb);
+            if (output instanceof Flushable) {
+                ((Flushable) output).flush();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Calls are only resolved to the function itself, as no others are compiled alongside it. Use
+     * {@link #transpileFunction(Function, Program)} for a function that calls others.
+     */
+    @Override
+    public String transpileFunction(Function function) {
+        StringBuilder sb = new StringBuilder();
+        new ClassCompiler(Collections.singletonList(function)).add(function, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Compiles a single function as a method of the class a program is compiled to, so that calls to every function
+     * in the program resolve, returning a listing of the method.
+     *
+     * @param function  the function to compile
+     * @param program   the program the function is part of
+     * @return          the listing
+     */
+    public String transpileFunction(Function function, Program program) {
+        StringBuilder sb = new StringBuilder();
+        new ClassCompiler(getFunctions(program)).add(function, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Gets the signature of each function in a program that a function calls. The listing of a function compiled
+     * against the program depends on these as well as on the function itself.
+     *
+     * @param function  the function
+     * @param program   the program the function is part of
+     * @return          the signatures, in the order the functions appear in the program
+     */
+    public String getCalleeSignatures(Function function, Program program) {
+        Set<String> references = CallGraph.getReferences(function, contracts);
+        StringBuilder sb = new StringBuilder();
+        for (Function callee : program.getFunctions()) {
+            if (references.contains(callee.getIdentifier())) {
+                sb.append(callee.getIdentifier()).append(descriptor(callee)).append(';');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String transpile(Program program) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            list(program, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Never thrown appending to a StringBuilder.
+        }
+        return sb.toString();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Calls are only resolved to the function itself, as no others are compiled alongside it. Use
+     * {@link #transpileFunction(Function, Program)} for a function that calls others.
+     */
+    @Override
+    public void transpileFunction(Function function, Appendable output) throws IOException {
+        output.append(transpileFunction(function));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void transpile(Program program, Appendable output) throws IOException {
+        list(program, output);
+    }
+}
@@ -0,0 +1,204 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.Token;
+import com.sauljohnson.humoresque.parser.model.*;
+
+import java.util.*;
+
+/**
+ * Represents the graph of references between the functions of a program, used to find every function a set of
+ * functions needs in order to be emitted alone.
+ *
+ * A function refers to another if the name of the other appears in any of its assignments, array indices, loop or
+ * conditional predicates, or, if annotations are checked as contracts, in its annotations, and is not hidden there by
+ * an argument or variable of the same name. References are found from tokens alone, so the graph may hold a reference
+ * that is never called, but never misses one that is.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class CallGraph {
+
+    private final Map<String, Function> functions;
+
+    private final Map<String, Set<String>> callees;
+
+    private CallGraph(Map<String, Function> functions, Map<String, Set<String>> callees) {
+        this.functions = functions;
+        this.callees = callees;
+    }
+
+    /**
+     * Builds the graph of references between the functions of a program.
+     *
+     * @param program       the program
+     * @param annotations   whether or not references from annotations count, as they do when checked as contracts
+     * @return              the graph
+     */
+    public static CallGraph of(Program program, boolean annotations) {
+
+        // Collect functions by name, keeping the first of any that share one.
+        Map<String, Function> functions = new LinkedHashMap<>();
+        for (Function function : program.getFunctions()) {
+            functions.putIfAbsent(function.getIdentifier(), function);
+        }
+
+        // Keep only those names that resolve to functions.
+        Map<String, Set<String>> callees = new HashMap<>();
+        for (Function function : functions.values()) {
+            Set<String> references = getReferences(function, annotations);
+            references.retainAll(functions.keySet());
+            callees.put(function.getIdentifier(), references);
+        }
+        return new CallGraph(functions, callees);
+    }
+
+    /**
+     * Gets the names that a function refers to that are not its own arguments, variables or return value, in the order
+     * they first appear. Any of these may name another function.
+     *
+     * @param function      the function
+     * @param annotations   whether or not to look in annotations as well
+     * @return              the names referred to
+     */
+    public static Set<String> getReferences(Function function, boolean annotations) {
+        Set<String> references = new LinkedHashSet<>();
+        collect(function.getStatement(), annotations, references);
+
+        // Names declared by the function hide any functions of the same name.
+        for (Argument argument : function.getArguments()) {
+            references.remove(argument.getIdentifier());
+        }
+        for (Variable variable : function.getVariables()) {
+            references.remove(variable.getIdentifier());
+        }
+        references.remove(function.getIdentifier());
+        return references;
+    }
+
+    /**
+     * Collects the identifiers within a statement.
+     *
+     * @param statement     the statement
+     * @param annotations   whether or not to look in annotations as well
+     * @param references    the set to add identifiers to
+     */
+    private static void collect(Statement statement, boolean annotations, Set<String> references) {
+        if (statement == null) {
+            return;
+        }
+        switch (statement.getStatementType()) {
+            case BLOCK:
+                for (ProgramComponent component : ((Block) statement).getProgramComponents()) {
+                    switch (component.getProgramComponentType()) {
+                        case ANNOTATION:
+                            if (annotations) {
+                                collect(((Annotation) component).getTokens(), references);
+                            }
+                            break;
+                        case STATEMENT:
+                            collect((Statement) component, annotations, references);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                break;
+            case LOOP:
+                Loop loop = (Loop) statement;
+                collect(loop.getPredicate(), references);
+                collect(loop.getStatement(), annotations, references);
+                break;
+            case CONDITIONAL:
+                Conditional conditional = (Conditional) statement;
+                collect(conditional.getPredicate(), references);
+                collect(conditional.getTrueArm(), annotations, references);
+                collect(conditional.getFalseArm(), annotations, references);
+                break;
+            case ASSIGNMENT:
+                Assignment assignment = (Assignment) statement;
+                if (assignment.getIsArrayAssignment()) {
+                    collect(((ArrayAssignment) assignment).getIndex(), references);
+                }
+                collect(assignment.getExpression(), references);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Collects the identifiers within a sequence of tokens.
+     *
+     * @param tokens        the tokens
+     * @param references    the set to add identifiers to
+     */
+    private static void collect(Token[] tokens, Set<String> references) {
+        if (tokens == null) {
+            return;
+        }
+        for (Token token : tokens) {
+            String text = token.getText();
+            if (!text.isEmpty() && Character.isJavaIdentifierStart(text.charAt(0))) {
+                references.add(text);
+            }
+        }
+    }
+
+    /**
+     * Gets the functions in the graph, in the order they appear in the program.
+     *
+     * @return  the names of the functions
+     */
+    public Set<String> getFunctions() {
+        return Collections.unmodifiableSet(functions.keySet());
+    }
+
+    /**
+     * Gets the functions a function refers to directly.
+     *
+     * @param identifier                    the name of the function
+     * @return                              the names of the functions it refers to, in the order they first appear
+     * @throws FunctionNotFoundException    if there is no function with the name in the graph
+     */
+    public Set<String> getCallees(String identifier) throws FunctionNotFoundException {
+        Set<String> found = callees.get(identifier);
+        if (found == null) {
+            throw new FunctionNotFoundException(identifier);
+        }
+        return Collections.unmodifiableSet(found);
+    }
+
+    /**
+     * Gets a set of functions along with every function they refer to, directly or not. The functions asked for come
+     * first, in the order given, followed by the functions they need in the order they are reached, breadth first.
+     * Each function appears once.
+     *
+     * @param identifiers                   the names of the functions
+     * @return                              the functions
+     * @throws FunctionNotFoundException    if any of the functions asked for is not in the graph
+     */
+    public List<Function> closure(String[] identifiers) throws FunctionNotFoundException {
+        Set<String> reached = new LinkedHashSet<>();
+        for (String identifier : identifiers) {
+            if (!functions.containsKey(identifier)) {
+                throw new FunctionNotFoundException(identifier);
+            }
+            reached.add(identifier);
+        }
+        Deque<String> pending = new ArrayDeque<>(reached);
+        while (!pending.isEmpty()) {
+            for (String callee : callees.get(pending.poll())) {
+                if (reached.add(callee)) {
+                    pending.add(callee);
+                }
+            }
+        }
+        List<Function> closure = new ArrayList<>(reached.size());
+        for (String identifier : reached) {
+            closure.add(functions.get(identifier));
+        }
+        return closure;
+    }
+}
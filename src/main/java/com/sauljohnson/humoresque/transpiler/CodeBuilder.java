@@ -0,0 +1,603 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Represents the code of a single method being assembled into class file form.
+ *
+ * As each instruction is added the types on the operand stack are tracked, so that a stack map frame can be recorded
+ * wherever a label is placed and the largest stack depth is known. The types of local variables are fixed for the
+ * whole method, which holds because the compiler initialises every local before the first label. Booleans are ints
+ * as far as the virtual machine is concerned, and are tracked as such. A listing of the instructions may also be kept,
+ * for showing the code to a reader.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class CodeBuilder {
+
+    static final int IFEQ = 0x99;
+
+    static final int IFNE = 0x9a;
+
+    static final int IF_ICMPEQ = 0x9f;
+
+    static final int IF_ICMPNE = 0xa0;
+
+    static final int IF_ICMPLT = 0xa1;
+
+    static final int IF_ICMPGE = 0xa2;
+
+    static final int IF_ICMPGT = 0xa3;
+
+    static final int IF_ICMPLE = 0xa4;
+
+    static final int IF_ACMPEQ = 0xa5;
+
+    static final int IF_ACMPNE = 0xa6;
+
+    static final int GOTO = 0xa7;
+
+    static final int IADD = 0x60;
+
+    static final int ISUB = 0x64;
+
+    static final int IMUL = 0x68;
+
+    static final int IDIV = 0x6c;
+
+    static final int IREM = 0x70;
+
+    static final int IXOR = 0x82;
+
+    /**
+     * The type tracked for ints and booleans.
+     */
+    static final String INT = "I";
+
+    /**
+     * The type tracked for null references.
+     */
+    private static final String NULL = "null";
+
+    /**
+     * The largest code length a method may have, fixed by the class file format.
+     */
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    private final ConstantPool pool;
+
+    private final String[] locals;
+
+    private byte[] code;
+
+    private int length;
+
+    private final List<String> stack;
+
+    private int maxStack;
+
+    private final TreeMap<Integer, List<String>> frames;
+
+    private final List<Integer> listingOffsets;
+
+    private final List<String> listingTexts;
+
+    private final List<Label> listingTargets;
+
+    /**
+     * Represents a position in the code that can be branched to, placed once its position is known.
+     */
+    static final class Label {
+
+        private int offset = -1;
+
+        private final List<Integer> branches = new ArrayList<>();
+    }
+
+    /**
+     * Initialises a new instance of the code of a method being assembled.
+     *
+     * @param pool      the constant pool of the class the method belongs to
+     * @param locals    the type of each local variable slot, such as {@code I} or {@code [I}
+     * @param listing   whether or not to keep a listing of the instructions
+     */
+    CodeBuilder(ConstantPool pool, String[] locals, boolean listing) {
+        this.pool = pool;
+        this.locals = locals;
+        code = new byte[256];
+        stack = new ArrayList<>();
+        frames = new TreeMap<>();
+        listingOffsets = listing ? new ArrayList<>() : null;
+        listingTexts = listing ? new ArrayList<>() : null;
+        listingTargets = listing ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Appends a byte to the code.
+     *
+     * @param value the byte
+     */
+    private void writeByte(int value) {
+        if (length == code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[length++] = (byte) value;
+    }
+
+    /**
+     * Appends a big-endian 16-bit value to the code.
+     *
+     * @param value the value
+     */
+    private void writeShort(int value) {
+        writeByte(value >> 8);
+        writeByte(value);
+    }
+
+    /**
+     * Starts an instruction, recording it in the listing if one is being kept.
+     *
+     * @param opcode    the opcode of the instruction
+     * @param text      the instruction as it should appear in the listing
+     * @param target    the label the instruction branches to, or null if it does not branch
+     */
+    private void begin(int opcode, String text, Label target) {
+        if (listingTexts != null) {
+            listingOffsets.add(length);
+            listingTexts.add(text);
+            listingTargets.add(target);
+        }
+        writeByte(opcode);
+    }
+
+    /**
+     * Pops types off the tracked operand stack.
+     *
+     * @param count the number of types to pop
+     */
+    private void pop(int count) {
+        for (int i = 0; i < count; i++) {
+            stack.remove(stack.size() - 1);
+        }
+    }
+
+    /**
+     * Pushes a type onto the tracked operand stack.
+     *
+     * @param type  the type
+     */
+    private void push(String type) {
+        stack.add(type);
+        maxStack = Math.max(maxStack, stack.size());
+    }
+
+    /**
+     * Gets the types currently on the operand stack, so they can be restored after an unconditional branch.
+     *
+     * @return  a copy of the types on the operand stack, bottom first
+     */
+    List<String> getStack() {
+        return new ArrayList<>(stack);
+    }
+
+    /**
+     * Replaces the types on the operand stack, as they are where code resumes after an unconditional branch.
+     *
+     * @param types the types, bottom first
+     */
+    void setStack(List<String> types) {
+        stack.clear();
+        stack.addAll(types);
+    }
+
+    /**
+     * Adds an instruction with no operands.
+     *
+     * @param opcode    the opcode
+     * @param mnemonic  the mnemonic
+     * @param pops      the number of values the instruction pops
+     * @param pushed    the type the instruction pushes, or null if it pushes nothing
+     */
+    void instruction(int opcode, String mnemonic, int pops, String pushed) {
+        begin(opcode, mnemonic, null);
+        pop(pops);
+        if (pushed != null) {
+            push(pushed);
+        }
+    }
+
+    /**
+     * Pushes an int constant, using the shortest instruction that can.
+     *
+     * @param value the value
+     */
+    void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            begin(0x03 + value, value < 0 ? "iconst_m1" : "iconst_" + value, null);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            begin(0x10, "bipush " + value, null);
+            writeByte(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            begin(0x11, "sipush " + value, null);
+            writeShort(value);
+        } else {
+            loadConstant(pool.integer(value), "ldc " + value);
+        }
+        push(INT);
+    }
+
+    /**
+     * Pushes a second copy of the value on top of the stack.
+     */
+    void dup() {
+        instruction(0x59, "dup", 0, stack.get(stack.size() - 1));
+    }
+
+    /**
+     * Pushes null.
+     */
+    void pushNull() {
+        begin(0x01, "aconst_null", null);
+        push(NULL);
+    }
+
+    /**
+     * Pushes a class, as a {@link Class} object.
+     *
+     * @param internalName  the internal name of the class
+     */
+    void pushClass(String internalName) {
+        loadConstant(pool.type(internalName), "ldc class " + internalName);
+        push("java/lang/Class");
+    }
+
+    /**
+     * Adds an instruction that loads a constant from the constant pool, using the short form if it can.
+     *
+     * @param index the index of the constant
+     * @param text  the instruction as it should appear in the listing
+     */
+    private void loadConstant(int index, String text) {
+        if (index <= 0xff) {
+            begin(0x12, text, null);
+            writeByte(index);
+        } else {
+            begin(0x13, text.replaceFirst("ldc", "ldc_w"), null);
+            writeShort(index);
+        }
+    }
+
+    /**
+     * Adds an instruction that accesses a local variable slot, using the short form if it can.
+     *
+     * @param shortOpcode   the opcode of the short form for slot zero
+     * @param longOpcode    the opcode of the general form
+     * @param mnemonic      the mnemonic of the general form
+     * @param slot          the slot
+     */
+    private void local(int shortOpcode, int longOpcode, String mnemonic, int slot) {
+        if (slot <= 3) {
+            begin(shortOpcode + slot, mnemonic + "_" + slot, null);
+        } else if (slot <= 0xff) {
+            begin(longOpcode, mnemonic + " " + slot, null);
+            writeByte(slot);
+        } else {
+            begin(0xc4, "wide " + mnemonic + " " + slot, null);
+            writeByte(longOpcode);
+            writeShort(slot);
+        }
+    }
+
+    /**
+     * Pushes the value of a local variable.
+     *
+     * @param slot  the slot of the variable
+     */
+    void load(int slot) {
+        if (locals[slot].equals(INT)) {
+            local(0x1a, 0x15, "iload", slot);
+        } else {
+            local(0x2a, 0x19, "aload", slot);
+        }
+        push(locals[slot]);
+    }
+
+    /**
+     * Pops a value into a local variable.
+     *
+     * @param slot  the slot of the variable
+     */
+    void store(int slot) {
+        if (locals[slot].equals(INT)) {
+            local(0x3b, 0x36, "istore", slot);
+        } else {
+            local(0x4b, 0x3a, "astore", slot);
+        }
+        pop(1);
+    }
+
+    /**
+     * Pops an array and an index, and pushes the element at that index.
+     */
+    void loadElement() {
+        boolean booleans = stack.get(stack.size() - 2).equals("[Z");
+        instruction(booleans ? 0x33 : 0x2e, booleans ? "baload" : "iaload", 2, INT);
+    }
+
+    /**
+     * Pops an array, an index and a value, and stores the value at that index.
+     */
+    void storeElement() {
+        boolean booleans = stack.get(stack.size() - 3).equals("[Z");
+        instruction(booleans ? 0x54 : 0x4f, booleans ? "bastore" : "iastore", 3, null);
+    }
+
+    /**
+     * Pops the value on top of the stack and returns it.
+     */
+    void returnValue() {
+        boolean reference = !stack.get(stack.size() - 1).equals(INT);
+        instruction(reference ? 0xb0 : 0xac, reference ? "areturn" : "ireturn", 1, null);
+    }
+
+    /**
+     * Adds an instruction that refers to a member or class in the constant pool.
+     *
+     * @param opcode    the opcode
+     * @param mnemonic  the mnemonic
+     * @param index     the index of the constant
+     * @param comment   the member or class, as it should appear in the listing
+     * @param pops      the number of values the instruction pops
+     * @param pushed    the type the instruction pushes, or null if it pushes nothing
+     */
+    private void member(int opcode, String mnemonic, int index, String comment, int pops, String pushed) {
+        begin(opcode, mnemonic + " " + comment, null);
+        writeShort(index);
+        pop(pops);
+        if (pushed != null) {
+            push(pushed);
+        }
+    }
+
+    /**
+     * Pushes the value of a static field.
+     *
+     * @param owner         the internal name of the class declaring the field
+     * @param name          the name of the field
+     * @param descriptor    the descriptor of the field
+     */
+    void getStatic(String owner, String name, String descriptor) {
+        member(0xb2, "getstatic", pool.field(owner, name, descriptor), owner + "." + name, 0, stackType(descriptor));
+    }
+
+    /**
+     * Pops a value into a static field.
+     *
+     * @param owner         the internal name of the class declaring the field
+     * @param name          the name of the field
+     * @param descriptor    the descriptor of the field
+     */
+    void putStatic(String owner, String name, String descriptor) {
+        member(0xb3, "putstatic", pool.field(owner, name, descriptor), owner + "." + name, 1, null);
+    }
+
+    /**
+     * Calls a static method, popping its arguments and pushing its result.
+     *
+     * @param owner         the internal name of the class declaring the method
+     * @param name          the name of the method
+     * @param descriptor    the descriptor of the method
+     * @param arguments     the number of arguments the method takes
+     */
+    void invokeStatic(String owner, String name, String descriptor, int arguments) {
+        member(0xb8, "invokestatic", pool.method(owner, name, descriptor), owner + "." + name + descriptor,
+                arguments, returnType(descriptor));
+    }
+
+    /**
+     * Calls an instance method, popping its receiver and arguments and pushing its result.
+     *
+     * @param owner         the internal name of the class declaring the method
+     * @param name          the name of the method
+     * @param descriptor    the descriptor of the method
+     * @param arguments     the number of arguments the method takes, not counting the receiver
+     */
+    void invokeVirtual(String owner, String name, String descriptor, int arguments) {
+        member(0xb6, "invokevirtual", pool.method(owner, name, descriptor), owner + "." + name + descriptor,
+                arguments + 1, returnType(descriptor));
+    }
+
+    /**
+     * Calls a constructor, popping the object being constructed and the arguments.
+     *
+     * @param owner         the internal name of the class being constructed
+     * @param descriptor    the descriptor of the constructor
+     * @param arguments     the number of arguments the constructor takes
+     */
+    void invokeConstructor(String owner, String descriptor, int arguments) {
+        member(0xb7, "invokespecial", pool.method(owner, "<init>", descriptor), owner + ".<init>" + descriptor,
+                arguments + 1, null);
+    }
+
+    /**
+     * Pushes a new, not yet constructed, object.
+     *
+     * @param internalName  the internal name of the class of the object
+     */
+    void newObject(String internalName) {
+        member(0xbb, "new", pool.type(internalName), internalName, 0, internalName);
+    }
+
+    /**
+     * Gets the type tracked on the stack for a value with a field descriptor.
+     *
+     * @param descriptor    the field descriptor
+     * @return              the tracked type
+     */
+    private static String stackType(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'I':
+            case 'Z':
+                return INT;
+            case 'L':
+                return descriptor.substring(1, descriptor.length() - 1);
+            default:
+                return descriptor; // Arrays.
+        }
+    }
+
+    /**
+     * Gets the type tracked on the stack for the result of a method.
+     *
+     * @param descriptor    the method descriptor
+     * @return              the tracked type, or null if the method returns nothing
+     */
+    private static String returnType(String descriptor) {
+        String type = descriptor.substring(descriptor.indexOf(')') + 1);
+        return type.equals("V") ? null : stackType(type);
+    }
+
+    /**
+     * Adds a branch to a label, placed or not.
+     *
+     * @param opcode    the opcode of the branch
+     * @param mnemonic  the mnemonic of the branch
+     * @param target    the label to branch to
+     */
+    void branch(int opcode, String mnemonic, Label target) {
+        int position = length;
+        begin(opcode, mnemonic, target);
+        writeShort(0); // Patched once both ends are known.
+        if (opcode == GOTO) {
+            // Pops nothing.
+        } else if (opcode == IFEQ || opcode == IFNE) {
+            pop(1);
+        } else {
+            pop(2);
+        }
+        if (target.offset >= 0) {
+            patch(position, target.offset);
+        } else {
+            target.branches.add(position);
+        }
+    }
+
+    /**
+     * Fills in the offset of a branch instruction.
+     *
+     * @param position  the position of the branch instruction
+     * @param target    the position branched to
+     */
+    private void patch(int position, int target) {
+        int offset = target - position;
+        if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+            throw new BytecodeException("Function is too large to compile to bytecode.");
+        }
+        code[position + 1] = (byte) (offset >> 8);
+        code[position + 2] = (byte) offset;
+    }
+
+    /**
+     * Places a label at the current position, recording a stack map frame for it.
+     *
+     * @param label the label
+     */
+    void place(Label label) {
+        label.offset = length;
+        for (int position : label.branches) {
+            patch(position, length);
+        }
+        label.branches.clear();
+        frames.put(length, getStack());
+    }
+
+    /**
+     * Writes out a verification type for a stack map frame.
+     *
+     * @param out           the stream to write to
+     * @param type          the tracked type
+     * @throws IOException  if the stream cannot be written to
+     */
+    private void writeVerificationType(DataOutputStream out, String type) throws IOException {
+        if (type.equals(INT)) {
+            out.writeByte(1);
+        } else if (type.equals(NULL)) {
+            out.writeByte(5);
+        } else {
+            out.writeByte(7);
+            out.writeShort(pool.type(type));
+        }
+    }
+
+    /**
+     * Writes out the assembled code as a Code attribute, including its stack map frames.
+     *
+     * @param out           the stream to write to
+     * @throws IOException  if the stream cannot be written to
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        if (length > MAX_CODE_LENGTH) {
+            throw new BytecodeException("Function is too large to compile to bytecode.");
+        }
+
+        // Every frame is written in full, which is always valid if not always the most compact.
+        ByteArrayOutputStream frameBytes = new ByteArrayOutputStream();
+        DataOutputStream frameOut = new DataOutputStream(frameBytes);
+        int previous = -1;
+        for (Map.Entry<Integer, List<String>> frame : frames.entrySet()) {
+            frameOut.writeByte(255);
+            frameOut.writeShort(frame.getKey() - previous - 1);
+            frameOut.writeShort(locals.length);
+            for (String local : locals) {
+                writeVerificationType(frameOut, local);
+            }
+            frameOut.writeShort(frame.getValue().size());
+            for (String type : frame.getValue()) {
+                writeVerificationType(frameOut, type);
+            }
+            previous = frame.getKey();
+        }
+
+        // Code attribute, with the stack map table nested inside it if there are any frames.
+        int stackMapLength = frames.isEmpty() ? 0 : 8 + frameBytes.size();
+        out.writeShort(pool.utf8("Code"));
+        out.writeInt(12 + length + stackMapLength);
+        out.writeShort(maxStack);
+        out.writeShort(locals.length);
+        out.writeInt(length);
+        out.write(code, 0, length);
+        out.writeShort(0); // No exception handlers.
+        if (frames.isEmpty()) {
+            out.writeShort(0);
+        } else {
+            out.writeShort(1);
+            out.writeShort(pool.utf8("StackMapTable"));
+            out.writeInt(2 + frameBytes.size());
+            out.writeShort(frames.size());
+            frameBytes.writeTo(out);
+        }
+    }
+
+    /**
+     * Appends the listing of the instructions, one per line with its offset, resolving branch targets.
+     *
+     * @param sb    the {@link StringBuilder} to append to
+     */
+    void appendListing(StringBuilder sb) {
+        for (int i = 0; i < listingTexts.size(); i++) {
+            String offset = Integer.toString(listingOffsets.get(i));
+            for (int j = offset.length(); j < 6; j++) {
+                sb.append(' ');
+            }
+            sb.append(offset).append(": ").append(listingTexts.get(i));
+            if (listingTargets.get(i) != null) {
+                sb.append(' ').append(listingTargets.get(i).offset);
+            }
+            sb.append('\n');
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.sauljohnson.humoresque.transpiler;
+
+/**
+ * Represents an exception thrown when transpiled output cannot be compiled by the Java compiler.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class CompilationException extends Exception {
+
+    /**
+     * Initialises a new instance of an exception thrown when transpiled output cannot be compiled.
+     *
+     * @param message   a message describing why the output could not be compiled
+     */
+    public CompilationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,146 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Represents a program compiled to a loaded class, with a callable handle for each of its functions.
+ *
+ * Functions are public static methods of the class, so each handle takes the arguments of its function in order. If
+ * several functions share a name, only one of them has a handle, and the others must be found through the class.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class CompiledProgram {
+
+    private final Class<?> programClass;
+
+    private final Map<String, MethodHandle> handles;
+
+    /**
+     * Initialises a new instance of a program compiled to a loaded class.
+     *
+     * @param programClass  the loaded class
+     * @param handles       the handle for each function, by name
+     */
+    private CompiledProgram(Class<?> programClass, Map<String, MethodHandle> handles) {
+        this.programClass = programClass;
+        this.handles = Collections.unmodifiableMap(handles);
+    }
+
+    /**
+     * Finds the functions of a loaded class and creates a handle for each.
+     *
+     * @param programClass  the loaded class
+     * @return              the compiled program
+     */
+    public static CompiledProgram of(Class<?> programClass) {
+
+        // Sort methods so that the same one is always chosen from functions sharing a name.
+        Method[] methods = programClass.getDeclaredMethods();
+        Arrays.sort(methods, Comparator.comparing(Method::toString));
+
+        // Create a handle for each public static method.
+        Map<String, MethodHandle> handles = new LinkedHashMap<>();
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (Method method : methods) {
+            int modifiers = method.getModifiers();
+            if (!Modifier.isPublic(modifiers) || !Modifier.isStatic(modifiers) || method.isSynthetic() ||
+                    handles.containsKey(method.getName())) {
+                continue;
+            }
+            try {
+                handles.put(method.getName(), lookup.unreflect(method));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e); // Public methods of a public class are always accessible.
+            }
+        }
+        return new CompiledProgram(programClass, handles);
+    }
+
+    /**
+     * Gets the class the program was compiled to.
+     *
+     * @return  the class
+     */
+    public Class<?> getProgramClass() {
+        return programClass;
+    }
+
+    /**
+     * Gets the names of the functions in the program.
+     *
+     * @return  the names of the functions
+     */
+    public Set<String> getIdentifiers() {
+        return handles.keySet();
+    }
+
+    /**
+     * Gets the handle for each function in the program, by name.
+     *
+     * @return  the handles
+     */
+    public Map<String, MethodHandle> getHandles() {
+        return handles;
+    }
+
+    /**
+     * Gets the handle for a function in the program.
+     *
+     * @param identifier                    the name of the function
+     * @return                              the handle
+     * @throws FunctionNotFoundException    if there is no function with the name in the program
+     */
+    public MethodHandle getHandle(String identifier) throws FunctionNotFoundException {
+        MethodHandle handle = handles.get(identifier);
+        if (handle == null) {
+            throw new FunctionNotFoundException(identifier);
+        }
+        return handle;
+    }
+
+    /**
+     * Calls a function in the program. Prefer {@link #getHandle(String)} for calling a function many times.
+     *
+     * @param identifier                    the name of the function
+     * @param arguments                     the arguments to pass, boxed where necessary
+     * @return                              the value returned by the function, boxed where necessary
+     * @throws FunctionNotFoundException    if there is no function with the name in the program
+     * @throws InvocationTargetException    if the function threw an exception
+     * @throws IllegalArgumentException     if the arguments do not match the parameters of the function
+     */
+    public Object invoke(String identifier, Object... arguments) throws FunctionNotFoundException,
+            InvocationTargetException {
+        MethodHandle handle = getHandle(identifier);
+
+        // Check arguments up front, so that a mismatch is never mistaken for an exception thrown by the function.
+        MethodType type = handle.type();
+        if (type.parameterCount() != arguments.length) {
+            throw new IllegalArgumentException("Function '" + identifier + "' takes " + type.parameterCount() +
+                    " arguments but " + arguments.length + " were given.");
+        }
+        for (int i = 0; i < arguments.length; i++) {
+            Class<?> parameterType = type.parameterType(i);
+            if (arguments[i] == null ? parameterType.isPrimitive() : !type.wrap().parameterType(i)
+                    .isInstance(arguments[i])) {
+                throw new IllegalArgumentException("Argument " + (i + 1) + " of function '" + identifier +
+                        "' must be of type " + parameterType.getSimpleName() + ".");
+            }
+        }
+
+        // Call the function.
+        try {
+            return handle.invokeWithArguments(arguments);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents the constant pool of a class file being written, adding each distinct constant only once.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class ConstantPool {
+
+    private static final int UTF8 = 1;
+
+    private static final int INTEGER = 3;
+
+    private static final int CLASS = 7;
+
+    private static final int FIELD_REF = 9;
+
+    private static final int METHOD_REF = 10;
+
+    private static final int NAME_AND_TYPE = 12;
+
+    /**
+     * The largest number of entries a constant pool may hold, fixed by the class file format.
+     */
+    private static final int MAX_ENTRIES = 65535;
+
+    private final ByteArrayOutputStream bytes;
+
+    private final DataOutputStream out;
+
+    private final Map<String, Integer> indices;
+
+    private int count;
+
+    /**
+     * Initialises a new instance of an empty constant pool.
+     */
+    ConstantPool() {
+        bytes = new ByteArrayOutputStream();
+        out = new DataOutputStream(bytes);
+        indices = new HashMap<>();
+        count = 1; // Entry zero is never used.
+    }
+
+    /**
+     * Looks up a constant, adding it if it is not yet in the pool.
+     *
+     * @param key       a key unique to the constant
+     * @param tag       the tag of the constant
+     * @param first     the first index or value the constant refers to
+     * @param second    the second index the constant refers to, or -1 if it has none
+     * @return          the index of the constant
+     */
+    private int add(String key, int tag, int first, int second) {
+        Integer index = indices.get(key);
+        if (index != null) {
+            return index;
+        }
+        if (count >= MAX_ENTRIES) {
+            throw new BytecodeException("Too many constants for a single class.");
+        }
+        try {
+            out.writeByte(tag);
+            if (tag == INTEGER) {
+                out.writeInt(first);
+            } else {
+                out.writeShort(first);
+                if (second >= 0) {
+                    out.writeShort(second);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Never thrown writing to memory.
+        }
+        indices.put(key, count);
+        return count++;
+    }
+
+    /**
+     * Looks up a string constant, adding it if it is not yet in the pool.
+     *
+     * @param value the string
+     * @return      the index of the constant
+     */
+    int utf8(String value) {
+        Integer index = indices.get("U" + value);
+        if (index != null) {
+            return index;
+        }
+        if (count >= MAX_ENTRIES) {
+            throw new BytecodeException("Too many constants for a single class.");
+        }
+        try {
+            out.writeByte(UTF8);
+            out.writeUTF(value); // Modified UTF-8, as class files require.
+        } catch (IOException e) {
+            throw new BytecodeException("The name '" + value + "' is too long for a class file.");
+        }
+        indices.put("U" + value, count);
+        return count++;
+    }
+
+    /**
+     * Looks up an integer constant, adding it if it is not yet in the pool.
+     *
+     * @param value the integer
+     * @return      the index of the constant
+     */
+    int integer(int value) {
+        return add("I" + value, INTEGER, value, -1);
+    }
+
+    /**
+     * Looks up a class constant, adding it if it is not yet in the pool.
+     *
+     * @param internalName  the internal name of the class, such as {@code java/lang/Object} or {@code [I}
+     * @return              the index of the constant
+     */
+    int type(String internalName) {
+        return add("C" + internalName, CLASS, utf8(internalName), -1);
+    }
+
+    /**
+     * Looks up a name and type constant, adding it if it is not yet in the pool.
+     *
+     * @param name          the name of the member
+     * @param descriptor    the descriptor of the member
+     * @return              the index of the constant
+     */
+    private int nameAndType(String name, String descriptor) {
+        return add("N" + name + ":" + descriptor, NAME_AND_TYPE, utf8(name), utf8(descriptor));
+    }
+
+    /**
+     * Looks up a field reference constant, adding it if it is not yet in the pool.
+     *
+     * @param owner         the internal name of the class declaring the field
+     * @param name          the name of the field
+     * @param descriptor    the descriptor of the field
+     * @return              the index of the constant
+     */
+    int field(String owner, String name, String descriptor) {
+        return add("F" + owner + "." + name + ":" + descriptor, FIELD_REF, type(owner),
+                nameAndType(name, descriptor));
+    }
+
+    /**
+     * Looks up a method reference constant, adding it if it is not yet in the pool.
+     *
+     * @param owner         the internal name of the class declaring the method
+     * @param name          the name of the method
+     * @param descriptor    the descriptor of the method
+     * @return              the index of the constant
+     */
+    int method(String owner, String name, String descriptor) {
+        return add("M" + owner + "." + name + ":" + descriptor, METHOD_REF, type(owner),
+                nameAndType(name, descriptor));
+    }
+
+    /**
+     * Writes the constant pool out in class file form, preceded by its count.
+     *
+     * @param output        the stream to write to
+     * @throws IOException  if the stream cannot be written to
+     */
+    void writeTo(DataOutputStream output) throws IOException {
+        output.writeShort(count);
+        bytes.writeTo(output);
+    }
+}
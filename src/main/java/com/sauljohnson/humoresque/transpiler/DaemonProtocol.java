@@ -0,0 +1,51 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.nio.file.Path;
+
+/**
+ * Constants shared by the transpiler daemon and its client.
+ *
+ * A request is the protocol version, the daemon's token, the client's working directory, the number of arguments and
+ * then each argument. The response is a series of frames, each a channel byte followed by a length and that many
+ * bytes, ending in an exit frame that carries the exit status instead.
+ *
+ * The token is made up afresh each time the daemon starts and written to a file under the cache directory that only
+ * the daemon's owner can read, so that only they can send it requests.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class DaemonProtocol {
+
+    /**
+     * The protocol version, sent at the start of each request.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * The channel carrying the exit status, which ends the response.
+     */
+    static final byte EXIT = 0;
+
+    /**
+     * The channel carrying standard output.
+     */
+    static final byte STDOUT = 1;
+
+    /**
+     * The channel carrying standard error.
+     */
+    static final byte STDERR = 2;
+
+    private DaemonProtocol() { }
+
+    /**
+     * Gets the path of the file holding the token of the daemon listening on a port.
+     *
+     * @param port  the port
+     * @return      the path of the file
+     */
+    static Path getTokenFile(int port) {
+        return FunctionCache.getDefaultDirectory().resolve("daemon-" + port + ".token");
+    }
+}
@@ -0,0 +1,167 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents a sink that writes each file beneath a root directory, creating directories as needed.
+ *
+ * Content is encoded as UTF-8 into a reusable buffer and written through a file channel in one go. A file that already
+ * holds exactly the content being written is left alone, so that its modification time is kept and build tools
+ * watching the directory do not see a change. Files are only ever written, never removed, so files written by earlier
+ * runs for sources or functions that no longer exist are left in place. A sink keeps its buffers between writes, so it
+ * must not be shared between threads.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class DirectoryOutputSink implements OutputSink {
+
+    private final Path root;
+
+    private final CharsetEncoder encoder;
+
+    private ByteBuffer bytes;
+
+    private ByteBuffer existing;
+
+    private int written;
+
+    private int unchanged;
+
+    /**
+     * Initialises a new instance of a sink that writes each file beneath a root directory.
+     *
+     * @param root  the root directory, which is created if it does not exist
+     */
+    public DirectoryOutputSink(Path root) {
+        this.root = root;
+        encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        bytes = ByteBuffer.allocate(8192);
+        existing = ByteBuffer.allocate(8192);
+    }
+
+    /**
+     * Gets the root directory files are written beneath.
+     *
+     * @return  the root directory
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Gets the number of files written so far.
+     *
+     * @return  the number of files written
+     */
+    public int getWritten() {
+        return written;
+    }
+
+    /**
+     * Gets the number of files left alone so far because they already held the content being written.
+     *
+     * @return  the number of files left alone
+     */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * Encodes content as UTF-8 into the reusable buffer, growing it as needed.
+     *
+     * @param content   the content to encode
+     * @return          the buffer, flipped ready to be read
+     */
+    private ByteBuffer encode(CharSequence content) {
+
+        // Make room for the longest encoding up front, so that encoding never overflows.
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, (long) Math.ceil(content.length() *
+                (double) encoder.maxBytesPerChar()));
+        if (bytes.capacity() < capacity) {
+            bytes = ByteBuffer.allocate(capacity);
+        }
+        encoder.reset();
+        bytes.clear();
+        CoderResult result = encoder.encode(CharBuffer.wrap(content), bytes, true);
+        if (result.isUnderflow()) {
+            encoder.flush(bytes);
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    /**
+     * Gets whether or not a file already holds exactly the given bytes.
+     *
+     * @param file          the file
+     * @param content       the bytes, which are left unread
+     * @return              true if the file holds exactly the bytes, otherwise false
+     * @throws IOException  if the file exists but cannot be read
+     */
+    private boolean holds(Path file, ByteBuffer content) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != content.remaining()) {
+                return false;
+            }
+            if (existing.capacity() < content.remaining()) {
+                existing = ByteBuffer.allocate(content.remaining());
+            }
+            existing.clear().limit(content.remaining());
+            while (existing.hasRemaining() && channel.read(existing) >= 0) {
+                // Keep reading until the buffer is full or the file ends.
+            }
+            existing.flip();
+            return existing.equals(content);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(String path, CharSequence content) throws IOException {
+        Path file = root.resolve(path);
+        ByteBuffer encoded = encode(content);
+
+        // Leave files that would not change alone.
+        if (holds(file, encoded)) {
+            unchanged++;
+            return;
+        }
+
+        // Write the whole file through a channel.
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (encoded.hasRemaining()) {
+                channel.write(encoded);
+            }
+        }
+        written++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close() {
+        // Every file is closed as soon as it is written.
+    }
+}
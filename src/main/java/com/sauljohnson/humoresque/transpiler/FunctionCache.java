@@ -0,0 +1,256 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Represents a persistent, size-bounded cache of transpiled output keyed by content hash.
+ *
+ * Entries are written to a temporary file and atomically moved into place, so several processes may share one cache
+ * directory without ever reading a partially written entry. Reading an entry marks it as recently used, and trimming
+ * the cache evicts the least recently used entries first. Failures to read or write the cache are never fatal, they
+ * are treated as misses.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class FunctionCache {
+
+    /**
+     * The default maximum size of the cache, in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * The extension given to entries while they are being written.
+     */
+    private static final String PARTIAL_EXTENSION = ".part";
+
+    /**
+     * The age after which a partially written entry is assumed to be abandoned, in milliseconds.
+     */
+    private static final long ABANDONED_MILLIS = 60L * 60 * 1000;
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    private final AtomicLong puts;
+
+    /**
+     * Initialises a new instance of a persistent, size-bounded cache of transpiled output.
+     *
+     * @param directory the directory to keep the cache in
+     * @param maxBytes  the size to trim the cache down to, in bytes
+     */
+    public FunctionCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        hits = new AtomicLong();
+        misses = new AtomicLong();
+        puts = new AtomicLong();
+    }
+
+    /**
+     * Initialises a new instance of a persistent cache of transpiled output, using the default size bound.
+     *
+     * @param directory the directory to keep the cache in
+     */
+    public FunctionCache(Path directory) {
+        this(directory, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Gets the default directory to keep the cache in.
+     *
+     * @return  the default directory
+     */
+    public static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".cache", "humoresque");
+    }
+
+    /**
+     * Gets the directory the cache is kept in.
+     *
+     * @return  the directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the number of lookups that found an entry.
+     *
+     * @return  the number of hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of lookups that did not find an entry.
+     *
+     * @return  the number of misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of entries added. A cache that has had nothing added cannot have grown past its size bound, so
+     * need not be trimmed.
+     *
+     * @return  the number of entries added
+     */
+    public long getPuts() {
+        return puts.get();
+    }
+
+    /**
+     * Gets the path of the file an entry is stored in, fanning entries out over subdirectories by key prefix.
+     *
+     * @param key   the key
+     * @return      the path
+     */
+    private Path getEntryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /**
+     * Looks up an entry in the cache.
+     *
+     * @param key   the content hash to look up
+     * @return      the cached output, or null if there is none
+     */
+    public String get(String key) {
+        Path path = getEntryPath(key);
+        try {
+            String value = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            try {
+                Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis())); // Mark as used.
+            } catch (IOException e) {
+                // Evicted by another process since we read it, that's fine.
+            }
+            hits.incrementAndGet();
+            return value;
+        } catch (IOException e) {
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Adds an entry to the cache, replacing any existing entry with the same key.
+     *
+     * @param key   the content hash to store the output under
+     * @param value the output to store
+     */
+    public void put(String key, String value) {
+        Path path = getEntryPath(key);
+        Path partial = null;
+        try {
+            // Write to a uniquely named file first, then move it into place in one step.
+            Files.createDirectories(path.getParent());
+            partial = Files.createTempFile(path.getParent(), key, PARTIAL_EXTENSION);
+            Files.write(partial, value.getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(partial, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            puts.incrementAndGet();
+        } catch (IOException e) {
+            // Failing to cache output only costs us time later.
+            if (partial != null) {
+                try {
+                    Files.deleteIfExists(partial);
+                } catch (IOException ignored) {
+                    // Will be cleaned up on trim.
+                }
+            }
+        }
+    }
+
+    /**
+     * Represents an entry found in the cache directory while trimming.
+     */
+    private static final class Entry {
+
+        private final Path path;
+
+        private final long size;
+
+        private final long lastUsed;
+
+        private Entry(Path path, BasicFileAttributes attributes) {
+            this.path = path;
+            size = attributes.size();
+            lastUsed = attributes.lastModifiedTime().toMillis();
+        }
+    }
+
+    /**
+     * Trims the cache down to its size bound by evicting the least recently used entries, and removes any abandoned
+     * partially written entries. Entries removed by other processes in the meantime are skipped over.
+     *
+     * @throws IOException  if the cache directory cannot be listed
+     */
+    public void trim() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        // Find every entry in the cache.
+        List<Entry> entries = new ArrayList<>();
+        long total = 0;
+        long now = System.currentTimeMillis();
+        try (Stream<Path> paths = Files.walk(directory, 2)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (!attributes.isRegularFile()) {
+                    continue;
+                }
+                Entry entry = new Entry(path, attributes);
+                if (path.getFileName().toString().endsWith(PARTIAL_EXTENSION)) {
+                    if (now - entry.lastUsed > ABANDONED_MILLIS) {
+                        Files.deleteIfExists(path);
+                    }
+                    continue;
+                }
+                entries.add(entry);
+                total += entry.size;
+            }
+        }
+
+        // Evict least recently used entries until we're back under the bound.
+        if (total <= maxBytes) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(e -> e.lastUsed));
+        for (Entry entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(entry.path);
+            total -= entry.size;
+        }
+    }
+}
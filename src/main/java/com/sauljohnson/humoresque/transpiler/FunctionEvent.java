@@ -0,0 +1,28 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import jdk.jfr.*;
+
+/**
+ * Represents a Flight Recorder event recording the emission of a single function.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@Name("com.sauljohnson.humoresque.Function")
+@Label("Transpiled Function")
+@Category("Humoresque")
+@Description("The emission of a single function")
+@StackTrace(false)
+class FunctionEvent extends Event {
+
+    @Label("Identifier")
+    String identifier;
+
+    @Label("Cached")
+    @Description("Whether or not output was reused from the cache")
+    boolean cached;
+
+    @Label("Characters")
+    @Description("The number of characters emitted")
+    long characters;
+}
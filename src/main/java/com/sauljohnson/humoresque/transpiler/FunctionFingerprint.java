@@ -0,0 +1,222 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.Token;
+import com.sauljohnson.humoresque.parser.model.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes content hashes of parsed functions, covering every token that can affect transpiled output.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"WeakerAccess"}) // API class.
+public final class FunctionFingerprint {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final MessageDigest digest;
+
+    private final List<String> recorded;
+
+    /**
+     * Initialises a new instance of a function content hash computation.
+     */
+    private FunctionFingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform is required to support SHA-256.
+        }
+        recorded = null;
+    }
+
+    /**
+     * Initialises a new instance of a function content hash computation that records the strings it is given rather
+     * than hashing them.
+     *
+     * @param recorded  the list to record strings in
+     */
+    private FunctionFingerprint(List<String> recorded) {
+        digest = null;
+        this.recorded = recorded;
+    }
+
+    /**
+     * Adds a string to the hash, prefixed by its length so that adjacent strings cannot run together.
+     *
+     * @param value the string to add
+     */
+    private void update(String value) {
+        if (recorded != null) {
+            recorded.add(value);
+            return;
+        }
+        String text = value == null ? "" : value;
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = value == null ? -1 : bytes.length;
+        digest.update(new byte[] {(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8),
+                (byte) length});
+        digest.update(bytes);
+    }
+
+    /**
+     * Adds a type to the hash.
+     *
+     * @param type  the type to add
+     */
+    private void update(HahaType type) {
+        update(String.valueOf(type.getBaseType()));
+        update(type.isArrayType() ? "[]" : "");
+    }
+
+    /**
+     * Adds the type and text of each of a set of tokens to the hash.
+     *
+     * @param tokens    the tokens to add
+     */
+    private void update(Token[] tokens) {
+        update(Integer.toString(tokens.length));
+        for (Token token : tokens) {
+            update(String.valueOf(token.getType()));
+            update(token.getText());
+        }
+    }
+
+    /**
+     * Adds a statement and everything nested within it to the hash.
+     *
+     * @param statement the statement to add
+     */
+    private void update(Statement statement) {
+        if (statement == null) {
+            update((String) null);
+            return;
+        }
+        update(String.valueOf(statement.getStatementType()));
+        switch (statement.getStatementType()) {
+            case BLOCK:
+                for (ProgramComponent component : ((Block) statement).getProgramComponents()) {
+                    update(String.valueOf(component.getProgramComponentType()));
+                    switch (component.getProgramComponentType()) {
+                        case ANNOTATION:
+                            update(((Annotation) component).getTokens());
+                            break;
+                        case STATEMENT:
+                            update((Statement) component);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                update("end");
+                break;
+            case LOOP:
+                Loop loop = (Loop) statement;
+                update(loop.getPredicate());
+                update(loop.getStatement());
+                break;
+            case CONDITIONAL:
+                Conditional conditional = (Conditional) statement;
+                update(conditional.getPredicate());
+                update(conditional.getTrueArm());
+                update(conditional.getFalseArm());
+                break;
+            case ASSIGNMENT:
+                Assignment assignment = (Assignment) statement;
+                update(assignment.getIdentifier());
+                if (assignment.getIsArrayAssignment()) {
+                    update(((ArrayAssignment) assignment).getIndex());
+                }
+                update(assignment.getExpression());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Adds the header and body of a function to the hash.
+     *
+     * @param function  the function to add
+     */
+    private void update(Function function) {
+        update(function.getIdentifier());
+        update(function.getReturnType());
+        update(Integer.toString(function.getArguments().length));
+        for (Argument argument : function.getArguments()) {
+            update(argument.getIdentifier());
+            update(argument.getType());
+        }
+        update(Integer.toString(function.getVariables().length));
+        for (Variable variable : function.getVariables()) {
+            update(variable.getIdentifier());
+            update(variable.getType());
+        }
+        update(function.getStatement());
+    }
+
+    /**
+     * Renders the hash as hex.
+     *
+     * @return  the hash, as a lowercase hexadecimal string
+     */
+    private String toHex() {
+        byte[] hash = digest.digest();
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Computes a content hash of a function.
+     *
+     * @param function  the function to hash
+     * @param salt      a string identifying what the hash is used for, such as the transpiler and target version
+     * @return          the hash, as a lowercase hexadecimal string
+     */
+    public static String of(Function function, String salt) {
+        FunctionFingerprint fingerprint = new FunctionFingerprint();
+        fingerprint.update(salt);
+        fingerprint.update(function);
+        return fingerprint.toHex();
+    }
+
+    /**
+     * Records the strings that make up the content hash of a function, after its salt, so that the hash can later be
+     * computed for any salt without the function. Null strings are recorded as null.
+     *
+     * @param function  the function
+     * @return          the strings, in the order they are hashed
+     */
+    static List<String> record(Function function) {
+        FunctionFingerprint fingerprint = new FunctionFingerprint(new ArrayList<>());
+        fingerprint.update(function);
+        return fingerprint.recorded;
+    }
+
+    /**
+     * Computes the content hash of a function from the strings recorded for it, giving the same hash as
+     * {@link #of(Function, String)} would give for the function itself.
+     *
+     * @param recorded  the strings recorded by {@link #record(Function)}
+     * @param salt      a string identifying what the hash is used for, such as the transpiler and target version
+     * @return          the hash, as a lowercase hexadecimal string
+     */
+    static String of(Iterable<String> recorded, String salt) {
+        FunctionFingerprint fingerprint = new FunctionFingerprint();
+        fingerprint.update(salt);
+        for (String value : recorded) {
+            fingerprint.update(value);
+        }
+        return fingerprint.toHex();
+    }
+}
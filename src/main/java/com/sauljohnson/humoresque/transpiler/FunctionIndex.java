@@ -0,0 +1,349 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents an index of the functions in a HAHA source file, kept in a sidecar file next to it.
+ *
+ * The index records where each function lies in the source so that single functions can be sliced out of a
+ * memory-mapped copy of the source and parsed alone. It also records the size, modification time and content hash of
+ * the source it was built from, and is rebuilt whenever the source has changed.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class FunctionIndex {
+
+    /**
+     * The extension appended to a source file name to give its index file name.
+     */
+    public static final String INDEX_EXTENSION = ".hidx";
+
+    /**
+     * Identifies index files.
+     */
+    private static final int MAGIC = 0x48494458; // "HIDX".
+
+    /**
+     * The version of the index file format, changed whenever the format changes.
+     */
+    private static final int VERSION = 1;
+
+    private final ByteBuffer source;
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Represents the position of a single function within a source file.
+     */
+    public static final class Entry {
+
+        private final String identifier;
+
+        private final int arity;
+
+        private final int offset;
+
+        private final int length;
+
+        private Entry(String identifier, int arity, int offset, int length) {
+            this.identifier = identifier;
+            this.arity = arity;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /**
+         * Gets the name of the function.
+         *
+         * @return  the name of the function
+         */
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        /**
+         * Gets the number of arguments the function takes.
+         *
+         * @return  the number of arguments the function takes
+         */
+        public int getArity() {
+            return arity;
+        }
+
+        /**
+         * Gets the offset of the function within the source file, in bytes.
+         *
+         * @return  the offset of the function within the source file
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Gets the length of the function within the source file, in bytes.
+         *
+         * @return  the length of the function within the source file
+         */
+        public int getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Initialises a new instance of an index of the functions in a HAHA source file.
+     *
+     * @param source    the contents of the source file
+     * @param entries   the position of each function, in source order
+     */
+    private FunctionIndex(ByteBuffer source, List<Entry> entries) {
+        this.source = source;
+        this.entries = new HashMap<>();
+        for (Entry entry : entries) {
+            this.entries.putIfAbsent(entry.identifier, entry); // First definition wins, as with a full parse.
+        }
+    }
+
+    /**
+     * Gets the path of the index file for a source file.
+     *
+     * @param sourceFile    the path of the source file
+     * @return              the path of the index file
+     */
+    public static Path getIndexPath(Path sourceFile) {
+        return sourceFile.resolveSibling(sourceFile.getFileName() + INDEX_EXTENSION);
+    }
+
+    /**
+     * Computes the content hash of a source file.
+     *
+     * @param source    the contents of the source file
+     * @return          the content hash
+     */
+    static byte[] hash(ByteBuffer source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(source.duplicate());
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform is required to support SHA-256.
+        }
+    }
+
+    /**
+     * Builds the entries for a source file by scanning it for function headers.
+     *
+     * @param source    the contents of the source file
+     * @return          the entries, or null if the source could not be scanned
+     */
+    private static Entry[] build(ByteBuffer source) {
+
+        // Scan decoded text for function headers.
+        String text = StandardCharsets.UTF_8.decode(source.duplicate()).toString();
+        List<FunctionSignature> signatures = SignatureScanner.scan(text);
+        if (signatures == null) {
+            return null;
+        }
+
+        // Convert character offsets to byte offsets in a single pass over the text.
+        int[] boundaries = new int[signatures.size() * 2];
+        for (int i = 0; i < signatures.size(); i++) {
+            boundaries[i * 2] = signatures.get(i).getOffset();
+            boundaries[i * 2 + 1] = signatures.get(i).getOffset() + signatures.get(i).getLength();
+        }
+        int[] byteBoundaries = toByteOffsets(text, boundaries);
+
+        // Build entries.
+        Entry[] entries = new Entry[signatures.size()];
+        for (int i = 0; i < entries.length; i++) {
+            FunctionSignature signature = signatures.get(i);
+            entries[i] = new Entry(signature.getIdentifier(), signature.getArity(), byteBoundaries[i * 2],
+                    byteBoundaries[i * 2 + 1] - byteBoundaries[i * 2]);
+        }
+        return entries;
+    }
+
+    /**
+     * Converts offsets into text to offsets into its UTF-8 encoding, in a single pass over the text.
+     *
+     * @param text      the text
+     * @param offsets   the offsets into the text, in characters and in ascending order
+     * @return          the offsets into its UTF-8 encoding, in bytes
+     */
+    static int[] toByteOffsets(CharSequence text, int[] offsets) {
+        int[] byteOffsets = new int[offsets.length];
+        int bytes = 0;
+        int next = 0;
+        for (int i = 0; i <= text.length() && next < offsets.length; i++) {
+            while (next < offsets.length && offsets[next] == i) {
+                byteOffsets[next++] = bytes;
+            }
+            if (i < text.length()) {
+                char c = text.charAt(i);
+                if (c < 0x80) {
+                    bytes += 1;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c)) {
+                    bytes += 4;
+                    i++; // Low surrogate adds nothing more.
+                } else {
+                    bytes += 3;
+                }
+            }
+        }
+        return byteOffsets;
+    }
+
+    /**
+     * Reads the entries from an index file, if it was built from the given source. If the source has been touched but
+     * not changed, the index file is rewritten with the new modification time so that it need not be hashed again.
+     *
+     * @param indexFile     the path of the index file
+     * @param source        the contents of the source file
+     * @param modified      the modification time of the source file
+     * @return              the entries, or null if the index file is missing or stale
+     */
+    private static Entry[] read(Path indexFile, ByteBuffer source, long modified) {
+        Entry[] entries;
+        boolean touched;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+
+            // Check index matches source.
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != source.remaining()) {
+                return null;
+            }
+            touched = in.readLong() != modified;
+            byte[] indexedHash = new byte[in.readInt()];
+            in.readFully(indexedHash);
+            if (touched && !Arrays.equals(indexedHash, hash(source))) {
+                return null; // Touched and changed.
+            }
+
+            // Read in entries.
+            entries = new Entry[in.readInt()];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = new Entry(in.readUTF(), in.readInt(), in.readInt(), in.readInt());
+            }
+        } catch (IOException e) {
+            return null; // Missing or damaged, rebuild.
+        }
+        if (touched) {
+            write(indexFile, source, modified, entries);
+        }
+        return entries;
+    }
+
+    /**
+     * Writes entries out to an index file. The file is written in full before being moved into place, so a reader
+     * never sees a partial index. Failure to write is ignored, as the index can always be rebuilt.
+     *
+     * @param indexFile the path of the index file
+     * @param source    the contents of the source file
+     * @param modified  the modification time of the source file
+     * @param entries   the entries
+     */
+    private static void write(Path indexFile, ByteBuffer source, long modified, Entry[] entries) {
+        Path partial = null;
+        try {
+            partial = Files.createTempFile(indexFile.toAbsolutePath().getParent(),
+                    indexFile.getFileName().toString(), ".part");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(partial)))) {
+                byte[] hash = hash(source);
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(source.remaining());
+                out.writeLong(modified);
+                out.writeInt(hash.length);
+                out.write(hash);
+                out.writeInt(entries.length);
+                for (Entry entry : entries) {
+                    out.writeUTF(entry.identifier);
+                    out.writeInt(entry.arity);
+                    out.writeInt(entry.offset);
+                    out.writeInt(entry.length);
+                }
+            }
+            try {
+                Files.move(partial, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            if (partial != null) {
+                try {
+                    Files.deleteIfExists(partial);
+                } catch (IOException ignored) {
+                    // Nothing more we can do.
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the index for a source file, memory-mapping the source file and rebuilding the index if it is stale.
+     *
+     * @param sourceFile    the path of the source file
+     * @return              the index, or null if the source file cannot be indexed and should be parsed in full
+     * @throws IOException  if the source file cannot be read
+     */
+    public static FunctionIndex load(Path sourceFile) throws IOException {
+
+        // Map source into memory.
+        MappedByteBuffer source;
+        try (FileChannel channel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null; // Too large to map in one go.
+            }
+            source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        long modified = Files.getLastModifiedTime(sourceFile).toMillis();
+
+        // Use index on disk if it's fresh, otherwise rebuild it.
+        Path indexFile = getIndexPath(sourceFile);
+        Entry[] entries = read(indexFile, source, modified);
+        if (entries == null) {
+            entries = build(source);
+            if (entries == null) {
+                return null;
+            }
+            write(indexFile, source, modified, entries);
+        }
+        return new FunctionIndex(source, Arrays.asList(entries));
+    }
+
+    /**
+     * Looks up a function by name.
+     *
+     * @param identifier    the name of the function
+     * @return              the position of the function, or null if there is no such function
+     */
+    public Entry get(String identifier) {
+        return entries.get(identifier);
+    }
+
+    /**
+     * Slices the source code of a single function out of the source file.
+     *
+     * @param entry the position of the function
+     * @return      the source code of the function
+     */
+    public String slice(Entry entry) {
+        ByteBuffer slice = source.duplicate();
+        slice.position(entry.offset).limit(entry.offset + entry.length);
+        return StandardCharsets.UTF_8.decode(slice).toString();
+    }
+}
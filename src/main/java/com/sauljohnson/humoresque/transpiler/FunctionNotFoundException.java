@@ -0,0 +1,32 @@
+package com.sauljohnson.humoresque.transpiler;
+
+/**
+ * Represents an exception thrown when a function requested by name does not exist in a program.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class FunctionNotFoundException extends Exception {
+
+    private final String identifier;
+
+    /**
+     * Initialises a new instance of an exception thrown when a function requested by name does not exist in a program.
+     *
+     * @param identifier    the name of the function that was requested
+     */
+    public FunctionNotFoundException(String identifier) {
+        super("No function named '" + identifier + "' found.");
+        this.identifier = identifier;
+    }
+
+    /**
+     * Gets the name of the function that was requested.
+     *
+     * @return  the name of the function that was requested
+     */
+    public String getIdentifier() {
+        return identifier;
+    }
+}
@@ -0,0 +1,1289 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.Token;
+import com.sauljohnson.humoresque.parser.model.*;
+
+import java.util.*;
+
+/**
+ * Represents a single function lifted into a small statement and expression tree and optimized, ready to be emitted as
+ * leaner Java.
+ *
+ * Expressions are parsed with Java's own precedence rules, since that is how the unoptimized output is read by the
+ * Java compiler. Constants are folded with Java's int semantics, copies and constants are propagated forward through
+ * straight-line code, and stores that are never read are removed along with variables that are no longer referenced.
+ * Anything that could throw (division, indexing, calls) is never removed, and expressions that cannot be parsed are
+ * emitted exactly as they would be without optimization.
+ *
+ * The same expression trees are used to turn annotations into contract checks. Annotations that parse as boolean
+ * expressions are emitted as Java {@code assert} statements after the comment they would otherwise become, and count
+ * as reads of the variables they mention so that the values they check survive optimization.
+ *
+ * The trees are also what {@link BytecodeTranspiler} compiles from, optimized or not, so that both back ends read
+ * expressions the same way.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class FunctionOptimizer {
+
+    /**
+     * The number of times to alternate propagation with dead store removal, each of which can expose more of the other.
+     */
+    private static final int ROUNDS = 3;
+
+    private static final int OR = 1;
+
+    private static final int AND = 2;
+
+    private static final int EQUALITY = 3;
+
+    private static final int RELATIONAL = 4;
+
+    private static final int ADDITIVE = 5;
+
+    private static final int MULTIPLICATIVE = 6;
+
+    private static final int UNARY = 7;
+
+    private static final int PRIMARY = 8;
+
+    private final String returnSlot;
+
+    private List<Node> statements;
+
+    /**
+     * Represents an expression.
+     */
+    abstract static class Expression {
+
+        /**
+         * Gets the precedence of the expression, used to decide where parentheses are needed.
+         *
+         * @return  the precedence
+         */
+        abstract int precedence();
+
+        /**
+         * Writes the expression out as Java without surrounding parentheses.
+         *
+         * @param sb    the {@link StringBuilder} to write to
+         */
+        abstract void writeBare(StringBuilder sb);
+
+        /**
+         * Writes the expression out as Java, parenthesized if it binds less tightly than its context requires.
+         *
+         * @param sb        the {@link StringBuilder} to write to
+         * @param context   the lowest precedence that may appear unparenthesized
+         */
+        void write(StringBuilder sb, int context) {
+            if (precedence() < context) {
+                sb.append('(');
+                writeBare(sb);
+                sb.append(')');
+            } else {
+                writeBare(sb);
+            }
+        }
+
+        /**
+         * Gets whether or not evaluating the expression can neither throw nor have side effects.
+         *
+         * @return  true if the expression is safe to remove, otherwise false
+         */
+        abstract boolean isSafe();
+
+        /**
+         * Adds the names of the variables read by the expression to a set.
+         *
+         * @param uses  the set to add to
+         */
+        abstract void addUses(Set<String> uses);
+    }
+
+    /**
+     * Represents an integer literal.
+     */
+    static final class IntLiteral extends Expression {
+
+        final int value;
+
+        private IntLiteral(int value) {
+            this.value = value;
+        }
+
+        int precedence() {
+            return value < 0 ? UNARY : PRIMARY;
+        }
+
+        void writeBare(StringBuilder sb) {
+            sb.append(value);
+        }
+
+        boolean isSafe() {
+            return true;
+        }
+
+        void addUses(Set<String> uses) { }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IntLiteral && ((IntLiteral) other).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value;
+        }
+    }
+
+    /**
+     * Represents a boolean literal.
+     */
+    static final class BoolLiteral extends Expression {
+
+        final boolean value;
+
+        private BoolLiteral(boolean value) {
+            this.value = value;
+        }
+
+        int precedence() {
+            return PRIMARY;
+        }
+
+        void writeBare(StringBuilder sb) {
+            sb.append(value);
+        }
+
+        boolean isSafe() {
+            return true;
+        }
+
+        void addUses(Set<String> uses) { }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof BoolLiteral && ((BoolLiteral) other).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Boolean.hashCode(value);
+        }
+    }
+
+    /**
+     * Represents a read of a variable.
+     */
+    static final class VariableRead extends Expression {
+
+        final String identifier;
+
+        private VariableRead(String identifier) {
+            this.identifier = identifier;
+        }
+
+        int precedence() {
+            return PRIMARY;
+        }
+
+        void writeBare(StringBuilder sb) {
+            sb.append(identifier);
+        }
+
+        boolean isSafe() {
+            return true;
+        }
+
+        void addUses(Set<String> uses) {
+            uses.add(identifier);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof VariableRead && ((VariableRead) other).identifier.equals(identifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return identifier.hashCode();
+        }
+    }
+
+    /**
+     * Represents a unary operation.
+     */
+    static final class Unary extends Expression {
+
+        final String operator;
+
+        final Expression operand;
+
+        private Unary(String operator, Expression operand) {
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        int precedence() {
+            return UNARY;
+        }
+
+        void writeBare(StringBuilder sb) {
+            sb.append(operator);
+            operand.write(sb, PRIMARY); // Never run two operators together.
+        }
+
+        boolean isSafe() {
+            return operand.isSafe();
+        }
+
+        void addUses(Set<String> uses) {
+            operand.addUses(uses);
+        }
+    }
+
+    /**
+     * Represents a binary operation.
+     */
+    static final class Binary extends Expression {
+
+        final String operator;
+
+        final Expression left;
+
+        final Expression right;
+
+        private Binary(String operator, Expression left, Expression right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+
+        int precedence() {
+            return getBinaryPrecedence(operator);
+        }
+
+        void writeBare(StringBuilder sb) {
+            left.write(sb, precedence());
+            sb.append(' ').append(operator).append(' ');
+            right.write(sb, precedence() + 1); // Operators associate to the left.
+        }
+
+        boolean isSafe() {
+            return !operator.equals("/") && !operator.equals("%") && left.isSafe() && right.isSafe();
+        }
+
+        void addUses(Set<String> uses) {
+            left.addUses(uses);
+            right.addUses(uses);
+        }
+    }
+
+    /**
+     * Represents an array element read.
+     */
+    static final class IndexRead extends Expression {
+
+        final Expression array;
+
+        final Expression index;
+
+        private IndexRead(Expression array, Expression index) {
+            this.array = array;
+            this.index = index;
+        }
+
+        int precedence() {
+            return PRIMARY;
+        }
+
+        void writeBare(StringBuilder sb) {
+            array.write(sb, PRIMARY);
+            sb.append('[');
+            index.write(sb, 0);
+            sb.append(']');
+        }
+
+        boolean isSafe() {
+            return false; // May be out of bounds.
+        }
+
+        void addUses(Set<String> uses) {
+            array.addUses(uses);
+            index.addUses(uses);
+        }
+    }
+
+    /**
+     * Represents a function call.
+     */
+    static final class Call extends Expression {
+
+        final String identifier;
+
+        final List<Expression> arguments;
+
+        private Call(String identifier, List<Expression> arguments) {
+            this.identifier = identifier;
+            this.arguments = arguments;
+        }
+
+        int precedence() {
+            return PRIMARY;
+        }
+
+        void writeBare(StringBuilder sb) {
+            sb.append(identifier).append('(');
+            for (int i = 0; i < arguments.size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                arguments.get(i).write(sb, 0);
+            }
+            sb.append(')');
+        }
+
+        boolean isSafe() {
+            return false; // May write to arrays passed to it.
+        }
+
+        void addUses(Set<String> uses) {
+            for (Expression argument : arguments) {
+                argument.addUses(uses);
+            }
+        }
+    }
+
+    /**
+     * Represents an expression that could not be parsed, emitted exactly as it would be without optimization.
+     */
+    static final class Opaque extends Expression {
+
+        final String text;
+
+        final Set<String> identifiers;
+
+        private Opaque(String text, Set<String> identifiers) {
+            this.text = text;
+            this.identifiers = identifiers;
+        }
+
+        int precedence() {
+            return 0; // Only ever found at the top level.
+        }
+
+        void writeBare(StringBuilder sb) {
+            sb.append(text);
+        }
+
+        boolean isSafe() {
+            return false;
+        }
+
+        void addUses(Set<String> uses) {
+            uses.addAll(identifiers); // Every identifier might be a variable.
+        }
+    }
+
+    /**
+     * Represents a statement or annotation.
+     */
+    abstract static class Node { }
+
+    /**
+     * Represents an annotation, carried through as a comment and optionally checked.
+     */
+    static final class Comment extends Node {
+
+        final Token[] tokens;
+
+        final Expression check;
+
+        private Comment(Token[] tokens, Expression check) {
+            this.tokens = tokens;
+            this.check = check;
+        }
+    }
+
+    /**
+     * Represents an assignment to a variable.
+     */
+    static final class Store extends Node {
+
+        final String identifier;
+
+        final Expression value;
+
+        private Store(String identifier, Expression value) {
+            this.identifier = identifier;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Represents an assignment to an array element.
+     */
+    static final class IndexStore extends Node {
+
+        final String identifier;
+
+        final Expression index;
+
+        final Expression value;
+
+        private IndexStore(String identifier, Expression index, Expression value) {
+            this.identifier = identifier;
+            this.index = index;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Represents a loop.
+     */
+    static final class While extends Node {
+
+        final Expression predicate;
+
+        final List<Node> body;
+
+        private While(Expression predicate, List<Node> body) {
+            this.predicate = predicate;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Represents a conditional.
+     */
+    static final class If extends Node {
+
+        final Expression predicate;
+
+        final List<Node> trueArm;
+
+        final List<Node> falseArm;
+
+        private If(Expression predicate, List<Node> trueArm, List<Node> falseArm) {
+            this.predicate = predicate;
+            this.trueArm = trueArm;
+            this.falseArm = falseArm;
+        }
+    }
+
+    /**
+     * Initialises a new instance of an optimized function.
+     *
+     * @param returnSlot    the name of the variable that carries the function value
+     * @param statements    the statements of the function
+     */
+    private FunctionOptimizer(String returnSlot, List<Node> statements) {
+        this.returnSlot = returnSlot;
+        this.statements = statements;
+    }
+
+    /**
+     * Gets the precedence of a binary operator.
+     *
+     * @param operator  the operator, as Java text
+     * @return          the precedence, or -1 if it is not a binary operator
+     */
+    private static int getBinaryPrecedence(String operator) {
+        switch (operator) {
+            case "||":
+                return OR;
+            case "&&":
+                return AND;
+            case "==":
+            case "!=":
+                return EQUALITY;
+            case "<":
+            case ">":
+            case "<=":
+            case ">=":
+                return RELATIONAL;
+            case "+":
+            case "-":
+                return ADDITIVE;
+            case "*":
+            case "/":
+            case "%":
+                return MULTIPLICATIVE;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Gets whether or not some text is an identifier.
+     *
+     * @param text  the text
+     * @return      true if the text is an identifier, otherwise false
+     */
+    private static boolean isIdentifier(String text) {
+        if (text.isEmpty() || !Character.isJavaIdentifierStart(text.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < text.length(); i++) {
+            if (!Character.isJavaIdentifierPart(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses expressions from the Java text of their tokens.
+     */
+    private static final class ExpressionParser {
+
+        private final String[] texts;
+
+        private int position;
+
+        private ExpressionParser(String[] texts) {
+            this.texts = texts;
+        }
+
+        private String peek() {
+            return position < texts.length ? texts[position] : null;
+        }
+
+        private boolean accept(String text) {
+            if (text.equals(peek())) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Parses the whole of the input as a single expression.
+         *
+         * @return  the expression, or null if the input is not an expression this parser understands
+         */
+        private Expression parse() {
+            Expression expression = parseBinary(OR);
+            return position == texts.length ? expression : null;
+        }
+
+        private Expression parseBinary(int precedence) {
+            if (precedence > MULTIPLICATIVE) {
+                return parseUnary();
+            }
+            Expression left = parseBinary(precedence + 1);
+            while (left != null && peek() != null && getBinaryPrecedence(peek()) == precedence) {
+                String operator = texts[position++];
+                Expression right = parseBinary(precedence + 1);
+                left = right == null ? null : new Binary(operator, left, right);
+            }
+            return left;
+        }
+
+        private Expression parseUnary() {
+            if (accept("!") || accept("-")) {
+                String operator = texts[position - 1];
+                Expression operand = parseUnary();
+                return operand == null ? null : new Unary(operator, operand);
+            }
+            return parsePrimary();
+        }
+
+        private Expression parsePrimary() {
+            String text = peek();
+            if (text == null) {
+                return null;
+            }
+            position++;
+
+            // Parenthesized expression.
+            Expression expression;
+            if (text.equals("(")) {
+                expression = parseBinary(OR);
+                if (expression == null || !accept(")")) {
+                    return null;
+                }
+            } else if (text.matches("0|[1-9][0-9]*")) {
+                // Decimal literals only, anything else is read differently by Java.
+                try {
+                    expression = new IntLiteral(Integer.parseInt(text));
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            } else if (text.equals("true") || text.equals("false")) {
+                expression = new BoolLiteral(text.equals("true"));
+            } else if (isIdentifier(text)) {
+                if (accept("(")) {
+                    List<Expression> arguments = new ArrayList<>();
+                    if (!accept(")")) {
+                        do {
+                            Expression argument = parseBinary(OR);
+                            if (argument == null) {
+                                return null;
+                            }
+                            arguments.add(argument);
+                        } while (accept(","));
+                        if (!accept(")")) {
+                            return null;
+                        }
+                    }
+                    expression = new Call(text, arguments);
+                } else {
+                    expression = new VariableRead(text);
+                }
+            } else {
+                return null;
+            }
+
+            // Any number of array indices may follow.
+            while (accept("[")) {
+                Expression index = parseBinary(OR);
+                if (index == null || !accept("]")) {
+                    return null;
+                }
+                expression = new IndexRead(expression, index);
+            }
+            return expression;
+        }
+    }
+
+    /**
+     * Lifts the tokens of an expression into an expression tree.
+     *
+     * @param tokens    the tokens
+     * @return          the expression
+     */
+    private static Expression lift(Token[] tokens) {
+        String[] texts = new String[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            texts[i] = JavaTranspiler.toJava(tokens[i]);
+        }
+        Expression expression = new ExpressionParser(texts).parse();
+        if (expression != null) {
+            return expression;
+        }
+
+        // Fall back to emitting the tokens as they are.
+        StringBuilder sb = new StringBuilder();
+        JavaTranspiler.appendTokens(sb, tokens, true);
+        Set<String> identifiers = new HashSet<>();
+        for (String text : texts) {
+            if (isIdentifier(text)) {
+                identifiers.add(text);
+            }
+        }
+        return new Opaque(sb.toString(), identifiers);
+    }
+
+    /**
+     * Lifts the tokens of an annotation into a contract check.
+     *
+     * @param tokens    the tokens of the annotation, including its braces
+     * @return          the check, or null if the annotation is not a boolean expression that can be checked in Java
+     */
+    private static Expression liftCheck(Token[] tokens) {
+
+        // Leave out the braces around the annotation.
+        List<String> texts = new ArrayList<>();
+        for (Token token : tokens) {
+            String text = JavaTranspiler.toJava(token);
+            if (!text.equals("{") && !text.equals("}")) {
+                texts.add(text);
+            }
+        }
+        Expression check = new ExpressionParser(texts.toArray(new String[0])).parse();
+        if (check == null || containsCall(check)) {
+            return null; // Predicates are not emitted as Java methods, so calls may not resolve.
+        }
+
+        // Only checks that are plainly boolean at the top level, anything else may not compile.
+        if (check instanceof BoolLiteral || (check instanceof Unary && ((Unary) check).operator.equals("!"))) {
+            return check;
+        }
+        return check instanceof Binary && check.precedence() <= RELATIONAL ? check : null;
+    }
+
+    /**
+     * Gets whether or not an expression contains a function call.
+     *
+     * @param expression    the expression
+     * @return              true if the expression contains a function call, otherwise false
+     */
+    private static boolean containsCall(Expression expression) {
+        if (expression instanceof Call) {
+            return true;
+        }
+        if (expression instanceof Unary) {
+            return containsCall(((Unary) expression).operand);
+        }
+        if (expression instanceof Binary) {
+            return containsCall(((Binary) expression).left) || containsCall(((Binary) expression).right);
+        }
+        if (expression instanceof IndexRead) {
+            return containsCall(((IndexRead) expression).array) || containsCall(((IndexRead) expression).index);
+        }
+        return false;
+    }
+
+    /**
+     * Appends the contract check for an annotation, if it can be checked in Java.
+     *
+     * @param sb        the {@link StringBuilder} to append to
+     * @param tokens    the tokens of the annotation, including its braces
+     */
+    static void appendCheck(StringBuilder sb, Token[] tokens) {
+        Expression check = liftCheck(tokens);
+        if (check != null) {
+            writeCheck(sb, check);
+        }
+    }
+
+    /**
+     * Writes a contract check out as a Java assertion, which costs nothing unless assertions are enabled.
+     *
+     * @param sb    the {@link StringBuilder} to write to
+     * @param check the check
+     */
+    private static void writeCheck(StringBuilder sb, Expression check) {
+        if (check.equals(new BoolLiteral(true))) {
+            return; // Always holds.
+        }
+        sb.append("assert ");
+        check.write(sb, 0);
+        sb.append(";\n");
+    }
+
+    /**
+     * Lifts a statement into statement nodes, flattening blocks.
+     *
+     * @param statement the statement
+     * @param contracts whether or not to lift annotations into contract checks
+     * @param nodes     the list to add nodes to
+     */
+    private static void lift(Statement statement, boolean contracts, List<Node> nodes) {
+        if (statement == null) {
+            return;
+        }
+        switch (statement.getStatementType()) {
+            case BLOCK:
+                for (ProgramComponent component : ((Block) statement).getProgramComponents()) {
+                    switch (component.getProgramComponentType()) {
+                        case ANNOTATION:
+                            Token[] tokens = ((Annotation) component).getTokens();
+                            nodes.add(new Comment(tokens, contracts ? liftCheck(tokens) : null));
+                            break;
+                        case STATEMENT:
+                            lift((Statement) component, contracts, nodes);
+                            break;
+                        default:
+                            break;
+                    }
+                }
+                break;
+            case LOOP:
+                Loop loop = (Loop) statement;
+                nodes.add(new While(lift(loop.getPredicate()), liftAll(loop.getStatement(), contracts)));
+                break;
+            case CONDITIONAL:
+                Conditional conditional = (Conditional) statement;
+                nodes.add(new If(lift(conditional.getPredicate()), liftAll(conditional.getTrueArm(), contracts),
+                        conditional.getFalseArm() == null ? null : liftAll(conditional.getFalseArm(), contracts)));
+                break;
+            case ASSIGNMENT:
+                Assignment assignment = (Assignment) statement;
+                if (assignment.getIsArrayAssignment()) {
+                    nodes.add(new IndexStore(assignment.getIdentifier(),
+                            lift(((ArrayAssignment) assignment).getIndex()), lift(assignment.getExpression())));
+                } else {
+                    nodes.add(new Store(assignment.getIdentifier(), lift(assignment.getExpression())));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Lifts a statement into a new list of statement nodes.
+     *
+     * @param statement the statement
+     * @param contracts whether or not to lift annotations into contract checks
+     * @return          the statement nodes
+     */
+    private static List<Node> liftAll(Statement statement, boolean contracts) {
+        List<Node> nodes = new ArrayList<>();
+        lift(statement, contracts, nodes);
+        return nodes;
+    }
+
+    /**
+     * Folds constant subexpressions of an expression, substituting known values for variables as it goes.
+     *
+     * @param expression    the expression
+     * @param facts         the known value of each variable, if any
+     * @param exact         whether or not to leave alone arithmetic that would overflow an int
+     * @return              the folded expression
+     */
+    private static Expression fold(Expression expression, Map<String, Expression> facts, boolean exact) {
+        if (expression instanceof VariableRead) {
+            Expression known = facts.get(((VariableRead) expression).identifier);
+            return known == null ? expression : known;
+        }
+        if (expression instanceof Unary) {
+            Unary unary = (Unary) expression;
+            Expression operand = fold(unary.operand, facts, exact);
+            if (unary.operator.equals("-") && operand instanceof IntLiteral) {
+                long value = -(long) ((IntLiteral) operand).value;
+                return exact && value != (int) value ? new Unary(unary.operator, operand) : new IntLiteral((int) value);
+            }
+            if (unary.operator.equals("!") && operand instanceof BoolLiteral) {
+                return new BoolLiteral(!((BoolLiteral) operand).value);
+            }
+            return new Unary(unary.operator, operand);
+        }
+        if (expression instanceof Binary) {
+            Binary binary = (Binary) expression;
+            return foldBinary(binary.operator, fold(binary.left, facts, exact), fold(binary.right, facts, exact),
+                    exact);
+        }
+        if (expression instanceof IndexRead) {
+            IndexRead indexRead = (IndexRead) expression;
+            return new IndexRead(fold(indexRead.array, facts, exact), fold(indexRead.index, facts, exact));
+        }
+        if (expression instanceof Call) {
+            Call call = (Call) expression;
+            List<Expression> arguments = new ArrayList<>();
+            for (Expression argument : call.arguments) {
+                arguments.add(fold(argument, facts, exact));
+            }
+            return new Call(call.identifier, arguments);
+        }
+        return expression; // Literals and unparsed expressions.
+    }
+
+    /**
+     * Folds integer arithmetic to a literal, with Java's int semantics.
+     *
+     * @param value     the result of the arithmetic, computed without overflow
+     * @param operator  the operator
+     * @param left      the folded left operand
+     * @param right     the folded right operand
+     * @param exact     whether or not to leave the arithmetic alone if the result overflows an int
+     * @return          the folded expression
+     */
+    private static Expression foldArithmetic(long value, String operator, Expression left, Expression right,
+                                             boolean exact) {
+        if (exact && value != (int) value) {
+            return new Binary(operator, left, right); // Left for widened arithmetic to compute.
+        }
+        return new IntLiteral((int) value);
+    }
+
+    /**
+     * Folds a binary operation over folded operands, using Java's semantics.
+     *
+     * @param operator  the operator
+     * @param left      the folded left operand
+     * @param right     the folded right operand
+     * @param exact     whether or not to leave alone arithmetic that would overflow an int
+     * @return          the folded expression
+     */
+    private static Expression foldBinary(String operator, Expression left, Expression right, boolean exact) {
+
+        // Both sides integers.
+        if (left instanceof IntLiteral && right instanceof IntLiteral) {
+            int a = ((IntLiteral) left).value;
+            int b = ((IntLiteral) right).value;
+            switch (operator) {
+                case "+": return foldArithmetic((long) a + b, operator, left, right, exact);
+                case "-": return foldArithmetic((long) a - b, operator, left, right, exact);
+                case "*": return foldArithmetic((long) a * b, operator, left, right, exact);
+                case "/": return b == 0 ? new Binary(operator, left, right) :
+                        foldArithmetic((long) a / b, operator, left, right, exact);
+                case "%": return b == 0 ? new Binary(operator, left, right) : new IntLiteral(a % b);
+                case "<": return new BoolLiteral(a < b);
+                case ">": return new BoolLiteral(a > b);
+                case "<=": return new BoolLiteral(a <= b);
+                case ">=": return new BoolLiteral(a >= b);
+                case "==": return new BoolLiteral(a == b);
+                case "!=": return new BoolLiteral(a != b);
+                default: break;
+            }
+        }
+
+        // Both sides booleans.
+        if (left instanceof BoolLiteral && right instanceof BoolLiteral) {
+            boolean a = ((BoolLiteral) left).value;
+            boolean b = ((BoolLiteral) right).value;
+            switch (operator) {
+                case "==": return new BoolLiteral(a == b);
+                case "!=": return new BoolLiteral(a != b);
+                default: break;
+            }
+        }
+
+        // Short circuits decided by the left side, which leave the right side unevaluated anyway.
+        if (left instanceof BoolLiteral) {
+            boolean a = ((BoolLiteral) left).value;
+            if (operator.equals("&&")) {
+                return a ? right : left;
+            }
+            if (operator.equals("||")) {
+                return a ? left : right;
+            }
+        }
+
+        // Identities on the right side.
+        if (right instanceof BoolLiteral) {
+            boolean b = ((BoolLiteral) right).value;
+            if (operator.equals("&&") && (b || left.isSafe())) {
+                return b ? left : right;
+            }
+            if (operator.equals("||") && (!b || left.isSafe())) {
+                return b ? right : left;
+            }
+        }
+        if (right instanceof IntLiteral) {
+            int b = ((IntLiteral) right).value;
+            if ((b == 0 && (operator.equals("+") || operator.equals("-"))) || (b == 1 && operator.equals("*"))) {
+                return left;
+            }
+            if (b == 0 && operator.equals("*") && left.isSafe()) {
+                return right;
+            }
+        }
+        if (left instanceof IntLiteral) {
+            int a = ((IntLiteral) left).value;
+            if ((a == 0 && operator.equals("+")) || (a == 1 && operator.equals("*"))) {
+                return right;
+            }
+            if (a == 0 && operator.equals("*") && right.isSafe()) {
+                return left;
+            }
+        }
+        return new Binary(operator, left, right);
+    }
+
+    /**
+     * Adds the names of every variable assigned anywhere within some statements to a set.
+     *
+     * @param nodes     the statements
+     * @param assigned  the set to add to
+     */
+    private static void addAssigned(List<Node> nodes, Set<String> assigned) {
+        if (nodes == null) {
+            return;
+        }
+        for (Node node : nodes) {
+            if (node instanceof Store) {
+                assigned.add(((Store) node).identifier);
+            } else if (node instanceof While) {
+                addAssigned(((While) node).body, assigned);
+            } else if (node instanceof If) {
+                addAssigned(((If) node).trueArm, assigned);
+                addAssigned(((If) node).falseArm, assigned);
+            }
+        }
+    }
+
+    /**
+     * Forgets every known value that depends on a variable.
+     *
+     * @param facts         the known value of each variable
+     * @param identifier    the variable
+     */
+    private static void kill(Map<String, Expression> facts, String identifier) {
+        facts.remove(identifier);
+        facts.values().removeIf(value -> value instanceof VariableRead &&
+                ((VariableRead) value).identifier.equals(identifier));
+    }
+
+    /**
+     * Propagates copies and constants forward through statements, folding as it goes.
+     *
+     * @param nodes the statements
+     * @param facts the known value of each variable on entry, updated to those on exit
+     * @param exact whether or not to leave alone arithmetic that would overflow an int
+     * @return      the rewritten statements
+     */
+    private static List<Node> propagate(List<Node> nodes, Map<String, Expression> facts, boolean exact) {
+        List<Node> output = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node instanceof Store) {
+                Store store = (Store) node;
+                Expression value = fold(store.value, facts, exact);
+                if (value instanceof VariableRead && ((VariableRead) value).identifier.equals(store.identifier)) {
+                    continue; // Assigning a variable to itself does nothing.
+                }
+                kill(facts, store.identifier);
+                if (value instanceof IntLiteral || value instanceof BoolLiteral || value instanceof VariableRead) {
+                    facts.put(store.identifier, value);
+                }
+                output.add(new Store(store.identifier, value));
+            } else if (node instanceof IndexStore) {
+                IndexStore store = (IndexStore) node;
+                output.add(new IndexStore(store.identifier, fold(store.index, facts, exact),
+                        fold(store.value, facts, exact)));
+            } else if (node instanceof While) {
+                While loop = (While) node;
+
+                // Only values not changed by the loop hold throughout it.
+                Map<String, Expression> loopFacts = new HashMap<>(facts);
+                Set<String> assigned = new HashSet<>();
+                addAssigned(loop.body, assigned);
+                for (String identifier : assigned) {
+                    kill(loopFacts, identifier);
+                }
+                Expression predicate = fold(loop.predicate, loopFacts, exact);
+                if (predicate.equals(new BoolLiteral(false))) {
+                    continue; // Never runs.
+                }
+                if (predicate.equals(new BoolLiteral(true))) {
+                    predicate = loop.predicate; // Java would reject code after a constant-true loop as unreachable.
+                }
+                output.add(new While(predicate, propagate(loop.body, new HashMap<>(loopFacts), exact)));
+                facts.keySet().retainAll(loopFacts.keySet());
+            } else if (node instanceof If) {
+                If conditional = (If) node;
+                Expression predicate = fold(conditional.predicate, facts, exact);
+
+                // Inline whichever arm is taken if we know which.
+                if (predicate instanceof BoolLiteral) {
+                    List<Node> arm = ((BoolLiteral) predicate).value ? conditional.trueArm : conditional.falseArm;
+                    if (arm != null) {
+                        output.addAll(propagate(arm, facts, exact));
+                    }
+                    continue;
+                }
+
+                // Otherwise only values both arms agree on hold afterwards.
+                Map<String, Expression> trueFacts = new HashMap<>(facts);
+                Map<String, Expression> falseFacts = new HashMap<>(facts);
+                List<Node> trueArm = propagate(conditional.trueArm, trueFacts, exact);
+                List<Node> falseArm = conditional.falseArm == null ? null :
+                        propagate(conditional.falseArm, falseFacts, exact);
+                output.add(new If(predicate, trueArm, falseArm));
+                facts.clear();
+                for (Map.Entry<String, Expression> fact : trueFacts.entrySet()) {
+                    if (fact.getValue().equals(falseFacts.get(fact.getKey()))) {
+                        facts.put(fact.getKey(), fact.getValue());
+                    }
+                }
+            } else if (node instanceof Comment && ((Comment) node).check != null) {
+                Comment comment = (Comment) node;
+                output.add(new Comment(comment.tokens, fold(comment.check, facts, exact)));
+            } else {
+                output.add(node);
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Works backwards through statements computing which variables are live, optionally removing stores to variables
+     * that are never read again.
+     *
+     * @param nodes     the statements
+     * @param liveOut   the variables live after the statements
+     * @param remove    whether or not to remove dead stores
+     * @return          the variables live before the statements
+     */
+    private static Set<String> sweep(List<Node> nodes, Set<String> liveOut, boolean remove) {
+        Set<String> live = new HashSet<>(liveOut);
+        if (nodes == null) {
+            return live;
+        }
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            Node node = nodes.get(i);
+            if (node instanceof Store) {
+                Store store = (Store) node;
+                if (!live.contains(store.identifier) && store.value.isSafe()) {
+                    if (remove) {
+                        nodes.remove(i);
+                    }
+                } else {
+                    live.remove(store.identifier);
+                    store.value.addUses(live);
+                }
+            } else if (node instanceof IndexStore) {
+                IndexStore store = (IndexStore) node;
+                live.add(store.identifier);
+                store.index.addUses(live);
+                store.value.addUses(live);
+            } else if (node instanceof While) {
+                While loop = (While) node;
+
+                // Iterate to a fixed point, as the body feeds back into the loop head.
+                Set<String> head = new HashSet<>(live);
+                loop.predicate.addUses(head);
+                while (head.addAll(sweep(loop.body, head, false))) {
+                    // Keep going until nothing new becomes live.
+                }
+                if (remove) {
+                    sweep(loop.body, head, true);
+                }
+                live = head;
+            } else if (node instanceof If) {
+                If conditional = (If) node;
+                Set<String> trueLive = sweep(conditional.trueArm, live, remove);
+                Set<String> falseLive = sweep(conditional.falseArm, live, remove);
+                live = trueLive;
+                live.addAll(falseLive);
+                conditional.predicate.addUses(live);
+            } else if (node instanceof Comment && ((Comment) node).check != null) {
+                ((Comment) node).check.addUses(live); // Checks read what they check.
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Lifts a function into a statement tree without optimizing it.
+     *
+     * @param function  the function
+     * @param contracts whether or not to lift annotations into contract checks
+     * @return          the lifted function
+     */
+    static FunctionOptimizer lift(Function function, boolean contracts) {
+        return new FunctionOptimizer(function.getIdentifier(), liftAll(function.getStatement(), contracts));
+    }
+
+    /**
+     * Lifts a function into a statement tree and optimizes it.
+     *
+     * @param function  the function
+     * @param contracts whether or not to emit annotations as contract checks
+     * @return          the optimized function
+     */
+    static FunctionOptimizer optimize(Function function, boolean contracts) {
+        return optimize(function, contracts, false);
+    }
+
+    /**
+     * Lifts a function into a statement tree and optimizes it, optionally without folding any arithmetic that would
+     * overflow an int so that integer widths can be inferred afterwards.
+     *
+     * @param function  the function
+     * @param contracts whether or not to emit annotations as contract checks
+     * @param exact     whether or not to leave alone arithmetic that would overflow an int
+     * @return          the optimized function
+     */
+    static FunctionOptimizer optimize(Function function, boolean contracts, boolean exact) {
+        FunctionOptimizer optimizer = new FunctionOptimizer(function.getIdentifier(),
+                liftAll(function.getStatement(), contracts));
+        for (int i = 0; i < ROUNDS; i++) {
+            optimizer.statements = propagate(optimizer.statements, new HashMap<>(), exact);
+            sweep(optimizer.statements, Collections.singleton(optimizer.returnSlot), true);
+        }
+        return optimizer;
+    }
+
+    /**
+     * Adds the names of every variable read or written anywhere within some statements to a set.
+     *
+     * @param nodes         the statements
+     * @param referenced    the set to add to
+     */
+    private static void addReferenced(List<Node> nodes, Set<String> referenced) {
+        if (nodes == null) {
+            return;
+        }
+        for (Node node : nodes) {
+            if (node instanceof Store) {
+                referenced.add(((Store) node).identifier);
+                ((Store) node).value.addUses(referenced);
+            } else if (node instanceof IndexStore) {
+                referenced.add(((IndexStore) node).identifier);
+                ((IndexStore) node).index.addUses(referenced);
+                ((IndexStore) node).value.addUses(referenced);
+            } else if (node instanceof While) {
+                ((While) node).predicate.addUses(referenced);
+                addReferenced(((While) node).body, referenced);
+            } else if (node instanceof If) {
+                ((If) node).predicate.addUses(referenced);
+                addReferenced(((If) node).trueArm, referenced);
+                addReferenced(((If) node).falseArm, referenced);
+            } else if (node instanceof Comment && ((Comment) node).check != null) {
+                ((Comment) node).check.addUses(referenced);
+            }
+        }
+    }
+
+    /**
+     * Gets the statements of the function.
+     *
+     * @return  the statements
+     */
+    List<Node> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Gets the names of every variable still read or written by the optimized function.
+     *
+     * @return  the names of the variables
+     */
+    Set<String> getReferencedVariables() {
+        Set<String> referenced = new HashSet<>();
+        addReferenced(statements, referenced);
+        return referenced;
+    }
+
+    /**
+     * Emits statements as Java.
+     *
+     * @param sb    the {@link StringBuilder} the program is being built in
+     * @param nodes the statements
+     */
+    private static void emit(StringBuilder sb, List<Node> nodes) {
+        for (Node node : nodes) {
+            if (node instanceof Comment) {
+                sb.append("/*");
+                JavaTranspiler.appendAnnotation(sb, ((Comment) node).tokens);
+                sb.append("*/\n");
+                if (((Comment) node).check != null) {
+                    writeCheck(sb, ((Comment) node).check);
+                }
+            } else if (node instanceof Store) {
+                sb.append(((Store) node).identifier).append(" = ");
+                ((Store) node).value.write(sb, 0);
+                sb.append(";\n");
+            } else if (node instanceof IndexStore) {
+                IndexStore store = (IndexStore) node;
+                sb.append(store.identifier).append('[');
+                store.index.write(sb, 0);
+                sb.append("] = ");
+                store.value.write(sb, 0);
+                sb.append(";\n");
+            } else if (node instanceof While) {
+                sb.append("while(");
+                ((While) node).predicate.write(sb, 0);
+                sb.append("){\n");
+                emit(sb, ((While) node).body);
+                sb.append("}\n");
+            } else if (node instanceof If) {
+                If conditional = (If) node;
+                sb.append("if(");
+                conditional.predicate.write(sb, 0);
+                sb.append("){\n");
+                emit(sb, conditional.trueArm);
+                if (conditional.falseArm != null && !conditional.falseArm.isEmpty()) {
+                    sb.append("} else {\n");
+                    emit(sb, conditional.falseArm);
+                }
+                sb.append("}\n");
+            }
+        }
+    }
+
+    /**
+     * Emits the statements of the optimized function as Java.
+     *
+     * @param sb    the {@link StringBuilder} the program is being built in
+     */
+    void emitStatements(StringBuilder sb) {
+        emit(sb, statements);
+    }
+}
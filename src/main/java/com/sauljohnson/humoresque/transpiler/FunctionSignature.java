@@ -0,0 +1,71 @@
+package com.sauljohnson.humoresque.transpiler;
+
+/**
+ * Represents the header of a function found by the {@link SignatureScanner}, without its body.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class FunctionSignature {
+
+    private final String identifier;
+
+    private final int arity;
+
+    private final int offset;
+
+    private final int length;
+
+    /**
+     * Initialises a new instance of a function header.
+     *
+     * @param identifier    the name of the function
+     * @param arity         the number of arguments the function takes
+     * @param offset        the offset of the function within the source, in characters
+     * @param length        the length of the function within the source, in characters
+     */
+    public FunctionSignature(String identifier, int arity, int offset, int length) {
+        this.identifier = identifier;
+        this.arity = arity;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Gets the name of the function.
+     *
+     * @return  the name of the function
+     */
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Gets the number of arguments the function takes.
+     *
+     * @return  the number of arguments the function takes
+     */
+    public int getArity() {
+        return arity;
+    }
+
+    /**
+     * Gets the offset of the function within the source, in characters.
+     *
+     * @return  the offset of the function within the source
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the length of the function within the source, in characters. This runs up to the next top-level
+     * declaration, or the end of the source.
+     *
+     * @return  the length of the function within the source
+     */
+    public int getLength() {
+        return length;
+    }
+}
@@ -0,0 +1,18 @@
+package com.sauljohnson.humoresque.transpiler;
+
+/**
+ * Represents a way of choosing the Java types that HAHA integers are transpiled to.
+ *
+ * With {@link #FIXED}, every integer is an int and arithmetic overflows silently, as it always has. With
+ * {@link #INFER}, each integer variable is given the narrowest of int, long and BigInteger that its inferred range
+ * fits. With {@link #CHECKED}, BigInteger is never used; integers that may not fit a long are longs instead, and
+ * arithmetic on them throws if it overflows.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+public enum IntegerMode {
+    FIXED,
+    INFER,
+    CHECKED
+}
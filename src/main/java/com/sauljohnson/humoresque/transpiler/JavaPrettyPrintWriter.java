@@ -0,0 +1,306 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Represents a writer that pretty prints Java source code in a single pass as it is written.
+ *
+ * Output is identical to that of {@link JavaPrettyPrinter#prettyPrint(String)} for the same input, but each character
+ * is examined exactly once and written straight through to the underlying output. No intermediate copies of the
+ * source are made and indent prefixes are cached by depth.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class JavaPrettyPrintWriter extends Writer {
+
+    private final Appendable output;
+
+    private final String indentString;
+
+    private String[] indentCache;
+
+    private int level;
+
+    private int pendingSlashes;
+
+    private boolean starBeforeSlashes;
+
+    private boolean previousStar;
+
+    private boolean inLine;
+
+    private boolean leadingBreak;
+
+    private boolean anyLine;
+
+    private boolean anyInput;
+
+    private boolean finished;
+
+    /**
+     * Initialises a new instance of a writer that pretty prints Java source code in a single pass.
+     *
+     * @param output        the output to write formatted source code to
+     * @param indentString  the string to use for indentation
+     */
+    public JavaPrettyPrintWriter(Appendable output, String indentString) {
+        this.output = output;
+        this.indentString = indentString;
+        indentCache = new String[] {""};
+    }
+
+    /**
+     * Initialises a new instance of a writer that pretty prints Java source code in a single pass.
+     *
+     * @param output    the output to write formatted source code to
+     */
+    public JavaPrettyPrintWriter(Appendable output) {
+        this(output, "\t");
+    }
+
+    /**
+     * Gets a string consisting of the indent string repeated to a depth, caching the result.
+     *
+     * @param depth the depth
+     * @return      the resulting string
+     */
+    private String getIndentString(int depth) {
+        if (depth <= 0) {
+            return ""; // Unbalanced closing braces never indent.
+        }
+        if (depth >= indentCache.length) {
+            String[] cache = new String[Math.max(depth + 1, indentCache.length * 2)];
+            System.arraycopy(indentCache, 0, cache, 0, indentCache.length);
+            indentCache = cache;
+        }
+        if (indentCache[depth] == null) {
+            indentCache[depth] = getIndentString(depth - 1) + indentString;
+        }
+        return indentCache[depth];
+    }
+
+    /**
+     * Emits a single character of a line, indenting first if the character begins a new line.
+     *
+     * @param c             the character to emit
+     * @throws IOException  if the underlying output cannot be written to
+     */
+    private void emitText(char c) throws IOException {
+        if (!inLine) {
+            if (leadingBreak) {
+                output.append('\n'); // Source began with a line break, so begins with a blank line.
+                leadingBreak = false;
+            }
+            if (c == '{') {
+                output.append(getIndentString(level));
+                level++;
+            } else if (c == '}') {
+                level--;
+                output.append(getIndentString(level));
+            } else {
+                output.append(getIndentString(level));
+            }
+            inLine = true;
+            anyLine = true;
+        }
+        output.append(c);
+    }
+
+    /**
+     * Emits a line break. Consecutive line breaks are collapsed into one.
+     *
+     * @throws IOException  if the underlying output cannot be written to
+     */
+    private void emitBreak() throws IOException {
+        if (inLine) {
+            output.append('\n');
+            inLine = false;
+        } else if (!anyLine) {
+            leadingBreak = true; // Remember the break, it only matters if a line follows.
+        }
+    }
+
+    /**
+     * Resolves any run of slashes awaiting the character that follows it.
+     *
+     * @param next          the character following the run, or -1 at the end of input
+     * @throws IOException  if the underlying output cannot be written to
+     */
+    private void resolveSlashes(int next) throws IOException {
+
+        // Pairs of slashes are line comment markers, placed on their own line.
+        for (int i = 0; i < pendingSlashes / 2; i++) {
+            emitBreak();
+            emitText('/');
+            emitText('/');
+            emitBreak();
+        }
+
+        // A single remaining slash may open or close a block comment.
+        if (pendingSlashes % 2 == 1) {
+            if (next == '*') {
+                emitBreak(); // Block comments start on a new line.
+                emitText('/');
+            } else if (pendingSlashes == 1 && starBeforeSlashes) {
+                emitText('/');
+                emitBreak(); // Block comments end a line.
+            } else {
+                emitText('/');
+            }
+        }
+        pendingSlashes = 0;
+    }
+
+    /**
+     * Formats a single character of source code.
+     *
+     * @param c             the character to format
+     * @throws IOException  if the underlying output cannot be written to
+     */
+    private void format(char c) throws IOException {
+
+        // Line breaks in the input are discarded.
+        if (c == '\n' || c == '\r') {
+            return;
+        }
+        anyInput = true;
+
+        // Slashes are held back until we know what follows them.
+        if (c == '/') {
+            if (pendingSlashes == 0) {
+                starBeforeSlashes = previousStar;
+            }
+            pendingSlashes++;
+            previousStar = false;
+            return;
+        }
+        if (pendingSlashes > 0) {
+            resolveSlashes(c);
+        }
+
+        // Statements end lines, braces go on their own lines.
+        switch (c) {
+            case ';':
+                emitText(c);
+                emitBreak();
+                break;
+            case '{':
+            case '}':
+                emitBreak();
+                emitText(c);
+                emitBreak();
+                break;
+            default:
+                emitText(c);
+                break;
+        }
+        previousStar = c == '*';
+    }
+
+    /**
+     * Signals the end of the source code, writing out anything held back. Further writes are not permitted.
+     *
+     * @throws IOException  if the underlying output cannot be written to
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (pendingSlashes > 0) {
+            resolveSlashes(-1);
+        }
+        if (inLine) {
+            output.append('\n'); // Every line is terminated.
+            inLine = false;
+        } else if (!anyInput) {
+            output.append('\n'); // Empty source still produces a single empty line.
+        }
+        finished = true;
+    }
+
+    /**
+     * Checks that the source code has not already been finished.
+     *
+     * @throws IOException  if the source code has already been finished
+     */
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("Pretty printer has already been finished.");
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        format((char) c);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        ensureOpen();
+        for (int i = offset; i < offset + length; i++) {
+            format(buffer[i]);
+        }
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void write(String str, int offset, int length) throws IOException {
+        append(str, offset, offset + length);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        return append(csq == null ? "null" : csq, 0, csq == null ? 4 : csq.length());
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        ensureOpen();
+        CharSequence sequence = csq == null ? "null" : csq;
+        for (int i = start; i < end; i++) {
+            format(sequence.charAt(i)); // Read characters in place, no copy.
+        }
+        return this;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void flush() throws IOException {
+        if (output instanceof Flushable) {
+            ((Flushable) output).flush();
+        }
+    }
+
+    /**
+     * Finishes the source code and flushes the underlying output. The underlying output is left open, as it is usually
+     * shared with whatever else is being written.
+     *
+     * @throws IOException  if the underlying output cannot be written to
+     */
+    @Override
+    public void close() throws IOException {
+        finish();
+        flush();
+    }
+}
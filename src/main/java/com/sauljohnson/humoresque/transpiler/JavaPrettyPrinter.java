@@ -1,5 +1,7 @@
 package com.sauljohnson.humoresque.transpiler;
 
+import java.io.IOException;
+
 /**
  * Represents a pretty printer for Java source code.
  *
@@ -15,7 +17,16 @@ public class JavaPrettyPrinter implements PrettyPrinter {
      * Initialises a new instance of a pretty printer for Java source code.
      */
     public JavaPrettyPrinter() {
-        indentString = "\t";
+        this("\t");
+    }
+
+    /**
+     * Initialises a new instance of a pretty printer for Java source code that indents with a string.
+     *
+     * @param indentString  the string to use for indentation
+     */
+    public JavaPrettyPrinter(String indentString) {
+        this.indentString = indentString;
     }
 
     /**
@@ -89,4 +100,20 @@ public class JavaPrettyPrinter implements PrettyPrinter {
         }
         return sb.toString();
     }
+
+    /**
+     * @inheritDoc
+     */
+    public JavaPrettyPrintWriter createWriter(Appendable output) {
+        return new JavaPrettyPrintWriter(output, indentString);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    public void prettyPrint(CharSequence code, Appendable output) throws IOException {
+        JavaPrettyPrintWriter writer = createWriter(output);
+        writer.append(code);
+        writer.finish();
+    }
 }
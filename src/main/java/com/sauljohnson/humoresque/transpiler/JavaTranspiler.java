@@ -1,7 +1,22 @@
 package com.sauljohnson.humoresque.transpiler;
 
 import com.sauljohnson.humoresque.parser.Token;
+import com.sauljohnson.humoresque.parser.TokenType;
 import com.sauljohnson.humoresque.parser.model.*;
+import jdk.jfr.FlightRecorder;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 /**
  * Represents a HAHA to Java transpiler.
@@ -12,117 +27,248 @@ import com.sauljohnson.humoresque.parser.model.*;
 public class JavaTranspiler implements Transpiler {
 
     /**
-     * Removes double occurrences of a term from an input string.
+     * The number of components per pool thread that may be emitted ahead of the one being written out.
+     */
+    private static final int PARALLEL_WINDOW_FACTOR = 4;
+
+    /**
+     * The version of the output this transpiler produces. Must be incremented whenever output changes, as it forms
+     * part of the key output is cached under.
+     */
+    public static final int OUTPUT_VERSION = 1;
+
+    /**
+     * The string that distinguishes cached functions transpiled by this version of this transpiler.
+     */
+    private static final String CACHE_SALT = "java/" + OUTPUT_VERSION;
+
+    private ForkJoinPool pool;
+
+    private FunctionCache cache;
+
+    private boolean optimize;
+
+    private boolean contracts;
+
+    private IntegerMode integerMode = IntegerMode.FIXED;
+
+    /**
+     * Gets the pool that program components are emitted on in parallel.
      *
-     * @param term  the term
-     * @param input the input string
-     * @return      the input string with double occurrences removed
+     * @return  the pool, or null if program components are emitted sequentially
      */
-    private String removeDoubles(String term, String input) {
-        String output = input;
-        while (output.contains(term + term)) {
-            output = output.replace(term + term, term);
-        }
-        return output;
+    public ForkJoinPool getPool() {
+        return pool;
     }
 
     /**
-     * Removes double newlines from the input string.
+     * Sets the pool that program components are emitted on in parallel. Output is identical either way.
      *
-     * @param input the input string
-     * @return      the input string with double newlines removed
+     * @param pool  the pool, or null to emit program components sequentially
      */
-    private String removeDoubleNewlines(String input) {
-        return removeDoubles("\n", input);
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
     }
 
     /**
-     * Removes double spaces from the input string.
+     * Gets the cache that transpiled functions are looked up in and stored to.
      *
-     * @param input the input string
-     * @return      the input string with double spaces removed
+     * @return  the cache, or null if functions are always transpiled
      */
-    private String removeDoubleSpaces(String input) {
-        return removeDoubles(" ", input);
+    public FunctionCache getCache() {
+        return cache;
     }
 
     /**
-     * Concatenates tokens together as a string, optionally transforming them.
+     * Sets the cache that transpiled functions are looked up in and stored to.
      *
-     * @param tokens    the tokens to concatenate
-     * @param transform whether or not to transform tokens to their Java equivalents during concatenation
-     * @param delimiter the delimiter to place between tokens
-     * @return          the resulting string
+     * @param cache the cache, or null to always transpile functions
      */
-    private String concatTokens(Token[] tokens, boolean transform, String delimiter) {
-        StringBuilder sb = new StringBuilder();
+    public void setCache(FunctionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Gets whether or not function bodies are optimized before being emitted.
+     *
+     * @return  true if function bodies are optimized, otherwise false
+     */
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    /**
+     * Sets whether or not function bodies are optimized before being emitted. Constants are folded, copies are
+     * propagated and stores and variables that are never read are removed, without changing behaviour.
+     *
+     * @param optimize  true to optimize function bodies, otherwise false
+     */
+    public void setOptimize(boolean optimize) {
+        this.optimize = optimize;
+    }
+
+    /**
+     * Gets whether or not annotations are emitted as contract checks as well as comments.
+     *
+     * @return  true if annotations are emitted as contract checks, otherwise false
+     */
+    public boolean isContracts() {
+        return contracts;
+    }
+
+    /**
+     * Sets whether or not annotations are emitted as contract checks as well as comments. Each annotation that is a
+     * boolean expression Java can check is followed by an {@code assert} of it, so checks run only when assertions are
+     * enabled (with {@code -ea}) and are compiled away entirely otherwise. Local variables are given initial values
+     * so that checks may read them before the program first assigns them.
+     *
+     * @param contracts true to emit annotations as contract checks, otherwise false
+     */
+    public void setContracts(boolean contracts) {
+        this.contracts = contracts;
+    }
+
+    /**
+     * Gets the way the Java types that integers are transpiled to are chosen.
+     *
+     * @return  the way integer types are chosen
+     */
+    public IntegerMode getIntegerMode() {
+        return integerMode;
+    }
+
+    /**
+     * Sets the way the Java types that integers are transpiled to are chosen. Unless integers are fixed, each function
+     * has the range of its integer variables inferred, and any that may not fit an int are widened to a long or a
+     * BigInteger, with a comment at the top of the function body saying which and why. Arguments and return values
+     * remain ints either way.
+     *
+     * @param integerMode   the way integer types are chosen
+     */
+    public void setIntegerMode(IntegerMode integerMode) {
+        this.integerMode = integerMode;
+    }
+
+    /**
+     * Gets the string that distinguishes functions cached by this transpiler, as configured, from all others.
+     *
+     * @return  the string
+     */
+    private String getCacheSalt() {
+        return CACHE_SALT + (optimize ? "/optimized" : "") + (contracts ? "/contracts" : "") +
+                (integerMode == IntegerMode.FIXED ? "" : "/" + integerMode.name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * The Java text for each type of token that must be transformed, indexed by token type ordinal. Tokens of other
+     * types are null here and are emitted unchanged.
+     */
+    private static final String[] JAVA_OPERATORS = createOperatorTable();
+
+    /**
+     * Creates the table of Java text for each type of token that must be transformed.
+     *
+     * @return  the table, indexed by token type ordinal
+     */
+    private static String[] createOperatorTable() {
+        TokenType[] types = TokenType.values();
+        String[] table = new String[types.length];
+        for (TokenType type : types) {
+            switch (type) { // Some tokens need transforming.
+                case CONJUNCTION:
+                    table[type.ordinal()] = "&&";
+                    break;
+                case DISJUNCTION:
+                    table[type.ordinal()] = "||";
+                    break;
+                case EQUALITY:
+                    table[type.ordinal()] = "==";
+                    break;
+                case INEQUALITY:
+                    table[type.ordinal()] = "!=";
+                    break;
+                case NEGATION:
+                    table[type.ordinal()] = "!";
+                    break;
+                case GREATER_THAN_OR_EQUAL_TO:
+                    table[type.ordinal()] = ">=";
+                    break;
+                case LESS_THAN_OR_EQUAL_TO:
+                    table[type.ordinal()] = "<=";
+                    break;
+                default:
+                    break; // Other tokens unchanged.
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Appends tokens separated by spaces, optionally transforming them.
+     *
+     * @param sb        the {@link StringBuilder} to append to
+     * @param tokens    the tokens to append
+     * @param transform whether or not to transform tokens to their Java equivalents
+     */
+    static void appendTokens(StringBuilder sb, Token[] tokens, boolean transform) {
         for (int i = 0; i < tokens.length; i++) {
             if (i > 0) {
-                sb.append(delimiter); // Add delimiter between tokens.
-            }
-            if (transform) {
-                switch (tokens[i].getType()) { // Some tokens need transforming.
-                    case CONJUNCTION:
-                        sb.append("&&");
-                        break;
-                    case DISJUNCTION:
-                        sb.append("||");
-                        break;
-                    case EQUALITY:
-                        sb.append("==");
-                        break;
-                    case INEQUALITY:
-                        sb.append("!=");
-                        break;
-                    case NEGATION:
-                        sb.append("!");
-                        break;
-                    case GREATER_THAN_OR_EQUAL_TO:
-                        sb.append(">=");
-                        break;
-                    case LESS_THAN_OR_EQUAL_TO:
-                        sb.append("<=");
-                        break;
-                    default:
-                        sb.append(tokens[i].getText()); // Other tokens unchanged.
-                        break;
-                }
-            } else {
-                sb.append(tokens[i].getText()); // Skip token transformation.
+                sb.append(' '); // Add delimiter between tokens.
             }
+            sb.append(transform ? toJava(tokens[i]) : tokens[i].getText());
         }
-        return sb.toString();
     }
 
     /**
-     * Concatenates tokens together as a string, optionally transforming them.
+     * Transforms a token to its Java equivalent.
      *
-     * @param tokens    the tokens to concatenate
-     * @param transform whether or not to transform tokens to their Java equivalents during concatenation
-     * @return          the resulting string
+     * @param token the token
+     * @return      the Java text of the token
      */
-    private String concatTokens(Token[] tokens, boolean transform) {
-        return concatTokens(tokens, transform," ");
+    static String toJava(Token token) {
+        String operator = JAVA_OPERATORS[token.getType().ordinal()];
+        return operator == null ? token.getText() : operator;
     }
 
     /**
-     * Concatenates tokens together as a string.
+     * Appends the tokens of an annotation separated by spaces, dropping braces, turning newlines into spaces and
+     * collapsing runs of spaces into one as it goes.
      *
-     * @param tokens    the tokens to concatenate
-     * @return          the resulting string
+     * @param sb        the {@link StringBuilder} to append to
+     * @param tokens    the tokens of the annotation
      */
-    private String concatTokens(Token[] tokens) {
-        return concatTokens(tokens, false);
+    static void appendAnnotation(StringBuilder sb, Token[] tokens) {
+        boolean previousSpace = false;
+        for (int i = 0; i < tokens.length; i++) {
+            if (i > 0 && !previousSpace) {
+                sb.append(' '); // Add delimiter between tokens.
+                previousSpace = true;
+            }
+            String text = tokens[i].getText();
+            for (int j = 0; j < text.length(); j++) {
+                char c = text.charAt(j);
+                if (c == '{' || c == '}') {
+                    continue; // Annotation braces would unbalance the Java.
+                }
+                if (c == '\n') {
+                    c = ' ';
+                }
+                if (c == ' ' && previousSpace) {
+                    continue;
+                }
+                sb.append(c);
+                previousSpace = c == ' ';
+            }
+        }
     }
 
     /**
-     * Transforms a {@link HahaType} into a string representing a Java type.
+     * Appends the Java type corresponding to a {@link HahaType}.
      *
+     * @param sb    the {@link StringBuilder} to append to
      * @param type  the type to transform
-     * @return      a string representing a Java type
      */
-    private String lookupType(HahaType type) {
-        StringBuilder sb = new StringBuilder();
+    private void appendType(StringBuilder sb, HahaType type) {
         switch(type.getBaseType()){
             case Z:
             case INT:
@@ -135,7 +281,28 @@ public class JavaTranspiler implements Transpiler {
         if (type.isArrayType()) {
             sb.append("[]"); // Annotate with brackets for array types.
         }
-        return sb.toString();
+    }
+
+    /**
+     * Appends the initial value given to a local variable of some type when emitting contract checks.
+     *
+     * @param sb    the {@link StringBuilder} to append to
+     * @param type  the type of the variable
+     */
+    private void appendDefaultValue(StringBuilder sb, HahaType type) {
+        if (type.isArrayType()) {
+            sb.append("null");
+            return;
+        }
+        switch(type.getBaseType()){
+            case Z:
+            case INT:
+                sb.append("0");
+                break;
+            case BOOLEAN:
+                sb.append("false");
+                break;
+        }
     }
 
     /**
@@ -145,9 +312,9 @@ public class JavaTranspiler implements Transpiler {
      * @param loop  the loop to emit
      */
     private void emitLoop(StringBuilder sb, Loop loop) {
-        sb.append("while(")
-                .append(concatTokens(loop.getPredicate(), true)) // Emit predicate.
-                .append(")");
+        sb.append("while(");
+        appendTokens(sb, loop.getPredicate(), true); // Emit predicate.
+        sb.append(")");
         emitStatement(sb, loop.getStatement()); // Emit body.
     }
 
@@ -158,9 +325,9 @@ public class JavaTranspiler implements Transpiler {
      * @param conditional   the conditional to emit
      */
     private void emitConditional(StringBuilder sb, Conditional conditional) {
-        sb.append("if(")
-                .append(concatTokens(conditional.getPredicate(), true)) // Emit predicate.
-                .append("){");
+        sb.append("if(");
+        appendTokens(sb, conditional.getPredicate(), true); // Emit predicate.
+        sb.append("){");
         emitStatement(sb, conditional.getTrueArm()); // Emit true arm.
         if (conditional.getFalseArm() != null) {
             sb.append("} else {");
@@ -184,15 +351,15 @@ public class JavaTranspiler implements Transpiler {
         if (assignment.getIsArrayAssignment()) {
             ArrayAssignment arrayAssignment = (ArrayAssignment) assignment;
             sb.append(arrayAssignment.getIdentifier())
-                    .append("[")
-                    .append(concatTokens(arrayAssignment.getIndex(), true))
-                    .append("]");
+                    .append("[");
+            appendTokens(sb, arrayAssignment.getIndex(), true);
+            sb.append("]");
         }
 
         // Append right-hand side.
-        sb.append(" = ")
-                .append(concatTokens(assignment.getExpression(), true))
-                .append(";\n");
+        sb.append(" = ");
+        appendTokens(sb, assignment.getExpression(), true);
+        sb.append(";\n");
     }
 
     /**
@@ -221,14 +388,12 @@ public class JavaTranspiler implements Transpiler {
                     // Deal with annotations here. They can only occur within blocks.
                     switch (component.getProgramComponentType()) {
                         case ANNOTATION:
-                            Annotation annotation = (Annotation) component;
-                            String annotationString = concatTokens(annotation.getTokens())
-                                    .replace("{", "")
-                                    .replace("}", "")
-                                    .replace("\n", " ");
-                            sb.append("/*")
-                                    .append(removeDoubleSpaces(annotationString))
-                                    .append("*/\n");
+                            sb.append("/*");
+                            appendAnnotation(sb, ((Annotation) component).getTokens());
+                            sb.append("*/\n");
+                            if (contracts) {
+                                FunctionOptimizer.appendCheck(sb, ((Annotation) component).getTokens());
+                            }
                             break;
                         case STATEMENT:
                             emitStatement(sb, (Statement) component); // Emit regular statement.
@@ -272,51 +437,142 @@ public class JavaTranspiler implements Transpiler {
      *
      * @param sb        the {@link StringBuilder} the program is being built in
      * @param function  the function with the body to emit
+     * @param tree      the function lifted into a statement tree, or null to emit it from its tokens
+     * @param widths    the integer widths inferred for the function, or null if integers are fixed
      */
-    private void emitFunctionBody(StringBuilder sb, Function function) {
+    private void emitFunctionBody(StringBuilder sb, Function function, FunctionOptimizer tree,
+                                  WidthInference widths) {
 
         // Emits a function body.
         Variable[] variables = function.getVariables();
         Statement statement = function.getStatement();
+        Set<String> referenced = optimize ? tree.getReferencedVariables() : null;
 
         // Function body must be a block.
         sb.append("{\n");
 
-        // Emit variables.
+        // Say which integers were widened, and copy widened arguments into variables of their own.
+        if (widths != null) {
+            widths.appendReport(sb);
+            widths.appendParameterCopies(sb);
+        }
+
+        // Emit variables, leaving out any the optimizer has done away with.
         for (Variable variable : variables) {
-            sb.append(lookupType(variable.getType()))
-                    .append(" ")
-                    .append(variable.getIdentifier())
-                    .append(";\n");
+            if (referenced != null && !referenced.contains(variable.getIdentifier())) {
+                continue;
+            }
+            if (widths == null || !widths.appendType(sb, variable.getIdentifier())) {
+                appendType(sb, variable.getType());
+            }
+            sb.append(" ")
+                    .append(variable.getIdentifier());
+            if (contracts) {
+                sb.append(" = ");
+                if (widths == null || !widths.appendDefaultValue(sb, variable.getIdentifier())) {
+                    appendDefaultValue(sb, variable.getType());
+                }
+            }
+            sb.append(";\n");
+        }
+        if (widths == null || !widths.appendType(sb, function.getIdentifier())) {
+            appendType(sb, function.getReturnType()); // Extra variable to carry function value.
         }
-        sb.append(lookupType(function.getReturnType())) // Extra variable to carry function value.
-                .append(" ")
-                .append(function.getIdentifier())
-                .append(";\n");
+        sb.append(" ")
+                .append(function.getIdentifier());
+        if (contracts) {
+            sb.append(" = ");
+            if (widths == null || !widths.appendDefaultValue(sb, function.getIdentifier())) {
+                appendDefaultValue(sb, function.getReturnType());
+            }
+        }
+        sb.append(";\n");
 
         // Emit function statement.
-        emitStatement(sb, statement, true);
+        if (widths != null && widths.isWidened()) {
+            widths.emitStatements(sb);
+        } else if (optimize) {
+            tree.emitStatements(sb);
+        } else {
+            emitStatement(sb, statement, true);
+        }
 
         // Return function value.
-        sb.append("return ")
-                .append(function.getIdentifier())
-                .append(";\n");
+        sb.append("return ");
+        if (widths != null) {
+            widths.appendReturnValue(sb);
+        } else {
+            sb.append(function.getIdentifier());
+        }
+        sb.append(";\n");
 
         // Close body block.
         sb.append("}\n\n");
     }
 
     /**
-     * Emits a function.
+     * Emits a function, reusing cached output for it if there is any.
      *
      * @param sb        the {@link StringBuilder} the program is being built in
      * @param function  the function to emit
      */
     private void emitFunction(StringBuilder sb, Function function) {
+        FunctionEvent event = FlightRecorder.isInitialized() ? new FunctionEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        int start = sb.length();
+
+        // Without a cache, always emit. Otherwise reuse cached output, or emit and cache it.
+        String cached = null;
+        if (cache == null) {
+            emitFunctionDefinition(sb, function);
+        } else {
+            String key = FunctionFingerprint.of(function, getCacheSalt());
+            cached = cache.get(key);
+            if (cached != null) {
+                sb.append(cached);
+            } else {
+                emitFunctionDefinition(sb, function);
+                cache.put(key, sb.substring(start));
+            }
+        }
+
+        // Record emission for Flight Recorder, if it has been started.
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.identifier = function.getIdentifier();
+            event.cached = cached != null;
+            event.characters = sb.length() - start;
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits a function definition.
+     *
+     * @param sb        the {@link StringBuilder} the program is being built in
+     * @param function  the function to emit
+     */
+    private void emitFunctionDefinition(StringBuilder sb, Function function) {
+
+        // Lift the body into a statement tree if it is to be optimized or have integer widths inferred.
+        FunctionOptimizer tree = null;
+        WidthInference widths = null;
+        if (integerMode != IntegerMode.FIXED) {
+            tree = optimize ? FunctionOptimizer.optimize(function, contracts, true) :
+                    FunctionOptimizer.lift(function, contracts);
+            widths = WidthInference.infer(function, tree, integerMode == IntegerMode.CHECKED);
+        } else if (optimize) {
+            tree = FunctionOptimizer.optimize(function, contracts);
+        }
 
         // Emit type and identifier.
-        sb.append(lookupType(function.getReturnType())) // Return type.
-                .append(" ")
+        appendType(sb, function.getReturnType()); // Return type.
+        sb.append(" ")
                 .append(function.getIdentifier()) // Function name.
                 .append("("); // Begin argument list.
 
@@ -326,14 +582,55 @@ public class JavaTranspiler implements Transpiler {
             if (i > 0) {
                 sb.append(", "); // Comma if needed.
             }
-            sb.append(lookupType(arguments[i].getType()))
-                    .append(" ")
-                    .append(arguments[i].getIdentifier());
+            appendType(sb, arguments[i].getType());
+            sb.append(" ")
+                    .append(widths == null ? arguments[i].getIdentifier() :
+                            widths.getParameterName(arguments[i].getIdentifier()));
         }
         sb.append(")\n");
 
         // Emit body of function.
-        emitFunctionBody(sb, function);
+        emitFunctionBody(sb, function, tree, widths);
+    }
+
+    /**
+     * Emits an axiom (commented).
+     *
+     * @param sb    the {@link StringBuilder} the program is being built in
+     * @param axiom the axiom to emit
+     */
+    private void emitAxiom(StringBuilder sb, Axiom axiom) {
+        sb.append("/*");
+        appendTokens(sb, axiom.getTokens(), false);
+        sb.append("*/\n\n");
+    }
+
+    /**
+     * Emits a predicate (commented).
+     *
+     * @param sb        the {@link StringBuilder} the program is being built in
+     * @param predicate the predicate to emit
+     */
+    private void emitPredicate(StringBuilder sb, Predicate predicate) {
+        sb.append("/*");
+        appendTokens(sb, predicate.getTokens(), false);
+        sb.append("*/\n\n");
+    }
+
+    /**
+     * Writes out the contents of a buffer, then clears it ready for reuse.
+     *
+     * @param sb            the buffer to write out
+     * @param output        the output to write to
+     * @param flush         whether or not to flush the output afterwards
+     * @throws IOException  if the output cannot be written to
+     */
+    private void drain(StringBuilder sb, Appendable output, boolean flush) throws IOException {
+        output.append(sb);
+        sb.setLength(0);
+        if (flush && output instanceof Flushable) {
+            ((Flushable) output).flush();
+        }
     }
 
     /**
@@ -349,6 +646,61 @@ public class JavaTranspiler implements Transpiler {
         return sb.toString();
     }
 
+    /**
+     * @inheritDoc
+     */
+    public void transpileFunction(Function function, Appendable output) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        emitFunction(sb, function);
+        drain(sb, output, false);
+    }
+
+    /**
+     * Lists the emitters for each component of a program (axioms, predicates and then functions) in source order.
+     *
+     * @param program   the program
+     * @return          the emitters
+     */
+    private List<Consumer<StringBuilder>> listComponents(Program program) {
+        List<Consumer<StringBuilder>> components = new ArrayList<>();
+        for(Axiom axiom : program.getAxioms()) {
+            components.add(sb -> emitAxiom(sb, axiom));
+        }
+        for(Predicate predicate : program.getPredicates()) {
+            components.add(sb -> emitPredicate(sb, predicate));
+        }
+        for(Function function : program.getFunctions()) {
+            components.add(sb -> emitFunction(sb, function));
+        }
+        return components;
+    }
+
+    /**
+     * Emits each component of a program into its own buffer on the pool, writing the buffers out in source order.
+     * Only a bounded window of components is emitted ahead of the one being written out.
+     *
+     * @param program       the program to transpile
+     * @param output        the output to write to
+     * @throws IOException  if the output cannot be written to
+     */
+    private void transpileParallel(Program program, Appendable output) throws IOException {
+        int window = pool.getParallelism() * PARALLEL_WINDOW_FACTOR;
+        Deque<ForkJoinTask<StringBuilder>> pending = new ArrayDeque<>(window);
+        for (Consumer<StringBuilder> component : listComponents(program)) {
+            if (pending.size() >= window) {
+                drain(pending.removeFirst().join(), output, true);
+            }
+            pending.addLast(pool.submit(() -> {
+                StringBuilder sb = new StringBuilder();
+                component.accept(sb);
+                return sb;
+            }));
+        }
+        while (!pending.isEmpty()) {
+            drain(pending.removeFirst().join(), output, true);
+        }
+    }
+
     /**
      * @inheritDoc
      */
@@ -357,18 +709,24 @@ public class JavaTranspiler implements Transpiler {
         // The string builder to emit to.
         StringBuilder sb = new StringBuilder();
 
+        // Emit in parallel if we have a pool to do so.
+        if (pool != null) {
+            try {
+                transpileParallel(program, sb);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // Never thrown by a string builder.
+            }
+            return sb.toString();
+        }
+
         // Emit axioms (commented).
         for(Axiom axiom : program.getAxioms()) {
-            sb.append("/*")
-                    .append(concatTokens(axiom.getTokens()))
-                    .append("*/\n\n");
+            emitAxiom(sb, axiom);
         }
 
         // Emit predicates (commented).
         for(Predicate predicate : program.getPredicates()) {
-            sb.append("/*")
-                    .append(concatTokens(predicate.getTokens()))
-                    .append("*/\n\n");
+            emitPredicate(sb, predicate);
         }
 
         // Emit functions.
@@ -378,4 +736,37 @@ public class JavaTranspiler implements Transpiler {
 
         return sb.toString(); // Return generated code.
     }
+
+    /**
+     * @inheritDoc
+     */
+    public void transpile(Program program, Appendable output) throws IOException {
+
+        // Emit in parallel if we have a pool to do so.
+        if (pool != null) {
+            transpileParallel(program, output);
+            return;
+        }
+
+        // Only one component is ever held in this buffer at a time.
+        StringBuilder sb = new StringBuilder();
+
+        // Emit axioms (commented).
+        for(Axiom axiom : program.getAxioms()) {
+            emitAxiom(sb, axiom);
+            drain(sb, output, false);
+        }
+
+        // Emit predicates (commented).
+        for(Predicate predicate : program.getPredicates()) {
+            emitPredicate(sb, predicate);
+            drain(sb, output, false);
+        }
+
+        // Emit functions, flushing after each one.
+        for(Function function : program.getFunctions()) {
+            emitFunction(sb, function);
+            drain(sb, output, true);
+        }
+    }
 }
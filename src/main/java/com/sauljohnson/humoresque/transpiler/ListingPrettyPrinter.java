@@ -0,0 +1,60 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Represents a pretty printer for bytecode listings, which are laid out as they are produced and so pass through
+ * unchanged.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class ListingPrettyPrinter implements PrettyPrinter {
+
+    /**
+     * @inheritDoc
+     */
+    public String prettyPrint(String code) {
+        return code;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    public void prettyPrint(CharSequence code, Appendable output) throws IOException {
+        output.append(code);
+    }
+
+    /**
+     * @inheritDoc
+     */
+    public Writer createWriter(Appendable output) {
+        return new Writer() {
+            @Override
+            public void write(char[] buffer, int offset, int length) throws IOException {
+                output.append(new String(buffer, offset, length));
+            }
+
+            @Override
+            public Writer append(CharSequence text) throws IOException {
+                output.append(text);
+                return this;
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (output instanceof Flushable) {
+                    ((Flushable) output).flush();
+                }
+            }
+
+            @Override
+            public void close() {
+                // Leaves the output open.
+            }
+        };
+    }
+}
@@ -1,25 +1,29 @@
 package com.sauljohnson.humoresque.transpiler;
 
-import com.sauljohnson.humoresque.parser.*;
-import com.sauljohnson.humoresque.parser.model.Function;
-import com.sauljohnson.humoresque.parser.model.Program;
-import org.apache.commons.io.FileUtils;
+import com.sauljohnson.humoresque.parser.ParseException;
+import com.sauljohnson.humoresque.parser.TokenizationException;
 
-import java.io.File;
-import java.io.IOException;
+import java.io.*;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 
 public class Main {
 
     /**
-     * Reads a file into a string.
+     * Opens a buffered writer over standard output.
      *
-     * @param path          the path of the file to read
-     * @return              the file contents as a string
-     * @throws IOException  if the file cannot be read
+     * @return  the writer
      */
-    private static String readFileText(String path) throws IOException {
-        return FileUtils.readFileToString(new File(path));
+    private static Writer openStandardOutput() {
+        FileOutputStream stream = new FileOutputStream(FileDescriptor.out);
+        return new BufferedWriter(Channels.newWriter(stream.getChannel(), Charset.defaultCharset().newEncoder(), -1));
     }
 
     /**
@@ -38,18 +42,183 @@ public class Main {
         return null;
     }
 
+    /**
+     * Gets the value associated with a flag on the command line as a non-negative integer.
+     *
+     * @param args                  the input arguments array
+     * @param key                   the key
+     * @return                      the value
+     * @throws ArgumentsException   if there is no value or it is not a non-negative integer
+     */
+    private static int getIntegerArgumentValue(String[] args, String key) throws ArgumentsException {
+        String value = getArgumentValue(args, key);
+        try {
+            int parsed = value == null ? -1 : Integer.parseInt(value);
+            if (parsed >= 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Handled below.
+        }
+        throw new ArgumentsException("You must specify a non-negative number after the " + key + " option.");
+    }
+
+    /**
+     * Gets whether or not a flag on the command line is followed by a value.
+     *
+     * @param arg   the argument
+     * @return      true if the argument is a flag that takes a value, otherwise false
+     */
+    private static boolean takesValue(String arg) {
+        return arg.equals("-f") || arg.equals("-t") || arg.equals("-a") || arg.equals("-j") || arg.equals("-o") ||
+                arg.equals("-x") ||
+                arg.equals("--cache-dir") || arg.equals("--serve") || arg.equals("--idle-timeout") ||
+                arg.equals("--connect") || arg.equals("--integers") || arg.equals("--out-dir") ||
+                arg.equals("--out-archive");
+    }
+
+    /**
+     * Gets the arguments on the command line that are neither flags nor flag values.
+     *
+     * @param args  the input arguments array
+     * @return      the positional arguments
+     */
+    private static String[] getPositionalArguments(String[] args) {
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (takesValue(args[i])) {
+                i++; // Skip over flag value.
+            } else if (!(args[i].startsWith("-") && args[i].length() >= 2)) {
+                positional.add(args[i]);
+            }
+        }
+        return positional.toArray(new String[0]);
+    }
+
     /**
      * Parses a list of arguments given as a string array into an {@link Arguments} object.
      *
-     * @param args  the input argument array
-     * @return      the parsed {@link Arguments} object
+     * @param args                  the input argument array
+     * @return                      the parsed {@link Arguments} object
+     * @throws ArgumentsException   if the arguments are invalid
      */
-    private static Arguments parseArguments(String[] args) {
+    static Arguments parseArguments(String[] args) throws ArgumentsException {
 
         // Parse arguments list into arguments object.
         Arguments parsedArgs = new Arguments();
         for (String arg : args) {
-            if (arg.startsWith("-") && arg.length() == 2) {
+            if (arg.startsWith("--")) {
+                switch (arg.substring(2)) {
+                    case "no-cache":
+                        // Always transpile, never touch the cache.
+                        parsedArgs.setCacheEnabled(false);
+                        break;
+                    case "cache-dir":
+                        // Allow specification of where to keep the cache.
+                        String cacheDirectoryString = getArgumentValue(args, arg);
+                        if (cacheDirectoryString != null) {
+                            parsedArgs.setCacheDirectory(cacheDirectoryString);
+                        } else {
+                            // No directory given.
+                            throw new ArgumentsException("You must specify a directory after the --cache-dir " +
+                                    "option.");
+                        }
+                        break;
+                    case "cache-stats":
+                        // Report cache hits and misses when done.
+                        parsedArgs.setCacheStats(true);
+                        break;
+                    case "stats":
+                        // Report time, allocation and item counts for each phase when done.
+                        parsedArgs.setStats(true);
+                        break;
+                    case "contracts":
+                        // Emit annotations as assertions as well as comments.
+                        parsedArgs.setContracts(true);
+                        break;
+                    case "integers":
+                        // Allow specification of how integer types are chosen.
+                        String integerModeString = getArgumentValue(args, arg);
+                        if (integerModeString == null) {
+                            // No integer mode given.
+                            throw new ArgumentsException("You must specify 'fixed', 'infer' or 'checked' after the " +
+                                    "--integers option.");
+                        }
+                        switch (integerModeString.toLowerCase()) {
+                            case "fixed":
+                                parsedArgs.setIntegerMode(IntegerMode.FIXED);
+                                break;
+                            case "infer":
+                                parsedArgs.setIntegerMode(IntegerMode.INFER);
+                                break;
+                            case "checked":
+                                parsedArgs.setIntegerMode(IntegerMode.CHECKED);
+                                break;
+                            default:
+                                // Invalid integer mode given.
+                                throw new ArgumentsException("The integer mode '" + integerModeString + "' is not " +
+                                        "valid. Use 'fixed', 'infer' or 'checked'.");
+                        }
+                        break;
+                    case "watch":
+                        // Keep running, transpiling source files again as they change.
+                        parsedArgs.setWatch(true);
+                        break;
+                    case "out-dir":
+                        // Allow specification of a directory to write output files beneath.
+                        String outputDirectoryString = getArgumentValue(args, arg);
+                        if (outputDirectoryString != null) {
+                            parsedArgs.setOutputDirectory(outputDirectoryString);
+                        } else {
+                            // No directory given.
+                            throw new ArgumentsException("You must specify a directory after the --out-dir option.");
+                        }
+                        break;
+                    case "out-archive":
+                        // Allow specification of a zip or jar archive to write output files into.
+                        String outputArchiveString = getArgumentValue(args, arg);
+                        if (outputArchiveString != null) {
+                            parsedArgs.setOutputArchive(outputArchiveString);
+                        } else {
+                            // No archive given.
+                            throw new ArgumentsException("You must specify a zip or jar file after the --out-archive " +
+                                    "option.");
+                        }
+                        break;
+                    case "per-function":
+                        // Write each function to a compilation unit of its own.
+                        parsedArgs.setPerFunction(true);
+                        break;
+                    case "snapshot":
+                        // Answer from a snapshot of an earlier parse, taking one if there is none.
+                        parsedArgs.setSnapshot(true);
+                        break;
+                    case "stream":
+                        // Stream whole programs through the pipeline a chunk at a time.
+                        parsedArgs.setStream(true);
+                        break;
+                    case "closure":
+                        // Emit every function the target functions need along with them.
+                        parsedArgs.setClosure(true);
+                        break;
+                    case "index":
+                        // Extract functions through an index file kept next to the source.
+                        parsedArgs.setIndex(true);
+                        break;
+                    case "full-parse":
+                        // Parse and validate whole sources even when only function headers are needed.
+                        parsedArgs.setFullParse(true);
+                        break;
+                    case "serve":
+                        // Stay running and serve requests from clients.
+                        parsedArgs.setServePort(getIntegerArgumentValue(args, arg));
+                        break;
+                    case "idle-timeout":
+                        // Allow specification of how long a daemon waits for requests.
+                        parsedArgs.setIdleTimeout(getIntegerArgumentValue(args, arg));
+                        break;
+                }
+            } else if (arg.startsWith("-") && arg.length() == 2) {
                 switch (arg.charAt(1)) {
                     case 'e':
                         // Enumerate functions just means output their names.
@@ -63,9 +232,8 @@ public class Main {
                             parsedArgs.setTargetFunctions(identifierString.split(","));
                         } else {
                             // No function names given.
-                            System.err.println("You must specify a set of comma-separated function names after the " +
-                                    "-f option.");
-                            System.exit(1);
+                            throw new ArgumentsException("You must specify a set of comma-separated function names " +
+                                    "after the -f option.");
                         }
                         break;
                     case 't':
@@ -74,16 +242,16 @@ public class Main {
                         if (targetLanguageString != null) {
                             if (targetLanguageString.toLowerCase().equals("java")) {
                                 parsedArgs.setTargetLanguage(TargetLanguage.JAVA);
+                            } else if (targetLanguageString.toLowerCase().equals("bytecode")) {
+                                parsedArgs.setTargetLanguage(TargetLanguage.BYTECODE);
                             } else {
                                 // Invalid target language given,
-                                System.err.println("The language '" + targetLanguageString + "' is not a valid " +
-                                        "target.");
-                                System.exit(1);
+                                throw new ArgumentsException("The language '" + targetLanguageString + "' is not a " +
+                                        "valid target.");
                             }
                         } else {
                             // No target language given,
-                            System.err.println("You must specify a target language after the -t option.");
-                            System.exit(1);
+                            throw new ArgumentsException("You must specify a target language after the -t option.");
                         }
                         break;
                     case 'a':
@@ -94,126 +262,478 @@ public class Main {
                             parsedArgs.setTargetFunctions(arityIdentifierString.split(","));
                         } else {
                             // No function names given.
-                            System.err.println("You must specify a set of comma-separated function names after the " +
-                                    "-a option.");
-                            System.exit(1);
+                            throw new ArgumentsException("You must specify a set of comma-separated function names " +
+                                    "after the -a option.");
+                        }
+                        break;
+                    case 'x':
+                        // Execution mode means compile the program in memory and call a function.
+                        parsedArgs.setMode(Mode.EXECUTE);
+                        String callString = getArgumentValue(args, arg);
+                        if (callString != null) {
+                            parsedArgs.setCall(callString);
+                        } else {
+                            // No call given.
+                            throw new ArgumentsException("You must specify a call such as 'f(1, 2)' after the -x " +
+                                    "option.");
+                        }
+                        break;
+                    case 'o':
+                        // Allow specification of a file to write output to.
+                        String outputFileString = getArgumentValue(args, arg);
+                        if (outputFileString != null) {
+                            parsedArgs.setOutputFile(outputFileString);
+                        } else {
+                            // No output file given.
+                            throw new ArgumentsException("You must specify a file after the -o option.");
+                        }
+                        break;
+                    case 'b':
+                        // Batch mode means transpile many files, directories or glob patterns.
+                        parsedArgs.setBatch(true);
+                        break;
+                    case 'O':
+                        // Optimize function bodies before emitting them.
+                        parsedArgs.setOptimize(true);
+                        break;
+                    case 'p':
+                        // Emit the functions within each file in parallel.
+                        parsedArgs.setParallelEmission(true);
+                        break;
+                    case 'j':
+                        // Allow specification of how many files to transpile at once in batch mode.
+                        String parallelismString = getArgumentValue(args, arg);
+                        int parallelism = 0;
+                        try {
+                            parallelism = parallelismString == null ? 0 : Integer.parseInt(parallelismString);
+                        } catch (NumberFormatException e) {
+                            // Handled below.
+                        }
+                        if (parallelism > 0) {
+                            parsedArgs.setParallelism(parallelism);
+                        } else {
+                            // No valid degree of parallelism given.
+                            throw new ArgumentsException("You must specify a positive number of threads after the -j " +
+                                    "option.");
                         }
                         break;
                 }
             }
         }
 
-        // Input file comes last.
-        if (args.length > 0) {
+        // Only whole programs can be split into chunks, and only into Java, as bytecode calls need every function.
+        if (parsedArgs.isStream() && (parsedArgs.getMode() != Mode.DEFAULT || parsedArgs.isPerFunction() ||
+                parsedArgs.getTargetLanguage() == TargetLanguage.BYTECODE)) {
+            throw new ArgumentsException("The --stream option can only be used to transpile whole programs to Java.");
+        }
+
+        // Only target functions have functions they need.
+        if (parsedArgs.isClosure() && parsedArgs.getMode() != Mode.EMIT_FUNCTIONS) {
+            throw new ArgumentsException("The --closure option can only be used with the -f option.");
+        }
+
+        // Bytecode is compiled with fixed-width integers only.
+        if (parsedArgs.getTargetLanguage() == TargetLanguage.BYTECODE &&
+                parsedArgs.getIntegerMode() != IntegerMode.FIXED) {
+            throw new ArgumentsException("The --integers option cannot be used with the bytecode target.");
+        }
+
+        // Watch mode rewrites output files as sources change, so there must be somewhere to write them.
+        if (parsedArgs.isWatch()) {
+            if (parsedArgs.getMode() != Mode.DEFAULT && parsedArgs.getMode() != Mode.EMIT_FUNCTIONS) {
+                throw new ArgumentsException("The --watch option can only be used to transpile programs.");
+            }
+            if (parsedArgs.isBatch() && (parsedArgs.getOutputDirectory() == null ||
+                    parsedArgs.getOutputFile() != null)) {
+                throw new ArgumentsException("You must specify an output directory with --out-dir, rather than " +
+                        "-o, to use the --watch option in batch mode.");
+            }
+            if (!parsedArgs.isBatch() && (parsedArgs.getOutputFile() == null ||
+                    parsedArgs.getOutputDirectory() != null)) {
+                throw new ArgumentsException("You must specify an output file with -o to use the --watch option.");
+            }
+            if (parsedArgs.getOutputArchive() != null || parsedArgs.isPerFunction()) {
+                throw new ArgumentsException("The --out-archive and --per-function options cannot be used with " +
+                        "--watch.");
+            }
+        }
+
+        // Output files can only go to one place, and only transpiled Java is written out file by file.
+        if (isSinkOutput(parsedArgs) && !parsedArgs.isWatch()) {
+            if (parsedArgs.getOutputDirectory() != null && parsedArgs.getOutputArchive() != null) {
+                throw new ArgumentsException("The --out-dir and --out-archive options cannot be used together.");
+            }
+            if (parsedArgs.getOutputFile() != null) {
+                throw new ArgumentsException("The --out-dir, --out-archive and --per-function options cannot be " +
+                        "used with -o.");
+            }
+            if (parsedArgs.getMode() != Mode.DEFAULT && parsedArgs.getMode() != Mode.EMIT_FUNCTIONS) {
+                throw new ArgumentsException("The --out-dir, --out-archive and --per-function options can only be " +
+                        "used to transpile programs.");
+            }
+            if (parsedArgs.getTargetLanguage() == TargetLanguage.BYTECODE) {
+                throw new ArgumentsException("The --out-dir, --out-archive and --per-function options cannot be " +
+                        "used with the bytecode target.");
+            }
+        }
+
+        // Input file comes last, or in batch mode input files are everything that isn't an option.
+        if (parsedArgs.isBatch()) {
+            String[] sourceFiles = getPositionalArguments(args);
+            if (sourceFiles.length > 0) {
+                parsedArgs.setSourceFiles(sourceFiles);
+            }
+        } else if (args.length > 0) {
             parsedArgs.setSourceFile(args[args.length - 1]);
         }
         return parsedArgs;
     }
 
-    public static void main(String[] args) {
+    /**
+     * Trims the cache used by a job down to size if anything was added to it, and reports its hits and misses if asked
+     * to. Runs that only read the cache, or never touch it, skip listing the cache directory.
+     *
+     * @param job           the job
+     * @param parsedArgs    the parsed arguments
+     * @param errors        the stream to report to
+     */
+    private static void closeCache(TranspilationJob job, Arguments parsedArgs, PrintStream errors) {
+        FunctionCache cache = job.getCache();
+        if (cache == null) {
+            return;
+        }
+        try {
+            if (cache.getPuts() > 0) {
+                cache.trim();
+            }
+        } catch (IOException e) {
+            errors.println("Could not trim cache at '" + cache.getDirectory() + "'");
+        }
+        if (parsedArgs.isCacheStats()) {
+            errors.println("Cache: " + cache.getHits() + " hits, " + cache.getMisses() + " misses.");
+        }
+    }
 
-        // If no arguments passed.
-        Arguments parsedArgs = parseArguments(args);
-        if (parsedArgs.getSourceFile() == null) {
-            System.err.println("No file path specified.");
-            System.exit(1);
+    /**
+     * Reports the statistics gathered by a job for each phase of the pipeline, if it gathered any.
+     *
+     * @param job       the job
+     * @param errors    the stream to report to
+     */
+    private static void reportStats(TranspilationJob job, PrintStream errors) {
+        if (job.getStats() != null) {
+            errors.println(job.getStats().toJson());
         }
+    }
 
-        // Deal with source file.
+    /**
+     * Transpiles many source files in parallel.
+     *
+     * @param parsedArgs    the parsed arguments
+     * @param output        the writer to write results to
+     * @param errors        the stream to report errors to
+     * @return              the exit status, non-zero if any file failed
+     */
+    private static int runBatch(Arguments parsedArgs, Writer output, PrintStream errors) {
         try {
-            // Read in source.
-            String source = readFileText(parsedArgs.getSourceFile());
-
-            // Tokenize, discard empty statements and parse.
-            Tokenizer tokenizer = new HahaTokenizer();
-            TokenStreamTransformer transformer = new ConsecutiveTokenFilter(TokenType.PUNCTUATOR);
-            Program program = Program.parse(transformer.transform(new TokenStream(tokenizer.tokenize(source))));
-
-            // Select transpiler and pretty printer based on target language.
-            Transpiler transpiler;
-            PrettyPrinter prettyPrinter;
-            switch (parsedArgs.getTargetLanguage()) {
-                case DEFAULT:
-                case JAVA:
-                default:
-                    transpiler = new JavaTranspiler();
-                    prettyPrinter = new JavaPrettyPrinter();
-                    break;
-            }
-
-            // Detect application mode.
-            switch (parsedArgs.getMode()) {
-                case DEFAULT:
-                    // Transpile the whole program.
-                    String compiledSource = transpiler.transpile(program);
-                    String prettySource = prettyPrinter.prettyPrint(compiledSource);
-                    System.out.println(prettySource);
-                    break;
-                case ENUMERATE_FUNCTIONS:
-                    // Just print out all function names.
-                    for (Function function : program.getFunctions()) {
-                        System.out.println(function.getIdentifier());
+            List<Path> sources = SourcePaths.expand(parsedArgs.getSourceFiles());
+            try (TranspilationJob job = new TranspilationJob(parsedArgs)) {
+                BatchTranspiler batchTranspiler = new BatchTranspiler(job, parsedArgs.getParallelism());
+                int failures = batchTranspiler.run(sources, output, errors);
+                output.flush();
+                closeCache(job, parsedArgs, errors);
+                reportStats(job, errors);
+                if (failures > 0) {
+                    errors.println(failures + " of " + sources.size() + " files failed.");
+                    return 1;
+                }
+            }
+        } catch (IOException e) {
+            errors.println(e.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Gets whether or not output files are to be written to a sink rather than to a single output.
+     *
+     * @param parsedArgs    the parsed arguments
+     * @return              true if writing to an output directory or archive, or a file per function, otherwise false
+     */
+    private static boolean isSinkOutput(Arguments parsedArgs) {
+        return parsedArgs.getOutputDirectory() != null || parsedArgs.getOutputArchive() != null ||
+                parsedArgs.isPerFunction();
+    }
+
+    /**
+     * Transpiles one or many source files, writing the files they produce to an output directory or archive, or to
+     * standard output one after another.
+     *
+     * @param parsedArgs    the parsed arguments
+     * @param output        the writer to write results to if there is no output directory or archive
+     * @param errors        the stream to report errors to
+     * @return              the exit status, non-zero if any file failed
+     */
+    private static int runSink(Arguments parsedArgs, Writer output, PrintStream errors) {
+        try {
+            // Name each source file by where it lies beneath the directory or glob base it was found in.
+            Map<Path, String> sources;
+            if (parsedArgs.isBatch()) {
+                sources = SourcePaths.expandRelative(parsedArgs.getSourceFiles());
+            } else {
+                sources = SourcePaths.expandRelative(new String[] {parsedArgs.getSourceFile()});
+                if (SourceReader.STANDARD_INPUT.equals(parsedArgs.getSourceFile())) {
+                    sources.put(Paths.get(SourceReader.STANDARD_INPUT), "stdin");
+                }
+            }
+            SourcePaths.requireDistinctNames(sources);
+
+            // Write files out to the sink asked for.
+            try (TranspilationJob job = new TranspilationJob(parsedArgs)) {
+                BatchTranspiler batchTranspiler = new BatchTranspiler(job, parsedArgs.getParallelism());
+                int failures;
+                if (parsedArgs.getOutputDirectory() != null) {
+                    try (OutputSink sink = new DirectoryOutputSink(Paths.get(parsedArgs.getOutputDirectory()))) {
+                        failures = batchTranspiler.run(sources, sink, errors);
                     }
-                    break;
-                case EMIT_FUNCTIONS:
-                    // For each target function to transpile.
-                    String[] targetFunctionNames = parsedArgs.getTargetFunctions();
-                    for (String targetFunctionName : targetFunctionNames) {
-
-                        // Find and emit function.
-                        boolean found = false;
-                        for (Function function : program.getFunctions()) {
-                            if (targetFunctionName.equals(function.getIdentifier())) {
-                                String compiledFunction = transpiler.transpileFunction(function);
-                                String prettyFunction = prettyPrinter.prettyPrint(compiledFunction);
-                                System.out.println(prettyFunction);
-                                found = true;
-                                break;
-                            }
-                        }
+                } else if (parsedArgs.getOutputArchive() != null) {
+                    try (ArchiveOutputSink sink = new ArchiveOutputSink(Paths.get(parsedArgs.getOutputArchive()))) {
+                        failures = batchTranspiler.run(sources, sink, errors);
 
-                        // Function not found.
-                        if (!found) {
-                            System.err.println("No function named '" + targetFunctionName + "' found.");
-                            System.exit(1);
+                        // Only replace the archive once every file made it in.
+                        if (failures == 0) {
+                            sink.commit();
+                        } else {
+                            errors.println("Archive at '" + sink.getFile() + "' left unchanged.");
                         }
                     }
-                    break;
-                case GET_ARITY:
-
-                    // For each target function to transpile.
-                    String[] arityTargetFunctionNames = parsedArgs.getTargetFunctions();
-                    for (String targetFunctionName : arityTargetFunctionNames) {
-
-                        // Find and print function arity.
-                        boolean found = false;
-                        for (Function function : program.getFunctions()) {
-                            if (targetFunctionName.equals(function.getIdentifier())) {
-                                System.out.println(function.getArguments().length);
-                                found = true;
-                                break;
-                            }
-                        }
+                } else {
+                    try (OutputSink sink = new StreamOutputSink(output)) {
+                        failures = batchTranspiler.run(sources, sink, errors);
+                    }
+                }
+                closeCache(job, parsedArgs, errors);
+                reportStats(job, errors);
+                if (failures > 0) {
+                    errors.println(failures + " of " + sources.size() + " files failed.");
+                    return 1;
+                }
+            }
+        } catch (IOException e) {
+            errors.println(e.getMessage());
+            return 1;
+        } catch (ArgumentsException e) {
+            errors.println(e.getMessage());
+            return 1;
+        }
+        return 0;
+    }
 
-                        // Function not found.
-                        if (!found) {
-                            System.err.println("No function named '" + targetFunctionName + "' found.");
-                            System.exit(1);
-                        }
+    /**
+     * Transpiles source files, then keeps running and transpiles them again as they change.
+     *
+     * @param parsedArgs    the parsed arguments
+     * @param errors        the stream to report rebuilds and errors to
+     * @return              the exit status, non-zero if the source files could not be watched
+     */
+    private static int runWatch(Arguments parsedArgs, PrintStream errors) {
+        try {
+            if (parsedArgs.isBatch()) {
+                Files.createDirectories(Paths.get(parsedArgs.getOutputDirectory()));
+            }
+            try (TranspilationJob job = new TranspilationJob(parsedArgs)) {
+                new SourceWatcher(job, parsedArgs).watch(errors);
+            }
+        } catch (IOException e) {
+            errors.println("Could not watch source files: " + e.getMessage());
+            return 1;
+        } catch (ArgumentsException e) {
+            errors.println(e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Stopped.
+        }
+        return 0;
+    }
+
+    /**
+     * Runs the application with a set of parsed arguments.
+     *
+     * @param parsedArgs    the parsed arguments
+     * @param output        the writer to write results to
+     * @param errors        the stream to report errors to
+     * @return              the exit status, non-zero on failure
+     */
+    static int run(Arguments parsedArgs, Writer output, PrintStream errors) {
+
+        // Watch mode keeps running, reporting errors per file as it goes.
+        if (parsedArgs.isWatch()) {
+            if (parsedArgs.isBatch() ? parsedArgs.getSourceFiles() == null : parsedArgs.getSourceFile() == null) {
+                errors.println(parsedArgs.isBatch() ? "No file paths specified." : "No file path specified.");
+                return 1;
+            }
+            return runWatch(parsedArgs, errors);
+        }
+
+        // Writing to a sink deals with its own errors per file.
+        if (isSinkOutput(parsedArgs)) {
+            if (parsedArgs.isBatch() ? parsedArgs.getSourceFiles() == null : parsedArgs.getSourceFile() == null) {
+                errors.println(parsedArgs.isBatch() ? "No file paths specified." : "No file path specified.");
+                return 1;
+            }
+            return runSink(parsedArgs, output, errors);
+        }
+
+        // Batch mode deals with its own errors per file.
+        if (parsedArgs.isBatch()) {
+            if (parsedArgs.getSourceFiles() == null) {
+                errors.println("No file paths specified.");
+                return 1;
+            }
+            return runBatch(parsedArgs, output, errors);
+        }
+
+        // If no file passed.
+        if (parsedArgs.getSourceFile() == null) {
+            errors.println("No file path specified.");
+            return 1;
+        }
+
+        // Deal with source file.
+        try {
+            // Run the pipeline in the requested mode, compiling straight to a class file or jar if asked to.
+            try (TranspilationJob job = new TranspilationJob(parsedArgs)) {
+                if (parsedArgs.getMode() == Mode.EXECUTE) {
+                    try {
+                        job.execute(Paths.get(parsedArgs.getSourceFile()), output);
+                    } finally {
+                        output.flush();
+                    }
+                } else if (parsedArgs.getOutputFile() != null &&
+                        parsedArgs.getTargetLanguage() == TargetLanguage.BYTECODE &&
+                        parsedArgs.getMode() == Mode.DEFAULT) {
+                    job.compile(Paths.get(parsedArgs.getSourceFile()), Paths.get(parsedArgs.getOutputFile()));
+                } else if (parsedArgs.getOutputFile() != null) {
+                    try (Writer fileOutput = Files.newBufferedWriter(Paths.get(parsedArgs.getOutputFile()),
+                            StandardCharsets.UTF_8)) {
+                        job.run(Paths.get(parsedArgs.getSourceFile()), fileOutput);
+                    }
+                } else {
+                    try {
+                        job.run(Paths.get(parsedArgs.getSourceFile()), output);
+                    } finally {
+                        output.flush();
                     }
-                    break;
-                default:
-                    break;
+                }
+                closeCache(job, parsedArgs, errors);
+                reportStats(job, errors);
             }
+        } catch (FileSystemException e) {
+            // Name the file that failed, which may be the output file rather than the source file.
+            errors.println("Could not open file at '" + (e.getFile() == null ? parsedArgs.getSourceFile() : e.getFile())
+                    + "'" + (e.getReason() == null ? "" : ": " + e.getReason()));
+            return 1;
         } catch (IOException e) {
-            System.err.println("Could not open file at '" + parsedArgs.getSourceFile() + "'");
-            System.exit(1);
+            errors.println("Could not transpile file at '" + parsedArgs.getSourceFile() + "': " + e.getMessage());
+            return 1;
+        } catch (BytecodeException e) {
+            errors.println(e.getMessage());
+            return 1;
+        } catch (CompilationException e) {
+            errors.println(e.getMessage());
+            return 1;
+        } catch (ArgumentsException e) {
+            errors.println(e.getMessage());
+            return 1;
+        } catch (InvocationTargetException e) {
+            errors.println("The function threw " + e.getCause());
+            return 1;
         } catch (TokenizationException e) {
-            System.err.println(e.getMessage());
-            System.exit(1);
+            errors.println(e.getMessage());
+            return 1;
         } catch (ParseException e) {
+            errors.println(e.getMessage());
+            return 1;
+        } catch (FunctionNotFoundException e) {
+            errors.println(e.getMessage());
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Forwards a command line to a running daemon in place of running it here.
+     *
+     * @param args  the input argument array, which includes the --connect option
+     * @return      the exit status
+     */
+    private static int connect(String[] args) {
+
+        // Forward everything except the --connect option itself.
+        int port;
+        List<String> forwarded = new ArrayList<>();
+        try {
+            port = getIntegerArgumentValue(args, "--connect");
+        } catch (ArgumentsException e) {
+            System.err.println(e.getMessage());
+            return 1;
+        }
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--connect")) {
+                i++; // Skip over port.
+            } else {
+                forwarded.add(args[i]);
+            }
+        }
+
+        // Relay output from daemon.
+        try {
+            return TranspilerClient.forward(port, forwarded.toArray(new String[0]), System.out, System.err);
+        } catch (IOException e) {
+            System.err.println("Could not reach daemon on port " + port + ": " +
+                    (e.getMessage() == null ? e : e.getMessage()));
+            return 1;
+        }
+    }
+
+    public static void main(String[] args) {
+
+        // Hand off to a running daemon if asked to, without parsing anything.
+        if (Arrays.asList(args).contains("--connect")) {
+            int status = connect(args);
+            if (status != 0) {
+                System.exit(status);
+            }
+            return;
+        }
+
+        // If no arguments passed.
+        Arguments parsedArgs;
+        try {
+            parsedArgs = parseArguments(args);
+        } catch (ArgumentsException e) {
             System.err.println(e.getMessage());
             System.exit(1);
+            return;
+        }
+
+        // Stay running as a daemon if asked to.
+        if (parsedArgs.getServePort() >= 0) {
+            try {
+                new TranspilerServer(parsedArgs.getServePort(), parsedArgs.getIdleTimeout() * 1000L)
+                        .serve(System.err);
+            } catch (IOException e) {
+                System.err.println("Could not serve on port " + parsedArgs.getServePort() + ": " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+
+        // Run and exit with the resulting status.
+        int status = run(parsedArgs, openStandardOutput(), System.err);
+        if (status != 0) {
+            System.exit(status);
         }
     }
 }
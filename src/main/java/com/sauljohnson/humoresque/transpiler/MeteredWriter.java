@@ -0,0 +1,188 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Represents a writer that measures the time and allocation spent in the pretty printer it wraps, recording them to a
+ * set of statistics when closed along with how many characters went in and came out.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class MeteredWriter extends Writer {
+
+    private final Writer writer;
+
+    private final Counter counter;
+
+    private final PipelineStats stats;
+
+    private long nanos;
+
+    private long allocatedBytes;
+
+    private long characters;
+
+    private long startNanos;
+
+    private long startBytes;
+
+    /**
+     * Represents an output that counts the characters appended to it.
+     */
+    private static final class Counter implements Appendable, Flushable {
+
+        private final Appendable output;
+
+        private long characters;
+
+        private Counter(Appendable output) {
+            this.output = output;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) throws IOException {
+            characters += csq == null ? 4 : csq.length();
+            output.append(csq);
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) throws IOException {
+            characters += end - start;
+            output.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) throws IOException {
+            characters++;
+            output.append(c);
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (output instanceof Flushable) {
+                ((Flushable) output).flush();
+            }
+        }
+    }
+
+    private MeteredWriter(Writer writer, Counter counter, PipelineStats stats) {
+        this.writer = writer;
+        this.counter = counter;
+        this.stats = stats;
+    }
+
+    /**
+     * Creates a pretty printing writer that is measured as it is used.
+     *
+     * @param prettyPrinter the pretty printer to create the writer with
+     * @param output        the output to write formatted source code to
+     * @param stats         the statistics to record measurements to
+     * @return              the writer
+     */
+    static Writer create(PrettyPrinter prettyPrinter, Appendable output, PipelineStats stats) {
+        Counter counter = new Counter(output);
+        return new MeteredWriter(prettyPrinter.createWriter(counter), counter, stats);
+    }
+
+    /**
+     * Starts measuring a call into the wrapped writer.
+     */
+    private void begin() {
+        startBytes = PipelineStats.getAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Stops measuring a call into the wrapped writer.
+     */
+    private void end() {
+        nanos += System.nanoTime() - startNanos;
+        allocatedBytes += PipelineStats.getAllocatedBytes() - startBytes;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void write(int c) throws IOException {
+        begin();
+        writer.write(c);
+        end();
+        characters++;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+        begin();
+        writer.write(buffer, offset, length);
+        end();
+        characters += length;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void write(String str, int offset, int length) throws IOException {
+        begin();
+        writer.write(str, offset, length);
+        end();
+        characters += length;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        begin();
+        writer.append(csq);
+        end();
+        characters += csq == null ? 4 : csq.length();
+        return this;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        begin();
+        writer.append(csq, start, end);
+        end();
+        characters += end - start;
+        return this;
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Closes the wrapped writer and records measurements.
+     *
+     * @throws IOException  if the underlying output cannot be written to
+     */
+    @Override
+    public void close() throws IOException {
+        begin();
+        writer.close();
+        end();
+        stats.add(Phase.PRETTY_PRINT, nanos, startBytes < 0 ? -1 : allocatedBytes);
+        stats.count(Phase.PRETTY_PRINT, "characters", counter.characters);
+        stats.count(Phase.EMIT, "characters", characters);
+    }
+}
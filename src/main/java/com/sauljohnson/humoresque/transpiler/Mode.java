@@ -11,4 +11,5 @@ public enum Mode {
     ENUMERATE_FUNCTIONS,
     EMIT_FUNCTIONS,
     GET_ARITY,
+    EXECUTE,
 }
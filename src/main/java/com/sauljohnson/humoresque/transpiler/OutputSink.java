@@ -0,0 +1,26 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Represents a destination that transpiled files are written to, such as standard output, a directory or an archive.
+ *
+ * Files are named by paths relative to the sink, with components separated by forward slashes whatever the platform.
+ * A sink is written to from one thread at a time, and must be closed once every file has been written to it.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public interface OutputSink extends Closeable {
+
+    /**
+     * Writes a file to the sink.
+     *
+     * @param path          the path of the file relative to the sink, such as "math/Max.java"
+     * @param content       the content of the file
+     * @throws IOException  if the file cannot be written
+     */
+    void write(String path, CharSequence content) throws IOException;
+}
@@ -0,0 +1,37 @@
+package com.sauljohnson.humoresque.transpiler;
+
+/**
+ * Represents a phase of the transpiler pipeline.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+public enum Phase {
+    READ("read"),
+    TOKENIZE("tokenize"),
+    FILTER("filter"),
+    PARSE("parse"),
+    EMIT("emit"),
+    PRETTY_PRINT("prettyPrint"),
+    COMPILE("compile");
+
+    private final String label;
+
+    /**
+     * Initialises a new phase of the transpiler pipeline.
+     *
+     * @param label the name the phase is reported under
+     */
+    Phase(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Gets the name the phase is reported under.
+     *
+     * @return  the name
+     */
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,27 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import jdk.jfr.*;
+
+/**
+ * Represents a Flight Recorder event recording a single phase of the transpiler pipeline run over one source.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@Name("com.sauljohnson.humoresque.Phase")
+@Label("Transpiler Phase")
+@Category("Humoresque")
+@Description("A single phase of the transpiler pipeline run over one source")
+@StackTrace(false)
+class PhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Source")
+    String source;
+
+    @Label("Items")
+    @Description("The number of items the phase produced, such as tokens for tokenization or characters for reading")
+    long items;
+}
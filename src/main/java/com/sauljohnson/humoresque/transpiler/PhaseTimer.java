@@ -0,0 +1,76 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Represents a timer over a single run of a phase of the transpiler pipeline. Each run is recorded as a Flight Recorder
+ * event, and added to a set of statistics if there is one.
+ *
+ * Events are only created once Flight Recorder has been started. Creating the first event otherwise starts up much of
+ * Flight Recorder's machinery, which can take longer than a short run of the whole transpiler.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class PhaseTimer {
+
+    private final Phase phase;
+
+    private final String source;
+
+    private final PipelineStats stats;
+
+    private final PhaseEvent event;
+
+    private final long startNanos;
+
+    private final long startBytes;
+
+    private PhaseTimer(Phase phase, String source, PipelineStats stats) {
+        this.phase = phase;
+        this.source = source;
+        this.stats = stats;
+        event = FlightRecorder.isInitialized() ? new PhaseEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        startBytes = stats == null ? -1 : PipelineStats.getAllocatedBytes();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts timing a run of a phase.
+     *
+     * @param phase     the phase
+     * @param source    the name of the source the phase is being run over, or null if it has none
+     * @param stats     the statistics to add the run to, or null to only record a Flight Recorder event
+     * @return          the timer
+     */
+    static PhaseTimer start(Phase phase, String source, PipelineStats stats) {
+        return new PhaseTimer(phase, source, stats);
+    }
+
+    /**
+     * Stops timing the run of the phase, recording the number of items it produced.
+     *
+     * @param item  the kind of item the phase produced, such as "tokens"
+     * @param count the number of items the phase produced
+     */
+    void stop(String item, long count) {
+        long nanos = System.nanoTime() - startNanos;
+        if (stats != null) {
+            stats.add(phase, nanos, startBytes < 0 ? -1 : PipelineStats.getAllocatedBytes() - startBytes);
+            stats.count(phase, item, count);
+        }
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.getLabel();
+            event.source = source;
+            event.items = count;
+            event.commit();
+        }
+    }
+}
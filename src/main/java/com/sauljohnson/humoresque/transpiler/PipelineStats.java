@@ -0,0 +1,159 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Represents wall time, allocation and item counts accumulated for each phase of the transpiler pipeline.
+ *
+ * Allocation is measured for the thread running each phase, so work handed off to other threads (such as parallel
+ * emission) is timed but its allocation is not counted. Pretty printing happens while emitting, so its time and
+ * allocation are taken out of those of emission. Statistics may be accumulated from many threads at once.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class PipelineStats {
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    private final long[] runs;
+
+    private final long[] nanos;
+
+    private final long[] allocatedBytes;
+
+    private final Map<Phase, Map<String, Long>> counts;
+
+    /**
+     * Initialises a new instance of a set of statistics for each phase of the transpiler pipeline.
+     */
+    public PipelineStats() {
+        int phases = Phase.values().length;
+        runs = new long[phases];
+        nanos = new long[phases];
+        allocatedBytes = new long[phases];
+        counts = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            counts.put(phase, new LinkedHashMap<>());
+        }
+    }
+
+    /**
+     * Gets the number of bytes allocated by the current thread so far.
+     *
+     * @return  the number of bytes, or -1 if the platform cannot measure this
+     */
+    public static long getAllocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a single run of a phase.
+     *
+     * @param phase             the phase
+     * @param nanos             the wall time the phase took, in nanoseconds
+     * @param allocatedBytes    the number of bytes allocated during the phase, or -1 if not measured
+     */
+    public synchronized void add(Phase phase, long nanos, long allocatedBytes) {
+        runs[phase.ordinal()]++;
+        this.nanos[phase.ordinal()] += nanos;
+        this.allocatedBytes[phase.ordinal()] += Math.max(0, allocatedBytes);
+        if (phase == Phase.PRETTY_PRINT) {
+            this.nanos[Phase.EMIT.ordinal()] -= nanos; // Pretty printing only ever happens during emission.
+            this.allocatedBytes[Phase.EMIT.ordinal()] -= Math.max(0, allocatedBytes);
+        }
+    }
+
+    /**
+     * Adds to the number of items of some kind a phase has produced.
+     *
+     * @param phase the phase
+     * @param item  the kind of item, such as "tokens"
+     * @param count the number of items to add
+     */
+    public synchronized void count(Phase phase, String item, long count) {
+        counts.get(phase).merge(item, count, Long::sum);
+    }
+
+    /**
+     * Gets the number of times a phase has run.
+     *
+     * @param phase the phase
+     * @return      the number of runs
+     */
+    public synchronized long getRuns(Phase phase) {
+        return runs[phase.ordinal()];
+    }
+
+    /**
+     * Gets the total wall time spent in a phase.
+     *
+     * @param phase the phase
+     * @return      the wall time, in nanoseconds
+     */
+    public synchronized long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * Gets the total number of bytes allocated during a phase.
+     *
+     * @param phase the phase
+     * @return      the number of bytes
+     */
+    public synchronized long getAllocatedBytes(Phase phase) {
+        return allocatedBytes[phase.ordinal()];
+    }
+
+    /**
+     * Gets the number of items of some kind a phase has produced.
+     *
+     * @param phase the phase
+     * @param item  the kind of item, such as "tokens"
+     * @return      the number of items
+     */
+    public synchronized long getCount(Phase phase, String item) {
+        return counts.get(phase).getOrDefault(item, 0L);
+    }
+
+    /**
+     * Writes the statistics out as a JSON object, with one member per phase in pipeline order.
+     *
+     * @return  the JSON object
+     */
+    public synchronized String toJson() {
+        boolean allocationMeasured = getAllocatedBytes() >= 0;
+        StringBuilder sb = new StringBuilder("{\"phases\":{");
+        for (Phase phase : Phase.values()) {
+            if (phase.ordinal() > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(phase.getLabel()).append("\":{")
+                    .append("\"runs\":").append(runs[phase.ordinal()])
+                    .append(",\"wallNanos\":").append(nanos[phase.ordinal()])
+                    .append(",\"allocatedBytes\":").append(allocationMeasured ? allocatedBytes[phase.ordinal()] : -1)
+                    .append(",\"items\":{");
+            boolean first = true;
+            for (Map.Entry<String, Long> count : counts.get(phase).entrySet()) {
+                if (!first) {
+                    sb.append(',');
+                }
+                sb.append('"').append(count.getKey()).append("\":").append(count.getValue()); // Keys never need escaping.
+                first = false;
+            }
+            sb.append("}}");
+        }
+        return sb.append("}}").toString();
+    }
+}
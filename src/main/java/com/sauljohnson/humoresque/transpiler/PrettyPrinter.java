@@ -1,5 +1,8 @@
 package com.sauljohnson.humoresque.transpiler;
 
+import java.io.IOException;
+import java.io.Writer;
+
 /**
  * Represents a code pretty printing service.
  *
@@ -15,4 +18,22 @@ public interface PrettyPrinter {
      * @return      the formatted source code
      */
     String prettyPrint(String code);
+
+    /**
+     * Formats source code, writing the result to an output as it is produced.
+     *
+     * @param code          the source code to format
+     * @param output        the output to write the formatted source code to
+     * @throws IOException  if the output cannot be written to
+     */
+    void prettyPrint(CharSequence code, Appendable output) throws IOException;
+
+    /**
+     * Creates a writer that formats source code written to it, writing the result to an output as it is produced.
+     * Closing the writer completes formatting but leaves the output open.
+     *
+     * @param output    the output to write the formatted source code to
+     * @return          the writer
+     */
+    Writer createWriter(Appendable output);
 }
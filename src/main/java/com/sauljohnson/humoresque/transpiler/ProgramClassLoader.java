@@ -0,0 +1,31 @@
+package com.sauljohnson.humoresque.transpiler;
+
+/**
+ * Represents a class loader that defines classes compiled from HAHA programs, kept apart from every other loader so
+ * that the classes can be unloaded once nothing refers to them.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class ProgramClassLoader extends ClassLoader {
+
+    /**
+     * Initialises a new instance of a class loader for classes compiled from HAHA programs.
+     *
+     * @param parent    the class loader to delegate to
+     */
+    ProgramClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    /**
+     * Defines a class from its class file.
+     *
+     * @param name      the binary name of the class
+     * @param classFile the class file
+     * @return          the class
+     */
+    Class<?> define(String name, byte[] classFile) {
+        return defineClass(name, classFile, 0, classFile.length);
+    }
+}
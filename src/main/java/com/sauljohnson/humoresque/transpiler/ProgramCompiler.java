@@ -0,0 +1,369 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.model.Function;
+import com.sauljohnson.humoresque.parser.model.Program;
+
+import javax.lang.model.SourceVersion;
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a compiler that turns programs into loaded classes within the running JVM, by transpiling them to Java
+ * and compiling the result in memory with the Java compiler.
+ *
+ * Each function becomes a public static method of a single class, loaded in a class loader of its own so that it can
+ * be unloaded once nothing refers to it. Compiled programs are cached in memory by a hash of their Java source, so
+ * compiling the same program again costs nothing, and class files are also kept in a persistent cache if given one,
+ * so that later runs need not compile it either. Compiled programs may be shared between threads, but concurrent
+ * compilation of the same program may compile it more than once.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class ProgramCompiler {
+
+    /**
+     * The default name of the class programs are compiled to.
+     */
+    public static final String DEFAULT_CLASS_NAME = "Program";
+
+    /**
+     * The default number of compiled programs to keep in memory.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * The string that distinguishes cached class files from cached Java functions, and class files compiled by one
+     * version of the Java compiler from those compiled by another.
+     */
+    private static final String CACHE_SALT = "class/" + JavaTranspiler.OUTPUT_VERSION + "/" +
+            Runtime.version().feature();
+
+    /**
+     * The options passed to the Java compiler. There is nothing to process or compile besides the program itself.
+     */
+    private static final List<String> OPTIONS = Arrays.asList("-proc:none", "-implicit:none", "-nowarn");
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final ClassLoader parent;
+
+    private final Map<String, CompiledProgram> compiled;
+
+    private final AtomicLong compilations;
+
+    private String className;
+
+    private boolean optimize;
+
+    private boolean contracts;
+
+    private IntegerMode integerMode;
+
+    private FunctionCache cache;
+
+    private StandardJavaFileManager fileManager;
+
+    /**
+     * Initialises a new instance of a compiler that turns programs into loaded classes.
+     *
+     * @param parent    the class loader for compiled classes to delegate to
+     * @param capacity  the number of compiled programs to keep in memory
+     */
+    public ProgramCompiler(ClassLoader parent, int capacity) {
+        this.parent = parent;
+        compiled = new LinkedHashMap<String, CompiledProgram>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledProgram> eldest) {
+                return size() > capacity;
+            }
+        };
+        compilations = new AtomicLong();
+        className = DEFAULT_CLASS_NAME;
+        integerMode = IntegerMode.FIXED;
+    }
+
+    /**
+     * Initialises a new instance of a compiler that turns programs into loaded classes, delegating to the loader of
+     * this class and keeping the default number of compiled programs in memory.
+     */
+    public ProgramCompiler() {
+        this(ProgramCompiler.class.getClassLoader(), DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Gets the name of the class programs are compiled to.
+     *
+     * @return  the name of the class
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Sets the name of the class programs are compiled to. A qualified name puts the class in the package it names.
+     *
+     * @param className                 the simple or fully qualified name of the class
+     * @throws IllegalArgumentException if the name is not a valid Java class name
+     */
+    public void setClassName(String className) {
+        if (!SourceVersion.isName(className)) {
+            throw new IllegalArgumentException("'" + className + "' is not a valid Java class name.");
+        }
+        this.className = className;
+    }
+
+    /**
+     * Gets whether or not function bodies are optimized before being compiled.
+     *
+     * @return  true if function bodies are optimized, otherwise false
+     */
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    /**
+     * Sets whether or not function bodies are optimized before being compiled.
+     *
+     * @param optimize  true to optimize function bodies, otherwise false
+     */
+    public void setOptimize(boolean optimize) {
+        this.optimize = optimize;
+    }
+
+    /**
+     * Gets whether or not annotations are compiled to assertions.
+     *
+     * @return  true if annotations are compiled to assertions, otherwise false
+     */
+    public boolean isContracts() {
+        return contracts;
+    }
+
+    /**
+     * Sets whether or not annotations are compiled to assertions.
+     *
+     * @param contracts true to compile annotations to assertions, otherwise false
+     */
+    public void setContracts(boolean contracts) {
+        this.contracts = contracts;
+    }
+
+    /**
+     * Gets the way the Java types that integers are compiled to are chosen.
+     *
+     * @return  the way integer types are chosen
+     */
+    public IntegerMode getIntegerMode() {
+        return integerMode;
+    }
+
+    /**
+     * Sets the way the Java types that integers are compiled to are chosen.
+     *
+     * @param integerMode   the way integer types are chosen
+     */
+    public void setIntegerMode(IntegerMode integerMode) {
+        this.integerMode = integerMode;
+    }
+
+    /**
+     * Gets the persistent cache that transpiled functions and class files are looked up in and stored to.
+     *
+     * @return  the cache, or null if there is none
+     */
+    public FunctionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Sets the persistent cache that transpiled functions and class files are looked up in and stored to.
+     *
+     * @param cache the cache, or null for none
+     */
+    public void setCache(FunctionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Gets the number of times the Java compiler has been run, which does not count programs found in a cache.
+     *
+     * @return  the number of compilations
+     */
+    public long getCompilations() {
+        return compilations.get();
+    }
+
+    /**
+     * Compiles a program and loads the resulting class, or returns the program already compiled from the same Java
+     * source.
+     *
+     * @param program                   the program to compile
+     * @return                          the compiled program
+     * @throws CompilationException     if the Java compiler is unavailable or rejects the transpiled program
+     */
+    public CompiledProgram compile(Program program) throws CompilationException {
+
+        // Transpile each function to a public static method of a single class.
+        JavaTranspiler transpiler = new JavaTranspiler();
+        transpiler.setCache(cache);
+        transpiler.setOptimize(optimize);
+        transpiler.setContracts(contracts);
+        transpiler.setIntegerMode(integerMode);
+        StringBuilder sb = new StringBuilder();
+        int dot = className.lastIndexOf('.');
+        if (dot >= 0) {
+            sb.append("package ").append(className, 0, dot).append(";\n");
+        }
+        sb.append("public final class ").append(className.substring(dot + 1)).append(" {\n");
+        for (Function function : program.getFunctions()) {
+            sb.append("public static ").append(transpiler.transpileFunction(function)).append('\n');
+        }
+        String source = sb.append("}\n").toString();
+
+        // Look in memory first.
+        String key = hash(source);
+        synchronized (compiled) {
+            CompiledProgram compiledProgram = compiled.get(key);
+            if (compiledProgram != null) {
+                return compiledProgram;
+            }
+        }
+
+        // Then look in the persistent cache, and only compile if that fails too.
+        byte[] classFile = null;
+        String cached = cache == null ? null : cache.get(key);
+        if (cached != null) {
+            try {
+                classFile = Base64.getDecoder().decode(cached);
+            } catch (IllegalArgumentException e) {
+                // Treat corrupt entries as misses.
+            }
+        }
+        if (classFile == null) {
+            classFile = compile(source);
+            if (cache != null) {
+                cache.put(key, Base64.getEncoder().encodeToString(classFile));
+            }
+        }
+
+        // Load into a class loader of its own.
+        CompiledProgram compiledProgram = CompiledProgram.of(new ProgramClassLoader(parent).define(className,
+                classFile));
+        synchronized (compiled) {
+            compiled.put(key, compiledProgram);
+        }
+        return compiledProgram;
+    }
+
+    /**
+     * Discards every compiled program kept in memory, leaving the persistent cache untouched.
+     */
+    public void clear() {
+        synchronized (compiled) {
+            compiled.clear();
+        }
+    }
+
+    /**
+     * Computes the content hash of a class's Java source.
+     *
+     * @param source    the Java source
+     * @return          the hash, as a lowercase hexadecimal string
+     */
+    private static String hash(String source) {
+        byte[] hash;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(CACHE_SALT.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            hash = digest.digest(source.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every Java platform is required to support SHA-256.
+        }
+
+        // Render hash as hex.
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * Compiles a class's Java source in memory with the Java compiler.
+     *
+     * @param source                    the Java source
+     * @return                          the class file
+     * @throws CompilationException     if the Java compiler is unavailable or rejects the source
+     */
+    private byte[] compile(String source) throws CompilationException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new CompilationException("No Java compiler is available. Run on a JDK rather than a JRE.");
+        }
+
+        // Read source from memory and write class files back to it.
+        String name = className;
+        JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') +
+                JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        Map<String, ByteArrayOutputStream> classFiles = new HashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        boolean success;
+        synchronized (this) {
+
+            // The standard file manager is expensive to create and not thread-safe, so share one between runs.
+            if (fileManager == null) {
+                fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+            }
+            JavaFileManager memoryFileManager = new ForwardingJavaFileManager<JavaFileManager>(fileManager) {
+                @Override
+                public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                           JavaFileObject.Kind kind, FileObject sibling) {
+                    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                    classFiles.put(className, stream);
+                    return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') +
+                            kind.extension), kind) {
+                        @Override
+                        public OutputStream openOutputStream() {
+                            return stream;
+                        }
+                    };
+                }
+            };
+            success = compiler.getTask(null, memoryFileManager, diagnostics, OPTIONS, null,
+                    Collections.singletonList(sourceFile)).call();
+            compilations.incrementAndGet();
+        }
+
+        // Report the first error, if there was one.
+        if (!success) {
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                    throw new CompilationException("Could not compile program: line " + diagnostic.getLineNumber() +
+                            ": " + diagnostic.getMessage(Locale.ROOT));
+                }
+            }
+            throw new CompilationException("Could not compile program.");
+        }
+        ByteArrayOutputStream classFile = classFiles.get(name);
+        if (classFile == null) {
+            throw new CompilationException("Could not compile program: no class named '" + name + "' was produced.");
+        }
+        return classFile.toByteArray();
+    }
+}
@@ -0,0 +1,445 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.model.Function;
+import com.sauljohnson.humoresque.parser.model.Program;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Represents a compact binary snapshot of a parsed HAHA source file, kept in a sidecar file next to it, from which
+ * later runs can answer questions about the program without tokenizing or parsing it again.
+ *
+ * For each function, the snapshot records its name and arity, where it lies in the source, and its header and body
+ * as the sequence of identifiers, types, statement kinds and token types and text that its fingerprint is computed
+ * from. Every string is stored once in a string table and referred to by index. From a snapshot, functions can be
+ * listed, their arities found and their fingerprints computed for any salt, so that output already in the cache can
+ * be reused, all without the parser. Functions that are not in the cache are sliced out of the source and parsed
+ * alone. A snapshot is only ever written from a successful parse of the whole source, and it records the size,
+ * modification time and content hash of that source, so it is never used once the source has changed.
+ *
+ * A snapshot is read with a single mapped read, and strings are decoded from the mapped file only as they are needed.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class ProgramSnapshot {
+
+    /**
+     * The extension appended to a source file name to give its snapshot file name.
+     */
+    public static final String SNAPSHOT_EXTENSION = ".hsnap";
+
+    /**
+     * Identifies snapshot files.
+     */
+    private static final int MAGIC = 0x48534e50; // "HSNP".
+
+    /**
+     * The version of the snapshot file format, changed whenever the format or the fingerprint changes.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The offset of the modification time of the source within a snapshot file.
+     */
+    private static final int MODIFIED_OFFSET = 16;
+
+    private final Path sourceFile;
+
+    private final ByteBuffer snapshot;
+
+    private final int[] stringOffsets;
+
+    private final String[] strings;
+
+    private final Map<String, Entry> entries;
+
+    private final List<Entry> functions;
+
+    /**
+     * Represents a single function recorded in a snapshot.
+     */
+    public static final class Entry {
+
+        private final String identifier;
+
+        private final int arity;
+
+        private final int offset;
+
+        private final int length;
+
+        private final int values;
+
+        private final int valueCount;
+
+        private Entry(String identifier, int arity, int offset, int length, int values, int valueCount) {
+            this.identifier = identifier;
+            this.arity = arity;
+            this.offset = offset;
+            this.length = length;
+            this.values = values;
+            this.valueCount = valueCount;
+        }
+
+        /**
+         * Gets the name of the function.
+         *
+         * @return  the name of the function
+         */
+        public String getIdentifier() {
+            return identifier;
+        }
+
+        /**
+         * Gets the number of arguments the function takes.
+         *
+         * @return  the number of arguments the function takes
+         */
+        public int getArity() {
+            return arity;
+        }
+
+        /**
+         * Gets the offset of the function within the source file, in bytes.
+         *
+         * @return  the offset of the function within the source file, or -1 if it could not be found
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Gets the length of the function within the source file, in bytes.
+         *
+         * @return  the length of the function within the source file, or -1 if it could not be found
+         */
+        public int getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * Initialises a new instance of a snapshot of a parsed HAHA source file from a mapped snapshot file.
+     *
+     * @param sourceFile    the path of the source file
+     * @param snapshot      the contents of the snapshot file, positioned at its string table
+     */
+    private ProgramSnapshot(Path sourceFile, ByteBuffer snapshot) {
+        this.sourceFile = sourceFile;
+        this.snapshot = snapshot;
+
+        // Note where each string starts, without decoding any.
+        stringOffsets = new int[snapshot.getInt()];
+        for (int i = 0; i < stringOffsets.length; i++) {
+            stringOffsets[i] = snapshot.position();
+            snapshot.position(snapshot.position() + 4 + snapshot.getInt(snapshot.position()));
+        }
+        strings = new String[stringOffsets.length];
+
+        // Read the function table, skipping over the strings recorded for each.
+        functions = new ArrayList<>();
+        entries = new HashMap<>();
+        int functionCount = snapshot.getInt();
+        for (int i = 0; i < functionCount; i++) {
+            String identifier = getString(snapshot.getInt());
+            int arity = snapshot.getInt();
+            int offset = snapshot.getInt();
+            int length = snapshot.getInt();
+            int valueCount = snapshot.getInt();
+            Entry entry = new Entry(identifier, arity, offset, length, snapshot.position(), valueCount);
+            snapshot.position(snapshot.position() + valueCount * 4);
+            functions.add(entry);
+            entries.putIfAbsent(identifier, entry); // First definition wins, as with a full parse.
+        }
+    }
+
+    /**
+     * Gets the path of the snapshot file for a source file.
+     *
+     * @param sourceFile    the path of the source file
+     * @return              the path of the snapshot file
+     */
+    public static Path getSnapshotPath(Path sourceFile) {
+        return sourceFile.resolveSibling(sourceFile.getFileName() + SNAPSHOT_EXTENSION);
+    }
+
+    /**
+     * Decodes a string from the string table, or gets it if it has been decoded already.
+     *
+     * @param index the index of the string in the string table, or -1 for null
+     * @return      the string
+     */
+    private String getString(int index) {
+        if (index < 0) {
+            return null;
+        }
+        String string = strings[index];
+        if (string == null) {
+            ByteBuffer bytes = snapshot.duplicate();
+            int offset = stringOffsets[index];
+            bytes.position(offset + 4).limit(offset + 4 + snapshot.getInt(offset));
+            string = StandardCharsets.UTF_8.decode(bytes).toString();
+            strings[index] = string;
+        }
+        return string;
+    }
+
+    /**
+     * Maps a file into memory.
+     *
+     * @param file          the path of the file
+     * @return              the contents of the file, or null if it is too large to map in one go
+     * @throws IOException  if the file cannot be read
+     */
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Loads the snapshot for a source file, if there is one and the source file has not changed since it was taken.
+     * If only the modification time of the source file has changed, its content hash is checked instead, and the
+     * snapshot is brought up to date if the content is the same.
+     *
+     * @param sourceFile    the path of the source file
+     * @return              the snapshot, or null if there is none or it is out of date
+     * @throws IOException  if the source file cannot be read
+     */
+    public static ProgramSnapshot load(Path sourceFile) throws IOException {
+        long size = Files.size(sourceFile);
+        long modified = Files.getLastModifiedTime(sourceFile).toMillis();
+        Path snapshotFile = getSnapshotPath(sourceFile);
+        ByteBuffer snapshot;
+        try {
+            snapshot = map(snapshotFile);
+            if (snapshot == null || snapshot.getInt() != MAGIC || snapshot.getInt() != VERSION ||
+                    snapshot.getLong() != size) {
+                return null;
+            }
+            boolean touched = snapshot.getLong() != modified;
+            byte[] snapshotHash = new byte[snapshot.getInt()];
+            snapshot.get(snapshotHash);
+            if (touched) {
+                ByteBuffer source = map(sourceFile);
+                if (source == null || !Arrays.equals(snapshotHash, FunctionIndex.hash(source))) {
+                    return null; // Touched and changed.
+                }
+
+                // Record the new modification time, so that the source is not hashed again next time. Failing to is
+                // not an error, since the snapshot is still good.
+                byte[] updated = new byte[snapshot.capacity()];
+                snapshot.duplicate().clear().get(updated);
+                ByteBuffer.wrap(updated).putLong(MODIFIED_OFFSET, modified);
+                try {
+                    replace(snapshotFile, updated);
+                } catch (NoSuchFileException e) {
+                    // Removed in the meantime, so taken again next time.
+                } catch (IOException e) {
+                    // Read only or in use, so the source is hashed again next time.
+                }
+            }
+            return new ProgramSnapshot(sourceFile, snapshot);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null; // Damaged, so take it again.
+        }
+    }
+
+    /**
+     * Takes a snapshot of a parsed HAHA source file and writes it next to the source file. The snapshot is written to
+     * a temporary file first and then moved into place, and failing to write it is not an error, since it can always
+     * be taken again.
+     *
+     * @param sourceFile    the path of the source file
+     * @param modified      the modification time of the source file as it was before it was read, in milliseconds
+     * @param source        the source code, as read
+     * @param program       the program parsed from the whole of the source code
+     */
+    public static void write(Path sourceFile, long modified, String source, Program program) {
+
+        // Size and hash the file's own bytes, as load() does, which differ from the source encoded again if the file
+        // holds malformed UTF-8. Leave the snapshot untaken if the file no longer holds the source that was parsed.
+        ByteBuffer file;
+        try {
+            file = map(sourceFile);
+        } catch (IOException e) {
+            return; // Taken again next time.
+        }
+        if (file == null || !StandardCharsets.UTF_8.decode(file.duplicate()).toString().equals(source)) {
+            return;
+        }
+        byte[] hash = FunctionIndex.hash(file);
+
+        // Find where each function lies in the source, in bytes, which can only be worked out from the source if it
+        // encodes back to the file's bytes exactly.
+        List<FunctionSignature> signatures = SignatureScanner.scan(source);
+        Map<String, int[]> ranges = new HashMap<>();
+        if (signatures != null && StandardCharsets.UTF_8.encode(source).equals(file)) {
+            int[] boundaries = new int[signatures.size() * 2];
+            for (int i = 0; i < signatures.size(); i++) {
+                boundaries[i * 2] = signatures.get(i).getOffset();
+                boundaries[i * 2 + 1] = signatures.get(i).getOffset() + signatures.get(i).getLength();
+            }
+            int[] byteBoundaries = FunctionIndex.toByteOffsets(source, boundaries);
+            for (int i = 0; i < signatures.size(); i++) {
+                ranges.putIfAbsent(signatures.get(i).getIdentifier(), new int[] {byteBoundaries[i * 2],
+                        byteBoundaries[i * 2 + 1] - byteBoundaries[i * 2]});
+            }
+        }
+
+        // Record each function, building the string table as we go.
+        Map<String, Integer> table = new LinkedHashMap<>();
+        List<int[]> records = new ArrayList<>();
+        for (Function function : program.getFunctions()) {
+            List<String> values = FunctionFingerprint.record(function);
+            int[] range = ranges.getOrDefault(function.getIdentifier(), new int[] {-1, -1});
+            int[] record = new int[5 + values.size()];
+            record[0] = intern(table, function.getIdentifier());
+            record[1] = function.getArguments().length;
+            record[2] = range[0];
+            record[3] = range[1];
+            record[4] = values.size();
+            for (int i = 0; i < values.size(); i++) {
+                record[5 + i] = intern(table, values.get(i));
+            }
+            records.add(record);
+        }
+
+        // Lay out header, string table and function table.
+        List<byte[]> encoded = new ArrayList<>(table.size());
+        int size = 28 + hash.length + 4;
+        for (String string : table.keySet()) {
+            byte[] stringBytes = string.getBytes(StandardCharsets.UTF_8);
+            encoded.add(stringBytes);
+            size += 4 + stringBytes.length;
+        }
+        size += 4;
+        for (int[] record : records) {
+            size += record.length * 4;
+        }
+        ByteBuffer snapshot = ByteBuffer.allocate(size);
+        snapshot.putInt(MAGIC).putInt(VERSION).putLong(file.remaining()).putLong(modified).putInt(hash.length)
+                .put(hash);
+        snapshot.putInt(encoded.size());
+        for (byte[] stringBytes : encoded) {
+            snapshot.putInt(stringBytes.length).put(stringBytes);
+        }
+        snapshot.putInt(records.size());
+        for (int[] record : records) {
+            for (int value : record) {
+                snapshot.putInt(value);
+            }
+        }
+        try {
+            replace(getSnapshotPath(sourceFile), snapshot.array());
+        } catch (IOException e) {
+            // Taken again next time.
+        }
+    }
+
+    /**
+     * Gets the index of a string in a string table, adding it if it is not there yet.
+     *
+     * @param table     the string table
+     * @param string    the string, or null
+     * @return          the index of the string, or -1 for null
+     */
+    private static int intern(Map<String, Integer> table, String string) {
+        if (string == null) {
+            return -1;
+        }
+        Integer index = table.get(string);
+        if (index == null) {
+            index = table.size();
+            table.put(string, index);
+        }
+        return index;
+    }
+
+    /**
+     * Replaces a file by writing a temporary file beside it and moving it into place.
+     *
+     * @param file          the path of the file
+     * @param content       the new content of the file
+     * @throws IOException  if the file cannot be written
+     */
+    private static void replace(Path file, byte[] content) throws IOException {
+        Path partial = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(),
+                ".part");
+        try {
+            Files.write(partial, content);
+            try {
+                Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Gets every function in the snapshot, in source order.
+     *
+     * @return  the functions
+     */
+    public List<Entry> getFunctions() {
+        return Collections.unmodifiableList(functions);
+    }
+
+    /**
+     * Gets a function by name.
+     *
+     * @param identifier    the name of the function
+     * @return              the function, or null if there is no function with the name
+     */
+    public Entry get(String identifier) {
+        return entries.get(identifier);
+    }
+
+    /**
+     * Computes the fingerprint of a function, giving the same hash as {@link FunctionFingerprint#of(Function, String)}
+     * would give for the function as parsed.
+     *
+     * @param entry the function
+     * @param salt  a string identifying what the hash is used for, such as the transpiler and target version
+     * @return      the hash, as a lowercase hexadecimal string
+     */
+    public String getFingerprint(Entry entry, String salt) {
+        List<String> values = new ArrayList<>(entry.valueCount);
+        for (int i = 0; i < entry.valueCount; i++) {
+            values.add(getString(snapshot.getInt(entry.values + i * 4)));
+        }
+        return FunctionFingerprint.of(values, salt);
+    }
+
+    /**
+     * Gets the source code of a single function.
+     *
+     * @param entry         the function
+     * @return              the source code, or null if where the function lies in the source is not known
+     * @throws IOException  if the source file cannot be read
+     */
+    public String slice(Entry entry) throws IOException {
+        if (entry.offset < 0) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sourceFile, StandardOpenOption.READ)) {
+            ByteBuffer slice = channel.map(FileChannel.MapMode.READ_ONLY, entry.offset, entry.length);
+            return StandardCharsets.UTF_8.decode(slice).toString();
+        }
+    }
+}
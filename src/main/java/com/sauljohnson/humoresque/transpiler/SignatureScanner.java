@@ -0,0 +1,238 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents a lightweight scanner that finds function headers in HAHA source code without tokenizing or parsing
+ * function bodies.
+ *
+ * Only the text needed to find top-level declarations is examined: annotations in braces and comments are skipped
+ * over, and each {@code function name (args) : type} header is read up to the end of its argument list. Nothing is
+ * validated beyond that, so a source with errors in its bodies will scan successfully even though it would not parse.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"WeakerAccess"}) // API class.
+public final class SignatureScanner {
+
+    private static final String FUNCTION_KEYWORD = "function";
+
+    private static final String[] DECLARATION_KEYWORDS = {FUNCTION_KEYWORD, "axiom", "predicate"};
+
+    private final CharSequence source;
+
+    private int position;
+
+    /**
+     * Initialises a new instance of a scanner over some source code.
+     *
+     * @param source    the source code
+     */
+    private SignatureScanner(CharSequence source) {
+        this.source = source;
+    }
+
+    /**
+     * Gets whether or not a character may form part of an identifier or keyword.
+     *
+     * @param c the character
+     * @return  true if the character may form part of an identifier, otherwise false
+     */
+    private static boolean isWordCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '\'';
+    }
+
+    /**
+     * Gets whether or not a keyword appears as a whole word at a position in the source.
+     *
+     * @param keyword   the keyword
+     * @param at        the position
+     * @return          true if the keyword appears at the position, otherwise false
+     */
+    private boolean isKeywordAt(String keyword, int at) {
+        int end = at + keyword.length();
+        if (end > source.length() || (at > 0 && isWordCharacter(source.charAt(at - 1)))) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (source.charAt(at + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return end == source.length() || !isWordCharacter(source.charAt(end));
+    }
+
+    /**
+     * Skips over any whitespace and comments at the current position.
+     */
+    private void skipWhitespace() {
+        while (position < source.length()) {
+            char c = source.charAt(position);
+            if (Character.isWhitespace(c)) {
+                position++;
+            } else if (c == '/' && position + 1 < source.length() && source.charAt(position + 1) == '/') {
+                while (position < source.length() && source.charAt(position) != '\n') {
+                    position++; // Line comment.
+                }
+            } else if (c == '(' && position + 1 < source.length() && source.charAt(position + 1) == '*') {
+                int end = indexOf("*)", position + 2);
+                position = end < 0 ? source.length() : end + 2; // Block comment.
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Finds a string in the source, starting from a position.
+     *
+     * @param text  the string to find
+     * @param from  the position to start from
+     * @return      the position of the string, or -1 if not found
+     */
+    private int indexOf(String text, int from) {
+        for (int i = from; i + text.length() <= source.length(); i++) {
+            boolean match = true;
+            for (int j = 0; j < text.length() && match; j++) {
+                match = source.charAt(i + j) == text.charAt(j);
+            }
+            if (match) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Advances to the start of the next top-level declaration keyword, skipping annotations and comments.
+     *
+     * @return  the declaration keyword found, or null at the end of the source
+     */
+    private String nextDeclaration() {
+        while (position < source.length()) {
+            skipWhitespace();
+            if (position >= source.length()) {
+                break;
+            }
+            char c = source.charAt(position);
+            if (c == '{') {
+                int end = indexOf("}", position + 1);
+                position = end < 0 ? source.length() : end + 1; // Annotation.
+            } else if (isWordCharacter(c)) {
+                for (String keyword : DECLARATION_KEYWORDS) {
+                    if (isKeywordAt(keyword, position)) {
+                        return keyword;
+                    }
+                }
+                while (position < source.length() && isWordCharacter(source.charAt(position))) {
+                    position++; // Some other word.
+                }
+            } else {
+                position++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads an identifier at the current position.
+     *
+     * @return  the identifier, or null if there is none
+     */
+    private String readIdentifier() {
+        skipWhitespace();
+        int start = position;
+        while (position < source.length() && isWordCharacter(source.charAt(position))) {
+            position++;
+        }
+        return position == start ? null : source.subSequence(start, position).toString();
+    }
+
+    /**
+     * Reads a parenthesised argument list at the current position, if there is one, and counts its arguments.
+     *
+     * @return  the number of arguments, or -1 if the argument list is malformed
+     */
+    private int readArity() {
+        skipWhitespace();
+        if (position >= source.length() || source.charAt(position) != '(') {
+            return 0; // No argument list at all.
+        }
+        position++;
+        int commas = 0;
+        boolean empty = true;
+        while (position < source.length()) {
+            skipWhitespace();
+            if (position >= source.length()) {
+                break;
+            }
+            char c = source.charAt(position++);
+            if (c == ')') {
+                return empty ? 0 : commas + 1;
+            } else if (c == ',') {
+                commas++;
+            } else if (c == '(' || c == '{') {
+                return -1; // Not a plain argument list.
+            }
+            empty = false;
+        }
+        return -1; // Unterminated.
+    }
+
+    /**
+     * Scans HAHA source code for function headers.
+     *
+     * @param source    the source code
+     * @return          the headers of every function in source order, or null if the source could not be made sense of
+     *                  and should be parsed in full instead
+     */
+    public static List<FunctionSignature> scan(CharSequence source) {
+        SignatureScanner scanner = new SignatureScanner(source);
+        List<FunctionSignature> signatures = new ArrayList<>();
+        String keyword = scanner.nextDeclaration();
+        while (keyword != null) {
+            int start = scanner.position;
+            scanner.position += keyword.length();
+            if (!keyword.equals(FUNCTION_KEYWORD)) {
+                keyword = scanner.nextDeclaration();
+                continue;
+            }
+
+            // Read function header.
+            String identifier = scanner.readIdentifier();
+            int arity = scanner.readArity();
+            if (identifier == null || arity < 0) {
+                return null;
+            }
+
+            // Function runs up to the next declaration.
+            keyword = scanner.nextDeclaration();
+            signatures.add(new FunctionSignature(identifier, arity, start, scanner.position - start));
+        }
+        return signatures;
+    }
+
+    /**
+     * Finds where each top-level function, axiom and predicate declaration in source code starts, without reading any
+     * of them. A keyword that runs up to the very end of the source is not counted, as the source may be the start of
+     * a longer one in which the keyword turns out to be part of some other word.
+     *
+     * @param source    the source code, or the start of it
+     * @return          the offset of each declaration keyword, in order
+     */
+    static List<Integer> scanDeclarations(CharSequence source) {
+        SignatureScanner scanner = new SignatureScanner(source);
+        List<Integer> starts = new ArrayList<>();
+        String keyword = scanner.nextDeclaration();
+        while (keyword != null) {
+            if (scanner.position + keyword.length() < source.length()) {
+                starts.add(scanner.position);
+            }
+            scanner.position += keyword.length();
+            keyword = scanner.nextDeclaration();
+        }
+        return starts;
+    }
+}
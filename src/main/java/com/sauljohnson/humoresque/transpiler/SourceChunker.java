@@ -0,0 +1,139 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Represents a reader that splits HAHA source code into chunks at top-level declarations as it reads, so that a file
+ * of any size can be processed a chunk at a time.
+ *
+ * Source code is read and decoded as UTF-8 a window at a time. Once enough has been read, everything up to the start
+ * of the last whole declaration seen is handed out as a chunk, which always begins with a declaration keyword or the
+ * start of the file and holds one or more whole declarations. Only the chunk being built is ever held, so memory use
+ * does not grow with the size of the file, unless a single declaration is larger than a chunk.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class SourceChunker implements Closeable {
+
+    /**
+     * The default size a chunk must reach before it is handed out, in characters.
+     */
+    static final int DEFAULT_CHUNK_SIZE = 256 * 1024;
+
+    /**
+     * The size of the window source code is read through, in bytes.
+     */
+    private static final int WINDOW_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+
+    private final CharsetDecoder decoder;
+
+    private final ByteBuffer bytes;
+
+    private final CharBuffer chars;
+
+    private final StringBuilder pending;
+
+    private final int chunkSize;
+
+    private int threshold;
+
+    private boolean ended;
+
+    /**
+     * Initialises a new instance of a reader that splits HAHA source code into chunks.
+     *
+     * @param path          the path of the file, or {@link SourceReader#STANDARD_INPUT} for standard input
+     * @param chunkSize     the size a chunk must reach before it is handed out, in characters
+     * @throws IOException  if the file cannot be opened
+     */
+    SourceChunker(Path path, int chunkSize) throws IOException {
+        channel = SourceReader.isStandardInput(path) ? Channels.newChannel(System.in) :
+                FileChannel.open(path, StandardOpenOption.READ);
+        decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        bytes = ByteBuffer.allocate(WINDOW_SIZE);
+        chars = CharBuffer.allocate(WINDOW_SIZE);
+        pending = new StringBuilder();
+        this.chunkSize = chunkSize;
+        threshold = chunkSize;
+    }
+
+    /**
+     * Reads and decodes the next window of source code onto the end of the chunk being built.
+     *
+     * @return              false if the end of the source code has been reached, otherwise true
+     * @throws IOException  if the source code cannot be read
+     */
+    private boolean readWindow() throws IOException {
+        int read = channel.read(bytes);
+        bytes.flip();
+        decoder.decode(bytes, chars, read < 0);
+        if (read < 0) {
+            decoder.flush(chars);
+        }
+        bytes.compact(); // Keep any partial character for the next window.
+        chars.flip();
+        pending.append(chars);
+        chars.clear();
+        return read >= 0;
+    }
+
+    /**
+     * Hands out the first part of the chunk being built.
+     *
+     * @param end   the offset to cut the chunk at
+     * @return      the chunk
+     */
+    private String cut(int end) {
+        String chunk = pending.substring(0, end);
+        pending.delete(0, end);
+        threshold = chunkSize;
+        return chunk;
+    }
+
+    /**
+     * Reads source code until the next chunk is complete.
+     *
+     * @return              the next chunk, or null if there is no more source code
+     * @throws IOException  if the source code cannot be read
+     */
+    String next() throws IOException {
+        while (!ended) {
+            ended = !readWindow();
+            if (ended || pending.length() < threshold) {
+                continue;
+            }
+
+            // Cut at the start of the last declaration seen, keeping at least one declaration in the chunk.
+            List<Integer> starts = SignatureScanner.scanDeclarations(pending);
+            if (starts.size() >= 2) {
+                return cut(starts.get(starts.size() - 1));
+            }
+            threshold = pending.length() * 2; // One large declaration, so scan again only once it has doubled.
+        }
+        return pending.length() == 0 ? null : cut(pending.length());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close() throws IOException {
+        channel.close();
+    }
+}
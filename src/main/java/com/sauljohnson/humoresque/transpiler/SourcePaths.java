@@ -0,0 +1,155 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Expands files, directories and glob patterns given on the command line into a list of source files.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"WeakerAccess"}) // API class.
+public final class SourcePaths {
+
+    /**
+     * The extension given to HAHA source files.
+     */
+    public static final String SOURCE_EXTENSION = ".haha";
+
+    private SourcePaths() { }
+
+    /**
+     * Gets whether or not a command-line argument is a glob pattern.
+     *
+     * @param pattern   the argument
+     * @return          true if the argument contains glob metacharacters, otherwise false
+     */
+    static boolean isGlob(String pattern) {
+        for (char c : pattern.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the directory a glob pattern should be matched from, being its longest prefix without metacharacters.
+     *
+     * @param pattern   the glob pattern
+     * @return          the directory to walk from
+     */
+    static Path getGlobBase(String pattern) {
+        int end = 0;
+        for (int i = 0; i < pattern.length() && !isGlob(pattern.substring(i, i + 1)); i++) {
+            if (pattern.charAt(i) == '/' || pattern.charAt(i) == '\\') {
+                end = i + 1;
+            }
+        }
+        return Paths.get(pattern.substring(0, end));
+    }
+
+    /**
+     * Lists regular files beneath a directory that satisfy a predicate, in sorted order.
+     *
+     * @param directory     the directory to walk
+     * @param matcher       the predicate files must satisfy
+     * @return              the matching files
+     * @throws IOException  if the directory cannot be walked
+     */
+    private static List<Path> walk(Path directory, PathMatcher matcher) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(matcher::matches)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Names a source file by its path relative to a directory, with its extension stripped and components separated
+     * by forward slashes.
+     *
+     * @param directory the directory, or null to name the file by its file name alone
+     * @param path      the path of the source file
+     * @return          the name
+     */
+    private static String getRelativeName(Path directory, Path path) {
+        Path relative = directory == null || path.getFileName() == null ? path.getFileName() :
+                directory.relativize(path);
+        String name = relative == null ? path.toString() : relative.toString().replace('\\', '/');
+        return name.endsWith(SOURCE_EXTENSION) ? name.substring(0, name.length() - SOURCE_EXTENSION.length()) : name;
+    }
+
+    /**
+     * Expands files, directories and glob patterns into source files, each named by its path relative to the
+     * directory or glob base it was found beneath. Plain files are named by their file name alone. Names have their
+     * extension stripped and components separated by forward slashes, so that "src/a/b.haha" found beneath "src" is
+     * named "a/b". Results are ordered as by {@link #expand(String[])}, with a file found twice keeping its first name.
+     *
+     * @param arguments     the files, directories and glob patterns to expand
+     * @return              the source files, mapped to their names
+     * @throws IOException  if a directory cannot be walked
+     */
+    public static Map<Path, String> expandRelative(String[] arguments) throws IOException {
+        Map<Path, String> expanded = new LinkedHashMap<>();
+        for (String argument : arguments) {
+            if (isGlob(argument)) {
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + argument);
+                Path base = getGlobBase(argument);
+                if (Files.isDirectory(base)) {
+                    for (Path path : walk(base, matcher)) {
+                        expanded.putIfAbsent(path, getRelativeName(base, path));
+                    }
+                }
+            } else {
+                Path path = Paths.get(argument);
+                if (Files.isDirectory(path)) {
+                    for (Path file : walk(path, p -> p.toString().endsWith(SOURCE_EXTENSION))) {
+                        expanded.putIfAbsent(file, getRelativeName(path, file));
+                    }
+                } else {
+                    expanded.putIfAbsent(path, getRelativeName(null, path));
+                }
+            }
+        }
+        return expanded;
+    }
+
+    /**
+     * Checks that no two source files share a name, as they would otherwise be written over one another. Names that
+     * differ only in case are treated as the same, as they are on some file systems.
+     *
+     * @param sources               the source files, mapped to their names
+     * @throws ArgumentsException   if two source files share a name
+     */
+    public static void requireDistinctNames(Map<Path, String> sources) throws ArgumentsException {
+        Map<String, Path> seen = new HashMap<>();
+        for (Map.Entry<Path, String> source : sources.entrySet()) {
+            Path other = seen.putIfAbsent(source.getValue().toLowerCase(Locale.ROOT), source.getKey());
+            if (other != null) {
+                throw new ArgumentsException("Source files '" + other + "' and '" + source.getKey()
+                        + "' would both be named '" + source.getValue() + "' in the output. Give their common parent "
+                        + "directory instead.");
+            }
+        }
+    }
+
+    /**
+     * Expands files, directories and glob patterns into a list of source files. Directories contribute every HAHA
+     * source file beneath them. Results keep the order of the arguments, with each expansion sorted and duplicates
+     * removed, so that output order is deterministic. Plain paths are kept even if they do not exist, so that they can
+     * be reported as errors individually.
+     *
+     * @param arguments     the files, directories and glob patterns to expand
+     * @return              the source files
+     * @throws IOException  if a directory cannot be walked
+     */
+    public static List<Path> expand(String[] arguments) throws IOException {
+        return new ArrayList<>(expandRelative(arguments).keySet());
+    }
+}
@@ -0,0 +1,154 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Represents a reader of HAHA source code from files or standard input, decoded as UTF-8.
+ *
+ * Large files are memory-mapped and small ones read into a reusable buffer. Either way, bytes are decoded straight into
+ * a reusable character buffer, so the only copy made is the string handed to the tokenizer. A reader keeps its
+ * buffers between reads, so it must not be shared between threads.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class SourceReader {
+
+    /**
+     * The path that stands for standard input.
+     */
+    public static final String STANDARD_INPUT = "-";
+
+    /**
+     * The size above which files are memory-mapped rather than read, in bytes.
+     */
+    private static final long MAP_THRESHOLD = 1024 * 1024;
+
+    private final CharsetDecoder decoder;
+
+    private final InputStream standardInput;
+
+    private ByteBuffer bytes;
+
+    private CharBuffer chars;
+
+    /**
+     * Initialises a new instance of a reader of HAHA source code.
+     *
+     * @param standardInput the stream to read when standard input is asked for
+     */
+    public SourceReader(InputStream standardInput) {
+        this.standardInput = standardInput;
+        decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        bytes = ByteBuffer.allocate(8192);
+        chars = CharBuffer.allocate(8192);
+    }
+
+    /**
+     * Initialises a new instance of a reader of HAHA source code that reads {@link System#in} as standard input.
+     */
+    public SourceReader() {
+        this(System.in);
+    }
+
+    /**
+     * Gets whether or not a path stands for standard input.
+     *
+     * @param path  the path
+     * @return      true if the path stands for standard input, otherwise false
+     */
+    public static boolean isStandardInput(Path path) {
+        return path.toString().equals(STANDARD_INPUT);
+    }
+
+    /**
+     * Decodes bytes into the reusable character buffer, growing it first if need be.
+     *
+     * @param input                         the bytes to decode
+     * @return                              the decoded text
+     * @throws CharacterCodingException     if the bytes cannot be decoded
+     */
+    private String decode(ByteBuffer input) throws CharacterCodingException {
+        int capacity = (int) Math.ceil(input.remaining() * (double) decoder.maxCharsPerByte()) + 1;
+        if (chars.capacity() < capacity) {
+            chars = CharBuffer.allocate(capacity);
+        }
+        chars.clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(input, chars, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = decoder.flush(chars);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        chars.flip();
+        return chars.toString();
+    }
+
+    /**
+     * Reads everything from a channel into the reusable byte buffer, growing it as need be.
+     *
+     * @param channel       the channel
+     * @param sizeHint      the expected number of bytes, or -1 if unknown
+     * @return              the byte buffer, ready for reading
+     * @throws IOException  if the channel cannot be read
+     */
+    private ByteBuffer readFully(ReadableByteChannel channel, long sizeHint) throws IOException {
+        if (sizeHint >= bytes.capacity()) {
+            bytes = ByteBuffer.allocate((int) sizeHint + 1); // One spare byte to detect the end without growing.
+        }
+        bytes.clear();
+        while (channel.read(bytes) >= 0) {
+            if (!bytes.hasRemaining()) {
+                ByteBuffer grown = ByteBuffer.allocate(bytes.capacity() * 2);
+                bytes.flip();
+                grown.put(bytes);
+                bytes = grown;
+            }
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    /**
+     * Reads HAHA source code from a file or standard input.
+     *
+     * @param path          the path of the file, or {@link #STANDARD_INPUT} for standard input
+     * @return              the source code
+     * @throws IOException  if the file or standard input cannot be read
+     */
+    public String read(Path path) throws IOException {
+
+        // Read standard input through a channel.
+        if (isStandardInput(path)) {
+            return decode(readFully(Channels.newChannel(standardInput), -1));
+        }
+
+        // Map large files, read small ones.
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAP_THRESHOLD && size <= Integer.MAX_VALUE) {
+                return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+            return decode(readFully(channel, size));
+        }
+    }
+}
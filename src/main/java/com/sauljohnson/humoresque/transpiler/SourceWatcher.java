@@ -0,0 +1,359 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.ParseException;
+import com.sauljohnson.humoresque.parser.TokenizationException;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Represents a watcher that keeps transpiled output up to date with source files as they change.
+ *
+ * Every source file is transpiled once up front, after which the directories holding them are watched for changes.
+ * Changes are collected until none have arrived for a short while, so that a burst of events from a single save, or
+ * from saving many files at once, causes a single rebuild. Only the source files that changed are transpiled again,
+ * by a single job kept for the life of the watcher, so parsers, transpilers and caches stay warm between rebuilds.
+ * Output is written to a staging file beside its destination and then moved into place, so that a reader never sees
+ * a partly written file.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class SourceWatcher {
+
+    /**
+     * The default time to wait for further changes before rebuilding, in milliseconds.
+     */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 50;
+
+    /**
+     * The prefix given to the directories output is staged in, which are never watched.
+     */
+    private static final String STAGING_PREFIX = ".haha-watch";
+
+    private final TranspilationJob job;
+
+    private final String[] sources;
+
+    private final Path output;
+
+    private final boolean batch;
+
+    private final boolean compile;
+
+    private Map<Path, String> names;
+
+    private long debounceMillis;
+
+    /**
+     * Initialises a new instance of a watcher that keeps transpiled output up to date with source files.
+     *
+     * @param job       the job to transpile each source file with
+     * @param arguments the arguments giving the source files, the output file or, in batch mode, the output directory,
+     *                  the mode and the target language
+     */
+    public SourceWatcher(TranspilationJob job, Arguments arguments) {
+        this.job = job;
+        batch = arguments.isBatch();
+        sources = batch ? arguments.getSourceFiles() : new String[] {arguments.getSourceFile()};
+        output = Paths.get(batch ? arguments.getOutputDirectory() : arguments.getOutputFile());
+        compile = arguments.getTargetLanguage() == TargetLanguage.BYTECODE && arguments.getMode() == Mode.DEFAULT;
+        names = Collections.emptyMap();
+        debounceMillis = DEFAULT_DEBOUNCE_MILLIS;
+    }
+
+    /**
+     * Gets the time to wait for further changes before rebuilding.
+     *
+     * @return  the time to wait, in milliseconds
+     */
+    public long getDebounceMillis() {
+        return debounceMillis;
+    }
+
+    /**
+     * Sets the time to wait for further changes before rebuilding.
+     *
+     * @param debounceMillis    the time to wait, in milliseconds
+     */
+    public void setDebounceMillis(long debounceMillis) {
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Gets the file the output for a source file is written to. In batch mode, this is a file beneath the output
+     * directory laid out as the source file is beneath the directory or glob base it was found in, as for
+     * {@link DirectoryOutputSink}, otherwise it is the output file itself.
+     *
+     * @param source    the path of the source file
+     * @return          the path of the output file
+     */
+    public Path getOutputFile(Path source) {
+        if (!batch) {
+            return output;
+        }
+        String name = names.get(source.toAbsolutePath().normalize());
+        if (name == null) {
+            name = source.getFileName().toString(); // Not among the sources, so named by its file name alone.
+            if (name.endsWith(SourcePaths.SOURCE_EXTENSION)) {
+                name = name.substring(0, name.length() - SourcePaths.SOURCE_EXTENSION.length());
+            }
+        }
+        return output.resolve(name + (compile ? ".class" : ".java"));
+    }
+
+    /**
+     * Expands the source files being watched, as they are now, and names each after where it lies beneath the
+     * directory or glob base it was found in.
+     *
+     * @return                      the source files, normalised to absolute paths
+     * @throws IOException          if a directory cannot be walked
+     * @throws ArgumentsException   if two source files would be written to the same output file
+     */
+    private List<Path> expand() throws IOException, ArgumentsException {
+        Map<Path, String> relative = SourcePaths.expandRelative(sources);
+        SourcePaths.requireDistinctNames(relative);
+        Map<Path, String> expanded = new LinkedHashMap<>();
+        for (Map.Entry<Path, String> source : relative.entrySet()) {
+            expanded.put(source.getKey().toAbsolutePath().normalize(), source.getValue());
+        }
+        names = expanded;
+        return new ArrayList<>(expanded.keySet());
+    }
+
+    /**
+     * Registers a directory with a watch service, along with every directory beneath it if asked to.
+     *
+     * @param service       the watch service
+     * @param directory     the directory
+     * @param recursive     whether or not to register every directory beneath it as well
+     * @param keys          the directory each registered key watches, to add to
+     * @throws IOException  if a directory cannot be walked or registered
+     */
+    private static void register(WatchService service, Path directory, boolean recursive, Map<WatchKey, Path> keys)
+            throws IOException {
+        if (!recursive) {
+            keys.put(directory.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), directory);
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            Iterator<Path> iterator = paths.iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                if (Files.isDirectory(path) && !path.getFileName().toString().startsWith(STAGING_PREFIX)) {
+                    keys.put(path.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE), path);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registers the directories that hold the source files with a watch service. Directories and the bases of glob
+     * patterns are watched along with everything beneath them, while single files are watched through their parent.
+     *
+     * @param service       the watch service
+     * @param keys          the directory each registered key watches, to add to
+     * @return              the directories watched along with everything beneath them
+     * @throws IOException  if a directory cannot be walked or registered
+     */
+    private Set<Path> registerSources(WatchService service, Map<WatchKey, Path> keys) throws IOException {
+        Set<Path> recursive = new HashSet<>();
+        for (String source : sources) {
+            if (SourcePaths.isGlob(source)) {
+                recursive.add(SourcePaths.getGlobBase(source).toAbsolutePath().normalize());
+            } else {
+                Path path = Paths.get(source).toAbsolutePath().normalize();
+                if (Files.isDirectory(path)) {
+                    recursive.add(path);
+                } else if (path.getParent() != null && Files.isDirectory(path.getParent())) {
+                    register(service, path.getParent(), false, keys);
+                }
+            }
+        }
+        for (Path directory : recursive) {
+            if (Files.isDirectory(directory)) {
+                register(service, directory, true, keys);
+            }
+        }
+        return recursive;
+    }
+
+    /**
+     * Transpiles a source file, writing its output to a staging file and then moving it into place.
+     *
+     * @param source                        the path of the source file
+     * @throws IOException                  if the source file cannot be read or the output file cannot be written
+     * @throws TokenizationException        if the source code could not be tokenized
+     * @throws ParseException               if the source code could not be parsed
+     * @throws FunctionNotFoundException    if a target function does not exist in the source code
+     */
+    private void rebuild(Path source) throws IOException, TokenizationException, ParseException,
+            FunctionNotFoundException {
+
+        // Stage in a directory of its own beside the output, so that compiled classes are named as they would be.
+        Path target = getOutputFile(source).toAbsolutePath();
+        Files.createDirectories(target.getParent());
+        Path staging = Files.createTempDirectory(target.getParent(), STAGING_PREFIX);
+        Path staged = staging.resolve(target.getFileName());
+        Throwable failure = null;
+        try {
+            if (compile) {
+                job.compile(source, staged);
+            } else {
+                try (Writer writer = Files.newBufferedWriter(staged, StandardCharsets.UTF_8)) {
+                    job.run(source, writer);
+                }
+            }
+
+            // Replace the output in one step where the file system allows it.
+            try {
+                Files.move(staged, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(staged, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+
+            // Failing to clean up must not hide why the rebuild failed.
+            try {
+                Files.deleteIfExists(staged);
+                Files.deleteIfExists(staging);
+            } catch (IOException e) {
+                if (failure == null) {
+                    throw e;
+                }
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    /**
+     * Transpiles source files, reporting how long each took, or why it failed.
+     *
+     * @param changed   the paths of the source files
+     * @param seen      the time the first change was seen, as given by {@link System#nanoTime()}, or -1 if none was
+     * @param errors    the stream to report to
+     */
+    private void rebuild(List<Path> changed, long seen, PrintStream errors) {
+        for (Path source : changed) {
+            long start = System.nanoTime();
+            try {
+                rebuild(source);
+            } catch (IOException e) {
+                errors.println(source + ": Could not transpile file at '" + source + "': " + e);
+                continue;
+            } catch (TokenizationException | ParseException | FunctionNotFoundException | BytecodeException e) {
+                errors.println(source + ": " + e.getMessage());
+                continue;
+            } catch (RuntimeException e) {
+                errors.println(source + ": Could not transpile file at '" + source + "': " + e); // Keep watching.
+                continue;
+            }
+            long end = System.nanoTime();
+
+            // Report latency both of the rebuild and since the change, which includes waiting out the burst.
+            if (seen < 0) {
+                errors.println(String.format(Locale.ROOT, "Built '%s' in %.1f ms.", source, (end - start) / 1e6));
+            } else {
+                errors.println(String.format(Locale.ROOT, "Rebuilt '%s' in %.1f ms, %.1f ms after it changed.",
+                        source, (end - start) / 1e6, (end - seen) / 1e6));
+            }
+        }
+    }
+
+    /**
+     * Transpiles every source file, then watches for changes and transpiles source files again as they change, until
+     * interrupted.
+     *
+     * @param errors                the stream to report each rebuild and any failures to
+     * @throws IOException          if the source files cannot be watched
+     * @throws ArgumentsException   if two source files would be written to the same output file to begin with
+     * @throws InterruptedException if interrupted while waiting for changes
+     */
+    public void watch(PrintStream errors) throws IOException, ArgumentsException, InterruptedException {
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+
+            // Watch before the first build, so that nothing saved during it is missed.
+            Map<WatchKey, Path> keys = new HashMap<>();
+            Set<Path> recursive = registerSources(service, keys);
+            rebuild(expand(), -1, errors);
+            errors.println("Watching for changes.");
+            while (true) {
+                WatchKey key = service.take();
+                long seen = System.nanoTime();
+
+                // Collect changes until none arrive for the debounce interval.
+                Set<Path> changed = new HashSet<>();
+                boolean overflowed = false;
+                while (key != null) {
+                    Path directory = keys.get(key);
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW || directory == null) {
+                            overflowed = true; // Events were lost, so assume everything changed.
+                            continue;
+                        }
+                        Path path = directory.resolve((Path) event.context());
+                        changed.add(path);
+
+                        // Watch directories created beneath recursively watched ones.
+                        if (event.kind() == ENTRY_CREATE && Files.isDirectory(path) &&
+                                !path.getFileName().toString().startsWith(STAGING_PREFIX) && isBeneath(path,
+                                recursive)) {
+                            register(service, path, true, keys);
+                            try (Stream<Path> paths = Files.walk(path)) {
+                                paths.forEach(changed::add); // Files may have arrived before the watch did.
+                            }
+                        }
+                    }
+                    if (!key.reset()) {
+                        keys.remove(key); // The directory is gone.
+                    }
+                    key = service.poll(debounceMillis, TimeUnit.MILLISECONDS);
+                }
+
+                // Rebuild only source files that changed and still exist, unless they now clash.
+                List<Path> current;
+                try {
+                    current = expand();
+                } catch (ArgumentsException e) {
+                    errors.println(e.getMessage());
+                    continue;
+                }
+                List<Path> rebuilt = new ArrayList<>();
+                for (Path source : current) {
+                    if ((overflowed || changed.contains(source)) && Files.isRegularFile(source)) {
+                        rebuilt.add(source);
+                    }
+                }
+                rebuild(rebuilt, seen, errors);
+            }
+        }
+    }
+
+    /**
+     * Gets whether or not a path lies beneath any of a set of directories.
+     *
+     * @param path          the path
+     * @param directories   the directories
+     * @return              true if the path lies beneath any of the directories, otherwise false
+     */
+    private static boolean isBeneath(Path path, Set<Path> directories) {
+        for (Path directory : directories) {
+            if (path.startsWith(directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
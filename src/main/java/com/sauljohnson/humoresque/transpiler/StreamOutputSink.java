@@ -0,0 +1,44 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Represents a sink that writes every file to a single output one after another, each under a header naming it, in
+ * the same way batch output is written to standard output.
+ *
+ * The output is flushed but never closed, so that a sink can be put in front of standard output.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class StreamOutputSink implements OutputSink {
+
+    private final Appendable output;
+
+    /**
+     * Initialises a new instance of a sink that writes every file to a single output.
+     *
+     * @param output    the output to write files to
+     */
+    public StreamOutputSink(Appendable output) {
+        this.output = output;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void write(String path, CharSequence content) throws IOException {
+        output.append("// ").append(path).append(System.lineSeparator()).append(content);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void close() throws IOException {
+        if (output instanceof Flushable) {
+            ((Flushable) output).flush();
+        }
+    }
+}
@@ -8,5 +8,6 @@ package com.sauljohnson.humoresque.transpiler;
  */
 public enum TargetLanguage {
     DEFAULT,
-    JAVA
+    JAVA,
+    BYTECODE
 }
@@ -0,0 +1,1335 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.*;
+import com.sauljohnson.humoresque.parser.model.*;
+
+import javax.lang.model.SourceVersion;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Represents a single run of the transpiler pipeline over one source text in the mode given by a set of arguments.
+ *
+ * A job holds no state between runs, so one job may be run over many sources, concurrently if need be. A job that emits
+ * functions in parallel keeps a pool of threads to do so, so should be closed once it is no longer needed.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class TranspilationJob implements Closeable {
+
+    private final Arguments arguments;
+
+    /**
+     * The string that distinguishes cached pretty-printed functions from cached transpiled functions.
+     */
+    private static final String PRETTY_CACHE_SALT = "java/" + JavaTranspiler.OUTPUT_VERSION + "/pretty";
+
+    /**
+     * The string that distinguishes cached bytecode listings from cached Java functions.
+     */
+    private static final String LISTING_CACHE_SALT = "bytecode/" + BytecodeTranspiler.OUTPUT_VERSION + "/pretty";
+
+    /**
+     * The number of chunks each stage of a streamed run may hold ready for the next stage.
+     */
+    private static final int STREAM_QUEUE_CAPACITY = 2;
+
+    /**
+     * The chunk that follows the last chunk of source code through the stages of a streamed run.
+     */
+    private static final Chunk END_OF_SOURCE = new Chunk(null);
+
+    private final ForkJoinPool emissionPool;
+
+    private final FunctionCache cache;
+
+    private final ThreadLocal<SourceReader> sourceReader;
+
+    private final PipelineStats stats;
+
+    private ProgramCompiler programCompiler;
+
+    /**
+     * Represents a chunk of source code on its way through the stages of a streamed run. Each stage replaces what it
+     * was handed with what it made of it, so that only one form of a chunk is held at a time.
+     */
+    private static final class Chunk {
+
+        private Object content;
+
+        private Throwable error;
+
+        private Chunk(Object content) {
+            this.content = content;
+        }
+    }
+
+    /**
+     * Represents the work done on each chunk by one stage of a streamed run.
+     *
+     * @param <T>   the type of what the stage is handed
+     * @param <R>   the type of what the stage makes of it
+     */
+    private interface Stage<T, R> {
+
+        /**
+         * Does the work of the stage on a chunk.
+         *
+         * @param content       what the stage is handed
+         * @return              what the stage makes of it
+         * @throws Exception    if the chunk cannot be processed
+         */
+        R apply(T content) throws Exception;
+    }
+
+    /**
+     * Initialises a new instance of a single run of the transpiler pipeline.
+     *
+     * @param arguments the arguments giving the mode, target language and target functions
+     */
+    public TranspilationJob(Arguments arguments) {
+        this.arguments = arguments;
+        emissionPool = arguments.isParallelEmission() ? new ForkJoinPool(arguments.getParallelism()) : null;
+        cache = arguments.isCacheEnabled() ? new FunctionCache(arguments.getCacheDirectory() == null ?
+                FunctionCache.getDefaultDirectory() : Paths.get(arguments.getCacheDirectory())) : null;
+        sourceReader = ThreadLocal.withInitial(SourceReader::new);
+        stats = arguments.isStats() ? new PipelineStats() : null;
+    }
+
+    /**
+     * Shuts down the pool of threads that functions are emitted on in parallel, if there is one.
+     */
+    @Override
+    public void close() {
+        if (emissionPool != null) {
+            emissionPool.shutdown();
+        }
+    }
+
+    /**
+     * Gets the cache that transpiled functions are looked up in and stored to.
+     *
+     * @return  the cache, or null if caching is disabled
+     */
+    public FunctionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the statistics accumulated for each phase of the pipeline over every run of this job.
+     *
+     * @return  the statistics, or null if statistics are not being gathered
+     */
+    public PipelineStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Gets the compiler that programs are compiled with in execution mode, creating it on first use. Creating it loads
+     * the Java compiler API, which no other mode needs.
+     *
+     * @return  the compiler
+     */
+    private synchronized ProgramCompiler getProgramCompiler() {
+        if (programCompiler == null) {
+            programCompiler = new ProgramCompiler();
+            programCompiler.setCache(cache);
+            programCompiler.setOptimize(arguments.isOptimize());
+            programCompiler.setContracts(arguments.isContracts());
+            programCompiler.setIntegerMode(arguments.getIntegerMode());
+        }
+        return programCompiler;
+    }
+
+    /**
+     * Creates a transpiler for the target language, looking functions up in the job's cache.
+     *
+     * @return  the transpiler
+     */
+    private Transpiler createTranspiler() {
+        return createTranspiler(cache);
+    }
+
+    /**
+     * Creates a transpiler for the target language. Single functions emitted through
+     * {@link #emitFunction(Transpiler, PrettyPrinter, Function, Program, Appendable)} have their pretty-printed output
+     * cached there, so the transpiler used for them is given no cache, keeping to one lookup and one entry for each.
+     *
+     * @param cache the cache the transpiler looks functions up in, or null for none
+     * @return      the transpiler
+     */
+    private Transpiler createTranspiler(FunctionCache cache) {
+        switch (arguments.getTargetLanguage()) {
+            case BYTECODE:
+                return createBytecodeTranspiler();
+            case DEFAULT:
+            case JAVA:
+            default:
+                JavaTranspiler transpiler = new JavaTranspiler();
+                transpiler.setPool(emissionPool);
+                transpiler.setCache(cache);
+                transpiler.setOptimize(arguments.isOptimize());
+                transpiler.setContracts(arguments.isContracts());
+                transpiler.setIntegerMode(arguments.getIntegerMode());
+                return transpiler;
+        }
+    }
+
+    /**
+     * Creates a transpiler that compiles straight to bytecode.
+     *
+     * @return  the transpiler
+     */
+    private BytecodeTranspiler createBytecodeTranspiler() {
+        BytecodeTranspiler transpiler = new BytecodeTranspiler();
+        transpiler.setOptimize(arguments.isOptimize());
+        transpiler.setContracts(arguments.isContracts());
+        return transpiler;
+    }
+
+    /**
+     * Creates a pretty printer for the target language.
+     *
+     * @return  the pretty printer
+     */
+    private PrettyPrinter createPrettyPrinter() {
+        switch (arguments.getTargetLanguage()) {
+            case BYTECODE:
+                return new ListingPrettyPrinter();
+            case DEFAULT:
+            case JAVA:
+            default:
+                return new JavaPrettyPrinter();
+        }
+    }
+
+    /**
+     * Creates a writer that pretty prints to an output, measuring the pretty printer if gathering statistics.
+     *
+     * @param prettyPrinter the pretty printer to use
+     * @param output        the output to write formatted source code to
+     * @return              the writer
+     */
+    private Writer createPrettyWriter(PrettyPrinter prettyPrinter, Appendable output) {
+        return stats == null ? prettyPrinter.createWriter(output) : MeteredWriter.create(prettyPrinter, output, stats);
+    }
+
+    /**
+     * Counts the statements in a statement, including itself but not counting blocks.
+     *
+     * @param statement the statement
+     * @return          the number of statements
+     */
+    private static int countStatements(Statement statement) {
+        if (statement == null) {
+            return 0;
+        }
+        switch (statement.getStatementType()) {
+            case BLOCK:
+                int count = 0;
+                for (ProgramComponent component : ((Block) statement).getProgramComponents()) {
+                    switch (component.getProgramComponentType()) {
+                        case STATEMENT:
+                            count += countStatements((Statement) component);
+                            break;
+                        default:
+                            break; // Annotations are not statements.
+                    }
+                }
+                return count;
+            case LOOP:
+                return 1 + countStatements(((Loop) statement).getStatement());
+            case CONDITIONAL:
+                Conditional conditional = (Conditional) statement;
+                return 1 + countStatements(conditional.getTrueArm()) + countStatements(conditional.getFalseArm());
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Tokenizes, filters and parses source code.
+     *
+     * @param source                    the source code
+     * @return                          the parsed program
+     * @throws TokenizationException    if the source code could not be tokenized
+     * @throws ParseException           if the source code could not be parsed
+     */
+    public Program parse(String source) throws TokenizationException, ParseException {
+        return parse(source, null);
+    }
+
+    /**
+     * Tokenizes and filters source code, timing each phase.
+     *
+     * @param source                    the source code
+     * @param name                      the name of the source code, or null if it has none
+     * @return                          the filtered token stream
+     * @throws TokenizationException    if the source code could not be tokenized
+     */
+    private TokenStream tokenize(String source, String name) throws TokenizationException {
+
+        // Tokenize.
+        PhaseTimer timer = PhaseTimer.start(Phase.TOKENIZE, name, stats);
+        Token[] tokens = new HahaTokenizer().tokenize(source);
+        timer.stop("tokens", tokens.length);
+
+        // Discard empty statements.
+        timer = PhaseTimer.start(Phase.FILTER, name, stats);
+        TokenStream tokenStream = new ConsecutiveTokenFilter(TokenType.PUNCTUATOR).transform(new TokenStream(tokens));
+        timer.stop("tokens", countFiltered(tokens));
+        return tokenStream;
+    }
+
+    /**
+     * Counts the tokens left once each run of consecutive punctuators has been filtered down to the first of them, as
+     * {@link ConsecutiveTokenFilter} does. The filtered stream does not give its length, so it is counted here.
+     *
+     * @param tokens    the tokens before filtering
+     * @return          the number of tokens after filtering
+     */
+    private static int countFiltered(Token[] tokens) {
+        int count = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            if (i == 0 || tokens[i].getType() != TokenType.PUNCTUATOR
+                    || tokens[i - 1].getType() != TokenType.PUNCTUATOR) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the functions in a program.
+     *
+     * @param program   the program
+     * @return          the number of functions
+     */
+    private static int countFunctions(Program program) {
+        int count = 0;
+        for (Function function : program.getFunctions()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Tokenizes, filters and parses source code, timing each phase.
+     *
+     * @param source                    the source code
+     * @param name                      the name of the source code, or null if it has none
+     * @return                          the parsed program
+     * @throws TokenizationException    if the source code could not be tokenized
+     * @throws ParseException           if the source code could not be parsed
+     */
+    private Program parse(String source, String name) throws TokenizationException, ParseException {
+
+        // Tokenize and discard empty statements.
+        TokenStream tokenStream = tokenize(source, name);
+
+        // Parse.
+        PhaseTimer timer = PhaseTimer.start(Phase.PARSE, name, stats);
+        Program program = Program.parse(tokenStream);
+        timer.stop("functions", countFunctions(program));
+        if (stats != null) {
+            int statements = 0;
+            for (Function function : program.getFunctions()) {
+                statements += countStatements(function.getStatement());
+            }
+            stats.count(Phase.PARSE, "statements", statements);
+        }
+        return program;
+    }
+
+    /**
+     * Finds a function in a program by name.
+     *
+     * @param program                       the program to search
+     * @param identifier                    the name of the function
+     * @return                              the function
+     * @throws FunctionNotFoundException    if there is no function with the name in the program
+     */
+    private Function findFunction(Program program, String identifier) throws FunctionNotFoundException {
+        for (Function function : program.getFunctions()) {
+            if (identifier.equals(function.getIdentifier())) {
+                return function;
+            }
+        }
+        throw new FunctionNotFoundException(identifier);
+    }
+
+    /**
+     * Gets the string that distinguishes cached pretty-printed output for the target language and options in use.
+     *
+     * @return  the salt
+     */
+    private String getPrettyCacheSalt() {
+        String salt = arguments.getTargetLanguage() == TargetLanguage.BYTECODE ? LISTING_CACHE_SALT : PRETTY_CACHE_SALT;
+        return salt + (arguments.isOptimize() ? "/optimized" : "") + (arguments.isContracts() ? "/contracts" : "") +
+                (arguments.getIntegerMode() == IntegerMode.FIXED ? "" :
+                "/" + arguments.getIntegerMode().name().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Transpiles a single function. Bytecode is compiled against the whole program where there is one, so that calls
+     * to other functions resolve.
+     *
+     * @param transpiler    the transpiler to use
+     * @param function      the function to transpile
+     * @param program       the program the function is part of, or null to transpile the function alone
+     * @param output        the output to write to
+     * @throws IOException  if the output cannot be written to
+     */
+    private static void transpileFunction(Transpiler transpiler, Function function, Program program,
+                                          Appendable output) throws IOException {
+        if (program != null && transpiler instanceof BytecodeTranspiler) {
+            output.append(((BytecodeTranspiler) transpiler).transpileFunction(function, program));
+        } else {
+            transpiler.transpileFunction(function, output);
+        }
+    }
+
+    /**
+     * Transpiles and pretty prints a single function, reusing cached output for it if there is any.
+     *
+     * @param transpiler    the transpiler to use
+     * @param prettyPrinter the pretty printer to use
+     * @param function      the function to emit
+     * @param program       the program the function is part of, or null to emit the function alone
+     * @param output        the output to write to
+     * @throws IOException  if the output cannot be written to
+     */
+    private void emitFunction(Transpiler transpiler, PrettyPrinter prettyPrinter, Function function,
+                              Program program, Appendable output) throws IOException {
+
+        // Without a cache, stream straight out.
+        if (cache == null) {
+            Writer prettyWriter = createPrettyWriter(prettyPrinter, output);
+            transpileFunction(transpiler, function, program, prettyWriter);
+            prettyWriter.close();
+            return;
+        }
+
+        // Reuse cached output, or emit and cache it. Bytecode listings also depend on the signatures of the functions
+        // they call, so those form part of the key.
+        String salt = getPrettyCacheSalt();
+        if (program != null && transpiler instanceof BytecodeTranspiler) {
+            salt += "/" + ((BytecodeTranspiler) transpiler).getCalleeSignatures(function, program);
+        }
+        String key = FunctionFingerprint.of(function, salt);
+        String cached = cache.get(key);
+        if (cached == null) {
+            StringBuilder sb = new StringBuilder();
+            Writer prettyWriter = createPrettyWriter(prettyPrinter, sb);
+            transpileFunction(transpiler, function, program, prettyWriter);
+            prettyWriter.close();
+            cached = sb.toString();
+            cache.put(key, cached);
+        }
+        output.append(cached);
+    }
+
+    /**
+     * Runs the pipeline over a source file, writing the results to an output.
+     *
+     * @param sourceFile                    the path of the source file, or "-" for standard input
+     * @param output                        the output to write results to
+     * @throws IOException                  if the source file cannot be read or the output cannot be written to
+     * @throws TokenizationException        if the source code could not be tokenized
+     * @throws ParseException               if the source code could not be parsed
+     * @throws FunctionNotFoundException    if a target function does not exist in the source code
+     */
+    public void run(Path sourceFile, Appendable output) throws IOException, TokenizationException, ParseException,
+            FunctionNotFoundException {
+
+        // Stream whole programs through the pipeline a chunk at a time if asked to.
+        if (arguments.isStream() && arguments.getMode() == Mode.DEFAULT) {
+            stream(sourceFile, output);
+            return;
+        }
+
+        // Answer from a snapshot of an earlier parse if asked to.
+        if (arguments.isSnapshot() && !SourceReader.isStandardInput(sourceFile)) {
+            runSnapshot(sourceFile, output);
+            return;
+        }
+
+        // Extract functions through the index if asked to, unless compiling to bytecode, which needs every function a
+        // target calls.
+        if (arguments.isIndex() && arguments.getMode() == Mode.EMIT_FUNCTIONS &&
+                arguments.getTargetLanguage() != TargetLanguage.BYTECODE && !SourceReader.isStandardInput(sourceFile)) {
+            FunctionIndex index = FunctionIndex.load(sourceFile);
+            if (index != null && runIndexed(index, sourceFile.toString(), output)) {
+                return;
+            }
+        }
+
+        // Read the whole source file.
+        PhaseTimer timer = PhaseTimer.start(Phase.READ, sourceFile.toString(), stats);
+        String source = sourceReader.get().read(sourceFile);
+        timer.stop("characters", source.length());
+        run(source, sourceFile.toString(), output);
+    }
+
+    /**
+     * Runs the pipeline over a source file, writing the results to a sink. Whole programs and target functions are
+     * written to a single file named after the source file, unless each function is to be written to a compilation
+     * unit of its own, in which case {@link #emitUnits(Program, String, OutputSink)} decides how files are named.
+     *
+     * @param sourceFile                    the path of the source file, or "-" for standard input
+     * @param name                          the name of the source file relative to the sink, such as "math/util"
+     * @param sink                          the sink to write files to
+     * @throws IOException                  if the source file cannot be read or the sink cannot be written to
+     * @throws TokenizationException        if the source code could not be tokenized
+     * @throws ParseException               if the source code could not be parsed
+     * @throws FunctionNotFoundException    if a target function does not exist in the source code
+     */
+    public void run(Path sourceFile, String name, OutputSink sink) throws IOException, TokenizationException,
+            ParseException, FunctionNotFoundException {
+
+        // Write everything to a single file unless asked otherwise.
+        if (!arguments.isPerFunction()) {
+            StringBuilder sb = new StringBuilder();
+            run(sourceFile, sb);
+            sink.write(name + ".java", sb);
+            return;
+        }
+
+        // Read and parse the whole source file.
+        PhaseTimer timer = PhaseTimer.start(Phase.READ, sourceFile.toString(), stats);
+        String source = sourceReader.get().read(sourceFile);
+        timer.stop("characters", source.length());
+        emitUnits(parse(source, sourceFile.toString()), name, sink);
+    }
+
+    /**
+     * Writes each function of a program, or each target function, to a compilation unit of its own. Each function
+     * becomes a public static method of a public final class named after it, in a package named after the source file,
+     * so that "max" in "math/util" is written to "math/util/Max.java" in the package "math.util". Every other function
+     * in the program is imported statically, so that calls between functions resolve as they would in a single file.
+     *
+     * @param program                       the parsed program
+     * @param name                          the name of the source file relative to the sink, such as "math/util"
+     * @param sink                          the sink to write files to
+     * @throws IOException                  if the sink cannot be written to
+     * @throws FunctionNotFoundException    if a target function does not exist in the program
+     */
+    public void emitUnits(Program program, String name, OutputSink sink) throws IOException,
+            FunctionNotFoundException {
+
+        // Choose the functions to write out, finding every target first so that nothing is written if one is missing.
+        List<Function> functions = new ArrayList<>();
+        if (arguments.getMode() == Mode.EMIT_FUNCTIONS && arguments.isClosure()) {
+            functions = CallGraph.of(program, arguments.isContracts()).closure(arguments.getTargetFunctions());
+        } else if (arguments.getMode() == Mode.EMIT_FUNCTIONS) {
+            for (String targetFunctionName : arguments.getTargetFunctions()) {
+                functions.add(findFunction(program, targetFunctionName));
+            }
+        } else {
+            for (Function function : program.getFunctions()) {
+                functions.add(function);
+            }
+        }
+
+        // Name a class after every function, even those not written out, so that calls to them can be imported.
+        StringBuilder packageName = new StringBuilder();
+        for (String segment : name.split("/")) {
+            if (!segment.isEmpty()) {
+                packageName.append(packageName.length() == 0 ? "" : ".").append(toIdentifier(segment, "_"));
+            }
+        }
+        if (packageName.length() == 0) {
+            packageName.append(ProgramCompiler.DEFAULT_CLASS_NAME.toLowerCase(Locale.ROOT));
+        }
+        Map<String, String> classNames = new LinkedHashMap<>();
+        Set<String> taken = new HashSet<>();
+        for (Function function : program.getFunctions()) {
+            String identifier = function.getIdentifier();
+            if (!classNames.containsKey(identifier)) {
+                String className = toIdentifier(Character.toUpperCase(identifier.charAt(0)) +
+                        identifier.substring(1), ProgramCompiler.DEFAULT_CLASS_NAME);
+                while (!taken.add(className.toLowerCase(Locale.ROOT))) {
+                    className += "_"; // Keep names apart on file systems that ignore case.
+                }
+                classNames.put(identifier, className);
+            }
+        }
+
+        // Wrap each function in a compilation unit, then format and write it out.
+        Transpiler transpiler = createTranspiler();
+        PrettyPrinter prettyPrinter = createPrettyPrinter();
+        PhaseTimer timer = PhaseTimer.start(Phase.EMIT, name, stats);
+        for (Function function : functions) {
+            String className = classNames.get(function.getIdentifier());
+            StringBuilder unit = new StringBuilder("package ").append(packageName).append(";\n");
+            for (Map.Entry<String, String> entry : classNames.entrySet()) {
+                if (!entry.getKey().equals(function.getIdentifier())) {
+                    unit.append("import static ").append(packageName).append('.').append(entry.getValue())
+                            .append('.').append(entry.getKey()).append(";\n");
+                }
+            }
+            unit.append("public final class ").append(className).append(" {\n").append("public static ");
+            transpileFunction(transpiler, function, program, unit);
+            unit.append("}\n");
+            StringBuilder sb = new StringBuilder();
+            Writer prettyWriter = createPrettyWriter(prettyPrinter, sb);
+            prettyWriter.append(unit);
+            prettyWriter.close();
+            sink.write(packageName.toString().replace('.', '/') + "/" + className + ".java", sb);
+        }
+        timer.stop("functions", functions.size());
+    }
+
+    /**
+     * Creates a task that runs one stage of a streamed run, taking each chunk from one queue and putting it on the
+     * next once the stage is done with it. Chunks that have already failed are passed along untouched, and the task
+     * ends once it has passed along the end of the source code or is interrupted. Anything the stage throws, errors
+     * such as running out of memory included, is passed along in place of the chunk, so that the caller always hears
+     * of it rather than waiting forever for a chunk that never comes.
+     *
+     * @param input     the queue to take chunks from
+     * @param output    the queue to put chunks on
+     * @param stage     the work to do on each chunk
+     * @param <T>       the type of what the stage is handed
+     * @param <R>       the type of what the stage makes of it
+     * @return          the task
+     */
+    @SuppressWarnings("unchecked")
+    private static <T, R> Runnable createStageTask(BlockingQueue<Chunk> input, BlockingQueue<Chunk> output,
+                                                   Stage<T, R> stage) {
+        return () -> {
+            try {
+                Chunk chunk;
+                do {
+                    chunk = input.take();
+                    if (chunk != END_OF_SOURCE && chunk.error == null) {
+                        try {
+                            chunk.content = stage.apply((T) chunk.content);
+                        } catch (Throwable e) {
+                            chunk.content = null;
+                            chunk.error = e;
+                        }
+                    }
+                    output.put(chunk);
+                } while (chunk != END_OF_SOURCE);
+            } catch (InterruptedException e) {
+                // Stopped because a later stage failed.
+            }
+        };
+    }
+
+    /**
+     * Runs the pipeline over a whole source file a chunk at a time, writing the results to an output.
+     *
+     * The source file is split into chunks at top-level declarations as it is read, and each chunk is tokenized,
+     * filtered, parsed and transpiled alone, each stage on a thread of its own, while the calling thread pretty prints
+     * chunks to the output in order. Stages are joined by small bounded queues, so a stage that gets ahead waits for
+     * the next, and a chunk is let go once it has been written. Memory use therefore stays about the same whatever the
+     * size of the source file. Within each chunk, axioms and predicates are written ahead of functions, as they are
+     * for a whole program. Only Java output can be streamed, as compiling a chunk to bytecode needs every function it
+     * calls, wherever in the source file they are.
+     *
+     * @param sourceFile                the path of the source file, or "-" for standard input
+     * @param output                    the output to write results to
+     * @throws IOException              if the source file cannot be read or the output cannot be written to
+     * @throws TokenizationException    if a chunk of source code could not be tokenized
+     * @throws ParseException           if a chunk of source code could not be parsed
+     */
+    public void stream(Path sourceFile, Appendable output) throws IOException, TokenizationException,
+            ParseException {
+        String name = sourceFile.toString();
+        BlockingQueue<Chunk> sources = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+        BlockingQueue<Chunk> tokenStreams = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+        BlockingQueue<Chunk> programs = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+        BlockingQueue<Chunk> transpiled = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+        ExecutorService stages = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "haha-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (SourceChunker chunker = new SourceChunker(sourceFile, SourceChunker.DEFAULT_CHUNK_SIZE)) {
+
+            // Read and split source code.
+            stages.execute(() -> {
+                try {
+                    while (true) {
+                        PhaseTimer timer = PhaseTimer.start(Phase.READ, name, stats);
+                        Chunk chunk;
+                        try {
+                            String source = chunker.next();
+                            if (source == null) {
+                                break;
+                            }
+                            timer.stop("characters", source.length());
+                            chunk = new Chunk(source);
+                        } catch (Throwable e) {
+                            chunk = new Chunk(null);
+                            chunk.error = e;
+                        }
+                        sources.put(chunk);
+                        if (chunk.error != null) {
+                            break;
+                        }
+                    }
+                    sources.put(END_OF_SOURCE);
+                } catch (InterruptedException e) {
+                    // Stopped because a later stage failed.
+                }
+            });
+
+            // Tokenize and discard empty statements.
+            stages.execute(createStageTask(sources, tokenStreams, (String source) -> tokenize(source, name)));
+
+            // Parse.
+            stages.execute(createStageTask(tokenStreams, programs, (TokenStream tokenStream) -> {
+                PhaseTimer timer = PhaseTimer.start(Phase.PARSE, name, stats);
+                Program program = Program.parse(tokenStream);
+                timer.stop("functions", countFunctions(program));
+                return program;
+            }));
+
+            // Transpile.
+            Transpiler transpiler = createTranspiler();
+            stages.execute(createStageTask(programs, transpiled, (Program program) -> {
+                PhaseTimer timer = PhaseTimer.start(Phase.EMIT, name, stats);
+                String code = transpiler.transpile(program);
+                timer.stop("functions", countFunctions(program));
+                return code;
+            }));
+
+            // Pretty print each chunk in order as it arrives, stopping at the first failure.
+            Writer prettyWriter = createPrettyWriter(createPrettyPrinter(), output);
+            Chunk chunk = transpiled.take();
+            while (chunk != END_OF_SOURCE) {
+                if (chunk.error instanceof IOException) {
+                    throw (IOException) chunk.error;
+                } else if (chunk.error instanceof TokenizationException) {
+                    throw (TokenizationException) chunk.error;
+                } else if (chunk.error instanceof ParseException) {
+                    throw (ParseException) chunk.error;
+                } else if (chunk.error instanceof RuntimeException) {
+                    throw (RuntimeException) chunk.error;
+                } else if (chunk.error instanceof Error) {
+                    throw (Error) chunk.error;
+                } else if (chunk.error != null) {
+                    throw new IOException(chunk.error);
+                }
+                prettyWriter.append((String) chunk.content);
+                prettyWriter.flush();
+                chunk = transpiled.take();
+            }
+            prettyWriter.close();
+            output.append(System.lineSeparator());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while streaming '" + name + "'");
+        } finally {
+            stages.shutdownNow();
+        }
+    }
+
+    /**
+     * Compiles a source file straight to bytecode, writing a class file or, if the output file name ends in ".jar", a
+     * jar holding the class. The class is named after the output file.
+     *
+     * @param sourceFile                the path of the source file, or "-" for standard input
+     * @param outputFile                the path of the class file or jar to write
+     * @throws IOException              if the source file cannot be read or the output file cannot be written
+     * @throws TokenizationException    if the source code could not be tokenized
+     * @throws ParseException           if the source code could not be parsed
+     * @throws BytecodeException        if the program cannot be compiled to bytecode
+     */
+    public void compile(Path sourceFile, Path outputFile) throws IOException, TokenizationException, ParseException {
+
+        // Read and parse the whole source file.
+        PhaseTimer timer = PhaseTimer.start(Phase.READ, sourceFile.toString(), stats);
+        String source = sourceReader.get().read(sourceFile);
+        timer.stop("characters", source.length());
+        Program program = parse(source, sourceFile.toString());
+
+        // Compile to a class named after the output file.
+        String fileName = outputFile.getFileName().toString();
+        boolean jar = fileName.toLowerCase().endsWith(".jar");
+        BytecodeTranspiler transpiler = createBytecodeTranspiler();
+        transpiler.setClassName(getClassName(fileName));
+        timer = PhaseTimer.start(Phase.EMIT, sourceFile.toString(), stats);
+        byte[] classFile = transpiler.compile(program);
+        timer.stop("bytes", classFile.length);
+
+        // Write out the class file, wrapped in a jar if asked to.
+        if (!jar) {
+            Files.write(outputFile, classFile);
+            return;
+        }
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        try (OutputStream stream = Files.newOutputStream(outputFile);
+             JarOutputStream jarStream = new JarOutputStream(stream, manifest)) {
+            jarStream.putNextEntry(new JarEntry(transpiler.getClassName().replace('.', '/') + ".class"));
+            jarStream.write(classFile);
+            jarStream.closeEntry();
+        }
+    }
+
+    /**
+     * Derives a class name from the name of a class file or jar.
+     *
+     * @param fileName  the file name
+     * @return          the class name
+     */
+    private static String getClassName(String fileName) {
+
+        // Strip the extension.
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot > 0 ? fileName.substring(0, dot) : fileName;
+
+        return toIdentifier(stem, BytecodeTranspiler.DEFAULT_CLASS_NAME);
+    }
+
+    /**
+     * Makes a Java identifier from text by replacing anything that cannot appear in one, and appending an underscore
+     * to keywords.
+     *
+     * @param text      the text
+     * @param fallback  the identifier to use if the text is empty
+     * @return          the identifier
+     */
+    private static String toIdentifier(String text, String fallback) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            sb.append((i == 0 ? Character.isJavaIdentifierStart(c) : Character.isJavaIdentifierPart(c)) ? c : '_');
+        }
+        if (sb.length() == 0) {
+            return fallback;
+        }
+        return SourceVersion.isKeyword(sb) ? sb.append('_').toString() : sb.toString();
+    }
+
+    /**
+     * Compiles a source file in memory and makes the call given in the arguments, writing out the value returned.
+     *
+     * Programs are compiled through Java with the Java compiler, reusing classes compiled from the same Java source
+     * earlier, or straight to bytecode if that is the target language.
+     *
+     * @param sourceFile                    the path of the source file, or "-" for standard input
+     * @param output                        the output to write the value returned to
+     * @throws IOException                  if the source file cannot be read or the output cannot be written to
+     * @throws TokenizationException        if the source code could not be tokenized
+     * @throws ParseException               if the source code could not be parsed
+     * @throws FunctionNotFoundException    if the function called does not exist in the source code
+     * @throws CompilationException         if the program could not be compiled by the Java compiler
+     * @throws ArgumentsException           if the call is malformed or does not match the function
+     * @throws InvocationTargetException    if the function threw an exception
+     */
+    public void execute(Path sourceFile, Appendable output) throws IOException, TokenizationException,
+            ParseException, FunctionNotFoundException, CompilationException, ArgumentsException,
+            InvocationTargetException {
+
+        // Read and parse the whole source file.
+        String name = sourceFile.toString();
+        PhaseTimer timer = PhaseTimer.start(Phase.READ, name, stats);
+        String source = sourceReader.get().read(sourceFile);
+        timer.stop("characters", source.length());
+        Program program = parse(source, name);
+
+        // Compile and load the program.
+        timer = PhaseTimer.start(Phase.COMPILE, name, stats);
+        CompiledProgram compiledProgram = arguments.getTargetLanguage() == TargetLanguage.BYTECODE ?
+                CompiledProgram.of(createBytecodeTranspiler().load(program, TranspilationJob.class.getClassLoader())) :
+                getProgramCompiler().compile(program);
+        timer.stop("functions", compiledProgram.getIdentifiers().size());
+
+        // Make the call and write out what it returns.
+        String call = arguments.getCall().trim();
+        int open = call.indexOf('(');
+        String identifier = (open < 0 ? call : call.substring(0, open)).trim();
+        Object[] values = parseCallArguments(call, open, compiledProgram.getHandle(identifier).type());
+        output.append(formatValue(compiledProgram.invoke(identifier, values))).append(System.lineSeparator());
+    }
+
+    /**
+     * Splits text at each comma that is not between braces.
+     *
+     * @param text  the text to split
+     * @return      the parts, or no parts if the text is blank
+     */
+    private static List<String> splitValues(String text) {
+        List<String> parts = new ArrayList<>();
+        if (text.trim().isEmpty()) {
+            return parts;
+        }
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                parts.add(text.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        parts.add(text.substring(start).trim());
+        return parts;
+    }
+
+    /**
+     * Parses a value written in a call.
+     *
+     * @param text                  the value as written, such as "1", "true" or "{1, 2}"
+     * @param type                  the type of the parameter the value is for
+     * @param call                  the whole call, for reporting errors
+     * @return                      the value, boxed where necessary
+     * @throws ArgumentsException   if the value is not of the type
+     */
+    private static Object parseValue(String text, Class<?> type, String call) throws ArgumentsException {
+        try {
+            if (type == int.class) {
+                return Integer.parseInt(text);
+            } else if (type == boolean.class && (text.equals("true") || text.equals("false"))) {
+                return Boolean.parseBoolean(text);
+            } else if (type.isArray() && text.startsWith("{") && text.endsWith("}")) {
+                List<String> elements = splitValues(text.substring(1, text.length() - 1));
+                Object array = Array.newInstance(type.getComponentType(), elements.size());
+                for (int i = 0; i < elements.size(); i++) {
+                    Array.set(array, i, parseValue(elements.get(i), type.getComponentType(), call));
+                }
+                return array;
+            }
+        } catch (NumberFormatException e) {
+            // Handled below.
+        }
+        throw new ArgumentsException("The value '" + text + "' in the call '" + call + "' is not of type " +
+                type.getSimpleName() + ".");
+    }
+
+    /**
+     * Parses the values written between the parentheses of a call.
+     *
+     * @param call                  the call, such as "f(1, {2, 3}, true)"
+     * @param open                  the index of the opening parenthesis, or -1 if there is none
+     * @param type                  the type of the function called
+     * @return                      the values, boxed where necessary
+     * @throws ArgumentsException   if the call is malformed or its values do not match the parameters
+     */
+    private static Object[] parseCallArguments(String call, int open, MethodType type) throws ArgumentsException {
+        if (open >= 0 && !call.endsWith(")")) {
+            throw new ArgumentsException("The call '" + call + "' has no closing parenthesis.");
+        }
+        List<String> texts = open < 0 ? new ArrayList<>() : splitValues(call.substring(open + 1, call.length() - 1));
+        if (texts.size() != type.parameterCount()) {
+            throw new ArgumentsException("The call '" + call + "' passes " + texts.size() + " arguments but the " +
+                    "function takes " + type.parameterCount() + ".");
+        }
+        Object[] values = new Object[texts.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = parseValue(texts.get(i), type.parameterType(i), call);
+        }
+        return values;
+    }
+
+    /**
+     * Formats a value returned by a function in the same way values are written in calls.
+     *
+     * @param value the value, boxed where necessary
+     * @return      the formatted value
+     */
+    private static String formatValue(Object value) {
+        if (value == null || !value.getClass().isArray()) {
+            return String.valueOf(value);
+        }
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < Array.getLength(value); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(formatValue(Array.get(value, i)));
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Runs the pipeline over a source file through its snapshot, answering from the snapshot without parsing if it is
+     * up to date, and otherwise parsing the whole source file. A snapshot is only taken if there was no snapshot that
+     * was up to date, so an unchanged source file never has its snapshot written again.
+     *
+     * @param sourceFile                    the path of the source file
+     * @param output                        the output to write results to
+     * @throws IOException                  if the source file cannot be read or the output cannot be written to
+     * @throws TokenizationException        if the source code could not be tokenized
+     * @throws ParseException               if the source code could not be parsed
+     * @throws FunctionNotFoundException    if a target function does not exist in the source code
+     */
+    private void runSnapshot(Path sourceFile, Appendable output) throws IOException, TokenizationException,
+            ParseException, FunctionNotFoundException {
+
+        // Whole programs need every function parsed, so the snapshot is only checked to see if it needs taking.
+        String name = sourceFile.toString();
+        ProgramSnapshot snapshot = ProgramSnapshot.load(sourceFile);
+        if (snapshot != null && arguments.getMode() != Mode.DEFAULT && runSnapshot(snapshot, name, output)) {
+            return;
+        }
+
+        // Note the modification time before reading, so that a change made while reading makes the snapshot stale.
+        long modified = Files.getLastModifiedTime(sourceFile).toMillis();
+        PhaseTimer timer = PhaseTimer.start(Phase.READ, name, stats);
+        String source = sourceReader.get().read(sourceFile);
+        timer.stop("characters", source.length());
+        Program program = parse(source, name);
+        if (snapshot == null) {
+            ProgramSnapshot.write(sourceFile, modified, source, program);
+        }
+        run(program, name, output);
+    }
+
+    /**
+     * Runs the enumeration, arity or emission mode from a snapshot. Target functions are emitted from the cache where
+     * their fingerprints show their output is already there, and otherwise sliced out of the source file and parsed
+     * alone.
+     *
+     * @param snapshot                      the snapshot of the source file
+     * @param name                          the name of the source file
+     * @param output                        the output to write results to
+     * @return                              true if the results were written, or false if a slice could not be parsed
+     *                                      and the whole source file should be parsed instead
+     * @throws IOException                  if the source file cannot be read or the output cannot be written to
+     * @throws FunctionNotFoundException    if a target function does not exist in the source file
+     */
+    private boolean runSnapshot(ProgramSnapshot snapshot, String name, Appendable output) throws IOException,
+            FunctionNotFoundException {
+        switch (arguments.getMode()) {
+            case ENUMERATE_FUNCTIONS:
+                // Just print out all function names.
+                for (ProgramSnapshot.Entry entry : snapshot.getFunctions()) {
+                    output.append(entry.getIdentifier()).append(System.lineSeparator());
+                }
+                return true;
+            case GET_ARITY:
+                // Find each target function in turn and print its arity.
+                for (String targetFunctionName : arguments.getTargetFunctions()) {
+                    ProgramSnapshot.Entry entry = snapshot.get(targetFunctionName);
+                    if (entry == null) {
+                        throw new FunctionNotFoundException(targetFunctionName);
+                    }
+                    output.append(Integer.toString(entry.getArity())).append(System.lineSeparator());
+                }
+                return true;
+            case EMIT_FUNCTIONS:
+                break;
+            default:
+                return false;
+        }
+
+        // Following calls between functions needs their bodies, and bytecode needs every function a target calls to
+        // compile it, so parse the whole source file for those.
+        if (arguments.isClosure() || arguments.getTargetLanguage() == TargetLanguage.BYTECODE) {
+            return false;
+        }
+
+        // Find cached output or parse every function up front, so nothing is written if we have to fall back.
+        List<Object> emitted = new ArrayList<>();
+        String missing = null;
+        String salt = cache == null ? null : getPrettyCacheSalt();
+        for (String targetFunctionName : arguments.getTargetFunctions()) {
+            ProgramSnapshot.Entry entry = snapshot.get(targetFunctionName);
+            if (entry == null) {
+                missing = targetFunctionName;
+                break;
+            }
+            String cached = cache == null ? null : cache.get(snapshot.getFingerprint(entry, salt));
+            if (cached != null) {
+                emitted.add(cached);
+                continue;
+            }
+            String slice = snapshot.slice(entry);
+            if (slice == null) {
+                return false;
+            }
+            try {
+                emitted.add(findFunction(parse(slice, name), targetFunctionName));
+            } catch (TokenizationException | ParseException | FunctionNotFoundException e) {
+                return false;
+            }
+        }
+
+        // Emit functions found, stopping at the first one not found.
+        Transpiler transpiler = createTranspiler(null);
+        PrettyPrinter prettyPrinter = createPrettyPrinter();
+        PhaseTimer timer = PhaseTimer.start(Phase.EMIT, name, stats);
+        for (Object function : emitted) {
+            if (function instanceof Function) {
+                emitFunction(transpiler, prettyPrinter, (Function) function, null, output);
+            } else {
+                output.append((String) function);
+            }
+            output.append(System.lineSeparator());
+        }
+        timer.stop("functions", emitted.size());
+        if (missing != null) {
+            throw new FunctionNotFoundException(missing);
+        }
+        return true;
+    }
+
+    /**
+     * Emits target functions by slicing each out of an indexed source file and parsing it alone, along with every
+     * function they need if asked to.
+     *
+     * @param index                         the index of the source file
+     * @param name                          the name of the source file
+     * @param output                        the output to write results to
+     * @return                              true if the functions were emitted, or false if a slice could not be parsed
+     *                                      and the whole source file should be parsed instead
+     * @throws IOException                  if the output cannot be written to
+     * @throws FunctionNotFoundException    if a target function does not exist in the source file
+     */
+    private boolean runIndexed(FunctionIndex index, String name, Appendable output) throws IOException,
+            FunctionNotFoundException {
+
+        // Parse every function up front, so nothing is written if we have to fall back.
+        List<Function> functions = new ArrayList<>();
+        String missing = null;
+        Set<String> reached = new LinkedHashSet<>(Arrays.asList(arguments.getTargetFunctions()));
+        Deque<String> pending = new ArrayDeque<>(reached);
+        while (!pending.isEmpty()) {
+            String targetFunctionName = pending.poll();
+            FunctionIndex.Entry entry = index.get(targetFunctionName);
+            if (entry == null) {
+                missing = targetFunctionName;
+                break;
+            }
+            Function function;
+            try {
+                function = findFunction(parse(index.slice(entry), name), targetFunctionName);
+            } catch (TokenizationException | ParseException | FunctionNotFoundException e) {
+                return false;
+            }
+            functions.add(function);
+
+            // Slice out the functions this one needs as well if asked to, leaving the rest of the file untouched.
+            if (arguments.isClosure()) {
+                for (String reference : CallGraph.getReferences(function, arguments.isContracts())) {
+                    if (index.get(reference) != null && reached.add(reference)) {
+                        pending.add(reference);
+                    }
+                }
+            }
+        }
+
+        // Emit functions found, stopping at the first one not found.
+        Transpiler transpiler = createTranspiler(null);
+        PrettyPrinter prettyPrinter = createPrettyPrinter();
+        PhaseTimer timer = PhaseTimer.start(Phase.EMIT, name, stats);
+        for (Function function : functions) {
+            emitFunction(transpiler, prettyPrinter, function, null, output);
+            output.append(System.lineSeparator());
+        }
+        timer.stop("functions", functions.size());
+        if (missing != null) {
+            throw new FunctionNotFoundException(missing);
+        }
+        return true;
+    }
+
+    /**
+     * Runs the pipeline over source code, writing the results to an output.
+     *
+     * @param source                        the source code
+     * @param output                        the output to write results to
+     * @throws IOException                  if the output cannot be written to
+     * @throws TokenizationException        if the source code could not be tokenized
+     * @throws ParseException               if the source code could not be parsed
+     * @throws FunctionNotFoundException    if a target function does not exist in the source code
+     */
+    public void run(String source, Appendable output) throws IOException, TokenizationException, ParseException,
+            FunctionNotFoundException {
+        run(source, null, output);
+    }
+
+    /**
+     * Runs the pipeline over named source code, writing the results to an output.
+     *
+     * @param source                        the source code
+     * @param name                          the name of the source code, or null if it has none
+     * @param output                        the output to write results to
+     * @throws IOException                  if the output cannot be written to
+     * @throws TokenizationException        if the source code could not be tokenized
+     * @throws ParseException               if the source code could not be parsed
+     * @throws FunctionNotFoundException    if a target function does not exist in the source code
+     */
+    private void run(String source, String name, Appendable output) throws IOException, TokenizationException,
+            ParseException, FunctionNotFoundException {
+
+        // Modes that only need function headers can skip parsing bodies.
+        if (!arguments.isFullParse() && (arguments.getMode() == Mode.ENUMERATE_FUNCTIONS ||
+                arguments.getMode() == Mode.GET_ARITY)) {
+            PhaseTimer timer = PhaseTimer.start(Phase.PARSE, name, stats);
+            List<FunctionSignature> signatures = SignatureScanner.scan(source);
+            if (signatures != null) {
+                timer.stop("functions", signatures.size());
+                run(signatures, output);
+                return;
+            }
+        }
+        run(parse(source, name), name, output);
+    }
+
+    /**
+     * Finds a function header by name.
+     *
+     * @param signatures                    the function headers to search
+     * @param identifier                    the name of the function
+     * @return                              the function header
+     * @throws FunctionNotFoundException    if there is no function header with the name
+     */
+    private FunctionSignature findSignature(List<FunctionSignature> signatures, String identifier)
+            throws FunctionNotFoundException {
+        for (FunctionSignature signature : signatures) {
+            if (identifier.equals(signature.getIdentifier())) {
+                return signature;
+            }
+        }
+        throw new FunctionNotFoundException(identifier);
+    }
+
+    /**
+     * Runs the enumeration or arity mode over function headers alone, writing the results to an output.
+     *
+     * @param signatures                    the function headers
+     * @param output                        the output to write results to
+     * @throws IOException                  if the output cannot be written to
+     * @throws FunctionNotFoundException    if a target function does not exist
+     */
+    private void run(List<FunctionSignature> signatures, Appendable output) throws IOException,
+            FunctionNotFoundException {
+        switch (arguments.getMode()) {
+            case ENUMERATE_FUNCTIONS:
+                // Just print out all function names.
+                for (FunctionSignature signature : signatures) {
+                    output.append(signature.getIdentifier()).append(System.lineSeparator());
+                }
+                break;
+            case GET_ARITY:
+                // Find each target function in turn and print its arity.
+                for (String targetFunctionName : arguments.getTargetFunctions()) {
+                    FunctionSignature signature = findSignature(signatures, targetFunctionName);
+                    output.append(Integer.toString(signature.getArity())).append(System.lineSeparator());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Runs the back end of the pipeline over a parsed program, writing the results to an output.
+     *
+     * @param program                       the parsed program
+     * @param output                        the output to write results to
+     * @throws IOException                  if the output cannot be written to
+     * @throws FunctionNotFoundException    if a target function does not exist in the program
+     */
+    public void run(Program program, Appendable output) throws IOException, FunctionNotFoundException {
+        run(program, null, output);
+    }
+
+    /**
+     * Runs the back end of the pipeline over a parsed program, timing emission.
+     *
+     * @param program                       the parsed program
+     * @param name                          the name of the source code the program was parsed from, or null
+     * @param output                        the output to write results to
+     * @throws IOException                  if the output cannot be written to
+     * @throws FunctionNotFoundException    if a target function does not exist in the program
+     */
+    private void run(Program program, String name, Appendable output) throws IOException,
+            FunctionNotFoundException {
+
+        // Select transpiler and pretty printer based on target language, caching single functions only once printed.
+        Transpiler transpiler = createTranspiler(arguments.getMode() == Mode.EMIT_FUNCTIONS ? null : cache);
+        PrettyPrinter prettyPrinter = createPrettyPrinter();
+
+        // Detect application mode.
+        switch (arguments.getMode()) {
+            case DEFAULT:
+                // Transpile the whole program, formatting and writing out one function at a time.
+                PhaseTimer timer = PhaseTimer.start(Phase.EMIT, name, stats);
+                Writer prettyWriter = createPrettyWriter(prettyPrinter, output);
+                transpiler.transpile(program, prettyWriter);
+                prettyWriter.close();
+                timer.stop("functions", countFunctions(program));
+                output.append(System.lineSeparator());
+                break;
+            case ENUMERATE_FUNCTIONS:
+                // Just print out all function names.
+                for (Function function : program.getFunctions()) {
+                    output.append(function.getIdentifier()).append(System.lineSeparator());
+                }
+                break;
+            case EMIT_FUNCTIONS:
+                // Emit each target function in turn, along with every function they need if asked to.
+                PhaseTimer emitTimer = PhaseTimer.start(Phase.EMIT, name, stats);
+                if (arguments.isClosure()) {
+                    List<Function> closure = CallGraph.of(program, arguments.isContracts())
+                            .closure(arguments.getTargetFunctions());
+                    for (Function function : closure) {
+                        emitFunction(transpiler, prettyPrinter, function, program, output);
+                        output.append(System.lineSeparator());
+                    }
+                    emitTimer.stop("functions", closure.size());
+                    break;
+                }
+                for (String targetFunctionName : arguments.getTargetFunctions()) {
+                    Function function = findFunction(program, targetFunctionName);
+                    emitFunction(transpiler, prettyPrinter, function, program, output);
+                    output.append(System.lineSeparator());
+                }
+                emitTimer.stop("functions", arguments.getTargetFunctions().length);
+                break;
+            case GET_ARITY:
+                // Find each target function in turn and print its arity.
+                for (String targetFunctionName : arguments.getTargetFunctions()) {
+                    Function function = findFunction(program, targetFunctionName);
+                    output.append(Integer.toString(function.getArguments().length))
+                            .append(System.lineSeparator());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.sauljohnson.humoresque.transpiler;
 import com.sauljohnson.humoresque.parser.model.Function;
 import com.sauljohnson.humoresque.parser.model.Program;
 
+import java.io.IOException;
+
 /**
  * Represents a code transpilation service.
  *
@@ -27,4 +29,23 @@ public interface Transpiler {
      * @return          the transpiled program source code
      */
     String transpile(Program program);
+
+    /**
+     * Transpiles a function to a target language, writing the result to an output.
+     *
+     * @param function      the function to transpile
+     * @param output        the output to write the transpiled function source code to
+     * @throws IOException  if the output cannot be written to
+     */
+    void transpileFunction(Function function, Appendable output) throws IOException;
+
+    /**
+     * Transpiles a program to a target language, writing the result to an output one function at a time. If the output
+     * is {@link java.io.Flushable} it is flushed after each function.
+     *
+     * @param program       the program to transpile
+     * @param output        the output to write the transpiled program source code to
+     * @throws IOException  if the output cannot be written to
+     */
+    void transpile(Program program, Appendable output) throws IOException;
 }
@@ -0,0 +1,82 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Represents a thin client that forwards a command line to a running {@link TranspilerServer} and relays the result.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public final class TranspilerClient {
+
+    private TranspilerClient() { }
+
+    /**
+     * Forwards a command line to a running daemon, writing its output and errors out as they arrive.
+     *
+     * @param port          the local port the daemon is listening on
+     * @param args          the command line to forward
+     * @param output        the stream to write output to
+     * @param errors        the stream to write errors to
+     * @return              the exit status returned by the daemon
+     * @throws IOException  if the daemon's token cannot be read, the daemon cannot be reached or the connection fails
+     */
+    public static int forward(int port, String[] args, OutputStream output, OutputStream errors) throws IOException {
+
+        // Read the token the daemon wrote out when it started, which only the user running it can.
+        Path tokenFile = DaemonProtocol.getTokenFile(port);
+        String token;
+        try {
+            token = new String(Files.readAllBytes(tokenFile), StandardCharsets.UTF_8).trim();
+        } catch (NoSuchFileException e) {
+            throw new IOException("No daemon token found at '" + tokenFile + "'.", e);
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+
+            // Send request.
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            request.writeInt(DaemonProtocol.VERSION);
+            request.writeUTF(token);
+            request.writeUTF(Paths.get("").toAbsolutePath().toString());
+            request.writeInt(args.length);
+            for (String arg : args) {
+                request.writeUTF(arg);
+            }
+            request.flush();
+
+            // Relay frames until the exit status arrives.
+            DataInputStream response = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buffer = new byte[8192];
+            while (true) {
+                byte channel = response.readByte();
+                if (channel == DaemonProtocol.EXIT) {
+                    output.flush();
+                    errors.flush();
+                    return response.readInt();
+                }
+                OutputStream target = channel == DaemonProtocol.STDERR ? errors : output;
+                int remaining = response.readInt();
+                while (remaining > 0) {
+                    int read = response.read(buffer, 0, Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new EOFException();
+                    }
+                    target.write(buffer, 0, read);
+                    remaining -= read;
+                }
+                if (response.available() == 0) {
+                    target.flush(); // Nothing more waiting, so show what we have.
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents a long-running transpiler daemon that serves requests from {@link TranspilerClient} over a local TCP port.
+ *
+ * Keeping one JVM running means class loading and JIT compilation are paid for once rather than on every invocation.
+ * Requests are handled concurrently, and the daemon shuts itself down once it has been idle for a set time. Requests
+ * must carry a token written to a file only the daemon's owner can read, as they read and write files as that user.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public class TranspilerServer {
+
+    private final int port;
+
+    private final long idleTimeoutMillis;
+
+    private final AtomicInteger activeRequests;
+
+    private volatile long lastActivity;
+
+    private byte[] token;
+
+    /**
+     * Represents an output stream that sends everything written to it as frames on one channel of a response.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream response;
+
+        private final byte channel;
+
+        private FrameOutputStream(DataOutputStream response, byte channel) {
+            this.response = response;
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+            synchronized (response) {
+                response.writeByte(channel);
+                response.writeInt(len);
+                response.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (response) {
+                response.flush();
+            }
+        }
+    }
+
+    /**
+     * Initialises a new instance of a long-running transpiler daemon.
+     *
+     * @param port              the local port to listen on, or 0 to pick any free port
+     * @param idleTimeoutMillis the time to wait without requests before shutting down, in milliseconds
+     */
+    public TranspilerServer(int port, long idleTimeoutMillis) {
+        this.port = port;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        activeRequests = new AtomicInteger();
+    }
+
+    /**
+     * Resolves a path given by a client against the client's working directory.
+     *
+     * @param workingDirectory  the client's working directory
+     * @param path              the path, which may be null
+     * @return                  the resolved path, or null if none was given
+     */
+    private static String resolve(Path workingDirectory, String path) {
+        return path == null ? null : workingDirectory.resolve(path).toString();
+    }
+
+    /**
+     * Resolves every path in a set of arguments against a client's working directory, since the daemon's own working
+     * directory is likely to be different.
+     *
+     * @param arguments         the arguments
+     * @param workingDirectory  the client's working directory
+     */
+    private static void resolvePaths(Arguments arguments, Path workingDirectory) {
+        arguments.setSourceFile(resolve(workingDirectory, arguments.getSourceFile()));
+        arguments.setCacheDirectory(resolve(workingDirectory, arguments.getCacheDirectory()));
+        arguments.setOutputFile(resolve(workingDirectory, arguments.getOutputFile()));
+        arguments.setOutputDirectory(resolve(workingDirectory, arguments.getOutputDirectory()));
+        arguments.setOutputArchive(resolve(workingDirectory, arguments.getOutputArchive()));
+        String[] sourceFiles = arguments.getSourceFiles();
+        if (sourceFiles != null) {
+            for (int i = 0; i < sourceFiles.length; i++) {
+                sourceFiles[i] = resolve(workingDirectory, sourceFiles[i]);
+            }
+        }
+    }
+
+    /**
+     * Makes up a new token and writes it to the token file for a port, readable only by the current user where the
+     * file system allows it.
+     *
+     * @param port          the port being listened on
+     * @return              the token
+     * @throws IOException  if the token file cannot be written
+     */
+    private static String writeToken(int port) throws IOException {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        // Write to a private file first, then move it into place, so that the token is never readable by others.
+        Path tokenFile = DaemonProtocol.getTokenFile(port);
+        Files.createDirectories(tokenFile.getParent());
+        Path staging;
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            staging = Files.createTempFile(tokenFile.getParent(), "daemon", ".tmp",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            staging = Files.createTempFile(tokenFile.getParent(), "daemon", ".tmp");
+        }
+        try {
+            Files.write(staging, token.getBytes(StandardCharsets.UTF_8));
+            Files.move(staging, tokenFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+        return token;
+    }
+
+    /**
+     * Handles a single request from a client.
+     *
+     * @param socket    the connection to the client
+     */
+    private void handle(Socket socket) {
+        try (Socket connection = socket) {
+
+            // Read in request.
+            DataInputStream request = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+            if (request.readInt() != DaemonProtocol.VERSION) {
+                return; // Client from a different version, just hang up.
+            }
+            if (!MessageDigest.isEqual(token, request.readUTF().getBytes(StandardCharsets.UTF_8))) {
+                return; // Client without the token, so not to be trusted with the daemon's files.
+            }
+            Path workingDirectory = Paths.get(request.readUTF());
+            String[] args = new String[request.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = request.readUTF();
+            }
+
+            // Run as though invoked from the command line, sending output back as it is produced.
+            DataOutputStream response = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+            Writer output = new BufferedWriter(new OutputStreamWriter(
+                    new FrameOutputStream(response, DaemonProtocol.STDOUT), StandardCharsets.UTF_8));
+            PrintStream errors = new PrintStream(new FrameOutputStream(response, DaemonProtocol.STDERR), true,
+                    StandardCharsets.UTF_8.name());
+            int status;
+            try {
+                Arguments parsedArgs = Main.parseArguments(args);
+                if (parsedArgs.getServePort() >= 0) {
+                    throw new ArgumentsException("The daemon cannot start another daemon.");
+                }
+                if (parsedArgs.isWatch()) {
+                    throw new ArgumentsException("The daemon cannot watch source files, as it would never finish.");
+                }
+                if (SourceReader.STANDARD_INPUT.equals(parsedArgs.getSourceFile())) {
+                    throw new ArgumentsException("The daemon cannot read from standard input.");
+                }
+                resolvePaths(parsedArgs, workingDirectory);
+                status = Main.run(parsedArgs, output, errors);
+            } catch (ArgumentsException e) {
+                errors.println(e.getMessage());
+                status = 1;
+            } catch (RuntimeException e) {
+                errors.println("The daemon failed: " + e);
+                status = 1;
+            }
+            output.flush();
+            errors.flush();
+
+            // Finish with exit status.
+            synchronized (response) {
+                response.writeByte(DaemonProtocol.EXIT);
+                response.writeInt(status);
+                response.flush();
+            }
+        } catch (IOException e) {
+            // Client went away, nothing more to do.
+        } finally {
+            lastActivity = System.currentTimeMillis();
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    /**
+     * Listens for and handles requests until the daemon has been idle for longer than its timeout.
+     *
+     * @param errors        the stream to report the port being listened on to
+     * @throws IOException  if the port cannot be listened on
+     */
+    public void serve(PrintStream errors) throws IOException {
+        ExecutorService handlers = Executors.newCachedThreadPool();
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor();
+        ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        Path tokenFile = DaemonProtocol.getTokenFile(serverSocket.getLocalPort());
+        try {
+            token = writeToken(serverSocket.getLocalPort()).getBytes(StandardCharsets.UTF_8);
+            errors.println("Listening on port " + serverSocket.getLocalPort() + ".");
+
+            // Close the socket once idle for long enough, which ends the accept loop below.
+            lastActivity = System.currentTimeMillis();
+            long period = Math.max(100, Math.min(idleTimeoutMillis / 4, 1000));
+            watchdog.scheduleAtFixedRate(() -> {
+                if (activeRequests.get() == 0 && System.currentTimeMillis() - lastActivity > idleTimeoutMillis) {
+                    try {
+                        serverSocket.close();
+                    } catch (IOException e) {
+                        // Already closed.
+                    }
+                }
+            }, period, period, TimeUnit.MILLISECONDS);
+
+            // Hand each connection off to its own thread.
+            while (true) {
+                Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (SocketException e) {
+                    break; // Socket closed by the watchdog.
+                }
+                activeRequests.incrementAndGet();
+                lastActivity = System.currentTimeMillis();
+                handlers.execute(() -> handle(socket));
+            }
+        } finally {
+            serverSocket.close();
+            watchdog.shutdownNow();
+            handlers.shutdown();
+            Files.deleteIfExists(tokenFile);
+        }
+    }
+}
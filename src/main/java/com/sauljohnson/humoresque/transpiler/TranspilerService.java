@@ -0,0 +1,500 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.*;
+import com.sauljohnson.humoresque.parser.model.Program;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Represents a transpiler for embedding in other applications, configured once and then safe to share between any
+ * number of threads.
+ *
+ * A service is built with {@link #builder()} and cannot be reconfigured afterwards. Each call borrows a worker, being a
+ * transpiler, pretty printer and output buffer, from a pool kept by the service and gives it back when done, so calls
+ * neither contend with one another nor allocate more than their output. Workers are not tied to threads, so they are
+ * reused just the same whether calls come from a few long-lived threads or a virtual thread each. Only as many idle
+ * workers are kept as there are processors, twice over; any more made for a burst of calls are let go afterwards.
+ * Asynchronous calls run on the executor the service was built with, which is the common fork/join pool unless another
+ * is given, or on Java 21 or later, on virtual threads.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+@SuppressWarnings({"unused", "WeakerAccess"}) // API class.
+public final class TranspilerService implements AutoCloseable {
+
+    /**
+     * The capacity beyond which a worker's output buffer is discarded after use rather than kept, in characters.
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+    private final TargetLanguage targetLanguage;
+
+    private final boolean optimize;
+
+    private final boolean contracts;
+
+    private final IntegerMode integerMode;
+
+    private final String indentString;
+
+    private final boolean prettyPrint;
+
+    private final FunctionCache cache;
+
+    private final Executor executor;
+
+    private final boolean ownsExecutor;
+
+    private final BlockingQueue<Worker> workers;
+
+    /**
+     * Represents the transpiler, pretty printer and output buffer used by a single call at a time.
+     */
+    private static final class Worker {
+
+        private final Transpiler transpiler;
+
+        private final PrettyPrinter prettyPrinter;
+
+        private StringBuilder buffer;
+
+        private Worker(Transpiler transpiler, PrettyPrinter prettyPrinter) {
+            this.transpiler = transpiler;
+            this.prettyPrinter = prettyPrinter;
+            buffer = new StringBuilder();
+        }
+    }
+
+    /**
+     * Represents a builder of transpiler services.
+     */
+    public static final class Builder {
+
+        private TargetLanguage targetLanguage;
+
+        private boolean optimize;
+
+        private boolean contracts;
+
+        private IntegerMode integerMode;
+
+        private String indentString;
+
+        private boolean prettyPrint;
+
+        private FunctionCache cache;
+
+        private Executor executor;
+
+        private boolean virtualThreads;
+
+        /**
+         * Initialises a new instance of a builder of transpiler services, with the same defaults as the command line.
+         */
+        private Builder() {
+            targetLanguage = TargetLanguage.JAVA;
+            integerMode = IntegerMode.FIXED;
+            indentString = "\t";
+            prettyPrint = true;
+        }
+
+        /**
+         * Sets the language to transpile to. Defaults to Java.
+         *
+         * @param targetLanguage    the target language
+         * @return                  this builder
+         */
+        public Builder targetLanguage(TargetLanguage targetLanguage) {
+            this.targetLanguage = targetLanguage;
+            return this;
+        }
+
+        /**
+         * Sets whether or not function bodies are optimized before being emitted. Defaults to false.
+         *
+         * @param optimize  true to optimize function bodies, otherwise false
+         * @return          this builder
+         */
+        public Builder optimize(boolean optimize) {
+            this.optimize = optimize;
+            return this;
+        }
+
+        /**
+         * Sets whether or not annotations are emitted as contract checks as well as comments. Defaults to false.
+         *
+         * @param contracts true to emit annotations as contract checks, otherwise false
+         * @return          this builder
+         */
+        public Builder contracts(boolean contracts) {
+            this.contracts = contracts;
+            return this;
+        }
+
+        /**
+         * Sets the way the Java types that integers are transpiled to are chosen. Defaults to fixed.
+         *
+         * @param integerMode   the way integer types are chosen
+         * @return              this builder
+         */
+        public Builder integerMode(IntegerMode integerMode) {
+            this.integerMode = integerMode;
+            return this;
+        }
+
+        /**
+         * Sets the string to indent pretty printed Java with. Defaults to a tab.
+         *
+         * @param indentString  the string to use for indentation
+         * @return              this builder
+         */
+        public Builder indentString(String indentString) {
+            this.indentString = indentString;
+            return this;
+        }
+
+        /**
+         * Sets whether or not output is pretty printed. Defaults to true.
+         *
+         * @param prettyPrint   true to pretty print output, otherwise false
+         * @return              this builder
+         */
+        public Builder prettyPrint(boolean prettyPrint) {
+            this.prettyPrint = prettyPrint;
+            return this;
+        }
+
+        /**
+         * Sets the cache that transpiled functions are looked up in and stored to. Defaults to none.
+         *
+         * @param cache the cache, or null for none
+         * @return      this builder
+         */
+        public Builder cache(FunctionCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Sets the executor asynchronous calls run on, which the service does not shut down. Defaults to the common
+         * fork/join pool.
+         *
+         * @param executor  the executor
+         * @return          this builder
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            virtualThreads = false;
+            return this;
+        }
+
+        /**
+         * Sets whether or not asynchronous calls run on a virtual thread each, which needs Java 21 or later. The
+         * service shuts the executor for these threads down when closed. Defaults to false.
+         *
+         * @param virtualThreads    true to run asynchronous calls on virtual threads, otherwise false
+         * @return                  this builder
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            if (virtualThreads) {
+                executor = null;
+            }
+            return this;
+        }
+
+        /**
+         * Builds a transpiler service.
+         *
+         * @return                                  the service
+         * @throws IllegalStateException            if integer widths are to be inferred for bytecode
+         * @throws UnsupportedOperationException    if virtual threads are asked for but not supported
+         */
+        public TranspilerService build() {
+            if (targetLanguage == TargetLanguage.BYTECODE && integerMode != IntegerMode.FIXED) {
+                throw new IllegalStateException("Bytecode is compiled with fixed-width integers only.");
+            }
+            return new TranspilerService(this);
+        }
+    }
+
+    /**
+     * Initialises a new instance of a transpiler service.
+     *
+     * @param builder   the builder holding the configuration of the service
+     */
+    private TranspilerService(Builder builder) {
+        targetLanguage = builder.targetLanguage == TargetLanguage.DEFAULT ? TargetLanguage.JAVA :
+                builder.targetLanguage;
+        optimize = builder.optimize;
+        contracts = builder.contracts;
+        integerMode = builder.integerMode;
+        indentString = builder.indentString;
+        prettyPrint = builder.prettyPrint;
+        cache = builder.cache;
+        ownsExecutor = builder.virtualThreads;
+        executor = builder.virtualThreads ? newVirtualThreadExecutor() : builder.executor == null ?
+                ForkJoinPool.commonPool() : builder.executor;
+        workers = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Creates a builder of transpiler services.
+     *
+     * @return  the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Creates an executor that runs each task on a virtual thread of its own.
+     *
+     * @return                                  the executor
+     * @throws UnsupportedOperationException    if virtual threads are not supported
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+
+        // Looked up reflectively, as this is built for Java 11.
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later.");
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e); // Public static methods of the platform are always accessible.
+        }
+    }
+
+    /**
+     * Creates a transpiler and pretty printer for calls to use.
+     *
+     * @return  the worker
+     */
+    private Worker createWorker() {
+        switch (targetLanguage) {
+            case BYTECODE:
+                BytecodeTranspiler bytecodeTranspiler = new BytecodeTranspiler();
+                bytecodeTranspiler.setOptimize(optimize);
+                bytecodeTranspiler.setContracts(contracts);
+                return new Worker(bytecodeTranspiler, new ListingPrettyPrinter());
+            case DEFAULT:
+            case JAVA:
+            default:
+                JavaTranspiler javaTranspiler = new JavaTranspiler();
+                javaTranspiler.setCache(cache);
+                javaTranspiler.setOptimize(optimize);
+                javaTranspiler.setContracts(contracts);
+                javaTranspiler.setIntegerMode(integerMode);
+                return new Worker(javaTranspiler, new JavaPrettyPrinter(indentString));
+        }
+    }
+
+    /**
+     * Gets the language the service transpiles to.
+     *
+     * @return  the target language
+     */
+    public TargetLanguage getTargetLanguage() {
+        return targetLanguage;
+    }
+
+    /**
+     * Gets whether or not function bodies are optimized before being emitted.
+     *
+     * @return  true if function bodies are optimized, otherwise false
+     */
+    public boolean isOptimize() {
+        return optimize;
+    }
+
+    /**
+     * Gets whether or not annotations are emitted as contract checks as well as comments.
+     *
+     * @return  true if annotations are emitted as contract checks, otherwise false
+     */
+    public boolean isContracts() {
+        return contracts;
+    }
+
+    /**
+     * Gets the way the Java types that integers are transpiled to are chosen.
+     *
+     * @return  the way integer types are chosen
+     */
+    public IntegerMode getIntegerMode() {
+        return integerMode;
+    }
+
+    /**
+     * Gets the string pretty printed Java is indented with.
+     *
+     * @return  the string used for indentation
+     */
+    public String getIndentString() {
+        return indentString;
+    }
+
+    /**
+     * Gets whether or not output is pretty printed.
+     *
+     * @return  true if output is pretty printed, otherwise false
+     */
+    public boolean isPrettyPrint() {
+        return prettyPrint;
+    }
+
+    /**
+     * Gets the cache that transpiled functions are looked up in and stored to.
+     *
+     * @return  the cache, or null if there is none
+     */
+    public FunctionCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Gets the executor asynchronous calls run on.
+     *
+     * @return  the executor
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Tokenizes, filters and parses source code.
+     *
+     * @param source                    the source code
+     * @return                          the parsed program
+     * @throws TokenizationException    if the source code could not be tokenized
+     * @throws ParseException           if the source code could not be parsed
+     */
+    public Program parse(String source) throws TokenizationException, ParseException {
+        Token[] tokens = new HahaTokenizer().tokenize(source);
+        return Program.parse(new ConsecutiveTokenFilter(TokenType.PUNCTUATOR).transform(new TokenStream(tokens)));
+    }
+
+    /**
+     * Transpiles a parsed program on the calling thread.
+     *
+     * @param program   the program to transpile
+     * @return          the transpiled program
+     */
+    public String transpile(Program program) {
+        Worker worker = workers.poll();
+        if (worker == null) {
+            worker = createWorker(); // None idle, so make another.
+        }
+        StringBuilder sb = worker.buffer;
+        sb.setLength(0);
+        try {
+            if (prettyPrint) {
+                Writer prettyWriter = worker.prettyPrinter.createWriter(sb);
+                worker.transpiler.transpile(program, prettyWriter);
+                prettyWriter.close();
+            } else {
+                worker.transpiler.transpile(program, sb);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Never thrown appending to a StringBuilder.
+        }
+        String output = sb.toString();
+
+        // Keep the buffer for the next call, unless it has grown too large to be worth holding on to, then give the
+        // worker back, letting it go if enough are idle already.
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            worker.buffer = new StringBuilder();
+        }
+        workers.offer(worker);
+        return output;
+    }
+
+    /**
+     * Transpiles source code on the calling thread.
+     *
+     * @param source                    the source code
+     * @return                          the transpiled program
+     * @throws TokenizationException    if the source code could not be tokenized
+     * @throws ParseException           if the source code could not be parsed
+     */
+    public String transpile(String source) throws TokenizationException, ParseException {
+        return transpile(parse(source));
+    }
+
+    /**
+     * Transpiles source code on the executor of the service.
+     *
+     * @param source    the source code
+     * @return          a future completed with the transpiled program, or exceptionally with a
+     *                  {@link TokenizationException} or {@link ParseException} if the source code could not be read
+     */
+    public CompletableFuture<String> transpileAsync(String source) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return transpile(source);
+            } catch (TokenizationException | ParseException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Transpiles a parsed program on the executor of the service.
+     *
+     * @param program   the program to transpile
+     * @return          a future completed with the transpiled program
+     */
+    public CompletableFuture<String> transpileAsync(Program program) {
+        return CompletableFuture.supplyAsync(() -> transpile(program), executor);
+    }
+
+    /**
+     * Transpiles many sources at once on the executor of the service. To handle a failure in one source without
+     * losing the rest, call {@link #transpileAsync(String)} for each instead.
+     *
+     * @param sources   the source code of each program
+     * @return          a future completed with each transpiled program in the order the sources were given, or
+     *                  exceptionally as soon as any source cannot be read
+     */
+    public CompletableFuture<List<String>> transpileAllAsync(List<String> sources) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(sources.size());
+        for (String source : sources) {
+            futures.add(transpileAsync(source));
+        }
+
+        // Fail as soon as any one fails, rather than waiting for the others.
+        CompletableFuture<List<String>> all = new CompletableFuture<>();
+        for (CompletableFuture<String> future : futures) {
+            future.whenComplete((output, e) -> {
+                if (e != null) {
+                    all.completeExceptionally(e);
+                }
+            });
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenRun(() -> {
+            List<String> outputs = new ArrayList<>(futures.size());
+            for (CompletableFuture<String> future : futures) {
+                outputs.add(future.join());
+            }
+            all.complete(outputs);
+        });
+        return all;
+    }
+
+    /**
+     * Shuts down the executor of the service if the service created it, once calls already made have finished.
+     */
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+}
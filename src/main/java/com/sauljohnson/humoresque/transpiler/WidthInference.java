@@ -0,0 +1,1141 @@
+package com.sauljohnson.humoresque.transpiler;
+
+import com.sauljohnson.humoresque.parser.model.Argument;
+import com.sauljohnson.humoresque.parser.model.Function;
+import com.sauljohnson.humoresque.parser.model.HahaType;
+import com.sauljohnson.humoresque.parser.model.Variable;
+import com.sauljohnson.humoresque.transpiler.FunctionOptimizer.*;
+
+import java.math.BigInteger;
+import java.util.*;
+
+/**
+ * Represents the integer widths inferred for a single function lifted into a statement tree, and emits the function
+ * as Java using them.
+ *
+ * The range of every integer variable is found by interval analysis over the statement tree. Assignments give ranges
+ * to variables, the predicates of loops and conditionals narrow them, and loops are iterated to a fixed point,
+ * widening ranges that keep growing to the bounds of int, then long, then without bound. Each variable is then given
+ * the narrowest of int, long and BigInteger that holds every value it may take, and each operation is carried out at
+ * the narrowest width that holds its operands and its result. Annotations are never assumed to hold, since they are
+ * not checked unless assertions are enabled.
+ *
+ * Arguments, return values and array elements stay ints, so that functions keep the signatures they have without
+ * inference. Values narrowed back to them are narrowed exactly, throwing rather than overflowing. Functions with any
+ * expression that cannot be parsed are left alone.
+ *
+ * @since 18/10/2026
+ * @author Saul Johnson <saul.a.johnson@gmail.com>
+ */
+final class WidthInference {
+
+    /**
+     * The Java type of unbounded integers, written in full as transpiled functions are emitted without imports.
+     */
+    private static final String BIG_INTEGER = "java.math.BigInteger";
+
+    /**
+     * The number of times to iterate a loop before widening ranges that are still growing.
+     */
+    private static final int WIDENING_DELAY = 2;
+
+    private static final Range INT_RANGE = new Range(BigInteger.valueOf(Integer.MIN_VALUE),
+            BigInteger.valueOf(Integer.MAX_VALUE));
+
+    private static final Range LONG_RANGE = new Range(BigInteger.valueOf(Long.MIN_VALUE),
+            BigInteger.valueOf(Long.MAX_VALUE));
+
+    private static final Range ZERO_RANGE = new Range(BigInteger.ZERO, BigInteger.ZERO);
+
+    private final FunctionOptimizer tree;
+
+    private final String returnSlot;
+
+    private final boolean checked;
+
+    private final Map<String, HahaType> types;
+
+    private final Set<String> parameters;
+
+    private final Set<String> tracked;
+
+    private final Map<String, Range> hulls;
+
+    private final Map<String, String> intReasons;
+
+    private final Map<String, String> longReasons;
+
+    private final Map<Expression, Range> ranges;
+
+    private final Map<String, Width> widths;
+
+    private String failure;
+
+    /**
+     * Represents the width of a Java integer type, in increasing order.
+     */
+    private enum Width {
+        INT,
+        LONG,
+        BIG
+    }
+
+    /**
+     * Represents a range of integers, either end of which may be unbounded.
+     */
+    private static final class Range {
+
+        private final BigInteger min;
+
+        private final BigInteger max;
+
+        /**
+         * Initialises a new instance of a range of integers.
+         *
+         * @param min   the least integer in the range, or null if it is unbounded below
+         * @param max   the greatest integer in the range, or null if it is unbounded above
+         */
+        private Range(BigInteger min, BigInteger max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        private static Range of(long value) {
+            return new Range(BigInteger.valueOf(value), BigInteger.valueOf(value));
+        }
+
+        private boolean isWithin(Range other) {
+            return (other.min == null || (min != null && min.compareTo(other.min) >= 0)) &&
+                    (other.max == null || (max != null && max.compareTo(other.max) <= 0));
+        }
+
+        private boolean contains(BigInteger value) {
+            return (min == null || min.compareTo(value) <= 0) && (max == null || max.compareTo(value) >= 0);
+        }
+
+        private Range join(Range other) {
+            return new Range(min == null || other.min == null ? null : min.min(other.min),
+                    max == null || other.max == null ? null : max.max(other.max));
+        }
+
+        /**
+         * Gets the integers in both this range and another.
+         *
+         * @param other the other range
+         * @return      the range of integers in both, or null if there are none
+         */
+        private Range intersect(Range other) {
+            BigInteger low = min == null ? other.min : other.min == null ? min : min.max(other.min);
+            BigInteger high = max == null ? other.max : other.max == null ? max : max.min(other.max);
+            return low != null && high != null && low.compareTo(high) > 0 ? null : new Range(low, high);
+        }
+
+        private Range negate() {
+            return new Range(max == null ? null : max.negate(), min == null ? null : min.negate());
+        }
+
+        private Range add(Range other) {
+            return new Range(min == null || other.min == null ? null : min.add(other.min),
+                    max == null || other.max == null ? null : max.add(other.max));
+        }
+
+        private Range subtract(Range other) {
+            return add(other.negate());
+        }
+
+        private Range multiply(Range other) {
+            if (equals(ZERO_RANGE) || other.equals(ZERO_RANGE)) {
+                return ZERO_RANGE;
+            }
+            if (min == null || max == null || other.min == null || other.max == null) {
+                return new Range(null, null);
+            }
+            BigInteger[] corners = {min.multiply(other.min), min.multiply(other.max), max.multiply(other.min),
+                    max.multiply(other.max)};
+            BigInteger low = corners[0];
+            BigInteger high = corners[0];
+            for (BigInteger corner : corners) {
+                low = low.min(corner);
+                high = high.max(corner);
+            }
+            return new Range(low, high);
+        }
+
+        /**
+         * Gets the greatest magnitude of any integer in the range.
+         *
+         * @return  the magnitude, or null if it is unbounded
+         */
+        private BigInteger magnitude() {
+            return min == null || max == null ? null : min.abs().max(max.abs());
+        }
+
+        private Range divide(Range other) {
+            BigInteger magnitude = magnitude(); // Truncating division never grows the magnitude of its dividend.
+            return magnitude == null ? new Range(null, null) : new Range(magnitude.negate(), magnitude);
+        }
+
+        private Range remainder(Range other) {
+
+            // Smaller in magnitude than both operands, and of the same sign as the dividend.
+            BigInteger magnitude = magnitude();
+            BigInteger divisorMagnitude = other.magnitude();
+            if (divisorMagnitude != null && divisorMagnitude.signum() > 0) {
+                divisorMagnitude = divisorMagnitude.subtract(BigInteger.ONE);
+                magnitude = magnitude == null ? divisorMagnitude : magnitude.min(divisorMagnitude);
+            }
+            BigInteger low = min != null && min.signum() >= 0 ? BigInteger.ZERO :
+                    magnitude == null ? null : magnitude.negate();
+            BigInteger high = max != null && max.signum() <= 0 ? BigInteger.ZERO : magnitude;
+            return new Range(low, high);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Range && Objects.equals(((Range) other).min, min) &&
+                    Objects.equals(((Range) other).max, max);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(min, max);
+        }
+    }
+
+    /**
+     * Initialises a new instance of the integer widths inferred for a function.
+     *
+     * @param function  the function
+     * @param tree      the function lifted into a statement tree
+     * @param checked   whether or not to use longs with overflow checks in place of BigIntegers
+     */
+    private WidthInference(Function function, FunctionOptimizer tree, boolean checked) {
+        this.tree = tree;
+        this.checked = checked;
+        returnSlot = function.getIdentifier();
+        types = new HashMap<>();
+        parameters = new LinkedHashSet<>();
+        tracked = new LinkedHashSet<>();
+        hulls = new HashMap<>();
+        intReasons = new HashMap<>();
+        longReasons = new HashMap<>();
+        ranges = new IdentityHashMap<>();
+        widths = new HashMap<>();
+
+        // Collect every variable, tracking integers in order of declaration.
+        for (Argument argument : function.getArguments()) {
+            types.put(argument.getIdentifier(), argument.getType());
+            parameters.add(argument.getIdentifier());
+        }
+        for (Variable variable : function.getVariables()) {
+            types.put(variable.getIdentifier(), variable.getType());
+        }
+        types.put(returnSlot, function.getReturnType());
+        List<String> declared = new ArrayList<>(parameters);
+        for (Variable variable : function.getVariables()) {
+            declared.add(variable.getIdentifier());
+        }
+        declared.add(returnSlot);
+        for (String identifier : declared) {
+            if (isInteger(types.get(identifier))) {
+                tracked.add(identifier);
+            }
+        }
+    }
+
+    /**
+     * Infers integer widths for a function.
+     *
+     * @param function  the function
+     * @param tree      the function lifted into a statement tree, optimized or not
+     * @param checked   whether or not to use longs with overflow checks in place of BigIntegers
+     * @return          the inferred widths
+     */
+    static WidthInference infer(Function function, FunctionOptimizer tree, boolean checked) {
+        WidthInference inference = new WidthInference(function, tree, checked);
+        inference.failure = findOpaque(tree.getStatements());
+        if (inference.failure != null) {
+            return inference;
+        }
+
+        // Arguments may hold any int, while other variables start at zero.
+        Map<String, Range> entry = new HashMap<>();
+        for (String identifier : inference.tracked) {
+            Range range = inference.parameters.contains(identifier) ? INT_RANGE : ZERO_RANGE;
+            entry.put(identifier, range);
+            inference.hulls.put(identifier, range);
+        }
+        inference.run(tree.getStatements(), entry);
+        for (String identifier : inference.tracked) {
+            inference.widths.put(identifier, inference.getWidth(inference.hulls.get(identifier)));
+        }
+        return inference;
+    }
+
+    /**
+     * Gets whether or not a type is a scalar integer.
+     *
+     * @param type  the type
+     * @return      true if the type is a scalar integer, otherwise false
+     */
+    private static boolean isInteger(HahaType type) {
+        if (type.isArrayType()) {
+            return false;
+        }
+        switch (type.getBaseType()) {
+            case Z:
+            case INT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Finds an expression that could not be parsed within some statements.
+     *
+     * @param nodes the statements
+     * @return      the text of the expression, or null if there is none
+     */
+    private static String findOpaque(List<Node> nodes) {
+        if (nodes == null) {
+            return null;
+        }
+        for (Node node : nodes) {
+            Expression[] expressions;
+            String found = null;
+            if (node instanceof Store) {
+                expressions = new Expression[] {((Store) node).value};
+            } else if (node instanceof IndexStore) {
+                expressions = new Expression[] {((IndexStore) node).index, ((IndexStore) node).value};
+            } else if (node instanceof While) {
+                expressions = new Expression[] {((While) node).predicate};
+                found = findOpaque(((While) node).body);
+            } else if (node instanceof If) {
+                expressions = new Expression[] {((If) node).predicate};
+                found = findOpaque(((If) node).trueArm);
+                found = found == null ? findOpaque(((If) node).falseArm) : found;
+            } else {
+                expressions = new Expression[0]; // Checks are only ever parsed expressions.
+            }
+            for (Expression expression : expressions) {
+                if (expression instanceof Opaque) {
+                    return ((Opaque) expression).text;
+                }
+            }
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the narrowest width that holds every integer in a range.
+     *
+     * @param range the range, or null for an int
+     * @return      the width
+     */
+    private Width getWidth(Range range) {
+        if (range == null || range.isWithin(INT_RANGE)) {
+            return Width.INT;
+        }
+        return checked || range.isWithin(LONG_RANGE) ? Width.LONG : Width.BIG;
+    }
+
+    private static Width max(Width a, Width b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static boolean isArithmetic(String operator) {
+        switch (operator) {
+            case "+":
+            case "-":
+            case "*":
+            case "/":
+            case "%":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Gets whether or not an array expression is an array of booleans.
+     *
+     * @param array the array expression
+     * @return      true if the array is known to hold booleans, otherwise false
+     */
+    private boolean isBooleanArray(Expression array) {
+        if (!(array instanceof VariableRead)) {
+            return false;
+        }
+        HahaType type = types.get(((VariableRead) array).identifier);
+        if (type == null || !type.isArrayType()) {
+            return false;
+        }
+        switch (type.getBaseType()) {
+            case BOOLEAN:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Gets whether or not an expression is an integer, counting calls as integers since arguments and return values
+     * are never widened.
+     *
+     * @param expression    the expression
+     * @return              true if the expression is an integer, otherwise false
+     */
+    private boolean isInteger(Expression expression) {
+        if (expression instanceof IntLiteral || expression instanceof Call) {
+            return true;
+        }
+        if (expression instanceof VariableRead) {
+            return tracked.contains(((VariableRead) expression).identifier);
+        }
+        if (expression instanceof Unary) {
+            return ((Unary) expression).operator.equals("-");
+        }
+        if (expression instanceof Binary) {
+            return isArithmetic(((Binary) expression).operator);
+        }
+        if (expression instanceof IndexRead) {
+            return !isBooleanArray(((IndexRead) expression).array);
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates the range of an expression.
+     *
+     * @param expression    the expression
+     * @param environment   the range of each integer variable
+     * @param record        whether or not to record the range of the expression and its subexpressions
+     * @return              the range, or null if the expression is not an integer
+     */
+    private Range evaluate(Expression expression, Map<String, Range> environment, boolean record) {
+        Range range = null;
+        if (expression instanceof IntLiteral) {
+            range = Range.of(((IntLiteral) expression).value);
+        } else if (expression instanceof VariableRead) {
+            range = environment.get(((VariableRead) expression).identifier);
+        } else if (expression instanceof Unary) {
+            Range operand = evaluate(((Unary) expression).operand, environment, record);
+            if (((Unary) expression).operator.equals("-")) {
+                range = operand == null ? INT_RANGE.negate() : operand.negate();
+            }
+        } else if (expression instanceof Binary) {
+            Binary binary = (Binary) expression;
+            Range left = evaluate(binary.left, environment, record);
+            Range right = evaluate(binary.right, environment, record);
+            left = left == null ? INT_RANGE : left;
+            right = right == null ? INT_RANGE : right;
+            switch (binary.operator) {
+                case "+":
+                    range = left.add(right);
+                    break;
+                case "-":
+                    range = left.subtract(right);
+                    break;
+                case "*":
+                    range = left.multiply(right);
+                    break;
+                case "/":
+                    range = left.divide(right);
+                    break;
+                case "%":
+                    range = left.remainder(right);
+                    break;
+                default:
+                    break; // Comparisons and logic.
+            }
+        } else if (expression instanceof IndexRead) {
+            IndexRead indexRead = (IndexRead) expression;
+            evaluate(indexRead.array, environment, record);
+            evaluate(indexRead.index, environment, record);
+            range = isBooleanArray(indexRead.array) ? null : INT_RANGE;
+        } else if (expression instanceof Call) {
+            for (Expression argument : ((Call) expression).arguments) {
+                evaluate(argument, environment, record);
+            }
+            range = INT_RANGE;
+        }
+        if (record && range != null) {
+            ranges.merge(expression, range, Range::join);
+        }
+        return range;
+    }
+
+    /**
+     * Joins the ranges of each variable in two environments.
+     *
+     * @param a the first environment, or null if it is unreachable
+     * @param b the second environment, or null if it is unreachable
+     * @return  the joined environment, or null if both are unreachable
+     */
+    private static Map<String, Range> join(Map<String, Range> a, Map<String, Range> b) {
+        if (a == null || b == null) {
+            return a == null ? b : a;
+        }
+        Map<String, Range> joined = new HashMap<>(a);
+        for (Map.Entry<String, Range> entry : b.entrySet()) {
+            joined.merge(entry.getKey(), entry.getValue(), Range::join);
+        }
+        return joined;
+    }
+
+    /**
+     * Widens a bound that is still growing to the next of the bounds of int, long and no bound at all.
+     *
+     * @param previous  the bound before, or null if it is unbounded
+     * @param next      the bound after, or null if it is unbounded
+     * @param upper     whether the bound is an upper bound rather than a lower one
+     * @return          the widened bound
+     */
+    private static BigInteger widen(BigInteger previous, BigInteger next, boolean upper) {
+        if (previous == null || next == null || (upper ? next.compareTo(previous) <= 0 :
+                next.compareTo(previous) >= 0)) {
+            return next;
+        }
+        for (Range threshold : new Range[] {INT_RANGE, LONG_RANGE}) {
+            BigInteger bound = upper ? threshold.max : threshold.min;
+            if (upper ? next.compareTo(bound) <= 0 : next.compareTo(bound) >= 0) {
+                return bound;
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Range> widen(Map<String, Range> previous, Map<String, Range> next) {
+        Map<String, Range> widened = new HashMap<>();
+        for (Map.Entry<String, Range> entry : next.entrySet()) {
+            Range before = previous.get(entry.getKey());
+            Range after = entry.getValue();
+            widened.put(entry.getKey(), before == null ? after : new Range(widen(before.min, after.min, false),
+                    widen(before.max, after.max, true)));
+        }
+        return widened;
+    }
+
+    private static String negate(String operator) {
+        switch (operator) {
+            case "<": return ">=";
+            case ">": return "<=";
+            case "<=": return ">";
+            case ">=": return "<";
+            case "==": return "!=";
+            case "!=": return "==";
+            default: return null;
+        }
+    }
+
+    private static String flip(String operator) {
+        switch (operator) {
+            case "<": return ">";
+            case ">": return "<";
+            case "<=": return ">=";
+            case ">=": return "<=";
+            default: return operator;
+        }
+    }
+
+    /**
+     * Narrows the range of a variable compared against an expression.
+     *
+     * @param subject       the expression on the left of the comparison
+     * @param operator      the comparison operator
+     * @param bound         the expression on the right of the comparison
+     * @param environment   the range of each integer variable, or null if it is unreachable
+     * @return              the narrowed environment, or null if the comparison cannot hold
+     */
+    private Map<String, Range> constrain(Expression subject, String operator, Expression bound,
+                                         Map<String, Range> environment) {
+        if (environment == null || !(subject instanceof VariableRead) ||
+                !tracked.contains(((VariableRead) subject).identifier)) {
+            return environment;
+        }
+        Range limit = evaluate(bound, environment, false);
+        if (limit == null) {
+            return environment;
+        }
+        Range allowed;
+        switch (operator) {
+            case "<":
+                allowed = new Range(null, limit.max == null ? null : limit.max.subtract(BigInteger.ONE));
+                break;
+            case "<=":
+                allowed = new Range(null, limit.max);
+                break;
+            case ">":
+                allowed = new Range(limit.min == null ? null : limit.min.add(BigInteger.ONE), null);
+                break;
+            case ">=":
+                allowed = new Range(limit.min, null);
+                break;
+            case "==":
+                allowed = limit;
+                break;
+            default:
+                return environment;
+        }
+        String identifier = ((VariableRead) subject).identifier;
+        Range narrowed = environment.get(identifier).intersect(allowed);
+        if (narrowed == null) {
+            return null;
+        }
+        Map<String, Range> refined = new HashMap<>(environment);
+        refined.put(identifier, narrowed);
+        return refined;
+    }
+
+    /**
+     * Narrows the range of each variable on the assumption that a predicate has some value.
+     *
+     * @param predicate     the predicate
+     * @param environment   the range of each integer variable, or null if it is unreachable
+     * @param truth         the value the predicate is assumed to have
+     * @return              the narrowed environment, or null if the predicate cannot have the value
+     */
+    private Map<String, Range> refine(Expression predicate, Map<String, Range> environment, boolean truth) {
+        if (environment == null) {
+            return null;
+        }
+        if (predicate instanceof BoolLiteral) {
+            return ((BoolLiteral) predicate).value == truth ? environment : null;
+        }
+        if (predicate instanceof Unary && ((Unary) predicate).operator.equals("!")) {
+            return refine(((Unary) predicate).operand, environment, !truth);
+        }
+        if (!(predicate instanceof Binary)) {
+            return environment;
+        }
+        Binary binary = (Binary) predicate;
+        switch (binary.operator) {
+            case "&&":
+                Map<String, Range> bothTrue = refine(binary.right, refine(binary.left, environment, true), true);
+                return truth ? bothTrue : join(refine(binary.left, environment, false),
+                        refine(binary.right, refine(binary.left, environment, true), false));
+            case "||":
+                Map<String, Range> bothFalse = refine(binary.right, refine(binary.left, environment, false), false);
+                return truth ? join(refine(binary.left, environment, true),
+                        refine(binary.right, refine(binary.left, environment, false), true)) : bothFalse;
+            default:
+                break;
+        }
+        String operator = truth ? binary.operator : negate(binary.operator);
+        if (operator == null) {
+            return environment;
+        }
+        return constrain(binary.right, flip(operator), binary.left,
+                constrain(binary.left, operator, binary.right, environment));
+    }
+
+    /**
+     * Records the range of a value assigned to a variable, along with the first assignment to take it beyond the
+     * range of each width.
+     *
+     * @param store the assignment
+     * @param range the range of the value assigned
+     */
+    private void record(Store store, Range range) {
+        hulls.merge(store.identifier, range, Range::join);
+        if (!range.isWithin(INT_RANGE) || !range.isWithin(LONG_RANGE)) {
+            StringBuilder sb = new StringBuilder(store.identifier).append(" = ");
+            store.value.write(sb, 0);
+            intReasons.putIfAbsent(store.identifier, sb.toString());
+            if (!range.isWithin(LONG_RANGE)) {
+                longReasons.putIfAbsent(store.identifier, sb.toString());
+            }
+        }
+    }
+
+    /**
+     * Runs the analysis over some statements.
+     *
+     * @param nodes         the statements
+     * @param environment   the range of each integer variable on entry, or null if it is unreachable
+     * @return              the range of each integer variable on exit, or null if it is unreachable
+     */
+    private Map<String, Range> run(List<Node> nodes, Map<String, Range> environment) {
+        if (nodes == null) {
+            return environment;
+        }
+        for (Node node : nodes) {
+            if (environment == null) {
+                return null; // Nothing more is reachable.
+            }
+            if (node instanceof Store) {
+                Store store = (Store) node;
+                Range range = evaluate(store.value, environment, true);
+                if (tracked.contains(store.identifier)) {
+                    range = range == null ? INT_RANGE : range;
+                    record(store, range);
+                    environment = new HashMap<>(environment);
+                    environment.put(store.identifier, range);
+                }
+            } else if (node instanceof IndexStore) {
+                evaluate(((IndexStore) node).index, environment, true);
+                evaluate(((IndexStore) node).value, environment, true);
+            } else if (node instanceof While) {
+                While loop = (While) node;
+
+                // Iterate to a fixed point, widening ranges that keep growing.
+                Map<String, Range> head = environment;
+                for (int i = 0; ; i++) {
+                    Map<String, Range> next = join(head, run(loop.body, refine(loop.predicate, head, true)));
+                    if (next.equals(head)) {
+                        break;
+                    }
+                    head = i < WIDENING_DELAY ? next : widen(head, next);
+                }
+                evaluate(loop.predicate, head, true);
+                environment = refine(loop.predicate, head, false);
+            } else if (node instanceof If) {
+                If conditional = (If) node;
+                evaluate(conditional.predicate, environment, true);
+                environment = join(run(conditional.trueArm, refine(conditional.predicate, environment, true)),
+                        run(conditional.falseArm, refine(conditional.predicate, environment, false)));
+            } else if (node instanceof Comment && ((Comment) node).check != null) {
+                evaluate(((Comment) node).check, environment, true);
+            }
+        }
+        return environment;
+    }
+
+    /**
+     * Gets whether or not any variable or operation is wider than an int.
+     *
+     * @return  true if anything is wider than an int, otherwise false
+     */
+    boolean isWidened() {
+        if (failure != null) {
+            return false;
+        }
+        for (Width width : widths.values()) {
+            if (width != Width.INT) {
+                return true;
+            }
+        }
+        for (Range range : ranges.values()) {
+            if (getWidth(range) != Width.INT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the width of a variable.
+     *
+     * @param identifier    the name of the variable
+     * @return              the width, or null if the variable is not an integer
+     */
+    private Width getWidth(String identifier) {
+        return widths.get(identifier);
+    }
+
+    /**
+     * Gets the width an expression is computed at, which holds its result and every operand.
+     *
+     * @param expression    the integer expression
+     * @return              the width
+     */
+    private Width getWidth(Expression expression) {
+        if (expression instanceof VariableRead) {
+            Width width = getWidth(((VariableRead) expression).identifier);
+            return width == null ? Width.INT : width;
+        }
+        if (expression instanceof Unary) {
+            return max(getWidth(((Unary) expression).operand), getWidth(ranges.get(expression)));
+        }
+        if (expression instanceof Binary) {
+            Binary binary = (Binary) expression;
+            return max(max(getWidth(binary.left), getWidth(binary.right)), getWidth(ranges.get(expression)));
+        }
+        return Width.INT; // Literals, array elements and calls.
+    }
+
+    /**
+     * Gets whether or not an operation at long width might overflow, and so must be checked.
+     *
+     * @param expression    the operation
+     * @return              true if the operation must be checked, otherwise false
+     */
+    private boolean isUnsafe(Expression expression) {
+        Range range = ranges.get(expression);
+        return range != null && !range.isWithin(LONG_RANGE);
+    }
+
+    /**
+     * Writes an integer expression as Java at some width, converting it if it is computed at another.
+     *
+     * @param sb            the {@link StringBuilder} to write to
+     * @param expression    the integer expression
+     * @param target        the width to write the expression at
+     * @param top           whether or not the expression stands alone, rather than being an operand
+     */
+    private void write(StringBuilder sb, Expression expression, Width target, boolean top) {
+        Width width = getWidth(expression);
+        if (width == target) {
+            writeAtWidth(sb, expression, width, top);
+        } else if (target == Width.BIG) {
+            sb.append(BIG_INTEGER).append(".valueOf(");
+            writeAtWidth(sb, expression, width, true);
+            sb.append(')');
+        } else if (target == Width.LONG && width == Width.INT) {
+            if (expression instanceof IntLiteral) {
+                sb.append(((IntLiteral) expression).value).append('L');
+                return;
+            }
+            sb.append("(long) "); // Casts bind tighter than any operator, so never need parentheses.
+            writeAtWidth(sb, expression, width, false);
+        } else if (width == Width.BIG) {
+            writeAtWidth(sb, expression, width, false);
+            sb.append(target == Width.INT ? ".intValueExact()" : ".longValueExact()");
+        } else {
+            sb.append("Math.toIntExact(");
+            writeAtWidth(sb, expression, width, true);
+            sb.append(')');
+        }
+    }
+
+    /**
+     * Writes an integer expression as Java at the width it is computed at.
+     *
+     * @param sb            the {@link StringBuilder} to write to
+     * @param expression    the integer expression
+     * @param width         the width the expression is computed at
+     * @param top           whether or not the expression stands alone, rather than being an operand
+     */
+    private void writeAtWidth(StringBuilder sb, Expression expression, Width width, boolean top) {
+        if (expression instanceof Unary) {
+            Expression operand = ((Unary) expression).operand;
+            if (width == Width.BIG) {
+                write(sb, operand, width, false);
+                sb.append(".negate()");
+            } else if (width == Width.LONG && checked && isUnsafe(expression)) {
+                sb.append("Math.negateExact(");
+                write(sb, operand, width, true);
+                sb.append(')');
+            } else {
+                sb.append(top ? "-(" : "(-(");
+                write(sb, operand, width, true);
+                sb.append(top ? ")" : "))");
+            }
+        } else if (expression instanceof Binary) {
+            Binary binary = (Binary) expression;
+            if (width == Width.BIG) {
+                write(sb, binary.left, width, false);
+                sb.append('.').append(getBigIntegerMethod(binary.operator)).append('(');
+                write(sb, binary.right, width, true);
+                sb.append(')');
+            } else if (width == Width.LONG && checked && isUnsafe(expression) && binary.operator.equals("/")) {
+                sb.append(BIG_INTEGER).append(".valueOf(");
+                write(sb, binary.left, width, true);
+                sb.append(").divide(").append(BIG_INTEGER).append(".valueOf(");
+                write(sb, binary.right, width, true);
+                sb.append(")).longValueExact()"); // Only the least long divided by minus one overflows.
+            } else if (width == Width.LONG && checked && isUnsafe(expression) && !binary.operator.equals("%")) {
+                sb.append("Math.").append(getExactMethod(binary.operator)).append('(');
+                write(sb, binary.left, width, true);
+                sb.append(", ");
+                write(sb, binary.right, width, true);
+                sb.append(')');
+            } else {
+                sb.append(top ? "" : "(");
+                write(sb, binary.left, width, false);
+                sb.append(' ').append(binary.operator).append(' ');
+                write(sb, binary.right, width, false);
+                sb.append(top ? "" : ")");
+            }
+        } else if (expression instanceof IndexRead) {
+            writeIndexRead(sb, (IndexRead) expression);
+        } else if (expression instanceof Call) {
+            Call call = (Call) expression;
+            sb.append(call.identifier).append('(');
+            for (int i = 0; i < call.arguments.size(); i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                writeNarrowed(sb, call.arguments.get(i), true);
+            }
+            sb.append(')');
+        } else {
+            expression.writeBare(sb); // Literals and variables.
+        }
+    }
+
+    private static String getBigIntegerMethod(String operator) {
+        switch (operator) {
+            case "+": return "add";
+            case "-": return "subtract";
+            case "*": return "multiply";
+            case "/": return "divide";
+            default: return "remainder";
+        }
+    }
+
+    private static String getExactMethod(String operator) {
+        switch (operator) {
+            case "+": return "addExact";
+            case "-": return "subtractExact";
+            default: return "multiplyExact";
+        }
+    }
+
+    /**
+     * Writes an array element read as Java, narrowing its index to an int.
+     *
+     * @param sb        the {@link StringBuilder} to write to
+     * @param indexRead the array element read
+     */
+    private void writeIndexRead(StringBuilder sb, IndexRead indexRead) {
+        writeAny(sb, indexRead.array, false);
+        sb.append('[');
+        writeNarrowed(sb, indexRead.index, true);
+        sb.append(']');
+    }
+
+    /**
+     * Writes an expression as Java, narrowing it to an int if it is an integer.
+     *
+     * @param sb            the {@link StringBuilder} to write to
+     * @param expression    the expression
+     * @param top           whether or not the expression stands alone, rather than being an operand
+     */
+    private void writeNarrowed(StringBuilder sb, Expression expression, boolean top) {
+        if (isInteger(expression)) {
+            write(sb, expression, Width.INT, top);
+        } else {
+            writeAny(sb, expression, top);
+        }
+    }
+
+    /**
+     * Writes any expression as Java, with integers at the width they are computed at.
+     *
+     * @param sb            the {@link StringBuilder} to write to
+     * @param expression    the expression
+     * @param top           whether or not the expression stands alone, rather than being an operand
+     */
+    private void writeAny(StringBuilder sb, Expression expression, boolean top) {
+        if (isInteger(expression)) {
+            writeAtWidth(sb, expression, getWidth(expression), top);
+        } else if (expression instanceof Unary) {
+            sb.append('!');
+            writeAny(sb, ((Unary) expression).operand, false);
+        } else if (expression instanceof Binary) {
+            Binary binary = (Binary) expression;
+            sb.append(top ? "" : "(");
+            if (isInteger(binary.left) && isInteger(binary.right)) {
+
+                // Compare integers at the wider of their widths.
+                Width width = max(getWidth(binary.left), getWidth(binary.right));
+                if (width == Width.BIG) {
+                    write(sb, binary.left, width, false);
+                    sb.append(".compareTo(");
+                    write(sb, binary.right, width, true);
+                    sb.append(") ").append(binary.operator).append(" 0");
+                } else {
+                    writeAny(sb, binary.left, false);
+                    sb.append(' ').append(binary.operator).append(' ');
+                    writeAny(sb, binary.right, false);
+                }
+            } else {
+                writeAny(sb, binary.left, false);
+                sb.append(' ').append(binary.operator).append(' ');
+                writeAny(sb, binary.right, false);
+            }
+            sb.append(top ? "" : ")");
+        } else if (expression instanceof IndexRead) {
+            writeIndexRead(sb, (IndexRead) expression);
+        } else {
+            expression.writeBare(sb); // Literals and variables.
+        }
+    }
+
+    /**
+     * Emits statements as Java.
+     *
+     * @param sb    the {@link StringBuilder} the program is being built in
+     * @param nodes the statements
+     */
+    private void emit(StringBuilder sb, List<Node> nodes) {
+        for (Node node : nodes) {
+            if (node instanceof Comment) {
+                Comment comment = (Comment) node;
+                sb.append("/*");
+                JavaTranspiler.appendAnnotation(sb, comment.tokens);
+                sb.append("*/\n");
+                if (comment.check != null && !(comment.check instanceof BoolLiteral &&
+                        ((BoolLiteral) comment.check).value)) {
+                    sb.append("assert ");
+                    writeAny(sb, comment.check, true);
+                    sb.append(";\n");
+                }
+            } else if (node instanceof Store) {
+                Store store = (Store) node;
+                sb.append(store.identifier).append(" = ");
+                Width width = getWidth(store.identifier);
+                if (width != null) {
+                    write(sb, store.value, width, true);
+                } else {
+                    writeNarrowed(sb, store.value, true);
+                }
+                sb.append(";\n");
+            } else if (node instanceof IndexStore) {
+                IndexStore store = (IndexStore) node;
+                sb.append(store.identifier).append('[');
+                writeNarrowed(sb, store.index, true);
+                sb.append("] = ");
+                writeNarrowed(sb, store.value, true);
+                sb.append(";\n");
+            } else if (node instanceof While) {
+                sb.append("while(");
+                writeAny(sb, ((While) node).predicate, true);
+                sb.append("){\n");
+                emit(sb, ((While) node).body);
+                sb.append("}\n");
+            } else if (node instanceof If) {
+                If conditional = (If) node;
+                sb.append("if(");
+                writeAny(sb, conditional.predicate, true);
+                sb.append("){\n");
+                emit(sb, conditional.trueArm);
+                if (conditional.falseArm != null && !conditional.falseArm.isEmpty()) {
+                    sb.append("} else {\n");
+                    emit(sb, conditional.falseArm);
+                }
+                sb.append("}\n");
+            }
+        }
+    }
+
+    /**
+     * Gets the Java name of the type a width is written as.
+     *
+     * @param width the width
+     * @return      the name of the type
+     */
+    private static String getTypeName(Width width) {
+        switch (width) {
+            case LONG: return "long";
+            case BIG: return "BigInteger";
+            default: return "int";
+        }
+    }
+
+    /**
+     * Appends a comment giving each variable that was widened and why, or why widths were not inferred at all.
+     *
+     * @param sb    the {@link StringBuilder} the program is being built in
+     */
+    void appendReport(StringBuilder sb) {
+        if (failure != null) {
+            sb.append("/* Integer widths not inferred, as '").append(failure).append("' could not be read. */\n");
+            return;
+        }
+        for (String identifier : tracked) {
+            Width width = getWidth(identifier);
+            if (width == Width.INT) {
+                continue;
+            }
+            boolean beyondLong = longReasons.containsKey(identifier);
+            sb.append("/* ").append(identifier).append(" is a ").append(getTypeName(width))
+                    .append(beyondLong && width == Width.LONG ? " with overflow checks" : "")
+                    .append(", as it may exceed the range of ").append(beyondLong ? "long" : "int").append(" in '")
+                    .append(beyondLong ? longReasons.get(identifier) : intReasons.get(identifier)).append("'. */\n");
+        }
+    }
+
+    /**
+     * Appends the Java type of a variable, if it has been widened.
+     *
+     * @param sb            the {@link StringBuilder} to append to
+     * @param identifier    the name of the variable
+     * @return              true if the variable has been widened and its type appended, otherwise false
+     */
+    boolean appendType(StringBuilder sb, String identifier) {
+        Width width = getWidth(identifier);
+        if (width == null || width == Width.INT) {
+            return false;
+        }
+        sb.append(width == Width.BIG ? BIG_INTEGER : "long");
+        return true;
+    }
+
+    /**
+     * Appends the initial value given to a variable when emitting contract checks, if it has been widened.
+     *
+     * @param sb            the {@link StringBuilder} to append to
+     * @param identifier    the name of the variable
+     * @return              true if the variable has been widened and its initial value appended, otherwise false
+     */
+    boolean appendDefaultValue(StringBuilder sb, String identifier) {
+        Width width = getWidth(identifier);
+        if (width == null || width == Width.INT) {
+            return false;
+        }
+        sb.append(width == Width.BIG ? BIG_INTEGER + ".ZERO" : "0L");
+        return true;
+    }
+
+    /**
+     * Gets the name an argument is given in the function signature, which differs from its name in the function body
+     * if it has been widened.
+     *
+     * @param identifier    the name of the argument
+     * @return              the name in the signature
+     */
+    String getParameterName(String identifier) {
+        Width width = getWidth(identifier);
+        return width == null || width == Width.INT ? identifier : identifier + "$";
+    }
+
+    /**
+     * Appends the declarations that copy each widened argument into a widened variable of the same name.
+     *
+     * @param sb    the {@link StringBuilder} the program is being built in
+     */
+    void appendParameterCopies(StringBuilder sb) {
+        for (String identifier : parameters) {
+            StringBuilder type = new StringBuilder();
+            if (appendType(type, identifier)) {
+                sb.append(type).append(' ').append(identifier).append(" = ");
+                if (getWidth(identifier) == Width.BIG) {
+                    sb.append(BIG_INTEGER).append(".valueOf(").append(identifier).append("$);\n");
+                } else {
+                    sb.append(identifier).append("$;\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Emits the statements of the function as Java, with the inferred widths.
+     *
+     * @param sb    the {@link StringBuilder} the program is being built in
+     */
+    void emitStatements(StringBuilder sb) {
+        emit(sb, tree.getStatements());
+    }
+
+    /**
+     * Appends the value the function returns, narrowed to an int if it has been widened.
+     *
+     * @param sb    the {@link StringBuilder} the program is being built in
+     */
+    void appendReturnValue(StringBuilder sb) {
+        Width width = getWidth(returnSlot);
+        if (width == Width.LONG) {
+            sb.append("Math.toIntExact(").append(returnSlot).append(')');
+        } else if (width == Width.BIG) {
+            sb.append(returnSlot).append(".intValueExact()");
+        } else {
+            sb.append(returnSlot);
+        }
+    }
+}